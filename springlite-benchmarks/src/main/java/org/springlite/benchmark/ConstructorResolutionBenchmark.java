@@ -0,0 +1,98 @@
+package org.springlite.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springlite.benchmark.bean.ConstructorBean;
+import org.springlite.benchmark.bean.SetterBean;
+import org.springlite.beans.BeanReference;
+import org.springlite.beans.ConstructorArgumentValues;
+import org.springlite.beans.factory.config.BeanDefinition;
+import org.springlite.beans.factory.support.DefaultListableBeanFactory;
+import org.springlite.beans.factory.support.RootBeanDefinition;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 〈构造器解析缓存性能〉&lt;p&gt;
+ * Creation of a prototype with constructor arguments matched by name, once
+ * with the constructor resolved on a fresh bean definition, once reusing the
+ * constructor and argument plan cached on the definition by earlier creations.
+ * Fresh definitions are registered outside the measurement.
+ *
+ * @author zixiao
+ * @date 16/6/12
+ * @see PrototypeBenchmark
+ * @since [产品/模块版本] （可选）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructorResolutionBenchmark {
+
+    private static final String PROTOTYPE = "prototype";
+
+    @Benchmark
+    public Object constructorCached(CachedState state) {
+        return state.beanFactory.getBean(PROTOTYPE);
+    }
+
+    @Benchmark
+    public Object constructorResolved(FreshState state) {
+        return state.beanFactory.getBean(PROTOTYPE);
+    }
+
+    static DefaultListableBeanFactory createBeanFactory() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("dependency", new RootBeanDefinition(SetterBean.class));
+        ConstructorArgumentValues cargs = new ConstructorArgumentValues();
+        cargs.addGenericArgumentValue(new BeanReference("dependency"), "dependency", null);
+        cargs.addGenericArgumentValue("30", "age", null);
+        cargs.addGenericArgumentValue(PROTOTYPE, "name", null);
+        cargs.setAutowrieBy(ConstructorArgumentValues.BY_NAME);
+        RootBeanDefinition bd = new RootBeanDefinition(ConstructorBean.class, cargs, null);
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        beanFactory.registerBeanDefinition(PROTOTYPE, bd);
+        beanFactory.getBean("dependency");
+        return beanFactory;
+    }
+
+
+    /**
+     * One bean factory for the whole trial.
+     */
+    @State(Scope.Thread)
+    public static class CachedState {
+
+        DefaultListableBeanFactory beanFactory;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.beanFactory = createBeanFactory();
+        }
+    }
+
+    /**
+     * A new bean factory, and with it a new definition, per invocation.
+     */
+    @State(Scope.Thread)
+    public static class FreshState {
+
+        DefaultListableBeanFactory beanFactory;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            this.beanFactory = createBeanFactory();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.springlite.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springlite.context.support.ClassPathXmlApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 〈多线程并发getBean〉&lt;p&gt;
+ * 64 threads looking up the same warmed singleton by name through one
+ * context, so every call goes through the context's delegation to its
+ * active bean factory at the same time.
+ *
+ * @author zixiao
+ * @date 16/6/17
+ * @see GetBeanBenchmark
+ * @since [产品/模块版本] （可选）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class ContendedGetBeanBenchmark {
+
+    private ClassPathXmlApplicationContext context;
+
+    private String singletonName;
+
+    @Setup
+    public void refresh() throws Exception {
+        this.context = new ClassPathXmlApplicationContext(SyntheticContextGenerator.generate(100));
+        this.singletonName = SyntheticContextGenerator.singletonName(50);
+    }
+
+    @TearDown
+    public void close() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public Object singletonByName() {
+        return this.context.getBean(this.singletonName);
+    }
+
+    @Benchmark
+    public boolean containsBean() {
+        return this.context.containsBean(this.singletonName);
+    }
+}
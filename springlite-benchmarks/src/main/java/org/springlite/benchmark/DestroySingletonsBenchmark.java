@@ -0,0 +1,66 @@
+package org.springlite.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springlite.beans.factory.ConfigurableListableBeanFactory;
+import org.springlite.beans.factory.support.DefaultListableBeanFactory;
+import org.springlite.context.support.ClassPathXmlApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 〈单例销毁性能〉&lt;p&gt;
+ * {@code destroySingletons} on a freshly refreshed context, in which every
+ * generated singleton has a destroy method and dependent beans, destroyed
+ * sequentially or on several threads. Each invocation gets its own context,
+ * refreshed outside the measurement.
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see SyntheticContextGenerator
+ * @since [产品/模块版本] （可选）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class DestroySingletonsBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int contextSize;
+
+    @Param({"1", "4"})
+    private int destructionParallelism;
+
+    private String configLocation;
+
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void generate() throws Exception {
+        this.configLocation = SyntheticContextGenerator.generate(this.contextSize);
+    }
+
+    @Setup(Level.Iteration)
+    public void refresh() {
+        this.beanFactory = new ClassPathXmlApplicationContext(this.configLocation).getBeanFactory();
+        ((DefaultListableBeanFactory) this.beanFactory).setDestructionParallelism(this.destructionParallelism);
+    }
+
+    @Benchmark
+    public void destroySingletons() {
+        this.beanFactory.destroySingletons();
+    }
+}
@@ -0,0 +1,66 @@
+package org.springlite.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springlite.benchmark.bean.TypedService;
+import org.springlite.context.support.ClassPathXmlApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 〈getBean查找性能〉&lt;p&gt;
+ * Lookups on a refreshed context whose singletons are all created: by name
+ * on a warmed singleton, and by type on the one {@link TypedService}, which
+ * has to be told apart from every other bean definition.
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see SyntheticContextGenerator
+ * @since [产品/模块版本] （可选）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetBeanBenchmark {
+
+    @Param({"100", "1000"})
+    private int contextSize;
+
+    private ClassPathXmlApplicationContext context;
+
+    private String singletonName;
+
+    @Setup
+    public void refresh() throws Exception {
+        this.context = new ClassPathXmlApplicationContext(SyntheticContextGenerator.generate(this.contextSize));
+        this.singletonName = SyntheticContextGenerator.singletonName(this.contextSize / 2);
+    }
+
+    @TearDown
+    public void close() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public Object singletonByName() {
+        return this.context.getBean(this.singletonName);
+    }
+
+    @Benchmark
+    public TypedService singletonByType() {
+        return this.context.getBean(TypedService.class);
+    }
+}
@@ -0,0 +1,94 @@
+package org.springlite.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springlite.benchmark.bean.SetterBean;
+import org.springlite.beans.factory.ObjectFactory;
+import org.springlite.beans.factory.support.BytecodeInstantiationStrategy;
+import org.springlite.beans.factory.support.DefaultListableBeanFactory;
+import org.springlite.beans.factory.support.SimpleInstantiationStrategy;
+import org.springlite.context.support.ClassPathXmlApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 〈prototype bean创建性能〉&lt;p&gt;
+ * Creation of a prototype wired by setters and of one wired by constructor
+ * arguments, each referring to a singleton, under either instantiation strategy,
+ * and of a setter prototype registered from Java code whose instance supplier
+ * creates and wires it with plain calls.
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see SyntheticContextGenerator#SETTER_PROTOTYPE
+ * @see SyntheticContextGenerator#CONSTRUCTOR_PROTOTYPE
+ * @since [产品/模块版本] （可选）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrototypeBenchmark {
+
+    private static final String SUPPLIER_PROTOTYPE = "supplierPrototype";
+
+    @Param({"reflection", "bytecode"})
+    private String instantiationStrategy;
+
+    private ClassPathXmlApplicationContext context;
+
+    @Setup
+    public void refresh() throws Exception {
+        this.context = new ClassPathXmlApplicationContext(SyntheticContextGenerator.generate(10));
+        final DefaultListableBeanFactory beanFactory = (DefaultListableBeanFactory) this.context.getBeanFactory();
+        if ("bytecode".equals(this.instantiationStrategy)) {
+            beanFactory.setInstantiationStrategy(new BytecodeInstantiationStrategy());
+        } else {
+            beanFactory.setInstantiationStrategy(new SimpleInstantiationStrategy());
+        }
+        beanFactory.defineBean(SUPPLIER_PROTOTYPE, SetterBean.class)
+                .instanceSupplier(new ObjectFactory<SetterBean>() {
+                    public SetterBean getObject() {
+                        SetterBean bean = new SetterBean();
+                        bean.setName(SUPPLIER_PROTOTYPE);
+                        bean.setAge(0);
+                        bean.setDependency(beanFactory.getBean(SyntheticContextGenerator.singletonName(0)));
+                        return bean;
+                    }
+                })
+                .prototype()
+                .register();
+    }
+
+    @TearDown
+    public void close() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public Object setterPrototype() {
+        return this.context.getBean(SyntheticContextGenerator.SETTER_PROTOTYPE);
+    }
+
+    @Benchmark
+    public Object constructorPrototype() {
+        return this.context.getBean(SyntheticContextGenerator.CONSTRUCTOR_PROTOTYPE);
+    }
+
+    @Benchmark
+    public Object supplierPrototype() {
+        return this.context.getBean(SUPPLIER_PROTOTYPE);
+    }
+}
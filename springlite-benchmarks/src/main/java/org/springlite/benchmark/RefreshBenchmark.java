@@ -0,0 +1,64 @@
+package org.springlite.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springlite.context.support.ClassPathXmlApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 〈容器启动性能〉&lt;p&gt;
+ * Full {@link ClassPathXmlApplicationContext} refresh of generated contexts:
+ * reading the xml, registering the definitions and creating all singletons.
+ * Closing the context is not measured.
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see SyntheticContextGenerator
+ * @since [产品/模块版本] （可选）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RefreshBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int contextSize;
+
+    private String configLocation;
+
+    private ClassPathXmlApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void generate() throws Exception {
+        this.configLocation = SyntheticContextGenerator.generate(this.contextSize);
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() {
+        if (this.context != null) {
+            this.context.close();
+            this.context = null;
+        }
+    }
+
+    @Benchmark
+    public ClassPathXmlApplicationContext refresh() {
+        this.context = new ClassPathXmlApplicationContext(this.configLocation);
+        return this.context;
+    }
+}
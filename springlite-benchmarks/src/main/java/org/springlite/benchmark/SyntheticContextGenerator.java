@@ -0,0 +1,120 @@
+package org.springlite.benchmark;
+
+import org.springlite.benchmark.bean.ConstructorBean;
+import org.springlite.benchmark.bean.SetterBean;
+import org.springlite.benchmark.bean.TypedService;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * 〈生成指定规模的xml配置〉&lt;p&gt;
+ * Writes bean definition files of any size for the benchmarks.
+ *
+ * <p>A generated context holds {@code singletonCount} singletons, alternating
+ * between {@link SetterBean} and {@link ConstructorBean}. Each one refers to
+ * the bean at half its index (the first one, a setter bean, refers to none),
+ * so the references form a balanced tree and creation depth stays logarithmic
+ * in the context size. Every singleton has a destroy method. On top of those come one {@link TypedService} for type
+ * lookups, plus the prototypes {@value #SETTER_PROTOTYPE} and
+ * {@value #CONSTRUCTOR_PROTOTYPE}.
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see [相关类/方法]（可选）
+ * @since [产品/模块版本] （可选）
+ */
+public abstract class SyntheticContextGenerator {
+
+    public static final String SINGLETON_PREFIX = "bean";
+
+    public static final String SETTER_PROTOTYPE = "setterPrototype";
+
+    public static final String CONSTRUCTOR_PROTOTYPE = "constructorPrototype";
+
+    public static final String TYPED_SERVICE = "typedService";
+
+    private static final String HEADER =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<beans xmlns=\"http://www.springframework.org/schema/beans\"\n" +
+            "       xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+            "       xsi:schemaLocation=\"http://www.springframework.org/schema/beans " +
+            "http://www.springframework.org/schema/beans/spring-beans-3.2.xsd\">\n\n";
+
+    private static final String FOOTER = "</beans>\n";
+
+
+    /**
+     * Write a context of the given size to a temporary file, deleted on exit.
+     * @param singletonCount the number of generated singletons, at least 1
+     * @return the location of the file, usable as a config location
+     */
+    public static String generate(int singletonCount) throws IOException {
+        File file = File.createTempFile("springlite-benchmark-" + singletonCount + "-", ".xml");
+        file.deleteOnExit();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            write(writer, singletonCount);
+        } finally {
+            writer.close();
+        }
+        return file.toURI().toString();
+    }
+
+    /**
+     * Write a context of the given size to the given writer.
+     */
+    public static void write(Writer writer, int singletonCount) throws IOException {
+        if (singletonCount < 1) {
+            throw new IllegalArgumentException("singletonCount must be at least 1");
+        }
+        writer.write(HEADER);
+        for (int i = 0; i < singletonCount; i++) {
+            String dependency = (i > 0 ? singletonName(i / 2) : null);
+            if (i % 2 == 0) {
+                writeSetterBean(writer, singletonName(i), "singleton", i, dependency);
+            } else {
+                writeConstructorBean(writer, singletonName(i), "singleton", i, dependency);
+            }
+        }
+        writer.write("    <bean id=\"" + TYPED_SERVICE + "\" class=\"" + TypedService.class.getName() + "\">\n");
+        writer.write("        <property name=\"dependency\" ref=\"" + singletonName(0) + "\"/>\n");
+        writer.write("    </bean>\n");
+        writeSetterBean(writer, SETTER_PROTOTYPE, "prototype", 0, singletonName(0));
+        writeConstructorBean(writer, CONSTRUCTOR_PROTOTYPE, "prototype", 0, singletonName(0));
+        writer.write(FOOTER);
+    }
+
+    public static String singletonName(int index) {
+        return SINGLETON_PREFIX + index;
+    }
+
+    private static void writeSetterBean(Writer writer, String id, String scope, int age, String dependency)
+            throws IOException {
+        writer.write("    <bean id=\"" + id + "\" class=\"" + SetterBean.class.getName() + "\" scope=\"" + scope +
+                "\"" + destroyMethod(scope) + ">\n");
+        writer.write("        <property name=\"name\" value=\"" + id + "\"/>\n");
+        writer.write("        <property name=\"age\" value=\"" + age + "\"/>\n");
+        if (dependency != null) {
+            writer.write("        <property name=\"dependency\" ref=\"" + dependency + "\"/>\n");
+        }
+        writer.write("    </bean>\n");
+    }
+
+    private static void writeConstructorBean(Writer writer, String id, String scope, int age, String dependency)
+            throws IOException {
+        writer.write("    <bean id=\"" + id + "\" class=\"" + ConstructorBean.class.getName() + "\" scope=\"" + scope +
+                "\"" + destroyMethod(scope) + ">\n");
+        writer.write("        <constructor-arg index=\"0\" type=\"java.lang.String\" value=\"" + id + "\"/>\n");
+        writer.write("        <constructor-arg index=\"1\" type=\"int\" value=\"" + age + "\"/>\n");
+        writer.write("        <constructor-arg index=\"2\" ref=\"" + dependency + "\"/>\n");
+        writer.write("    </bean>\n");
+    }
+
+    private static String destroyMethod(String scope) {
+        return ("singleton".equals(scope) ? " destroy-method=\"close\"" : "");
+    }
+}
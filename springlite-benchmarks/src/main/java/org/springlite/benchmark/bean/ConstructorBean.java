@@ -0,0 +1,47 @@
+package org.springlite.benchmark.bean;
+
+/**
+ * 〈通过构造参数注入的基准bean〉&lt;p&gt;
+ * 〈功能详细描述〉
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see [相关类/方法]（可选）
+ * @since [产品/模块版本] （可选）
+ */
+public class ConstructorBean {
+
+    private final String name;
+
+    private final int age;
+
+    private final Object dependency;
+
+    private boolean closed;
+
+    public ConstructorBean(String name, int age, Object dependency) {
+        this.name = name;
+        this.age = age;
+        this.dependency = dependency;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public Object getDependency() {
+        return dependency;
+    }
+
+    public void close() {
+        this.closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
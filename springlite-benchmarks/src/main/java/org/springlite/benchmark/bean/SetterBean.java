@@ -0,0 +1,53 @@
+package org.springlite.benchmark.bean;
+
+/**
+ * 〈通过setter注入的基准bean〉&lt;p&gt;
+ * 〈功能详细描述〉
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see [相关类/方法]（可选）
+ * @since [产品/模块版本] （可选）
+ */
+public class SetterBean {
+
+    private String name;
+
+    private int age;
+
+    private Object dependency;
+
+    private boolean closed;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+
+    public Object getDependency() {
+        return dependency;
+    }
+
+    public void setDependency(Object dependency) {
+        this.dependency = dependency;
+    }
+
+    public void close() {
+        this.closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,25 @@
+package org.springlite.benchmark.bean;
+
+/**
+ * 〈按类型查找的基准bean〉&lt;p&gt;
+ * Registered exactly once per generated context, so that
+ * {@code getBean(TypedService.class)} has a unique candidate among all
+ * generated bean definitions.
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see [相关类/方法]（可选）
+ * @since [产品/模块版本] （可选）
+ */
+public class TypedService {
+
+    private Object dependency;
+
+    public Object getDependency() {
+        return dependency;
+    }
+
+    public void setDependency(Object dependency) {
+        this.dependency = dependency;
+    }
+}
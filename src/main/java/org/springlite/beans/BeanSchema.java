@@ -37,6 +37,8 @@ public interface BeanSchema {
 
         public static final String LAZY_INIT = "lazy-init";
 
+        public static final String ASYNC_INIT = "async-init";
+
         public static final String AUTOWIRE = "autowire";
 
         public static final String AUTOWIRE_CANDIDATE = "autowire-candidate";
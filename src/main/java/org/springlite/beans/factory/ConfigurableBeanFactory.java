@@ -1,6 +1,8 @@
 package org.springlite.beans.factory;
 
 import org.springlite.beans.factory.config.BeanPostProcessor;
+import org.springlite.beans.factory.config.Scope;
+import org.springlite.core.metrics.ApplicationStartup;
 
 /**
  * ConfigurableBeanFactory<p/>
@@ -31,6 +33,48 @@ public interface ConfigurableBeanFactory extends BeanFactory{
      */
     int getBeanPostProcessorCount();
 
+    /**
+     * Set the {@link ApplicationStartup} recording the creation of the beans of
+     * this factory: instantiation, population, post-processors and init methods
+     * of each bean, nested within the creation that triggered it.
+     * <p>Default is {@link ApplicationStartup#DEFAULT}, recording nothing.
+     */
+    void setApplicationStartup(ApplicationStartup applicationStartup);
+
+    /**
+     * Return the {@link ApplicationStartup} of this factory.
+     */
+    ApplicationStartup getApplicationStartup();
+
+    /**
+     * Register the given scope, backed by the given Scope implementation.
+     * <p>Registering a scope under a name already in use replaces it, for
+     * bean definitions that already used the previous one as well.
+     * @param scopeName the scope identifier
+     * @param scope the backing Scope implementation
+     * @throws IllegalArgumentException for the built-in "singleton" and "prototype" scopes
+     */
+    void registerScope(String scopeName, Scope scope);
+
+    /**
+     * Return the names of all currently registered scopes.
+     * <p>This will only return the names of explicitly registered scopes.
+     * Built-in scopes such as "singleton" and "prototype" won't be exposed.
+     * @return the array of scope names, or an empty array if none
+     * @see #registerScope
+     */
+    String[] getRegisteredScopeNames();
+
+    /**
+     * Return the Scope implementation for the given scope name, if any.
+     * <p>This will only return explicitly registered scopes.
+     * Built-in scopes such as "singleton" and "prototype" won't be exposed.
+     * @param scopeName the name of the scope
+     * @return the registered Scope implementation, or {@code null} if none
+     * @see #registerScope
+     */
+    Scope getRegisteredScope(String scopeName);
+
     /**
      * Destroy the given bean instance (usually a prototype instance
      * obtained from this factory) according to its bean definition.
@@ -51,7 +95,8 @@ public interface ConfigurableBeanFactory extends BeanFactory{
 
     /**
      * Destroy all singleton beans in this factory, including inner beans that have
-     * been registered as disposable. To be called on shutdown of a factory.
+     * been registered as disposable, and the beans of registered scopes that are
+     * {@link DisposableBean}s. To be called on shutdown of a factory.
      * <p>Any exception that arises during destruction should be caught
      * and logged instead of propagated to the caller of this method.
      */
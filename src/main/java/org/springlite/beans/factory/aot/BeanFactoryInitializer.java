@@ -0,0 +1,26 @@
+package org.springlite.beans.factory.aot;
+
+import org.springlite.beans.factory.support.DefaultListableBeanFactory;
+
+/**
+ * 〈预生成的bean工厂初始化〉&lt;p&gt;
+ * Registers bean definitions into a bean factory from plain Java code,
+ * typically a class written at build time by {@link BeanFactoryInitializerGenerator}.
+ *
+ * <p>Implementations need a public no-arg constructor to be run by an
+ * application context.
+ *
+ * @author zixiao
+ * @date 16/6/22
+ * @see org.springlite.context.support.AbstractXmlApplicationContext#setBeanFactoryInitializerClassName
+ * @since [产品/模块版本] （可选）
+ */
+public interface BeanFactoryInitializer {
+
+    /**
+     * Register the bean definitions into the given bean factory.
+     * @param beanFactory the bean factory of the context being refreshed
+     */
+    void initialize(DefaultListableBeanFactory beanFactory);
+
+}
@@ -0,0 +1,817 @@
+package org.springlite.beans.factory.aot;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springlite.beans.BeanReference;
+import org.springlite.beans.BeanUtils;
+import org.springlite.beans.ConstructorArgumentValues;
+import org.springlite.beans.ConstructorArgumentValues.ValueHolder;
+import org.springlite.beans.PropertyValue;
+import org.springlite.beans.exception.BeanDefinitionStoreException;
+import org.springlite.beans.factory.FactoryBean;
+import org.springlite.beans.factory.config.BeanDefinition;
+import org.springlite.beans.factory.support.DefaultListableBeanFactory;
+import org.springlite.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springlite.core.io.DefaultResourceLoader;
+import org.springlite.core.io.ResourceLoader;
+import org.springlite.util.Assert;
+import org.springlite.util.ByteCodeUtils;
+import org.springlite.util.ClassUtils;
+
+import java.io.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * 〈生成bean工厂初始化的Java源码〉&lt;p&gt;
+ * Build-time step that parses XML bean definition files, imports included,
+ * and writes the Java source of a {@link BeanFactoryInitializer} registering
+ * the same bean definitions, to be compiled with the application and run at
+ * startup instead of parsing the XML.
+ *
+ * <p>Each bean gets an instance supplier calling its constructor directly,
+ * resolved and type-checked here, with literal values already converted to
+ * Java literals. Its properties are set in the supplier through direct setter
+ * calls. Beans that cannot be created that way (non-public class, constructor
+ * or setter, ambiguous constructor, class missing at build time...) are
+ * registered with their class name and values as read from the XML, and are
+ * created reflectively at runtime. So are the bean references of beans on a
+ * reference cycle, which need the early singleton reference exposed after
+ * construction.
+ *
+ * <p>Can be run from the build after the compile phase, e.g. through the
+ * exec-maven-plugin, with
+ * {@code java org.springlite.beans.factory.aot.BeanFactoryInitializerGenerator <source directory> <class name> <location>...};
+ * the generated source then has to be compiled too.
+ *
+ * @author zixiao
+ * @date 16/6/22
+ * @see org.springlite.context.support.AbstractXmlApplicationContext#setBeanFactoryInitializerClassName
+ * @since [产品/模块版本] （可选）
+ */
+public class BeanFactoryInitializerGenerator {
+
+    private static final Log logger = LogFactory.getLog(BeanFactoryInitializerGenerator.class);
+
+    private final ResourceLoader resourceLoader;
+
+    private ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+
+    private boolean validating = true;
+
+    public BeanFactoryInitializerGenerator() {
+        this(new DefaultResourceLoader());
+    }
+
+    public BeanFactoryInitializerGenerator(ResourceLoader resourceLoader) {
+        Assert.notNull(resourceLoader, "ResourceLoader must not be null");
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * Set whether to use XML validation while parsing. Default is {@code true}.
+     */
+    public void setValidating(boolean validating) {
+        this.validating = validating;
+    }
+
+    /**
+     * Set the class loader to load the bean classes with, to resolve their
+     * constructors and setters. Default is the thread context class loader.
+     */
+    public void setClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Parse the given config locations and write the initializer source to its
+     * package directory under the given source directory.
+     * @param className the fully qualified name of the class to generate
+     * @return the generated source file
+     */
+    public File generate(File sourceDirectory, String className, String... locations) throws IOException {
+        File sourceFile = new File(sourceDirectory, className.replace('.', File.separatorChar) + ".java");
+        File packageDirectory = sourceFile.getParentFile();
+        if (!packageDirectory.isDirectory() && !packageDirectory.mkdirs()) {
+            throw new IOException("Cannot create directory " + packageDirectory);
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(sourceFile), "UTF-8");
+        try {
+            generate(writer, className, locations);
+        }
+        finally {
+            writer.close();
+        }
+        return sourceFile;
+    }
+
+    /**
+     * Parse the given config locations and write the initializer source to the given writer.
+     * @param className the fully qualified name of the class to generate
+     * @return the number of bean definitions registered by the generated class
+     */
+    public int generate(Writer writer, String className, String... locations) throws IOException {
+        Assert.hasText(className, "Class name must not be empty");
+        Assert.notNull(locations, "Location array must not be null");
+        DefaultListableBeanFactory registry = new DefaultListableBeanFactory();
+        loadBeanDefinitions(registry, locations);
+
+        String[] beanNames = registry.getBeanDefinitionNames();
+        Set<String> cyclicBeanNames = new ReferenceCycles(registry, beanNames).find();
+        Set<String> methodNames = new HashSet<String>();
+        SourceWriter source = new SourceWriter();
+
+        int lastDot = className.lastIndexOf('.');
+        if (lastDot > 0) {
+            source.line("package " + className.substring(0, lastDot) + ";");
+            source.line();
+        }
+        source.line("import org.springlite.beans.BeanReference;");
+        source.line("import org.springlite.beans.BeanUtils;");
+        source.line("import org.springlite.beans.ConstructorArgumentValues;");
+        source.line("import org.springlite.beans.factory.ObjectFactory;");
+        source.line("import org.springlite.beans.factory.aot.BeanFactoryInitializer;");
+        source.line("import org.springlite.beans.factory.support.BeanDefinitionBuilder;");
+        source.line("import org.springlite.beans.factory.support.DefaultListableBeanFactory;");
+        source.line();
+        source.line("/**");
+        source.line(" * Registers the bean definitions of " + Arrays.toString(locations) + ".");
+        source.line(" * Generated by BeanFactoryInitializerGenerator: do not edit, regenerate instead.");
+        source.line(" */");
+        source.line("public class " + className.substring(lastDot + 1) + " implements BeanFactoryInitializer {");
+        source.line();
+        source.indent();
+        String[] registerMethods = new String[beanNames.length];
+        for (int i = 0; i < beanNames.length; i++) {
+            registerMethods[i] = methodName(beanNames[i], methodNames);
+        }
+        source.line("public void initialize(DefaultListableBeanFactory beanFactory) {");
+        source.indent();
+        for (String registerMethod : registerMethods) {
+            source.line(registerMethod + "(beanFactory);");
+        }
+        source.outdent();
+        source.line("}");
+        for (int i = 0; i < beanNames.length; i++) {
+            source.line();
+            new BeanSource(registry, beanNames[i], registry.getBeanDefinition(beanNames[i]),
+                    cyclicBeanNames.contains(beanNames[i])).write(source, registerMethods[i]);
+        }
+        source.outdent();
+        source.line();
+        source.line("}");
+
+        writer.write(source.toString());
+        writer.flush();
+        return beanNames.length;
+    }
+
+    /**
+     * Load the bean definitions to generate the initializer for.
+     * <p>Parses the config locations; subclasses may register further definitions.
+     * @param registry the registry to load into
+     * @param locations the config locations
+     */
+    protected void loadBeanDefinitions(DefaultListableBeanFactory registry, String... locations) {
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(registry, this.resourceLoader);
+        reader.setValidating(this.validating);
+        reader.loadBeanDefinitions(locations);
+    }
+
+    private static String methodName(String beanName, Set<String> methodNames) {
+        StringBuilder name = new StringBuilder("register");
+        for (int i = 0; i < beanName.length(); i++) {
+            char c = beanName.charAt(i);
+            if (i == 0) {
+                name.append(Character.isJavaIdentifierPart(c) ? Character.toUpperCase(c) : '_');
+            }
+            else {
+                name.append(Character.isJavaIdentifierPart(c) ? c : '_');
+            }
+        }
+        String methodName = name.toString();
+        for (int i = 2; !methodNames.add(methodName); i++) {
+            methodName = name.toString() + i;
+        }
+        return methodName;
+    }
+
+    private Class<?> loadClass(String className) {
+        if (className == null) {
+            return null;
+        }
+        try {
+            return ClassUtils.forName(className, this.classLoader);
+        }
+        catch (ClassNotFoundException ex) {
+            return null;
+        }
+        catch (LinkageError err) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Source of the register method of one bean.
+     */
+    private class BeanSource {
+
+        private final DefaultListableBeanFactory registry;
+
+        private final String beanName;
+
+        private final BeanDefinition bd;
+
+        private final boolean cyclic;
+
+        /** Why the bean is created reflectively, or {@code null} if it has an instance supplier */
+        private String reflectiveReason;
+
+        private Class<?> beanClass;
+
+        private String[] constructorArgs;
+
+        BeanSource(DefaultListableBeanFactory registry, String beanName, BeanDefinition bd, boolean cyclic) {
+            this.registry = registry;
+            this.beanName = beanName;
+            this.bd = bd;
+            this.cyclic = cyclic;
+        }
+
+        void write(SourceWriter source, String methodName) {
+            resolveInstantiation();
+            source.line("private void " + methodName + "(final DefaultListableBeanFactory beanFactory) {");
+            source.indent();
+            if (this.reflectiveReason != null) {
+                source.line("// Created reflectively: " + this.reflectiveReason);
+                source.line("BeanDefinitionBuilder builder = BeanDefinitionBuilder.rootBeanDefinition(" +
+                        (this.bd.getBeanClassName() != null ? quote(this.bd.getBeanClassName()) : "(String) null") + ");");
+            }
+            else {
+                source.line("BeanDefinitionBuilder builder = BeanDefinitionBuilder.rootBeanDefinition(" +
+                        sourceName(this.beanClass) + ".class);");
+            }
+            source.line("builder.setBeanName(" + quote(this.beanName) + ");");
+            writeAttributes(source);
+
+            List<PropertyValue> runtimeProperties = new ArrayList<PropertyValue>();
+            if (this.reflectiveReason != null) {
+                writeConstructorArgumentValues(source);
+                runtimeProperties.addAll(this.bd.getPropertyValues().getPropertyValueList());
+            }
+            else {
+                source.line("builder.setInstanceSupplier(new ObjectFactory<Object>() {");
+                source.indent();
+                source.line("public Object getObject() {");
+                source.indent();
+                String className = sourceName(this.beanClass);
+                source.line(className + " bean = new " + className + "(" + join(this.constructorArgs) + ");");
+                for (PropertyValue pv : this.bd.getPropertyValues().getPropertyValueList()) {
+                    String statement = propertyStatement(pv);
+                    if (statement != null) {
+                        source.line(statement);
+                    }
+                    else {
+                        runtimeProperties.add(pv);
+                    }
+                }
+                source.line("return bean;");
+                source.outdent();
+                source.line("}");
+                source.outdent();
+                source.line("});");
+            }
+            for (PropertyValue pv : runtimeProperties) {
+                if (pv.getValue() instanceof BeanReference) {
+                    source.line("builder.addPropertyReference(" + quote(pv.getName()) + ", " +
+                            quote(((BeanReference) pv.getValue()).getName()) + ");");
+                }
+                else {
+                    source.line("builder.addPropertyValue(" + quote(pv.getName()) + ", " + valueSource(pv.getValue()) + ");");
+                }
+            }
+            source.line("beanFactory.registerBeanDefinition(" + quote(this.beanName) + ", builder.getBeanDefinition());");
+            source.outdent();
+            source.line("}");
+        }
+
+        private void writeAttributes(SourceWriter source) {
+            if (this.bd.getScope() != null && this.bd.getScope().length() > 0) {
+                source.line("builder.setScope(" + quote(this.bd.getScope()) + ");");
+            }
+            if (this.bd.isAbstract()) {
+                source.line("builder.setAbstract(true);");
+            }
+            if (this.bd.isLazyInit()) {
+                source.line("builder.setLazyInit(true);");
+            }
+            if (this.bd.isAsyncInit()) {
+                source.line("builder.setAsyncInit(true);");
+            }
+            if (this.bd.getInitMethodName() != null) {
+                source.line("builder.setInitMethodName(" + quote(this.bd.getInitMethodName()) + ");");
+            }
+            if (this.bd.getDestroyMethodName() != null) {
+                source.line("builder.setDestroyMethodName(" + quote(this.bd.getDestroyMethodName()) + ");");
+            }
+            if (this.bd.getDependsOn() != null) {
+                for (String dependsOn : this.bd.getDependsOn()) {
+                    source.line("builder.addDependsOn(" + quote(dependsOn) + ");");
+                }
+            }
+        }
+
+        private void writeConstructorArgumentValues(SourceWriter source) {
+            ConstructorArgumentValues cargs = this.bd.getConstructorArgumentValues();
+            if (cargs.isEmpty()) {
+                return;
+            }
+            source.line("ConstructorArgumentValues cargs = builder.getRawBeanDefinition().getConstructorArgumentValues();");
+            source.line("cargs.setAutowrieBy(" + cargs.getAutowrieBy() + ");");
+            for (Map.Entry<Integer, ValueHolder> entry : cargs.getIndexedArgumentValues().entrySet()) {
+                ValueHolder valueHolder = entry.getValue();
+                source.line("cargs.addIndexedArgumentValue(" + entry.getKey() + ", " + valueSource(valueHolder.getValue()) +
+                        ", " + quote(valueHolder.getType()) + ");");
+                if (valueHolder.getName() != null) {
+                    source.line("cargs.getIndexedArgumentValues().get(" + entry.getKey() + ").setName(" +
+                            quote(valueHolder.getName()) + ");");
+                }
+            }
+            for (ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+                source.line("cargs.addGenericArgumentValue(" + valueSource(valueHolder.getValue()) + ", " +
+                        quote(valueHolder.getName()) + ", " + quote(valueHolder.getType()) + ");");
+            }
+        }
+
+        /**
+         * Resolve the class and constructor of the bean, or the reason it is created reflectively.
+         */
+        private void resolveInstantiation() {
+            if (this.bd.isAbstract()) {
+                this.reflectiveReason = "abstract bean definition";
+                return;
+            }
+            this.beanClass = loadClass(this.bd.getBeanClassName());
+            if (this.beanClass == null) {
+                this.reflectiveReason = "class not found at build time";
+            }
+            else if (!isAccessible(this.beanClass) || Modifier.isAbstract(this.beanClass.getModifiers()) ||
+                    (this.beanClass.isMemberClass() && !Modifier.isStatic(this.beanClass.getModifiers()))) {
+                this.reflectiveReason = "class cannot be instantiated from generated code";
+            }
+            else {
+                this.constructorArgs = resolveConstructorArgs();
+                if (this.constructorArgs == null) {
+                    this.reflectiveReason = "no unique public constructor matching the constructor-args";
+                }
+            }
+            if (this.reflectiveReason != null && logger.isInfoEnabled()) {
+                logger.info("Bean '" + this.beanName + "' will be created reflectively: " + this.reflectiveReason);
+            }
+        }
+
+        /**
+         * Match the constructor-args against the public constructors, the way
+         * the ConstructorResolver does at runtime but with the declared class of
+         * referenced beans instead of their instances.
+         * @return the argument expressions of the only matching constructor, or {@code null}
+         * @throws BeanDefinitionStoreException if the indexes of the constructor-args
+         * are not 0 to their count - 1
+         */
+        private String[] resolveConstructorArgs() {
+            ConstructorArgumentValues cargs = this.bd.getConstructorArgumentValues();
+            int argsCount = cargs.getArgumentCount();
+            if (cargs.getAutowrieBy() == ConstructorArgumentValues.BY_INDEX) {
+                if (!cargs.getGenericArgumentValues().isEmpty()) {
+                    return null;
+                }
+                // distinct indexes, all below the count: no gaps either
+                for (Integer index : cargs.getIndexedArgumentValues().keySet()) {
+                    if (index < 0 || index >= argsCount) {
+                        throw new BeanDefinitionStoreException(this.bd.getResourceDescription(), this.beanName,
+                                "Constructor-arg index " + index + " out of range: " + argsCount +
+                                " constructor-args need the indexes 0 to " + (argsCount - 1));
+                    }
+                }
+            }
+            String[] matchedArgs = null;
+            for (Constructor<?> constructor : this.beanClass.getConstructors()) {
+                Class<?>[] paramTypes = constructor.getParameterTypes();
+                if (paramTypes.length != argsCount) {
+                    continue;
+                }
+                String[] args = new String[argsCount];
+                boolean matched = true;
+                if (argsCount == 0) {
+                    // no-arg constructor
+                }
+                else if (cargs.getAutowrieBy() == ConstructorArgumentValues.BY_INDEX) {
+                    for (Map.Entry<Integer, ValueHolder> entry : cargs.getIndexedArgumentValues().entrySet()) {
+                        int index = entry.getKey();
+                        args[index] = argumentSource(entry.getValue().getValue(), paramTypes[index]);
+                        if (args[index] == null) {
+                            matched = false;
+                            break;
+                        }
+                    }
+                }
+                else if (cargs.getAutowrieBy() == ConstructorArgumentValues.BY_NAME) {
+                    List<String> paramNames;
+                    try {
+                        paramNames = ByteCodeUtils.getParameterNames(constructor);
+                    }
+                    catch (IOException ex) {
+                        return null;
+                    }
+                    if (paramNames == null || paramNames.size() != argsCount) {
+                        return null;
+                    }
+                    for (ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+                        int index = paramNames.indexOf(valueHolder.getName());
+                        String arg = (index >= 0 && args[index] == null ?
+                                argumentSource(valueHolder.getValue(), paramTypes[index]) : null);
+                        if (arg == null) {
+                            matched = false;
+                            break;
+                        }
+                        args[index] = arg;
+                    }
+                }
+                else {
+                    return null;
+                }
+                if (matched) {
+                    if (matchedArgs != null) {
+                        return null;
+                    }
+                    matchedArgs = args;
+                }
+            }
+            return matchedArgs;
+        }
+
+        /**
+         * Return the expression of a constructor argument, or {@code null} if
+         * the value does not fit the parameter type.
+         */
+        private String argumentSource(Object value, Class<?> paramType) {
+            if (value instanceof BeanReference) {
+                return referenceSource((BeanReference) value, paramType);
+            }
+            if (value instanceof String) {
+                return literalSource((String) value, paramType);
+            }
+            return null;
+        }
+
+        private String referenceSource(BeanReference reference, Class<?> targetType) {
+            if (targetType.isPrimitive() || !isAccessible(targetType)) {
+                return null;
+            }
+            Class<?> referencedType = predictReferencedType(reference.getName());
+            if (referencedType != null && !targetType.isAssignableFrom(referencedType)) {
+                return null;
+            }
+            return "(" + sourceName(targetType) + ") beanFactory.getBean(" + quote(reference.getName()) + ")";
+        }
+
+        /**
+         * Return the class of a referenced bean, or {@code null} if not known at build time.
+         */
+        private Class<?> predictReferencedType(String referencedBeanName) {
+            if (!this.registry.containsBeanDefinition(referencedBeanName)) {
+                return null;
+            }
+            Class<?> referencedClass = loadClass(this.registry.getBeanDefinition(referencedBeanName).getBeanClassName());
+            return (referencedClass != null && !FactoryBean.class.isAssignableFrom(referencedClass) ? referencedClass : null);
+        }
+
+        /**
+         * Return the statement setting a property on {@code bean}, or {@code null}
+         * if the property is left to be applied reflectively at runtime.
+         */
+        private String propertyStatement(PropertyValue pv) {
+            Object value = pv.getValue();
+            if (value instanceof BeanReference && this.cyclic) {
+                return null;
+            }
+            String propertyName = pv.getName();
+            String setterName = "set" + propertyName.substring(0, 1).toUpperCase() + propertyName.substring(1);
+            // The same setters the PropertyResolver finds, public or not
+            List<Method> setters = new ArrayList<Method>(1);
+            Set<String> signatures = new HashSet<String>();
+            for (Class<?> clazz = this.beanClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Method method : clazz.getDeclaredMethods()) {
+                    if (method.getName().equals(setterName) && method.getParameterTypes().length == 1 &&
+                            !Modifier.isStatic(method.getModifiers()) && !method.isBridge() &&
+                            signatures.add(method.getParameterTypes()[0].getName())) {
+                        setters.add(method);
+                    }
+                }
+            }
+            if (setters.size() > 1) {
+                return null;
+            }
+            if (setters.size() == 1) {
+                Method setter = setters.get(0);
+                String arg = (Modifier.isPublic(setter.getModifiers()) ?
+                        argumentSource(value, setter.getParameterTypes()[0]) : null);
+                return (arg != null ? "bean." + setterName + "(" + arg + ");" : null);
+            }
+            for (Class<?> clazz = this.beanClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                try {
+                    Field field = clazz.getDeclaredField(propertyName);
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isPublic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers)) {
+                        return null;
+                    }
+                    String arg = argumentSource(value, field.getType());
+                    return (arg != null ? "bean." + propertyName + " = " + arg + ";" : null);
+                }
+                catch (NoSuchFieldException ex) {
+                    //try super class
+                }
+            }
+            return null;
+        }
+    }
+
+
+    /**
+     * Return the Java expression of a literal converted to the given type, or
+     * {@code null} if it cannot be converted, leaving the error to runtime.
+     */
+    private static String literalSource(String value, Class<?> targetType) {
+        if (ClassUtils.isAssignableValue(targetType, value)) {
+            return quote(value);
+        }
+        if (!BeanUtils.isSimpleProperty(targetType) || !isAccessible(targetType)) {
+            return null;
+        }
+        Object converted;
+        try {
+            converted = BeanUtils.convertByType(value, targetType);
+        }
+        catch (RuntimeException ex) {
+            return null;
+        }
+        if (converted instanceof Integer) {
+            return converted.toString();
+        }
+        if (converted instanceof Long) {
+            return converted + "L";
+        }
+        if (converted instanceof Short) {
+            return "(short) " + converted;
+        }
+        if (converted instanceof Byte) {
+            return "(byte) " + converted;
+        }
+        if (converted instanceof Float && !((Float) converted).isNaN() && !((Float) converted).isInfinite()) {
+            return converted + "f";
+        }
+        if (converted instanceof Double && !((Double) converted).isNaN() && !((Double) converted).isInfinite()) {
+            return converted + "d";
+        }
+        if (converted instanceof BigDecimal) {
+            return "new java.math.BigDecimal(" + quote(converted.toString()) + ")";
+        }
+        Class<?> boxedType = ClassUtils.resolvePrimitiveIfNecessary(targetType);
+        return "(" + sourceName(boxedType) + ") BeanUtils.convertByType(" + quote(value) + ", " + sourceName(boxedType) + ".class)";
+    }
+
+    /**
+     * Return the Java expression of a bean definition value kept for runtime resolution.
+     */
+    private static String valueSource(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof BeanReference) {
+            return "new BeanReference(" + quote(((BeanReference) value).getName()) + ")";
+        }
+        if (value instanceof String) {
+            return quote((String) value);
+        }
+        throw new IllegalArgumentException("Cannot generate value of type [" + value.getClass().getName() +
+                "]: only literals and bean references are supported");
+    }
+
+    /**
+     * Return whether generated code in any package can name the given type.
+     */
+    private static boolean isAccessible(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> clazz = type; clazz != null; clazz = clazz.getEnclosingClass()) {
+            if (!Modifier.isPublic(clazz.getModifiers()) || clazz.isAnonymousClass() || clazz.isLocalClass()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String sourceName(Class<?> type) {
+        return (type.isArray() ? sourceName(type.getComponentType()) + "[]" : type.getCanonicalName());
+    }
+
+    /**
+     * Quote a string as a Java literal, escaping non-ASCII characters so that
+     * the generated source compiles whatever the source encoding.
+     */
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder literal = new StringBuilder(value.length() + 2);
+        literal.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        literal.append(c);
+                    }
+            }
+        }
+        literal.append('"');
+        return literal.toString();
+    }
+
+    private static String join(String[] args) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                joined.append(", ");
+            }
+            joined.append(args[i]);
+        }
+        return joined.toString();
+    }
+
+
+    /**
+     * Finds the beans on a cycle of bean references (constructor-args and
+     * properties), with Tarjan's strongly connected components algorithm.
+     */
+    private static class ReferenceCycles {
+
+        private final Map<String, List<String>> references = new HashMap<String, List<String>>();
+
+        private final String[] beanNames;
+
+        private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+        private final Map<String, Integer> lowLinks = new HashMap<String, Integer>();
+
+        private final Deque<String> stack = new ArrayDeque<String>();
+
+        private final Set<String> onStack = new HashSet<String>();
+
+        private final Set<String> cyclicBeanNames = new HashSet<String>();
+
+        ReferenceCycles(DefaultListableBeanFactory registry, String[] beanNames) {
+            this.beanNames = beanNames;
+            for (String beanName : beanNames) {
+                BeanDefinition bd = registry.getBeanDefinition(beanName);
+                List<String> referencedNames = new ArrayList<String>();
+                ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+                for (ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+                    addReference(referencedNames, valueHolder.getValue());
+                }
+                for (ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+                    addReference(referencedNames, valueHolder.getValue());
+                }
+                for (PropertyValue pv : bd.getPropertyValues().getPropertyValueList()) {
+                    addReference(referencedNames, pv.getValue());
+                }
+                this.references.put(beanName, referencedNames);
+            }
+        }
+
+        private void addReference(List<String> referencedNames, Object value) {
+            if (value instanceof BeanReference) {
+                referencedNames.add(((BeanReference) value).getName());
+            }
+        }
+
+        Set<String> find() {
+            for (String beanName : this.beanNames) {
+                if (!this.indexes.containsKey(beanName)) {
+                    visit(beanName);
+                }
+            }
+            return this.cyclicBeanNames;
+        }
+
+        private void visit(String beanName) {
+            int index = this.indexes.size();
+            this.indexes.put(beanName, index);
+            this.lowLinks.put(beanName, index);
+            this.stack.push(beanName);
+            this.onStack.add(beanName);
+            for (String referencedName : this.references.get(beanName)) {
+                if (!this.references.containsKey(referencedName)) {
+                    continue;
+                }
+                if (referencedName.equals(beanName)) {
+                    this.cyclicBeanNames.add(beanName);
+                }
+                else if (!this.indexes.containsKey(referencedName)) {
+                    visit(referencedName);
+                    this.lowLinks.put(beanName, Math.min(this.lowLinks.get(beanName), this.lowLinks.get(referencedName)));
+                }
+                else if (this.onStack.contains(referencedName)) {
+                    this.lowLinks.put(beanName, Math.min(this.lowLinks.get(beanName), this.indexes.get(referencedName)));
+                }
+            }
+            if (this.lowLinks.get(beanName).intValue() == index) {
+                List<String> component = new ArrayList<String>();
+                String member;
+                do {
+                    member = this.stack.pop();
+                    this.onStack.remove(member);
+                    component.add(member);
+                }
+                while (!member.equals(beanName));
+                if (component.size() > 1) {
+                    this.cyclicBeanNames.addAll(component);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Line-based source buffer with four-space indentation.
+     */
+    private static class SourceWriter {
+
+        private final StringBuilder buffer = new StringBuilder(4096);
+
+        private int indentation;
+
+        void indent() {
+            this.indentation++;
+        }
+
+        void outdent() {
+            this.indentation--;
+        }
+
+        void line() {
+            this.buffer.append('\n');
+        }
+
+        void line(String code) {
+            for (int i = 0; i < this.indentation; i++) {
+                this.buffer.append("    ");
+            }
+            this.buffer.append(code).append('\n');
+        }
+
+        @Override
+        public String toString() {
+            return this.buffer.toString();
+        }
+    }
+
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: BeanFactoryInitializerGenerator <source directory> <class name> <location>...");
+            System.exit(1);
+        }
+        BeanFactoryInitializerGenerator generator = new BeanFactoryInitializerGenerator();
+        File sourceFile = generator.generate(new File(args[0]), args[1], Arrays.copyOfRange(args, 2, args.length));
+        System.out.println("Generated " + sourceFile.getAbsolutePath());
+    }
+
+}
@@ -30,6 +30,13 @@ public interface BeanDefinition {
      */
     boolean isLazyInit();
 
+    /**
+     * Return whether the init methods of this bean run asynchronously, lookups
+     * only waiting for them once the bean is actually needed. Only applicable
+     * to a singleton bean.
+     */
+    boolean isAsyncInit();
+
     /**
      * Return the bean names that this bean depends on.
      */
@@ -0,0 +1,74 @@
+package org.springlite.beans.factory.config;
+
+import org.springlite.beans.factory.ObjectFactory;
+
+/**
+ * 〈自定义bean作用域〉&lt;p&gt;
+ * Strategy interface used by a {@link org.springlite.beans.factory.ConfigurableBeanFactory},
+ * representing a target scope to hold bean instances in.
+ *
+ * <p>Scopes are registered through
+ * {@link org.springlite.beans.factory.ConfigurableBeanFactory#registerScope}
+ * and selected by the {@code scope} attribute of a bean definition, besides the
+ * built-in {@link BeanDefinition#SCOPE_SINGLETON singleton} and
+ * {@link BeanDefinition#SCOPE_PROTOTYPE prototype} scopes.
+ *
+ * <p>Implementations are expected to be thread-safe: one scope instance is
+ * used with multiple bean factories and threads at the same time.
+ *
+ * @author zixiao
+ * @date 16/6/18
+ * @see org.springlite.beans.factory.ConfigurableBeanFactory#registerScope
+ * @since [产品/模块版本] （可选）
+ */
+public interface Scope {
+
+    /**
+     * Return the object with the given name from the underlying scope,
+     * {@link ObjectFactory#getObject() creating it}
+     * if not found in the underlying storage mechanism.
+     * @param name the name of the object to retrieve
+     * @param objectFactory the {@link ObjectFactory} to use to create the scoped
+     * object if it is not present in the underlying storage mechanism
+     * @return the desired object (never {@code null})
+     * @throws IllegalStateException if the underlying scope is not currently active
+     */
+    Object get(String name, ObjectFactory<?> objectFactory);
+
+    /**
+     * Remove the object with the given {@code name} from the underlying scope.
+     * <p>Returns {@code null} if no object was found; otherwise
+     * returns the removed {@code Object}.
+     * <p>Note that an implementation should also remove a registered destruction
+     * callback for the specified object, if any. It does, however, <i>not</i>
+     * need to <i>execute</i> a registered destruction callback in this case,
+     * since the object will be destroyed by the caller (if appropriate).
+     * @param name the name of the object to remove
+     * @return the removed object, or {@code null} if no object was present
+     * @throws IllegalStateException if the underlying scope is not currently active
+     */
+    Object remove(String name);
+
+    /**
+     * Register a callback to be executed on destruction of the specified
+     * object in the scope (or at destruction of the entire scope, if the
+     * scope does not destroy individual objects but rather only terminates
+     * in its entirety).
+     * <p>The factory registers a callback performing all destruction work for
+     * the object: DestructionAwareBeanPostProcessors, the DisposableBean
+     * interface and a custom destroy method.
+     * @param name the name of the object to execute the destruction callback for
+     * @param callback the destruction callback to be executed
+     * @throws IllegalStateException if the underlying scope is not currently active
+     */
+    void registerDestructionCallback(String name, Runnable callback);
+
+    /**
+     * Return the <em>conversation ID</em> for the current underlying scope, if any,
+     * e.g. the name of the current thread for a thread scope.
+     * @return the conversation ID, or {@code null} if there is no
+     * conversation ID for the current scope
+     */
+    String getConversationId();
+
+}
@@ -5,9 +5,12 @@ import org.springlite.beans.exception.BeanCreationException;
 import org.springlite.beans.exception.BeansException;
 import org.springlite.beans.exception.NoSuchBeanDefinitionException;
 import org.springlite.beans.factory.AutowireCapableBeanFactory;
+import org.springlite.beans.factory.FactoryBean;
 import org.springlite.beans.factory.ObjectFactory;
 import org.springlite.beans.factory.config.BeanDefinition;
 import org.springlite.beans.factory.config.BeanPostProcessor;
+import org.springlite.core.NamedThreadLocal;
+import org.springlite.core.metrics.StartupStep;
 import org.springlite.util.ClassUtils;
 import org.springlite.util.ObjectUtils;
 import org.springlite.util.ReflectionUtils;
@@ -17,6 +20,11 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p/>
@@ -33,6 +41,65 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
     /** Whether to automatically try to resolve circular references between beans */
     private boolean allowCircularReferences = true;
 
+    /** Strategy for creating bean instances */
+    private InstantiationStrategy instantiationStrategy = new SimpleInstantiationStrategy();
+
+    /** Cache of resolved property injection points: bean class --> property name --> injection point */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, PropertyResolver.InjectionPoint>> injectionPointCache =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<String, PropertyResolver.InjectionPoint>>(64);
+
+    /** Executor running the init methods of async-init beans, if set explicitly */
+    private volatile Executor asyncInitExecutor;
+
+    /** Default executor, created on first use and shut down with the singletons */
+    private ExecutorService defaultAsyncInitExecutor;
+
+    /** Bean name --> its asynchronous init methods, until they succeeded */
+    private final ConcurrentMap<String, FutureTask<Object>> pendingInitializations =
+            new ConcurrentHashMap<String, FutureTask<Object>>(16);
+
+    /** Name of the bean whose init methods the current thread runs asynchronously */
+    private final ThreadLocal<String> asyncInitCurrentlyRunning =
+            new NamedThreadLocal<String>("Bean with asynchronous init methods currently running");
+
+    /** Bean name --> thread running its asynchronous init methods */
+    private final Map<String, Thread> asyncInitThreads = new ConcurrentHashMap<String, Thread>(16);
+
+    /** Threads waiting for asynchronous init methods: thread --> name of the bean waited for */
+    private final Map<Thread, String> threadsAwaitingInitialization = new ConcurrentHashMap<Thread, String>(16);
+
+    /**
+     * Set the instantiation strategy to use for creating bean instances.
+     * Default is {@link SimpleInstantiationStrategy}, based on reflection.
+     * <p>With a {@link BytecodeInstantiationStrategy}, property values are also
+     * written through its generated accessors. To be set before beans are created.
+     */
+    public void setInstantiationStrategy(InstantiationStrategy instantiationStrategy) {
+        this.instantiationStrategy = instantiationStrategy;
+        this.injectionPointCache.clear();
+    }
+
+    /**
+     * Return the instantiation strategy to use for creating bean instances.
+     */
+    protected InstantiationStrategy getInstantiationStrategy() {
+        return this.instantiationStrategy;
+    }
+
+    /**
+     * Set the executor to run the init methods of
+     * {@linkplain AbstractBeanDefinition#setAsyncInit async-init} singletons on.
+     * Default is an unbounded pool of daemon threads, shut down along with the singletons.
+     * <p>An init method waiting for another async-init bean occupies a thread
+     * of this executor meanwhile: a bounded executor must leave room for that.
+     * An init method looking up a bean whose creating thread waits for that very
+     * init method fails with a {@link BeanCreationException} instead of deadlocking.
+     */
+    public void setAsyncInitExecutor(Executor asyncInitExecutor) {
+        this.asyncInitExecutor = asyncInitExecutor;
+    }
+
+
     //-------------------------------------------------------------------------
     // Typical methods for creating and populating external bean instances
     //-------------------------------------------------------------------------
@@ -274,6 +341,10 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
             throw new BeanCreationException(mbd.getResourceDescription(), beanName,
                     "Bean class isn't public, and non-public access not allowed: " + beanClass.getName());
         }
+        ObjectFactory<?> instanceSupplier = mbd.getInstanceSupplier();
+        if (instanceSupplier != null) {
+            return obtainFromSupplier(instanceSupplier, beanName, mbd);
+        }
         //无参数的构造方法
         if(mbd.getConstructorArgumentValues().getArgumentCount() == 0){
             return instantiateBean(beanName, mbd);
@@ -314,6 +385,33 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
         return instantiateBean(beanName, mbd);
     }
 
+    /**
+     * Obtain a bean instance from the given supplier.
+     * @param instanceSupplier the configured supplier
+     * @param beanName the corresponding bean name
+     * @param mbd the bean definition for the bean
+     * @return a BeanWrapper for the new instance
+     * @see AbstractBeanDefinition#setInstanceSupplier
+     */
+    protected BeanWrapper obtainFromSupplier(ObjectFactory<?> instanceSupplier, String beanName, RootBeanDefinition mbd) {
+        Object beanInstance;
+        try {
+            beanInstance = instanceSupplier.getObject();
+        }
+        catch (BeansException ex) {
+            throw ex;
+        }
+        catch (Throwable ex) {
+            throw new BeanCreationException(mbd.getResourceDescription(), beanName, "Instantiation of bean failed", ex);
+        }
+        if (beanInstance == null) {
+            throw new BeanCreationException(mbd.getResourceDescription(), beanName, "Instance supplier returned null");
+        }
+        BeanWrapper bw = new BeanWrapperImpl(beanInstance);
+        initBeanWrapper(bw);
+        return bw;
+    }
+
     protected BeanWrapper autowireConstructor(
             String beanName, RootBeanDefinition mbd, Constructor<?>[] ctors, Object[] explicitArgs) {
 
@@ -366,7 +464,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 //            else {
 //                beanInstance = getInstantiationStrategy().instantiate(mbd, beanName, parent);
 //            }
-            beanInstance = mbd.getBeanClass().newInstance();
+            beanInstance = getInstantiationStrategy().instantiate(mbd, beanName, this);
             BeanWrapper bw = new BeanWrapperImpl(beanInstance);
             initBeanWrapper(bw);
             return bw;
@@ -450,7 +548,10 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
             return;
         }
         Object bean = bw.getWrappedInstance();
-        PropertyResolver propertyResolver = new PropertyResolver(this, beanName, mbd);
+        BeanAccessor beanAccessor = (this.instantiationStrategy instanceof BytecodeInstantiationStrategy ?
+                ((BytecodeInstantiationStrategy) this.instantiationStrategy).getBeanAccessor(bean.getClass()) : null);
+        PropertyResolver propertyResolver =
+                new PropertyResolver(this, beanName, mbd, this.injectionPointCache, beanAccessor);
         for (PropertyValue propertyValue : pvs.getPropertyValues()) {
             propertyResolver.autowireProperty(bean, propertyValue);
         }
@@ -490,20 +591,45 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
         Object wrappedBean = bean;
         if (mbd == null || !mbd.isSynthetic()) {
-            wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
+            StartupStep postProcessStep = getApplicationStartup().start("springlite.beans.post-process.before-initialization");
+            try {
+                wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
+            }
+            finally {
+                postProcessStep.end();
+            }
+        }
+
+        if (mbd != null && mbd.isAsyncInit() && mbd.isSingleton() && hasInitMethods(wrappedBean, mbd)) {
+            // Post-processors after initialization run along, as they have to see the initialized bean
+            invokeInitMethodsAsynchronously(beanName, wrappedBean, mbd);
+            return wrappedBean;
         }
 
+        StartupStep initMethodsStep = getApplicationStartup().start("springlite.beans.init-methods");
         try {
             invokeInitMethods(beanName, wrappedBean, mbd);
         }
         catch (Throwable ex) {
             throw new BeansException(beanName, "Invocation of init method failed", ex);
         }
+        finally {
+            initMethodsStep.end();
+        }
+        return postProcessInitializedBean(beanName, wrappedBean, mbd);
+    }
 
-        if (mbd == null || !mbd.isSynthetic()) {
-            wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+    private Object postProcessInitializedBean(String beanName, Object bean, RootBeanDefinition mbd) {
+        if (mbd != null && mbd.isSynthetic()) {
+            return bean;
+        }
+        StartupStep postProcessStep = getApplicationStartup().start("springlite.beans.post-process.after-initialization");
+        try {
+            return applyBeanPostProcessorsAfterInitialization(bean, beanName);
+        }
+        finally {
+            postProcessStep.end();
         }
-        return wrappedBean;
     }
 
     private void invokeAwareMethods(final String beanName, final Object bean) {
@@ -566,6 +692,202 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
         }
     }
 
+    private boolean hasInitMethods(Object bean, RootBeanDefinition mbd) {
+        // A FactoryBean is asked for its object right away: it has to be initialized by then.
+        return !(bean instanceof FactoryBean) &&
+                (bean instanceof InitializingBean || mbd.getInitMethodName() != null);
+    }
+
+    /**
+     * Run the init methods of the given singleton on the async init executor,
+     * followed by the bean post-processors after initialization. Until they are
+     * done, {@link #awaitInitialization} makes lookups wait, then hands out the
+     * post-processed instance in place of the registered one.
+     * @see #setAsyncInitExecutor
+     */
+    protected void invokeInitMethodsAsynchronously(final String beanName, final Object bean,
+                                                   final RootBeanDefinition mbd) {
+        FutureTask<Object> initialization = new FutureTask<Object>(new Callable<Object>() {
+            public Object call() throws Exception {
+                asyncInitCurrentlyRunning.set(beanName);
+                asyncInitThreads.put(beanName, Thread.currentThread());
+                StartupStep initMethodsStep = getApplicationStartup().start("springlite.beans.init-methods")
+                        .tag("beanName", beanName).tag("async", "true");
+                try {
+                    try {
+                        invokeInitMethods(beanName, bean, mbd);
+                    }
+                    catch (Throwable ex) {
+                        logger.warn("Asynchronous invocation of init method failed for bean '" + beanName + "'", ex);
+                        throw new BeanCreationException(mbd.getResourceDescription(), beanName,
+                                "Invocation of init method failed", ex);
+                    }
+                    finally {
+                        initMethodsStep.end();
+                    }
+                    return postProcessInitializedBean(beanName, bean, mbd);
+                }
+                finally {
+                    asyncInitThreads.remove(beanName);
+                    asyncInitCurrentlyRunning.remove();
+                }
+            }
+        }) {
+            @Override
+            protected void done() {
+                try {
+                    if (get() == bean) {
+                        pendingInitializations.remove(beanName, this);
+                    }
+                }
+                catch (Exception ex) {
+                    // kept: reported to every lookup of the bean
+                }
+                // a post-processed instance is kept until a lookup exposes it
+            }
+        };
+        this.pendingInitializations.put(beanName, initialization);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Invoking init methods of bean '" + beanName + "' asynchronously");
+        }
+        try {
+            getAsyncInitExecutor().execute(initialization);
+        }
+        catch (RejectedExecutionException ex) {
+            this.pendingInitializations.remove(beanName, initialization);
+            throw new BeanCreationException(beanName, "Async init executor rejected the init methods", ex);
+        }
+    }
+
+    private Executor getAsyncInitExecutor() {
+        Executor executor = this.asyncInitExecutor;
+        if (executor != null) {
+            return executor;
+        }
+        synchronized (this.pendingInitializations) {
+            if (this.defaultAsyncInitExecutor == null) {
+                this.defaultAsyncInitExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger();
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "springlite-async-init-" + this.threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return this.defaultAsyncInitExecutor;
+        }
+    }
+
+    /**
+     * Wait for the asynchronous init methods of the given singleton, unless
+     * they are run by the current thread (an init method looking up its own bean).
+     * Once done, the instance returned by the bean post-processors replaces the
+     * registered singleton.
+     * @throws BeanCreationException if they failed, on every lookup of the bean,
+     * or if the thread running them (transitively) waits for the current thread
+     */
+    @Override
+    protected Object awaitInitialization(String beanName, Object singletonInstance) throws BeansException {
+        if (this.pendingInitializations.isEmpty()) {
+            return singletonInstance;
+        }
+        FutureTask<Object> initialization = this.pendingInitializations.get(beanName);
+        if (initialization == null || beanName.equals(this.asyncInitCurrentlyRunning.get())) {
+            return singletonInstance;
+        }
+        Thread currentThread = Thread.currentThread();
+        // Announce the wait before checking, see acquiring the creation locks
+        this.threadsAwaitingInitialization.put(currentThread, beanName);
+        try {
+            while (true) {
+                if (isWaitingFor(this.asyncInitThreads.get(beanName), currentThread)) {
+                    throw new BeanCreationException(beanName,
+                            "Init methods are run by a thread that waits for this thread: " +
+                                    "Is there an unresolvable circular reference?");
+                }
+                try {
+                    Object initializedInstance = initialization.get(100, TimeUnit.MILLISECONDS);
+                    if (initializedInstance == singletonInstance ||
+                            replaceSingleton(beanName, singletonInstance, initializedInstance)) {
+                        this.pendingInitializations.remove(beanName, initialization);
+                    }
+                    return initializedInstance;
+                }
+                catch (TimeoutException ex) {
+                    // check again
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BeanCreationException(beanName, "Interrupted while waiting for its init methods", ex);
+        }
+        catch (CancellationException ex) {
+            throw new BeanCreationException(beanName, "Init methods cancelled", ex);
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof BeanCreationException) {
+                throw (BeanCreationException) cause;
+            }
+            throw new BeanCreationException(beanName, "Asynchronous initialization failed", cause);
+        }
+        finally {
+            this.threadsAwaitingInitialization.remove(currentThread);
+        }
+    }
+
+    /**
+     * Besides the owners of creation locks, follow threads waiting for
+     * asynchronous init methods to the threads running them.
+     */
+    @Override
+    protected Thread getAwaitedThread(Thread thread) {
+        Thread awaitedThread = super.getAwaitedThread(thread);
+        if (awaitedThread != null) {
+            return awaitedThread;
+        }
+        String awaitedBeanName = this.threadsAwaitingInitialization.get(thread);
+        return (awaitedBeanName != null ? this.asyncInitThreads.get(awaitedBeanName) : null);
+    }
+
+    @Override
+    public void destroySingleton(String beanName) {
+        super.destroySingleton(beanName);
+        this.pendingInitializations.remove(beanName);
+    }
+
+    /**
+     * Wait for all asynchronous init methods before destroying the singletons,
+     * then shut down the default async init executor.
+     */
+    @Override
+    public void destroySingletons() {
+        List<FutureTask<Object>> initializations =
+                new ArrayList<FutureTask<Object>>(this.pendingInitializations.values());
+        for (FutureTask<Object> initialization : initializations) {
+            try {
+                initialization.get();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            catch (Exception ex) {
+                // logged by the init task
+            }
+        }
+        this.pendingInitializations.clear();
+        super.destroySingletons();
+        synchronized (this.pendingInitializations) {
+            if (this.defaultAsyncInitExecutor != null) {
+                this.defaultAsyncInitExecutor.shutdown();
+                this.defaultAsyncInitExecutor = null;
+            }
+        }
+    }
+
     /**
      * Invoke the specified custom init method on the given bean.
      * Called by invokeInitMethods.
@@ -664,35 +986,42 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
         if (logger.isDebugEnabled()) {
             logger.debug("Creating instance of bean '" + beanName + "'");
         }
-        // Make sure bean class is actually resolved at this point.
-        resolveBeanClass(mbd, beanName);
+        StartupStep creationStep = getApplicationStartup().start("springlite.beans.instantiate")
+                .tag("beanName", beanName);
+        try {
+            // Make sure bean class is actually resolved at this point.
+            resolveBeanClass(mbd, beanName);
 //
-//        // Prepare method overrides.
-//        try {
-//            mbd.prepareMethodOverrides();
-//        }
-//        catch (BeanDefinitionValidationException ex) {
-//            throw new BeanDefinitionStoreException(mbd.getResourceDescription(),
-//                    beanName, "Validation of method overrides failed", ex);
-//        }
+//            // Prepare method overrides.
+//            try {
+//                mbd.prepareMethodOverrides();
+//            }
+//            catch (BeanDefinitionValidationException ex) {
+//                throw new BeanDefinitionStoreException(mbd.getResourceDescription(),
+//                        beanName, "Validation of method overrides failed", ex);
+//            }
 
-        try {
-            // Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
-            Object bean = resolveBeforeInstantiation(beanName, mbd);
-            if (bean != null) {
-                return bean;
+            try {
+                // Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
+                Object bean = resolveBeforeInstantiation(beanName, mbd);
+                if (bean != null) {
+                    return bean;
+                }
+            }
+            catch (Throwable ex) {
+                throw new BeanCreationException(mbd.getResourceDescription(), beanName,
+                        "processor before instantiation of bean failed", ex);
             }
-        }
-        catch (Throwable ex) {
-            throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-                    "processor before instantiation of bean failed", ex);
-        }
 
-        Object beanInstance = doCreateBean(beanName, mbd, args);
-        if (logger.isDebugEnabled()) {
-            logger.debug("Finished creating instance of bean '" + beanName + "'");
+            Object beanInstance = doCreateBean(beanName, mbd, args);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Finished creating instance of bean '" + beanName + "'");
+            }
+            return beanInstance;
+        }
+        finally {
+            creationStep.end();
         }
-        return beanInstance;
     }
 
     /**
@@ -736,7 +1065,13 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 //            instanceWrapper = this.factoryBeanInstanceCache.remove(beanName);
 //        }
 //        if (instanceWrapper == null) {
-            instanceWrapper = createBeanInstance(beanName, mbd, args);
+            StartupStep constructionStep = getApplicationStartup().start("springlite.beans.construct");
+            try {
+                instanceWrapper = createBeanInstance(beanName, mbd, args);
+            }
+            finally {
+                constructionStep.end();
+            }
 //        }
         final Object bean = (instanceWrapper != null ? instanceWrapper.getWrappedInstance() : null);
         Class<?> beanType = (instanceWrapper != null ? instanceWrapper.getWrappedClass() : null);
@@ -768,9 +1103,21 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
         // Initialize the bean instance.
         Object exposedObject = bean;
         try {
-            populateBean(beanName, mbd, instanceWrapper);
+            StartupStep populationStep = getApplicationStartup().start("springlite.beans.populate");
+            try {
+                populateBean(beanName, mbd, instanceWrapper);
+            }
+            finally {
+                populationStep.end();
+            }
             if (exposedObject != null) {
-                exposedObject = initializeBean(beanName, exposedObject, mbd);
+                StartupStep initializationStep = getApplicationStartup().start("springlite.beans.initialize");
+                try {
+                    exposedObject = initializeBean(beanName, exposedObject, mbd);
+                }
+                finally {
+                    initializationStep.end();
+                }
             }
         }
         catch (Throwable ex) {
@@ -5,6 +5,7 @@ import org.springlite.beans.factory.config.BeanDefinition;
 import org.springlite.beans.ConstructorArgumentValues;
 import org.springlite.beans.MutablePropertyValues;
 import org.springlite.beans.factory.AutowireCapableBeanFactory;
+import org.springlite.beans.factory.ObjectFactory;
 import org.springlite.util.ClassUtils;
 import org.springlite.util.ObjectUtils;
 
@@ -97,6 +98,8 @@ public abstract class AbstractBeanDefinition implements BeanDefinition, Cloneabl
 
     private boolean lazyInit = false;
 
+    private boolean asyncInit = false;
+
     private int autowireMode = AUTOWIRE_NO;
 
     private int dependencyCheck = DEPENDENCY_CHECK_NONE;
@@ -116,6 +119,8 @@ public abstract class AbstractBeanDefinition implements BeanDefinition, Cloneabl
     private ConstructorArgumentValues constructorArgumentValues;
 
     private MutablePropertyValues propertyValues;
+
+    private ObjectFactory<?> instanceSupplier;
 //
 //    private String factoryBeanName;
 //
@@ -162,6 +167,7 @@ public abstract class AbstractBeanDefinition implements BeanDefinition, Cloneabl
         setScope(original.getScope());
         setAbstract(original.isAbstract());
         setLazyInit(original.isLazyInit());
+        setAsyncInit(original.isAsyncInit());
         //setRole(original.getRole());
         setConstructorArgumentValues(new ConstructorArgumentValues(original.getConstructorArgumentValues()));
         setPropertyValues(new MutablePropertyValues(original.getPropertyValues()));
@@ -173,6 +179,7 @@ public abstract class AbstractBeanDefinition implements BeanDefinition, Cloneabl
             if (originalAbd.hasBeanClass()) {
                 setBeanClass(originalAbd.getBeanClass());
             }
+            setInstanceSupplier(originalAbd.getInstanceSupplier());
             setAutowireMode(originalAbd.getAutowireMode());
             setDependencyCheck(originalAbd.getDependencyCheck());
             setDependsOn(originalAbd.getDependsOn());
@@ -342,6 +349,27 @@ public abstract class AbstractBeanDefinition implements BeanDefinition, Cloneabl
         return this.lazyInit;
     }
 
+    /**
+     * Set whether the init methods of this bean run asynchronously.
+     * <p>If {@code true}, the singleton is registered as soon as it has been
+     * populated, while its init methods run on the factory's async init executor;
+     * lookups and references wait for them to finish, but the bean factory's
+     * startup does not.
+     * <p>The bean post-processors after initialization run after the init
+     * methods, on the same thread; lookups are handed the instance they return.
+     * @see AbstractAutowireCapableBeanFactory#setAsyncInitExecutor
+     */
+    public void setAsyncInit(boolean asyncInit) {
+        this.asyncInit = asyncInit;
+    }
+
+    /**
+     * Return whether the init methods of this bean run asynchronously.
+     */
+    public boolean isAsyncInit() {
+        return this.asyncInit;
+    }
+
 
     /**
      * Set the autowire mode. This determines whether any automagical detection
@@ -545,6 +573,24 @@ public abstract class AbstractBeanDefinition implements BeanDefinition, Cloneabl
         return this.propertyValues;
     }
 
+    /**
+     * Specify a callback creating the bean instance, instead of resolving
+     * and invoking a constructor of the bean class; constructor argument
+     * values are not used then. Property values, init methods and bean post
+     * processors still apply to the instance it returns.
+     * @see org.springlite.beans.factory.aot.BeanFactoryInitializerGenerator
+     */
+    public void setInstanceSupplier(ObjectFactory<?> instanceSupplier) {
+        this.instanceSupplier = instanceSupplier;
+    }
+
+    /**
+     * Return the callback creating the bean instance, if any.
+     */
+    public ObjectFactory<?> getInstanceSupplier() {
+        return this.instanceSupplier;
+    }
+
 
 //    public void setFactoryBeanName(String factoryBeanName) {
 //        this.factoryBeanName = factoryBeanName;
@@ -694,6 +740,7 @@ public abstract class AbstractBeanDefinition implements BeanDefinition, Cloneabl
         if (!ObjectUtils.nullSafeEquals(this.scope, that.scope)) return false;
         if (this.abstractFlag != that.abstractFlag) return false;
         if (this.lazyInit != that.lazyInit) return false;
+        if (this.asyncInit != that.asyncInit) return false;
 
         if (this.autowireMode != that.autowireMode) return false;
         if (this.dependencyCheck != that.dependencyCheck) return false;
@@ -8,7 +8,9 @@ import org.springlite.beans.PropertyEditorRegistry;
 import org.springlite.beans.factory.config.BeanPostProcessor;
 import org.springlite.beans.factory.config.DestructionAwareBeanPostProcessor;
 import org.springlite.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springlite.beans.factory.config.Scope;
 import org.springlite.core.NamedThreadLocal;
+import org.springlite.core.metrics.ApplicationStartup;
 import org.springlite.util.Assert;
 import org.springlite.util.ClassUtils;
 
@@ -42,6 +44,15 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
     /** Indicates whether any DestructionAwareBeanPostProcessors have been registered */
     private boolean hasDestructionAwareBeanPostProcessors;
 
+    /** Records the creation of beans, if enabled */
+    private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
+    /** Map from scope identifier String to the id of the corresponding Scope */
+    private final Map<String, Integer> scopeIds = new LinkedHashMap<String, Integer>(8);
+
+    /** Registered Scopes, indexed by the scope id cached on merged bean definitions */
+    private volatile Scope[] scopes = new Scope[0];
+
     /** Map from bean name to merged RootBeanDefinition */
     private final Map<String, RootBeanDefinition> mergedBeanDefinitions =
             new ConcurrentHashMap<String, RootBeanDefinition>(64);
@@ -99,10 +110,30 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
      * @return an instance of the bean
      * @throws BeansException if the bean could not be created
      */
-    @SuppressWarnings("unchecked")
     protected <T> T doGetBean(
             final String name, final Class<T> requiredType, final Object[] args, boolean typeCheckOnly)
             throws BeansException {
+        return doGetBean(name, requiredType, args, typeCheckOnly, !typeCheckOnly);
+    }
+
+    /**
+     * Return an instance, which may be shared or independent, of the specified bean.
+     * @param name the name of the bean to retrieve
+     * @param requiredType the required type of the bean to retrieve
+     * @param args arguments to use if creating a prototype using explicit arguments to a
+     * static factory method. It is invalid to use a non-null args value in any other case.
+     * @param typeCheckOnly whether the instance is obtained for a type check,
+     * not for actual use
+     * @param awaitInit whether to wait for the asynchronous init methods of a
+     * singleton, rather than return it while they may still be running
+     * @return an instance of the bean
+     * @throws BeansException if the bean could not be created
+     * @see #awaitInitialization
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T doGetBean(
+            final String name, final Class<T> requiredType, final Object[] args, boolean typeCheckOnly,
+            boolean awaitInit) throws BeansException {
 
         final String beanName = transformedBeanName(name);
         Object bean;
@@ -119,6 +150,9 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
                     logger.debug("Returning cached instance of singleton bean '" + beanName + "'");
                 }
             }
+            if (awaitInit) {
+                sharedInstance = awaitInitialization(beanName, sharedInstance);
+            }
             bean = getObjectForBeanInstance(sharedInstance, name, beanName, null);
         }
 
@@ -154,6 +188,9 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
                             }
                         }
                     });
+                    if (awaitInit) {
+                        sharedInstance = awaitInitialization(beanName, sharedInstance);
+                    }
                     bean = getObjectForBeanInstance(sharedInstance, name, beanName, mbd);
                 }
 
@@ -170,9 +207,30 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
                     bean = getObjectForBeanInstance(prototypeInstance, name, beanName, mbd);
                 }
                 else {
-                    //TODO other scopes
-                    throw new BeansException(requiredType +
-                            " bean named '"+ beanName +"' use unsupported scope '"+ mbd.getScope() +"', please check!");
+                    Scope scope = resolveScope(beanName, mbd);
+                    if (args != null) {
+                        // The scope may hand out an instance created with other arguments
+                        throw new BeanCreationException(beanName, "Explicit arguments are not supported for beans of scope '" +
+                                mbd.getScope() + "', only for prototypes");
+                    }
+                    try {
+                        Object scopedInstance = scope.get(beanName, new ObjectFactory<Object>() {
+                            public Object getObject() throws BeansException {
+                                beforePrototypeCreation(beanName);
+                                try {
+                                    return createBean(beanName, mbd, args);
+                                }
+                                finally {
+                                    afterPrototypeCreation(beanName);
+                                }
+                            }
+                        });
+                        bean = getObjectForBeanInstance(scopedInstance, name, beanName, mbd);
+                    }
+                    catch (IllegalStateException ex) {
+                        throw new BeanCreationException(beanName,
+                                "Scope '" + mbd.getScope() + "' is not active for the current thread", ex);
+                    }
                 }
             }
             catch (BeansException ex) {
@@ -197,6 +255,19 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
         return (T) bean;
     }
 
+    /**
+     * Wait until the asynchronous init methods of the given singleton have run,
+     * if still running. Called before a singleton is handed out.
+     * <p>The default implementation returns the given instance.
+     * @param beanName the name of the bean
+     * @param singletonInstance the registered singleton instance
+     * @return the instance to hand out, once initialized
+     * @throws BeansException if the init methods failed
+     */
+    protected Object awaitInitialization(String beanName, Object singletonInstance) throws BeansException {
+        return singletonInstance;
+    }
+
     @SuppressWarnings("unchecked")
     protected void beforePrototypeCreation(String beanName) {
         Object curVal = this.prototypesCurrentlyInCreation.get();
@@ -362,20 +433,113 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 
     @Override
     public void destroyScopedBean(String beanName) {
-//        RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
-//        if (mbd.isSingleton() || mbd.isPrototype()) {
-//            throw new IllegalArgumentException(
-//                    "Bean name '" + beanName + "' does not correspond to an object in a mutable scope");
-//        }
-//        String scopeName = mbd.getScope();
-//        Scope scope = this.scopes.get(scopeName);
-//        if (scope == null) {
-//            throw new IllegalStateException("No Scope SPI registered for scope '" + scopeName + "'");
-//        }
-//        Object bean = scope.remove(beanName);
-//        if (bean != null) {
-//            destroyBean(beanName, bean, mbd);
-//        }
+        RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+        if (mbd.isSingleton() || mbd.isPrototype()) {
+            throw new IllegalArgumentException(
+                    "Bean name '" + beanName + "' does not correspond to an object in a mutable scope");
+        }
+        Object bean = resolveScope(beanName, mbd).remove(beanName);
+        if (bean != null) {
+            destroyBean(beanName, bean, mbd);
+        }
+    }
+
+    /**
+     * Destroy all singletons, then all registered scopes that are themselves
+     * {@link DisposableBean}s, running the destruction callbacks of their beans.
+     */
+    @Override
+    public void destroySingletons() {
+        super.destroySingletons();
+        for (Scope scope : this.scopes) {
+            if (scope instanceof DisposableBean) {
+                try {
+                    ((DisposableBean) scope).destroy();
+                }
+                catch (Throwable ex) {
+                    logger.warn("Destruction of scope [" + scope + "] failed", ex);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setApplicationStartup(ApplicationStartup applicationStartup) {
+        Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+        this.applicationStartup = applicationStartup;
+    }
+
+    @Override
+    public ApplicationStartup getApplicationStartup() {
+        return this.applicationStartup;
+    }
+
+    @Override
+    public void registerScope(String scopeName, Scope scope) {
+        Assert.notNull(scopeName, "Scope identifier must not be null");
+        Assert.notNull(scope, "Scope must not be null");
+        if (BeanDefinition.SCOPE_SINGLETON.equals(scopeName) || BeanDefinition.SCOPE_PROTOTYPE.equals(scopeName)) {
+            throw new IllegalArgumentException("Cannot replace existing scopes 'singleton' and 'prototype'");
+        }
+        synchronized (this.scopeIds) {
+            Integer scopeId = this.scopeIds.get(scopeName);
+            Scope[] scopes;
+            if (scopeId == null) {
+                scopeId = this.scopes.length;
+                scopes = Arrays.copyOf(this.scopes, scopeId + 1);
+            }
+            else {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Replacing scope '" + scopeName + "' from [" + this.scopes[scopeId] + "] to [" + scope + "]");
+                }
+                scopes = this.scopes.clone();
+            }
+            scopes[scopeId] = scope;
+            // Publish the scope before its id, so that a resolved id always finds its scope.
+            this.scopes = scopes;
+            this.scopeIds.put(scopeName, scopeId);
+        }
+    }
+
+    @Override
+    public String[] getRegisteredScopeNames() {
+        synchronized (this.scopeIds) {
+            return this.scopeIds.keySet().toArray(new String[this.scopeIds.size()]);
+        }
+    }
+
+    @Override
+    public Scope getRegisteredScope(String scopeName) {
+        Assert.notNull(scopeName, "Scope identifier must not be null");
+        synchronized (this.scopeIds) {
+            Integer scopeId = this.scopeIds.get(scopeName);
+            return (scopeId != null ? this.scopes[scopeId] : null);
+        }
+    }
+
+    /**
+     * Return the registered Scope of the given bean, neither singleton nor prototype.
+     * <p>The scope name is looked up once per merged bean definition, which then
+     * caches the scope id: later calls are a plain array read.
+     * @param beanName the name of the bean
+     * @param mbd the merged bean definition
+     * @throws BeanCreationException if no scope is registered under the bean's scope name
+     */
+    protected Scope resolveScope(String beanName, RootBeanDefinition mbd) throws BeanCreationException {
+        int scopeId = mbd.resolvedScopeId;
+        if (scopeId < 0) {
+            Integer registeredId;
+            synchronized (this.scopeIds) {
+                registeredId = this.scopeIds.get(mbd.getScope());
+            }
+            if (registeredId == null) {
+                throw new BeanCreationException(beanName,
+                        "No Scope registered for scope name '" + mbd.getScope() + "', please check!");
+            }
+            scopeId = registeredId;
+            mbd.resolvedScopeId = scopeId;
+        }
+        return this.scopes[scopeId];
     }
 
 
@@ -760,6 +924,8 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 //                        new DisposableBeanAdapter(bean, beanName, mbd, getBeanPostProcessors(), acc));
             } else {
                 // A bean with a custom scope...
+                resolveScope(beanName, mbd).registerDestructionCallback(beanName,
+                        new DisposableBeanAdapter(bean, beanName, mbd, getBeanPostProcessors(), acc));
             }
         }
     }
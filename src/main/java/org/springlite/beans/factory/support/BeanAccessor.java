@@ -0,0 +1,86 @@
+package org.springlite.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 〈一句话功能简述〉&lt;p&gt;
+ * Direct access to the public constructors, setters and fields of one bean
+ * class, without reflection. Subclasses are generated at runtime by
+ * {@link BeanAccessorGenerator}, one per bean class.
+ *
+ * <p>Members are addressed by index; use {@link #getConstructorIndex} and
+ * {@link #getWriterIndex} to look them up once and cache the result.
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see BytecodeInstantiationStrategy
+ * @since [产品/模块版本] （可选）
+ */
+public abstract class BeanAccessor {
+
+    private List<Constructor<?>> constructors;
+
+    private List<Member> writers;
+
+    private int defaultConstructorIndex = -1;
+
+
+    /**
+     * Called by the generator right after instantiating the accessor.
+     * @param constructors the accessible constructors, in index order
+     * @param writers the accessible setters and fields, in index order
+     */
+    final void init(Constructor<?>[] constructors, Member[] writers) {
+        this.constructors = Arrays.asList(constructors);
+        this.writers = Arrays.asList(writers);
+        for (int i = 0; i < constructors.length; i++) {
+            if (constructors[i].getParameterTypes().length == 0) {
+                this.defaultConstructorIndex = i;
+            }
+        }
+    }
+
+    /**
+     * Return the index of the public no-arg constructor, or -1 if none.
+     */
+    public final int getDefaultConstructorIndex() {
+        return this.defaultConstructorIndex;
+    }
+
+    /**
+     * Return the index of the given constructor, or -1 if not accessible.
+     */
+    public final int getConstructorIndex(Constructor<?> constructor) {
+        return this.constructors.indexOf(constructor);
+    }
+
+    /**
+     * Return the index of the given setter method or field, or -1 if not accessible.
+     */
+    public final int getWriterIndex(Member member) {
+        return this.writers.indexOf(member);
+    }
+
+    /**
+     * Create a new instance through the constructor with the given index.
+     * @param constructorIndex the index of the constructor
+     * @param args the constructor arguments, primitives boxed
+     * @return the new instance
+     * @throws Throwable whatever the constructor throws, checked exceptions
+     * included: generated code does not wrap them
+     */
+    public abstract Object newInstance(int constructorIndex, Object[] args) throws Throwable;
+
+    /**
+     * Call the setter, or assign the field, with the given index.
+     * @param bean the bean to write to
+     * @param writerIndex the index of the setter or field
+     * @param value the value, primitives boxed
+     * @throws Throwable whatever the setter throws, checked exceptions included
+     */
+    public abstract void write(Object bean, int writerIndex, Object value) throws Throwable;
+
+}
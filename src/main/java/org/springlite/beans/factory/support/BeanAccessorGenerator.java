@@ -0,0 +1,314 @@
+package org.springlite.beans.factory.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 〈一句话功能简述〉&lt;p&gt;
+ * Generates a {@link BeanAccessor} per bean class with ASM: a {@code new} per
+ * public constructor, a direct call per public setter and a direct
+ * {@code putfield} per public non-final field, each selected by a
+ * {@code tableswitch}.
+ *
+ * <p>Accessors are defined in a child class loader of the bean's class loader,
+ * so only public members of public classes can be reached; for any other
+ * class no accessor is generated and callers fall back to reflection.
+ * Accessors are cached per class for the lifetime of this generator.
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see BytecodeInstantiationStrategy
+ * @since [产品/模块版本] （可选）
+ */
+public class BeanAccessorGenerator implements Opcodes {
+
+    private static final Log logger = LogFactory.getLog(BeanAccessorGenerator.class);
+
+    private static final String ACCESSOR_INTERNAL_NAME = Type.getInternalName(BeanAccessor.class);
+
+    private static final AtomicInteger classCount = new AtomicInteger();
+
+    /** Cache of generated accessors: bean class --> accessor */
+    private final ConcurrentMap<Class<?>, BeanAccessor> accessorCache = new ConcurrentHashMap<Class<?>, BeanAccessor>(64);
+
+    /** Classes no accessor can be generated for, using a ConcurrentHashMap as a Set */
+    private final Map<Class<?>, Boolean> classesWithoutAccessor = new ConcurrentHashMap<Class<?>, Boolean>(16);
+
+
+    /**
+     * Return the accessor for the given bean class, generating it on first access.
+     * @param beanClass the bean class
+     * @return the accessor, or {@code null} if the class is not accessible
+     */
+    public BeanAccessor getAccessor(Class<?> beanClass) {
+        BeanAccessor accessor = this.accessorCache.get(beanClass);
+        if (accessor != null || this.classesWithoutAccessor.containsKey(beanClass)) {
+            return accessor;
+        }
+        accessor = generateAccessor(beanClass);
+        if (accessor == null) {
+            this.classesWithoutAccessor.put(beanClass, Boolean.TRUE);
+            return null;
+        }
+        BeanAccessor existing = this.accessorCache.putIfAbsent(beanClass, accessor);
+        return (existing != null ? existing : accessor);
+    }
+
+    /**
+     * Generate the accessor for the given bean class.
+     * @return the accessor, or {@code null} if the class is not accessible
+     */
+    private BeanAccessor generateAccessor(Class<?> beanClass) {
+        if (!isAccessible(beanClass)) {
+            return null;
+        }
+        ClassLoader parent = beanClass.getClassLoader();
+        try {
+            if (parent == null || Class.forName(BeanAccessor.class.getName(), false, parent) != BeanAccessor.class) {
+                return null;
+            }
+        }
+        catch (ClassNotFoundException ex) {
+            return null;
+        }
+
+        List<Constructor<?>> constructors = new ArrayList<Constructor<?>>();
+        if (!Modifier.isAbstract(beanClass.getModifiers())) {
+            for (Constructor<?> constructor : beanClass.getConstructors()) {
+                constructors.add(constructor);
+            }
+        }
+        List<Member> writers = new ArrayList<Member>();
+        for (Method method : beanClass.getMethods()) {
+            if (method.getName().startsWith("set") && method.getParameterTypes().length == 1 &&
+                    !Modifier.isStatic(method.getModifiers()) && isAccessible(method.getDeclaringClass())) {
+                writers.add(method);
+            }
+        }
+        for (Field field : beanClass.getFields()) {
+            int modifiers = field.getModifiers();
+            if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && isAccessible(field.getDeclaringClass())) {
+                writers.add(field);
+            }
+        }
+
+        String className = beanClass.getName() + "$$BeanAccessor$$" + classCount.incrementAndGet();
+        try {
+            byte[] bytes = generateClass(className.replace('.', '/'), beanClass, constructors, writers);
+            Class<?> accessorClass = new AccessorClassLoader(parent).define(className, bytes);
+            BeanAccessor accessor = (BeanAccessor) accessorClass.newInstance();
+            accessor.init(constructors.toArray(new Constructor<?>[constructors.size()]),
+                    writers.toArray(new Member[writers.size()]));
+            if (logger.isDebugEnabled()) {
+                logger.debug("Generated bean accessor for " + beanClass.getName());
+            }
+            return accessor;
+        }
+        catch (Throwable ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Could not generate bean accessor for " + beanClass.getName() + ", using reflection", ex);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Whether the class can be accessed from another runtime package.
+     */
+    private boolean isAccessible(Class<?> clazz) {
+        if (clazz.getName().startsWith("java.")) {
+            return false;
+        }
+        for (Class<?> current = clazz; current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] generateClass(String internalName, Class<?> beanClass,
+                                 List<Constructor<?>> constructors, List<Member> writers) {
+        // Java 5 class files: no stack map frames required
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, internalName, null, ACCESSOR_INTERNAL_NAME, null);
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, ACCESSOR_INTERNAL_NAME, "<init>", "()V");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        generateNewInstance(cw, beanClass, constructors);
+        generateWrite(cw, beanClass, writers);
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private void generateNewInstance(ClassWriter cw, Class<?> beanClass, List<Constructor<?>> constructors) {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "newInstance", "(I[Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+        mv.visitCode();
+        Label defaultLabel = new Label();
+        Label[] labels = newLabels(constructors.size());
+        if (!constructors.isEmpty()) {
+            mv.visitVarInsn(ILOAD, 1);
+            mv.visitTableSwitchInsn(0, constructors.size() - 1, defaultLabel, labels);
+        }
+        String beanInternalName = Type.getInternalName(beanClass);
+        for (int i = 0; i < constructors.size(); i++) {
+            Constructor<?> constructor = constructors.get(i);
+            mv.visitLabel(labels[i]);
+            mv.visitTypeInsn(NEW, beanInternalName);
+            mv.visitInsn(DUP);
+            Class<?>[] paramTypes = constructor.getParameterTypes();
+            for (int p = 0; p < paramTypes.length; p++) {
+                mv.visitVarInsn(ALOAD, 2);
+                pushInt(mv, p);
+                mv.visitInsn(AALOAD);
+                unbox(mv, paramTypes[p]);
+            }
+            mv.visitMethodInsn(INVOKESPECIAL, beanInternalName, "<init>", Type.getConstructorDescriptor(constructor));
+            mv.visitInsn(ARETURN);
+        }
+        mv.visitLabel(defaultLabel);
+        throwIllegalArgument(mv, "No accessible constructor with index ", 1);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void generateWrite(ClassWriter cw, Class<?> beanClass, List<Member> writers) {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "write", "(Ljava/lang/Object;ILjava/lang/Object;)V", null, null);
+        mv.visitCode();
+        Label defaultLabel = new Label();
+        Label[] labels = newLabels(writers.size());
+        if (!writers.isEmpty()) {
+            mv.visitVarInsn(ILOAD, 2);
+            mv.visitTableSwitchInsn(0, writers.size() - 1, defaultLabel, labels);
+        }
+        String beanInternalName = Type.getInternalName(beanClass);
+        for (int i = 0; i < writers.size(); i++) {
+            Member writer = writers.get(i);
+            mv.visitLabel(labels[i]);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitTypeInsn(CHECKCAST, beanInternalName);
+            mv.visitVarInsn(ALOAD, 3);
+            if (writer instanceof Method) {
+                Method setter = (Method) writer;
+                unbox(mv, setter.getParameterTypes()[0]);
+                mv.visitMethodInsn(INVOKEVIRTUAL, beanInternalName,
+                        setter.getName(), Type.getMethodDescriptor(setter));
+                Class<?> returnType = setter.getReturnType();
+                if (returnType != void.class) {
+                    mv.visitInsn(returnType == long.class || returnType == double.class ? POP2 : POP);
+                }
+            }
+            else {
+                Field field = (Field) writer;
+                unbox(mv, field.getType());
+                mv.visitFieldInsn(PUTFIELD, Type.getInternalName(field.getDeclaringClass()),
+                        field.getName(), Type.getDescriptor(field.getType()));
+            }
+            mv.visitInsn(RETURN);
+        }
+        mv.visitLabel(defaultLabel);
+        throwIllegalArgument(mv, "No accessible setter or field with index ", 2);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private Label[] newLabels(int count) {
+        Label[] labels = new Label[count];
+        for (int i = 0; i < count; i++) {
+            labels[i] = new Label();
+        }
+        return labels;
+    }
+
+    private void pushInt(MethodVisitor mv, int value) {
+        if (value <= 5) {
+            mv.visitInsn(ICONST_0 + value);
+        }
+        else if (value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(BIPUSH, value);
+        }
+        else {
+            mv.visitIntInsn(SIPUSH, value);
+        }
+    }
+
+    /**
+     * Cast the object on top of the stack to the given type, unboxing primitives.
+     */
+    private void unbox(MethodVisitor mv, Class<?> type) {
+        if (!type.isPrimitive()) {
+            if (type != Object.class) {
+                mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+            }
+            return;
+        }
+        Type primitiveType = Type.getType(type);
+        String wrapper;
+        switch (primitiveType.getSort()) {
+            case Type.BOOLEAN: wrapper = "java/lang/Boolean"; break;
+            case Type.CHAR: wrapper = "java/lang/Character"; break;
+            case Type.BYTE: wrapper = "java/lang/Byte"; break;
+            case Type.SHORT: wrapper = "java/lang/Short"; break;
+            case Type.INT: wrapper = "java/lang/Integer"; break;
+            case Type.FLOAT: wrapper = "java/lang/Float"; break;
+            case Type.LONG: wrapper = "java/lang/Long"; break;
+            case Type.DOUBLE: wrapper = "java/lang/Double"; break;
+            default: throw new IllegalArgumentException("Unexpected primitive type " + type);
+        }
+        mv.visitTypeInsn(CHECKCAST, wrapper);
+        mv.visitMethodInsn(INVOKEVIRTUAL, wrapper, type.getName() + "Value", "()" + primitiveType.getDescriptor());
+    }
+
+    private void throwIllegalArgument(MethodVisitor mv, String message, int indexSlot) {
+        mv.visitTypeInsn(NEW, "java/lang/IllegalArgumentException");
+        mv.visitInsn(DUP);
+        mv.visitTypeInsn(NEW, "java/lang/StringBuilder");
+        mv.visitInsn(DUP);
+        mv.visitLdcInsn(message);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "(Ljava/lang/String;)V");
+        mv.visitVarInsn(ILOAD, indexSlot);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/StringBuilder", "append", "(I)Ljava/lang/StringBuilder;");
+        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;");
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "(Ljava/lang/String;)V");
+        mv.visitInsn(ATHROW);
+    }
+
+
+    /**
+     * Class loader defining accessor classes as children of the bean's class loader.
+     */
+    private static class AccessorClassLoader extends ClassLoader {
+
+        AccessorClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String className, byte[] bytes) {
+            return defineClass(className, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.springlite.beans.factory.support;
 
 import org.springlite.beans.BeanReference;
+import org.springlite.beans.factory.ObjectFactory;
 import org.springlite.util.ObjectUtils;
 
 /**
@@ -218,6 +219,14 @@ public class BeanDefinitionBuilder {
         return this;
     }
 
+    /**
+     * Set the callback creating the bean instance instead of a constructor.
+     */
+    public BeanDefinitionBuilder setInstanceSupplier(ObjectFactory<?> instanceSupplier) {
+        this.beanDefinition.setInstanceSupplier(instanceSupplier);
+        return this;
+    }
+
     /**
      * Set the init method for this definition.
      */
@@ -262,6 +271,14 @@ public class BeanDefinitionBuilder {
         return this;
     }
 
+    /**
+     * Set whether the init methods of beans for this definition run asynchronously.
+     */
+    public BeanDefinitionBuilder setAsyncInit(boolean asyncInit) {
+        this.beanDefinition.setAsyncInit(asyncInit);
+        return this;
+    }
+
     /**
      * Set the autowire mode for this definition.
      */
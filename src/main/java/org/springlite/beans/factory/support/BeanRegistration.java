@@ -0,0 +1,144 @@
+package org.springlite.beans.factory.support;
+
+import org.springlite.beans.factory.ObjectFactory;
+import org.springlite.beans.factory.config.BeanDefinition;
+import org.springlite.util.Assert;
+
+/**
+ * 〈Java代码注册bean〉&lt;p&gt;
+ * Fluent registration of one bean definition from Java code, obtained from
+ * {@link DefaultListableBeanFactory#defineBean(String, Class)} and registered
+ * by {@link #register()}.
+ *
+ * <p>With an {@link #instanceSupplier instance supplier} the bean is created
+ * by the supplier, e.g. with a plain {@code new}, instead of a reflective
+ * constructor call; property values, init and destroy methods still apply.
+ * Constructor arguments are ignored in that case.
+ *
+ * @author zixiao
+ * @date 16/6/23
+ * @see BeanDefinitionBuilder
+ * @since [产品/模块版本] （可选）
+ */
+public class BeanRegistration<T> {
+
+    private final BeanDefinitionRegistry registry;
+
+    private final String beanName;
+
+    private final BeanDefinitionBuilder builder;
+
+    private boolean registered;
+
+    BeanRegistration(BeanDefinitionRegistry registry, String beanName, Class<T> beanClass) {
+        Assert.hasText(beanName, "Bean name must not be empty");
+        Assert.notNull(beanClass, "Bean class must not be null");
+        this.registry = registry;
+        this.beanName = beanName;
+        this.builder = BeanDefinitionBuilder.rootBeanDefinition(beanClass).setBeanName(beanName);
+    }
+
+    /**
+     * Create bean instances with the given callback instead of a constructor.
+     */
+    public BeanRegistration<T> instanceSupplier(ObjectFactory<? extends T> instanceSupplier) {
+        this.builder.setInstanceSupplier(instanceSupplier);
+        return this;
+    }
+
+    /**
+     * Set the scope of the bean.
+     * @see BeanDefinition#SCOPE_SINGLETON
+     * @see BeanDefinition#SCOPE_PROTOTYPE
+     */
+    public BeanRegistration<T> scope(String scope) {
+        this.builder.setScope(scope);
+        return this;
+    }
+
+    /**
+     * Make the bean a prototype.
+     */
+    public BeanRegistration<T> prototype() {
+        return scope(BeanDefinition.SCOPE_PROTOTYPE);
+    }
+
+    /**
+     * Do not create the singleton on pre-instantiation.
+     */
+    public BeanRegistration<T> lazyInit() {
+        this.builder.setLazyInit(true);
+        return this;
+    }
+
+    /**
+     * Run the init method of the singleton asynchronously.
+     */
+    public BeanRegistration<T> asyncInit() {
+        this.builder.setAsyncInit(true);
+        return this;
+    }
+
+    public BeanRegistration<T> initMethod(String methodName) {
+        this.builder.setInitMethodName(methodName);
+        return this;
+    }
+
+    public BeanRegistration<T> destroyMethod(String methodName) {
+        this.builder.setDestroyMethodName(methodName);
+        return this;
+    }
+
+    /**
+     * Add the names of beans to be initialized before this one.
+     */
+    public BeanRegistration<T> dependsOn(String... beanNames) {
+        for (String dependsOn : beanNames) {
+            this.builder.addDependsOn(dependsOn);
+        }
+        return this;
+    }
+
+    /**
+     * Add the next indexed constructor argument.
+     */
+    public BeanRegistration<T> constructorArg(Object value) {
+        this.builder.addConstructorArgValue(value);
+        return this;
+    }
+
+    /**
+     * Add a reference to a named bean as the next indexed constructor argument.
+     */
+    public BeanRegistration<T> constructorArgReference(String beanName) {
+        this.builder.addConstructorArgReference(beanName);
+        return this;
+    }
+
+    public BeanRegistration<T> property(String name, Object value) {
+        this.builder.addPropertyValue(name, value);
+        return this;
+    }
+
+    /**
+     * Add a reference to a named bean as the value of the given property.
+     */
+    public BeanRegistration<T> propertyReference(String name, String beanName) {
+        this.builder.addPropertyReference(name, beanName);
+        return this;
+    }
+
+    /**
+     * Register the bean definition built so far.
+     * @return the registered bean definition
+     * @throws org.springlite.beans.exception.BeanDefinitionStoreException if the name is already bound
+     */
+    public AbstractBeanDefinition register() {
+        Assert.state(!this.registered, "Bean '" + this.beanName + "' has already been registered");
+        AbstractBeanDefinition beanDefinition = this.builder.getBeanDefinition();
+        this.registry.registerBeanDefinition(this.beanName, beanDefinition);
+        this.registered = true;
+        return beanDefinition;
+    }
+
+}
@@ -0,0 +1,341 @@
+package org.springlite.beans.factory.support;
+
+import org.springlite.beans.exception.BeanDefinitionStoreException;
+import org.springlite.beans.exception.CannotLoadBeanClassException;
+import org.springlite.beans.factory.FactoryBean;
+import org.springlite.beans.factory.config.BeanDefinition;
+import org.springlite.util.ClassHierarchyUtils;
+
+import java.util.*;
+
+/**
+ * 〈按类型索引bean名称〉&lt;p&gt;
+ * Index from every superclass and interface of a bean's type to the names of
+ * the beans of a {@link DefaultListableBeanFactory}, so that by-type lookups
+ * only look at the beans that can match instead of at every bean definition.
+ *
+ * <p>Registrations are queued and indexed on the next by-type lookup, resolving
+ * the bean class of each new bean definition (or the class of each new manual
+ * singleton) once. Beans whose type cannot be told from their class alone -
+ * FactoryBeans, beans whose class cannot be loaded, manual singletons
+ * registered over a bean definition - are kept as <i>dynamic</i> candidates,
+ * to be matched on every lookup the same way as before. Abstract bean
+ * definitions never match.
+ *
+ * <p>The classes of beans that are not created on startup - lazy-init
+ * singletons, prototypes and other scopes - are not loaded for indexing while
+ * their definitions only carry a class name: their type hierarchy is read from
+ * the class file headers by {@link ClassHierarchyUtils}, and they are indexed
+ * by the names of their types, as seen by the bean class loader. The class is
+ * loaded on first creation of the bean.
+ *
+ * <p>Any change evicts the by-type results cached by the factory for the
+ * affected types only; a change to a dynamic candidate evicts all of them.
+ *
+ * @author zixiao
+ * @date 16/6/17
+ * @see DefaultListableBeanFactory#getBeanNamesForType(Class, boolean, boolean)
+ * @since [产品/模块版本] （可选）
+ */
+class BeanTypeIndex {
+
+    private final DefaultListableBeanFactory beanFactory;
+
+    /** Bean name --> its current entry */
+    private final Map<String, Entry> entries = new HashMap<String, Entry>(64);
+
+    /** Superclass or interface --> entries of the beans assignable to it, in registration order */
+    private final Map<Class<?>, Set<Entry>> entriesByType = new HashMap<Class<?>, Set<Entry>>(64);
+
+    /** Superclass or interface name --> entries of the beans whose class is not loaded, in registration order */
+    private final Map<String, Set<Entry>> entriesByTypeName = new HashMap<String, Set<Entry>>(64);
+
+    /** Entries to be matched on every lookup */
+    private final Set<Entry> dynamicEntries = new LinkedHashSet<Entry>();
+
+    /** Entries registered since the last lookup, not indexed yet */
+    private final Set<Entry> pendingEntries = new LinkedHashSet<Entry>();
+
+    private volatile boolean hasPendingEntries;
+
+    private long sequence;
+
+    BeanTypeIndex(DefaultListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * Queue a newly registered bean definition or manual singleton for indexing,
+     * replacing any previous entry of the same name.
+     */
+    synchronized void register(String beanName, boolean definition) {
+        Entry oldEntry = this.entries.remove(beanName);
+        if (oldEntry != null) {
+            unlink(oldEntry);
+        }
+        Entry entry = new Entry(beanName, definition, this.sequence++, null, null, false);
+        this.entries.put(beanName, entry);
+        this.pendingEntries.add(entry);
+        this.hasPendingEntries = true;
+    }
+
+    /**
+     * Remove the entry of the given bean, if any.
+     */
+    synchronized void remove(String beanName) {
+        Entry entry = this.entries.remove(beanName);
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * Turn the entry of the given bean into a dynamic candidate, e.g. because a
+     * manual singleton of any type has been registered for its bean definition.
+     */
+    synchronized void markDynamic(String beanName) {
+        Entry entry = this.entries.get(beanName);
+        if (entry != null && !entry.dynamic) {
+            unlink(entry);
+            Entry dynamicEntry = entry.resolve(null, true);
+            this.entries.put(beanName, dynamicEntry);
+            this.dynamicEntries.add(dynamicEntry);
+        }
+    }
+
+    /**
+     * Called after the singleton instance of the given bean has been destroyed:
+     * drops manual singletons, and evicts the results a dynamic candidate
+     * may have contributed to.
+     */
+    synchronized void singletonDestroyed(String beanName) {
+        Entry entry = this.entries.get(beanName);
+        if (entry == null) {
+            return;
+        }
+        if (!entry.definition) {
+            this.entries.remove(beanName);
+            unlink(entry);
+        }
+        else if (entry.dynamic) {
+            this.beanFactory.clearByTypeCache();
+        }
+    }
+
+    /**
+     * Index all queued registrations, evicting the cached results they affect.
+     */
+    void update() {
+        if (this.hasPendingEntries) {
+            synchronized (this) {
+                indexPendingEntries();
+            }
+        }
+    }
+
+    /**
+     * Return the beans that may be of the given type, in the order of a full scan:
+     * bean definitions in registration order, then manual singletons. Indexed
+     * entries are known to match; dynamic ones still need to be checked.
+     */
+    synchronized List<Entry> getCandidates(Class<?> type) {
+        indexPendingEntries();
+        Set<Entry> indexed = this.entriesByType.get(type);
+        Set<Entry> indexedByName = this.entriesByTypeName.get(type.getName());
+        List<Entry> candidates = new ArrayList<Entry>((indexed != null ? indexed.size() : 0) +
+                (indexedByName != null ? indexedByName.size() : 0) + this.dynamicEntries.size());
+        if (indexed != null) {
+            candidates.addAll(indexed);
+        }
+        if (indexedByName != null) {
+            candidates.addAll(indexedByName);
+        }
+        candidates.addAll(this.dynamicEntries);
+        Collections.sort(candidates);
+        return candidates;
+    }
+
+    private void indexPendingEntries() {
+        if (this.pendingEntries.isEmpty()) {
+            return;
+        }
+        for (Entry entry : this.pendingEntries) {
+            Entry resolvedEntry = resolve(entry);
+            this.entries.put(entry.beanName, resolvedEntry);
+            if (resolvedEntry.dynamic) {
+                this.dynamicEntries.add(resolvedEntry);
+                this.beanFactory.clearByTypeCache();
+            }
+            else if (resolvedEntry.beanType != null) {
+                for (Class<?> type : getTypeHierarchy(resolvedEntry.beanType)) {
+                    Set<Entry> typeEntries = this.entriesByType.get(type);
+                    if (typeEntries == null) {
+                        typeEntries = new LinkedHashSet<Entry>(4);
+                        this.entriesByType.put(type, typeEntries);
+                    }
+                    typeEntries.add(resolvedEntry);
+                    this.beanFactory.clearByTypeCache(type);
+                }
+            }
+            else if (resolvedEntry.typeNames != null) {
+                for (String typeName : resolvedEntry.typeNames) {
+                    Set<Entry> typeEntries = this.entriesByTypeName.get(typeName);
+                    if (typeEntries == null) {
+                        typeEntries = new LinkedHashSet<Entry>(4);
+                        this.entriesByTypeName.put(typeName, typeEntries);
+                    }
+                    typeEntries.add(resolvedEntry);
+                }
+                this.beanFactory.clearByTypeCache(resolvedEntry.typeNames);
+            }
+        }
+        this.pendingEntries.clear();
+        this.hasPendingEntries = false;
+    }
+
+    private Entry resolve(Entry entry) {
+        if (!entry.definition) {
+            Object beanInstance = this.beanFactory.getSingleton(entry.beanName, false);
+            if (beanInstance instanceof FactoryBean) {
+                return entry.resolve(null, true);
+            }
+            // a null instance never matches
+            return entry.resolve(beanInstance != null ? beanInstance.getClass() : null, false);
+        }
+        try {
+            // The raw definition has the same attributes, and is not parsed further when deferred.
+            BeanDefinition bd = this.beanFactory.getBeanDefinition(entry.beanName);
+            if (bd.isAbstract()) {
+                return entry.resolve(null, false);
+            }
+            if (bd instanceof AbstractBeanDefinition && !((AbstractBeanDefinition) bd).hasBeanClass() &&
+                    bd.getBeanClassName() != null && (bd.isLazyInit() || !bd.isSingleton())) {
+                // Not created on startup: match by type names rather than loading the class.
+                Set<String> typeNames = ClassHierarchyUtils.getTypeHierarchy(
+                        bd.getBeanClassName(), this.beanFactory.getBeanClassLoader());
+                if (typeNames != null) {
+                    if (typeNames.contains(FactoryBean.class.getName())) {
+                        return entry.resolve(null, true);
+                    }
+                    return entry.resolve(typeNames);
+                }
+            }
+            RootBeanDefinition mbd = this.beanFactory.getMergedLocalBeanDefinition(entry.beanName);
+            Class<?> beanType = this.beanFactory.predictBeanType(entry.beanName, mbd);
+            if (beanType == null || FactoryBean.class.isAssignableFrom(beanType)) {
+                return entry.resolve(null, true);
+            }
+            return entry.resolve(beanType, false);
+        }
+        catch (CannotLoadBeanClassException ex) {
+            // reported (or ignored) by the lookups that match it
+            return entry.resolve(null, true);
+        }
+        catch (BeanDefinitionStoreException ex) {
+            return entry.resolve(null, true);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        if (this.pendingEntries.remove(entry)) {
+            return;
+        }
+        if (entry.dynamic) {
+            this.dynamicEntries.remove(entry);
+            this.beanFactory.clearByTypeCache();
+        }
+        else if (entry.beanType != null) {
+            for (Class<?> type : getTypeHierarchy(entry.beanType)) {
+                Set<Entry> typeEntries = this.entriesByType.get(type);
+                if (typeEntries != null) {
+                    typeEntries.remove(entry);
+                    if (typeEntries.isEmpty()) {
+                        this.entriesByType.remove(type);
+                    }
+                }
+                this.beanFactory.clearByTypeCache(type);
+            }
+        }
+        else if (entry.typeNames != null) {
+            for (String typeName : entry.typeNames) {
+                Set<Entry> typeEntries = this.entriesByTypeName.get(typeName);
+                if (typeEntries != null) {
+                    typeEntries.remove(entry);
+                    if (typeEntries.isEmpty()) {
+                        this.entriesByTypeName.remove(typeName);
+                    }
+                }
+            }
+            this.beanFactory.clearByTypeCache(entry.typeNames);
+        }
+    }
+
+    /**
+     * Return the given class, all its superclasses and all interfaces they implement.
+     */
+    static Set<Class<?>> getTypeHierarchy(Class<?> beanType) {
+        Set<Class<?>> types = new LinkedHashSet<Class<?>>(8);
+        for (Class<?> current = beanType; current != null; current = current.getSuperclass()) {
+            types.add(current);
+            addInterfaces(current, types);
+        }
+        return types;
+    }
+
+    private static void addInterfaces(Class<?> type, Set<Class<?>> types) {
+        for (Class<?> ifc : type.getInterfaces()) {
+            if (types.add(ifc)) {
+                addInterfaces(ifc, types);
+            }
+        }
+    }
+
+
+    /**
+     * Immutable index entry of one bean: pending, indexed under its bean type or
+     * under the names of its types, dynamic, or never matching (none of these).
+     */
+    static final class Entry implements Comparable<Entry> {
+
+        final String beanName;
+
+        /** Whether the bean has a definition, rather than being a manual singleton */
+        final boolean definition;
+
+        final long sequence;
+
+        final Class<?> beanType;
+
+        /** Names of the bean's types, if its class has not been loaded */
+        final Set<String> typeNames;
+
+        final boolean dynamic;
+
+        Entry(String beanName, boolean definition, long sequence, Class<?> beanType, Set<String> typeNames,
+              boolean dynamic) {
+            this.beanName = beanName;
+            this.definition = definition;
+            this.sequence = sequence;
+            this.beanType = beanType;
+            this.typeNames = typeNames;
+            this.dynamic = dynamic;
+        }
+
+        Entry resolve(Class<?> beanType, boolean dynamic) {
+            return new Entry(this.beanName, this.definition, this.sequence, beanType, null, dynamic);
+        }
+
+        Entry resolve(Set<String> typeNames) {
+            return new Entry(this.beanName, this.definition, this.sequence, null, typeNames, false);
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (this.definition != other.definition) {
+                return (this.definition ? -1 : 1);
+            }
+            return (this.sequence < other.sequence ? -1 : (this.sequence == other.sequence ? 0 : 1));
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.springlite.beans.factory.support;
+
+import org.springlite.beans.exception.BeansException;
+import org.springlite.beans.factory.BeanFactory;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * 〈一句话功能简述〉&lt;p&gt;
+ * Instantiation strategy creating beans through a generated {@link BeanAccessor},
+ * i.e. a plain {@code new} instead of {@code Constructor.newInstance}.
+ * Property values are written through the same accessor, see
+ * {@link AbstractAutowireCapableBeanFactory#applyPropertyValues}.
+ *
+ * <p>Falls back to reflection for non-public classes and constructors.
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see BeanAccessorGenerator
+ * @since [产品/模块版本] （可选）
+ */
+public class BytecodeInstantiationStrategy extends SimpleInstantiationStrategy {
+
+    private final BeanAccessorGenerator accessorGenerator = new BeanAccessorGenerator();
+
+
+    /**
+     * Return the accessor for the given bean class.
+     * @return the accessor, or {@code null} if reflection has to be used
+     */
+    public BeanAccessor getBeanAccessor(Class<?> beanClass) {
+        return this.accessorGenerator.getAccessor(beanClass);
+    }
+
+    @Override
+    public Object instantiate(RootBeanDefinition bd, String beanName, BeanFactory owner) throws BeansException {
+        Class<?> beanClass = bd.getBeanClass();
+        BeanAccessor accessor = getBeanAccessor(beanClass);
+        if (accessor != null && accessor.getDefaultConstructorIndex() >= 0) {
+            return newInstance(accessor, accessor.getDefaultConstructorIndex(), new Object[0], beanClass);
+        }
+        return super.instantiate(bd, beanName, owner);
+    }
+
+    @Override
+    public Object instantiate(RootBeanDefinition bd, String beanName, BeanFactory owner,
+                              Constructor<?> ctor, Object... args) throws BeansException {
+        BeanAccessor accessor = getBeanAccessor(ctor.getDeclaringClass());
+        if (accessor != null) {
+            int index = accessor.getConstructorIndex(ctor);
+            if (index >= 0) {
+                return newInstance(accessor, index, args, ctor.getDeclaringClass());
+            }
+        }
+        return super.instantiate(bd, beanName, owner, ctor, args);
+    }
+
+    /**
+     * Create the instance through the accessor, wrapping whatever the
+     * constructor throws like {@link org.springlite.beans.BeanUtils#instantiateClass} does.
+     */
+    private Object newInstance(BeanAccessor accessor, int index, Object[] args, Class<?> beanClass) {
+        try {
+            return accessor.newInstance(index, args);
+        }
+        catch (Throwable ex) {
+            throw new BeansException(beanClass, "Constructor threw exception", ex);
+        }
+    }
+
+}
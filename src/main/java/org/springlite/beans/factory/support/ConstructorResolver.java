@@ -35,6 +35,11 @@ public class ConstructorResolver {
 
     private RootBeanDefinition mbd;
 
+    /** Bean references resolved while matching, reused when building the arguments */
+    private final Map<String, Object> resolvedBeanReferences = new HashMap<String, Object>(4);
+
+    /** Parameter names read while matching, reused when building the arguments */
+    private final Map<Constructor<?>, List<String>> resolvedParameterNames = new HashMap<Constructor<?>, List<String>>(4);
 
     /**
      * Create a new ConstructorResolver for the given factory and instantiation strategy.
@@ -46,20 +51,82 @@ public class ConstructorResolver {
         this.mbd = mbd;
     }
 
+    /**
+     * Instantiate the bean through the constructor matching its constructor-args.
+     * <p>The matched constructor and the prepared arguments are cached on the
+     * bean definition, so re-creating the same bean (e.g. a prototype) only
+     * resolves its bean references again.
+     * @param chosenCtors the candidate constructors, or {@code null} for all public ones
+     * @param constructorArgs explicit arguments; bypass the cache if specified
+     * @return a BeanWrapper for the new instance
+     */
     public BeanWrapper autowireConstructor(Constructor<?>[] chosenCtors, Object[] constructorArgs) throws BeanCreationException {
+        boolean cacheable = ObjectUtils.isEmpty(constructorArgs);
+        if (cacheable) {
+            Constructor<?> constructorToUse;
+            Object[] argsToResolve = null;
+            synchronized (mbd.constructorArgumentLock) {
+                constructorToUse = mbd.resolvedConstructor;
+                if (constructorToUse != null && mbd.constructorArgumentsResolved) {
+                    argsToResolve = mbd.preparedConstructorArguments;
+                }
+            }
+            if (argsToResolve != null) {
+                Object beanInstance = instantiate(constructorToUse, resolvePreparedArguments(argsToResolve));
+                return new BeanWrapperImpl(beanInstance);
+            }
+        }
+
         if(ObjectUtils.isEmpty(chosenCtors)){
-            chosenCtors = mbd.getClass().getConstructors();
+            chosenCtors = mbd.getBeanClass().getConstructors();
         }
         if(chosenCtors.length == 0){
             throw new BeanCreationException(mbd.getResourceDescription(), beanName +" has no constructors.");
         }
 
         Constructor<?> matchedConstructor = findMatchedConstructor(mbd, chosenCtors);
-        constructorArgs = buildConstructorArgs(matchedConstructor, mbd.getConstructorArgumentValues());
-        Object beanInstance = BeanUtils.instantiateClass(matchedConstructor, constructorArgs);
+        Object[] preparedArgs = prepareConstructorArgs(matchedConstructor, mbd.getConstructorArgumentValues());
+        if (cacheable) {
+            synchronized (mbd.constructorArgumentLock) {
+                mbd.resolvedConstructor = matchedConstructor;
+                mbd.preparedConstructorArguments = preparedArgs;
+                mbd.constructorArgumentsResolved = true;
+            }
+        }
+        constructorArgs = resolvePreparedArguments(preparedArgs);
+        Object beanInstance = instantiate(matchedConstructor, constructorArgs);
         return new BeanWrapperImpl(beanInstance);
     }
 
+    private Object instantiate(Constructor<?> constructor, Object[] args) {
+        if (this.beanFactory instanceof AbstractAutowireCapableBeanFactory) {
+            return ((AbstractAutowireCapableBeanFactory) this.beanFactory).getInstantiationStrategy()
+                    .instantiate(mbd, beanName, beanFactory, constructor, args);
+        }
+        return BeanUtils.instantiateClass(constructor, args);
+    }
+
+    /**
+     * Resolve the bean references left in the prepared arguments.
+     * @param preparedArgs the cached argument plan
+     * @return a fresh array of constructor arguments
+     */
+    private Object[] resolvePreparedArguments(Object[] preparedArgs) {
+        Object[] resolvedArgs = new Object[preparedArgs.length];
+        for (int i = 0; i < preparedArgs.length; i++) {
+            Object arg = preparedArgs[i];
+            if (arg instanceof BeanReference) {
+                // Hand over a reference already resolved while matching, at most once
+                Object refBean = this.resolvedBeanReferences.remove(((BeanReference) arg).getName());
+                resolvedArgs[i] = (refBean != null ? refBean : resolveBeanReference((BeanReference) arg));
+            }
+            else {
+                resolvedArgs[i] = arg;
+            }
+        }
+        return resolvedArgs;
+    }
+
     private Constructor<?> findMatchedConstructor(final RootBeanDefinition mbd, Constructor<?>[] chosenCtors){
         ConstructorArgumentValues constructorArgumentValues = mbd.getConstructorArgumentValues();
         int argsCount = constructorArgumentValues.getArgumentCount();
@@ -212,7 +279,14 @@ public class ConstructorResolver {
         return true;
     }
 
-    private Object[] buildConstructorArgs(Constructor<?> constructor, ConstructorArgumentValues constructorArgumentValues) {
+    /**
+     * Build the argument plan for the given constructor: literal values are
+     * converted to the parameter types, bean references are kept as they are.
+     * @param constructor the matched constructor
+     * @param constructorArgumentValues the constructor-args of the bean definition
+     * @return the prepared arguments, in parameter order
+     */
+    private Object[] prepareConstructorArgs(Constructor<?> constructor, ConstructorArgumentValues constructorArgumentValues) {
         Class<?>[] paramTypes = constructor.getParameterTypes();
         int argsCount = mbd.getConstructorArgumentValues().getArgumentCount();
         Assert.isTrue(paramTypes.length ==  argsCount);
@@ -228,7 +302,7 @@ public class ConstructorResolver {
                 int index = entry.getKey();
                 ValueHolder valueHolder = entry.getValue();
                 Object value = valueHolder.getValue();
-                constructorArgs[index] = convertValue(value, paramTypes[index]);
+                constructorArgs[index] = prepareValue(value, paramTypes[index]);
             }
             return constructorArgs;
         //by name
@@ -253,18 +327,17 @@ public class ConstructorResolver {
             String name = valueHolder.getName();
             Object value = valueHolder.getValue();
             if (paramName.equals(name)){
-                return convertValue(value, paramType);
+                return prepareValue(value, paramType);
             }
         }
         //never happen
         throw new BeanCreationException(mbd.getResourceDescription(), beanName +" Can not find constructor param '"+paramName+"'.");
     }
 
-    private Object convertValue(Object value, Class<?> paramType){
-        //是ref
+    private Object prepareValue(Object value, Class<?> paramType){
+        //是ref，每次实例化时再解析
         if(value instanceof BeanReference){
-            Object convertedValue = getBeanReference((BeanReference) value);
-            return convertedValue;
+            return value;
             //是普通value
         }else {
             try {
@@ -293,14 +366,18 @@ public class ConstructorResolver {
     }
 
     private List<String> getParamNames(Constructor<?> constructor){
+        List<String> paramNames = this.resolvedParameterNames.get(constructor);
+        if (paramNames != null) {
+            return paramNames;
+        }
         Class<?>[] paramTypes = constructor.getParameterTypes();
-        List<String> paramNames = null;
         try {
             paramNames = ByteCodeUtils.getParameterNames(constructor);
             if(CollectionUtils.isEmpty(paramNames) || paramNames.size() != paramTypes.length){
                 throw new BeanCreationException(mbd.getResourceDescription(), beanName,
                         "Can not get parameter names of constructor '"+constructor.getName()+"'.");
             }
+            this.resolvedParameterNames.put(constructor, paramNames);
             return paramNames;
         } catch (Exception e) {
             if(e instanceof BeanCreationException){
@@ -312,7 +389,19 @@ public class ConstructorResolver {
     }
 
 
+    /**
+     * Resolve a bean reference for matching, remembering the result for building the arguments.
+     */
     private Object getBeanReference(BeanReference beanReference){
+        Object refBean = this.resolvedBeanReferences.get(beanReference.getName());
+        if (refBean == null) {
+            refBean = resolveBeanReference(beanReference);
+            this.resolvedBeanReferences.put(beanReference.getName(), refBean);
+        }
+        return refBean;
+    }
+
+    private Object resolveBeanReference(BeanReference beanReference){
         Object refBean = this.beanFactory.getBean(beanReference.getName());
         if(refBean == null){
             throw new BeanCreationException(mbd.getResourceDescription(), beanName,
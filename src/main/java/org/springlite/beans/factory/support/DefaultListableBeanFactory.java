@@ -6,6 +6,7 @@ import org.springlite.beans.factory.BeanFactory;
 import org.springlite.beans.factory.ConfigurableBeanFactory;
 import org.springlite.beans.factory.ConfigurableListableBeanFactory;
 import org.springlite.beans.factory.ListableBeanFactory;
+import org.springlite.beans.factory.ObjectFactory;
 import org.springlite.beans.factory.config.BeanDefinition;
 import org.springlite.util.Assert;
 import org.springlite.util.ClassUtils;
@@ -28,9 +29,45 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
     /** Map of singleton-only bean names keyed by dependency type */
     private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<Class<?>, String[]>(64);
 
+    /** Map of the bean name getBean(Class) resolved, keyed by required type */
+    private final Map<Class<?>, String> resolvedBeanNamesByType = new ConcurrentHashMap<Class<?>, String>(64);
+
+    /** Map of the fully created singleton getBean(Class) resolved, keyed by required type */
+    private final Map<Class<?>, Object> resolvedSingletonsByType = new ConcurrentHashMap<Class<?>, Object>(64);
+
+    /** Incremented on every invalidation of the resolved caches, to detect racing lookups */
+    private volatile int resolvedBeansGeneration;
+
     /** List of bean definition names, in registration order */
     private final List<String> beanDefinitionNames = new ArrayList<String>();
 
+    /** Bean names keyed by every superclass and interface of their bean type */
+    private final BeanTypeIndex beanTypeIndex = new BeanTypeIndex(this);
+
+    /** Number of threads used to pre-instantiate singletons; 1 means sequential */
+    private int preInstantiationParallelism = 1;
+
+
+    /**
+     * Set the number of threads used by {@link #preInstantiateSingletons()}.
+     * <p>Default is 1: all non-lazy singletons are created one after another on
+     * the calling thread. A higher value creates independent singletons in
+     * parallel, ordered by {@code depends-on}, property and constructor-arg
+     * references; beans in a reference cycle are still created together on
+     * one thread.
+     */
+    public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+        Assert.isTrue(preInstantiationParallelism > 0, "'preInstantiationParallelism' must be positive");
+        this.preInstantiationParallelism = preInstantiationParallelism;
+    }
+
+    /**
+     * Return the number of threads used to pre-instantiate singletons.
+     */
+    public int getPreInstantiationParallelism() {
+        return this.preInstantiationParallelism;
+    }
+
     /**********************************************************************
      * Implementation of ConfigurableBeanFactory interface start
      * @see ConfigurableBeanFactory
@@ -62,11 +99,16 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
             beanNames = new ArrayList<String>(this.beanDefinitionNames);
         }
 
+        if (this.preInstantiationParallelism > 1 && beanNames.size() > 1) {
+            new ParallelSingletonInstantiator(this, beanNames, this.preInstantiationParallelism).preInstantiate();
+            return;
+        }
+
         // Trigger initialization of all non-lazy singleton beans...
         for (String beanName : beanNames) {
             RootBeanDefinition bd = (RootBeanDefinition)getBeanDefinition(beanName);
             if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-                getBean(beanName);
+                doGetBean(beanName, null, null, false, false);
             }
         }
     }
@@ -94,6 +136,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
                 this.beanDefinitionNames.add(beanName);
             }
             this.beanDefinitionMap.put(beanName, beanDefinition);
+            this.beanTypeIndex.register(beanName, true);
         }
         resetBeanDefinition(beanName);
     }
@@ -108,6 +151,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
                 throw new NoSuchBeanDefinitionException(beanName);
             }
             this.beanDefinitionNames.remove(beanName);
+            this.beanTypeIndex.remove(beanName);
         }
         resetBeanDefinition(beanName);
     }
@@ -126,8 +170,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
         // (e.g. the default StaticMessageSource in a StaticApplicationContext).
         destroySingleton(beanName);
 
-        // Remove any assumptions about by-type mappings.
-        clearByTypeCache();
+        // By-type mappings have been updated by the type index.
 
 //        //Reset all bean definitions that have the given bean as parent (recursively).
 //        for (String bdName : this.beanDefinitionNames) {
@@ -145,6 +188,35 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
         return containsBeanDefinition(beanName);
     }
 
+    /**
+     * Start a fluent definition of a bean of the given class, registered
+     * by {@link BeanRegistration#register()}.
+     * <pre class="code">
+     * beanFactory.defineBean("student", Student.class)
+     *         .instanceSupplier(studentFactory)
+     *         .prototype()
+     *         .propertyReference("mother", "mother")
+     *         .register();</pre>
+     * @param beanName the name of the bean
+     * @param beanClass the class of the bean
+     */
+    public <T> BeanRegistration<T> defineBean(String beanName, Class<T> beanClass) {
+        return new BeanRegistration<T>(this, beanName, beanClass);
+    }
+
+    /**
+     * Register a singleton bean created by the given supplier.
+     * @param beanName the name of the bean
+     * @param beanClass the class of the bean
+     * @param instanceSupplier the callback creating the bean instance
+     * @return the registered bean definition
+     * @see #defineBean(String, Class)
+     */
+    public <T> AbstractBeanDefinition registerBean(String beanName, Class<T> beanClass,
+                                                   ObjectFactory<? extends T> instanceSupplier) {
+        return defineBean(beanName, beanClass).instanceSupplier(instanceSupplier).register();
+    }
+
     /**********************************************************************
      * Implementation of BeanDefinitionRegistry interface end
      * @see org.springlite.beans.factory.support.BeanDefinitionRegistry
@@ -161,22 +233,78 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
     @Override
     public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
         super.registerSingleton(beanName, singletonObject);
-        clearByTypeCache();
+        clearResolvedSingletons();
+        if (containsBeanDefinition(beanName)) {
+            // The instance now decides the bean's type, whatever its definition says.
+            this.beanTypeIndex.markDynamic(beanName);
+        }
+        else {
+            this.beanTypeIndex.register(beanName, false);
+        }
     }
 
     @Override
     public void destroySingleton(String beanName) {
         super.destroySingleton(beanName);
-        clearByTypeCache();
+        clearResolvedSingletons();
+        this.beanTypeIndex.singletonDestroyed(beanName);
     }
 
     /**********************************************************************
      * SingletonBeanRegistry DefaultSingletonBeanRegistry end
      *********************************************************************/
 
-    private void clearByTypeCache() {
+    /**
+     * Remove the singletons cached by {@link #getBean(Class)}: cheap enough for
+     * every singleton registration or destruction.
+     */
+    private void clearResolvedSingletons() {
+        this.resolvedBeansGeneration++;
+        if (!this.resolvedSingletonsByType.isEmpty()) {
+            this.resolvedSingletonsByType.clear();
+        }
+    }
+
+    /**
+     * Remove all cached by-type lookup results.
+     */
+    void clearByTypeCache() {
+        this.resolvedBeansGeneration++;
         this.allBeanNamesByType.clear();
         this.singletonBeanNamesByType.clear();
+        this.resolvedBeanNamesByType.clear();
+        this.resolvedSingletonsByType.clear();
+    }
+
+    /**
+     * Remove the cached by-type lookup results for the given type.
+     */
+    void clearByTypeCache(Class<?> type) {
+        this.resolvedBeansGeneration++;
+        this.allBeanNamesByType.remove(type);
+        this.singletonBeanNamesByType.remove(type);
+        this.resolvedBeanNamesByType.remove(type);
+        this.resolvedSingletonsByType.remove(type);
+    }
+
+    /**
+     * Remove the cached by-type lookup results for the types with the given
+     * class names, without loading these classes.
+     */
+    void clearByTypeCache(Set<String> typeNames) {
+        this.resolvedBeansGeneration++;
+        removeTypes(this.allBeanNamesByType.keySet(), typeNames);
+        removeTypes(this.singletonBeanNamesByType.keySet(), typeNames);
+        removeTypes(this.resolvedBeanNamesByType.keySet(), typeNames);
+        removeTypes(this.resolvedSingletonsByType.keySet(), typeNames);
+    }
+
+    private static void removeTypes(Set<Class<?>> types, Set<String> typeNames) {
+        for (Iterator<Class<?>> it = types.iterator(); it.hasNext();) {
+            if (typeNames.contains(it.next().getName())) {
+                it.remove();
+            }
+        }
     }
 
     /**********************************************************************
@@ -184,8 +312,45 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
      * @see ListableBeanFactory
      *********************************************************************/
 
+    /**
+     * Return the unique (or primary) bean of the given type. The resolved bean
+     * name is cached per type, and so is the instance if it is a fully created
+     * singleton: repeat lookups of a singleton are a single map read.
+     */
     public <T> T getBean(Class<T> requiredType) throws BeansException {
         Assert.notNull(requiredType, "Required type must not be null");
+        Object singleton = this.resolvedSingletonsByType.get(requiredType);
+        if (singleton != null) {
+            return requiredType.cast(singleton);
+        }
+        int generation = this.resolvedBeansGeneration;
+        // Evict the resolutions that beans registered since the last lookup affect.
+        this.beanTypeIndex.update();
+        String beanName = this.resolvedBeanNamesByType.get(requiredType);
+        if (beanName == null) {
+            beanName = resolveBeanName(requiredType);
+            if (ClassUtils.isCacheSafe(requiredType, getBeanClassLoader())) {
+                this.resolvedBeanNamesByType.put(requiredType, beanName);
+            }
+        }
+        T bean = getBean(beanName, requiredType);
+        if (!isSingletonCurrentlyInCreation(beanName) && getSingleton(beanName, false) == bean &&
+                ClassUtils.isCacheSafe(requiredType, getBeanClassLoader())) {
+            this.resolvedSingletonsByType.put(requiredType, bean);
+        }
+        if (generation != this.resolvedBeansGeneration) {
+            // Invalidated meanwhile: do not keep what may have been resolved from stale state.
+            this.resolvedBeanNamesByType.remove(requiredType);
+            this.resolvedSingletonsByType.remove(requiredType);
+        }
+        return bean;
+    }
+
+    /**
+     * Determine the name of the unique autowire candidate of the given type,
+     * or of the primary one among several.
+     */
+    private String resolveBeanName(Class<?> requiredType) throws BeansException {
         String[] beanNames = getBeanNamesForType(requiredType);
         if (beanNames.length > 1) {
             ArrayList<String> autowireCandidates = new ArrayList<String>();
@@ -199,22 +364,22 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
             }
         }
         if (beanNames.length == 1) {
-            return getBean(beanNames[0], requiredType);
+            return beanNames[0];
         }
         else if (beanNames.length > 1) {
-            T primaryBean = null;
+            String primaryBeanName = null;
             for (String beanName : beanNames) {
-                T beanInstance = getBean(beanName, requiredType);
+                Object beanInstance = getBean(beanName, requiredType);
                 if (isPrimary(beanName, beanInstance)) {
-                    if (primaryBean != null) {
+                    if (primaryBeanName != null) {
                         throw new NoUniqueBeanDefinitionException(requiredType, beanNames.length,
                                 "more than one 'primary' bean found of required type: " + Arrays.asList(beanNames));
                     }
-                    primaryBean = beanInstance;
+                    primaryBeanName = beanName;
                 }
             }
-            if (primaryBean != null) {
-                return primaryBean;
+            if (primaryBeanName != null) {
+                return primaryBeanName;
             }
             throw new NoUniqueBeanDefinitionException(requiredType, beanNames);
         }
@@ -251,6 +416,8 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
         if (type == null || !allowEagerInit) {
             return doGetBeanNamesForType(type, includeNonSingletons, allowEagerInit);
         }
+        // Evict the cached results that beans registered since the last lookup affect.
+        this.beanTypeIndex.update();
         Map<Class<?>, String[]> cache =
                 (includeNonSingletons ? this.allBeanNamesByType : this.singletonBeanNamesByType);
         String[] resolvedBeanNames = cache.get(type);
@@ -266,49 +433,32 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 
     private String[] doGetBeanNamesForType(Class<?> type, boolean includeNonSingletons, boolean allowEagerInit) {
         List<String> result = new ArrayList<String>();
-        // Check all bean definitions.
-        String[] beanDefinitionNames = getBeanDefinitionNames();
-        for (String beanName : beanDefinitionNames) {
-            try {
-                RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
-                // Only check bean definition if it is complete.
-                if (!mbd.isAbstract() && (allowEagerInit ||
-                        ((mbd.hasBeanClass() || !mbd.isLazyInit())) ) ) {
-                    // In case of FactoryBean, match object created by FactoryBean.
-                    boolean isFactoryBean = isFactoryBean(beanName, mbd);
-                    boolean matchFound = (allowEagerInit || !isFactoryBean || containsSingleton(beanName)) &&
-                            (includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type);
-                    if (!matchFound && isFactoryBean) {
-                        // In case of FactoryBean, try to match FactoryBean instance itself next.
-                        beanName = FACTORY_BEAN_PREFIX + beanName;
-                        matchFound = (includeNonSingletons || mbd.isSingleton()) && isTypeMatch(beanName, type);
-                    }
-                    if (matchFound) {
-                        result.add(beanName);
-                    }
-                }
-            }
-            catch (CannotLoadBeanClassException ex) {
-                if (allowEagerInit) {
-                    throw ex;
-                }
-                // Probably contains a placeholder: let's ignore it for type matching purposes.
-                if (this.logger.isDebugEnabled()) {
-                    this.logger.debug("Ignoring bean class loading failure for bean '" + beanName + "'", ex);
+        if (type != null) {
+            // Only look at the beans indexed under the type, and those the index cannot type.
+            for (BeanTypeIndex.Entry candidate : this.beanTypeIndex.getCandidates(type)) {
+                String beanName = candidate.beanName;
+                if (candidate.dynamic) {
+                    beanName = (candidate.definition ?
+                            matchBeanDefinition(beanName, type, includeNonSingletons, allowEagerInit) :
+                            matchManualSingleton(beanName, type, includeNonSingletons));
                 }
-                onSuppressedException(ex);
-            }
-            catch (BeanDefinitionStoreException ex) {
-                if (allowEagerInit) {
-                    throw ex;
+                else if (!includeNonSingletons && !isSingleton(beanName)) {
+                    beanName = null;
                 }
-                // Probably contains a placeholder: let's ignore it for type matching purposes.
-                if (this.logger.isDebugEnabled()) {
-                    this.logger.debug("Ignoring unresolvable metadata in bean definition '" + beanName + "'", ex);
+                if (beanName != null) {
+                    result.add(beanName);
                 }
-                onSuppressedException(ex);
             }
+            return StringUtils.toStringArray(result);
+        }
 
+        // Check all bean definitions.
+        String[] beanDefinitionNames = getBeanDefinitionNames();
+        for (String beanName : beanDefinitionNames) {
+            String matchedName = matchBeanDefinition(beanName, type, includeNonSingletons, allowEagerInit);
+            if (matchedName != null) {
+                result.add(matchedName);
+            }
         }
 
         // Check singletons too, to catch manually registered singletons.
@@ -316,24 +466,81 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
         for (String beanName : singletonNames) {
             // Only check if manually registered.
             if (!containsBeanDefinition(beanName)) {
+                String matchedName = matchManualSingleton(beanName, type, includeNonSingletons);
+                if (matchedName != null) {
+                    result.add(matchedName);
+                }
+            }
+        }
+
+        return StringUtils.toStringArray(result);
+    }
+
+    /**
+     * Match the given bean definition against the given type.
+     * @return the matching bean name, with the factory bean prefix if the
+     * FactoryBean itself matches, or {@code null} if no match
+     */
+    private String matchBeanDefinition(String beanName, Class<?> type, boolean includeNonSingletons, boolean allowEagerInit) {
+        try {
+            RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+            // Only check bean definition if it is complete.
+            if (!mbd.isAbstract() && (allowEagerInit ||
+                    ((mbd.hasBeanClass() || !mbd.isLazyInit())) ) ) {
                 // In case of FactoryBean, match object created by FactoryBean.
-                if (isFactoryBean(beanName)) {
-                    if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
-                        result.add(beanName);
-                        // Match found for this bean: do not match FactoryBean itself anymore.
-                        continue;
-                    }
-                    // In case of FactoryBean, try to match FactoryBean itself next.
+                boolean isFactoryBean = isFactoryBean(beanName, mbd);
+                boolean matchFound = (allowEagerInit || !isFactoryBean || containsSingleton(beanName)) &&
+                        (includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type);
+                if (!matchFound && isFactoryBean) {
+                    // In case of FactoryBean, try to match FactoryBean instance itself next.
                     beanName = FACTORY_BEAN_PREFIX + beanName;
+                    matchFound = (includeNonSingletons || mbd.isSingleton()) && isTypeMatch(beanName, type);
                 }
-                // Match raw bean instance (might be raw FactoryBean).
-                if (isTypeMatch(beanName, type)) {
-                    result.add(beanName);
+                if (matchFound) {
+                    return beanName;
                 }
             }
         }
+        catch (CannotLoadBeanClassException ex) {
+            if (allowEagerInit) {
+                throw ex;
+            }
+            // Probably contains a placeholder: let's ignore it for type matching purposes.
+            if (this.logger.isDebugEnabled()) {
+                this.logger.debug("Ignoring bean class loading failure for bean '" + beanName + "'", ex);
+            }
+            onSuppressedException(ex);
+        }
+        catch (BeanDefinitionStoreException ex) {
+            if (allowEagerInit) {
+                throw ex;
+            }
+            // Probably contains a placeholder: let's ignore it for type matching purposes.
+            if (this.logger.isDebugEnabled()) {
+                this.logger.debug("Ignoring unresolvable metadata in bean definition '" + beanName + "'", ex);
+            }
+            onSuppressedException(ex);
+        }
+        return null;
+    }
 
-        return StringUtils.toStringArray(result);
+    /**
+     * Match the given manually registered singleton against the given type.
+     * @return the matching bean name, with the factory bean prefix if the
+     * FactoryBean itself matches, or {@code null} if no match
+     */
+    private String matchManualSingleton(String beanName, Class<?> type, boolean includeNonSingletons) {
+        // In case of FactoryBean, match object created by FactoryBean.
+        if (isFactoryBean(beanName)) {
+            if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
+                // Match found for this bean: do not match FactoryBean itself anymore.
+                return beanName;
+            }
+            // In case of FactoryBean, try to match FactoryBean itself next.
+            beanName = FACTORY_BEAN_PREFIX + beanName;
+        }
+        // Match raw bean instance (might be raw FactoryBean).
+        return (isTypeMatch(beanName, type) ? beanName : null);
     }
 
 
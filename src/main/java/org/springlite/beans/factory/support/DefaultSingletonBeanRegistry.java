@@ -8,14 +8,25 @@ import org.springlite.beans.exception.BeansException;
 import org.springlite.beans.factory.DisposableBean;
 import org.springlite.beans.factory.ObjectFactory;
 import org.springlite.beans.factory.config.SingletonBeanRegistry;
+import org.springlite.core.NamedThreadLocal;
 import org.springlite.util.Assert;
 import org.springlite.util.StringUtils;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Created by swy on 2016/5/26.
+ *
+ * <p>Lookups of already created singletons never take a lock: all three
+ * levels of the singleton cache are concurrent maps. Creation is guarded by
+ * a lock per bean name, so a slow init method only blocks callers waiting for
+ * that very bean. A thread that would wait for a bean whose creating thread is
+ * itself (transitively) waiting for the current thread fails fast with a
+ * {@link BeanCreationException} instead of deadlocking.
  */
 public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
 
@@ -30,13 +41,20 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
     protected final Log logger = LogFactory.getLog(getClass());
 
     /** Cache of singleton objects: bean name --> bean instance */
-    private final Map<String, Object> singletonObjects = new ConcurrentHashMap<String, Object>(64);
+    private final ConcurrentMap<String, Object> singletonObjects = new ConcurrentHashMap<String, Object>(64);
 
     /** Cache of singleton factories: bean name --> ObjectFactory */
-    private final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<String, ObjectFactory<?>>(16);
+    private final ConcurrentMap<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<String, ObjectFactory<?>>(16);
 
     /** Cache of early singleton objects: bean name --> bean instance */
-    private final Map<String, Object> earlySingletonObjects = new HashMap<String, Object>(16);
+    private final ConcurrentMap<String, Object> earlySingletonObjects = new ConcurrentHashMap<String, Object>(16);
+
+    /** Creation locks: bean name --> lock guarding the creation of that singleton */
+    private final ConcurrentMap<String, SingletonCreationLock> singletonCreationLocks =
+            new ConcurrentHashMap<String, SingletonCreationLock>(64);
+
+    /** Threads waiting for a creation lock: thread --> name of the bean waited for */
+    private final Map<Thread, String> threadsAwaitingCreationLock = new ConcurrentHashMap<Thread, String>(16);
 
     /** Set of registered singletons, containing the bean names in registration order */
     private final Set<String> registeredSingletons = new LinkedHashSet<String>(64);
@@ -47,11 +65,16 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
     /** Names of beans currently excluded from in creation checks (using a ConcurrentHashMap as a Set) */
     private final Map<String, Boolean> inCreationCheckExclusions = new ConcurrentHashMap<String, Boolean>(16);
 
-    /** List of suppressed Exceptions, available for associating related causes */
-    private Set<Exception> suppressedExceptions;
+    /** List of suppressed Exceptions of the current thread, available for associating related causes */
+    private final ThreadLocal<Set<Exception>> suppressedExceptions =
+            new NamedThreadLocal<Set<Exception>>("Suppressed exceptions of singleton creation");
+
+    /** Destroy method failures collected for the current thread, instead of logging them */
+    private final ThreadLocal<Map<String, Throwable>> destructionFailures =
+            new NamedThreadLocal<Map<String, Throwable>>("Destroy method failures of singletons");
 
     /** Flag that indicates whether we're currently within destroySingletons */
-    private boolean singletonsCurrentlyInDestruction = false;
+    private volatile boolean singletonsCurrentlyInDestruction = false;
 
     /** Disposable bean instances: bean name --> disposable instance */
     protected final Map<String, Object> disposableBeans = new LinkedHashMap<String, Object>();
@@ -65,11 +88,52 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
     /** Map between depending bean names: bean name --> Set of bean names for the bean's dependencies */
     private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<String, Set<String>>(64);
 
+    private int destructionParallelism = 1;
+
+    private long beanDestructionTimeoutMillis = 0;
+
+    private long destructionTimeoutMillis = 0;
+
+
+    /**
+     * Set the number of threads used by {@link #destroySingletons()}.
+     * <p>Default is 1, i.e. sequential destruction on the calling thread. With
+     * more threads, beans that do not depend on each other are destroyed
+     * concurrently, each bean after the beans depending on it.
+     * @see ParallelSingletonDestroyer
+     */
+    public void setDestructionParallelism(int destructionParallelism) {
+        Assert.isTrue(destructionParallelism > 0, "'destructionParallelism' must be positive");
+        this.destructionParallelism = destructionParallelism;
+    }
+
+    /**
+     * Set how long {@link #destroySingletons()} waits for the destruction of a
+     * single bean before giving up on it and interrupting it; 0 means no limit.
+     * Default is 0.
+     */
+    public void setBeanDestructionTimeoutMillis(long beanDestructionTimeoutMillis) {
+        Assert.isTrue(beanDestructionTimeoutMillis >= 0, "'beanDestructionTimeoutMillis' must not be negative");
+        this.beanDestructionTimeoutMillis = beanDestructionTimeoutMillis;
+    }
+
+    /**
+     * Set how long {@link #destroySingletons()} may take overall before
+     * interrupting running destructions and skipping the remaining beans;
+     * 0 means no limit. Default is 0.
+     */
+    public void setDestructionTimeoutMillis(long destructionTimeoutMillis) {
+        Assert.isTrue(destructionTimeoutMillis >= 0, "'destructionTimeoutMillis' must not be negative");
+        this.destructionTimeoutMillis = destructionTimeoutMillis;
+    }
+
 
     @Override
     public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
         Validate.notNull(beanName, "'beanName' must not be null");
-        synchronized (this.singletonObjects) {
+        SingletonCreationLock lock = getSingletonCreationLock(beanName);
+        lock.lock();
+        try {
             Object oldObject = this.singletonObjects.get(beanName);
             if (oldObject != null) {
                 throw new IllegalStateException("Could not register object [" + singletonObject +
@@ -77,6 +141,9 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
             }
             addSingleton(beanName, singletonObject);
         }
+        finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -86,14 +153,26 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
      * @param singletonObject the singleton object
      */
     protected void addSingleton(String beanName, Object singletonObject) {
-        synchronized (this.singletonObjects) {
-            this.singletonObjects.put(beanName, (singletonObject != null ? singletonObject : NULL_OBJECT));
-            this.singletonFactories.remove(beanName);
-            this.earlySingletonObjects.remove(beanName);
+        // Publish the full instance first, so that lock-free readers never see a gap
+        this.singletonObjects.put(beanName, (singletonObject != null ? singletonObject : NULL_OBJECT));
+        this.singletonFactories.remove(beanName);
+        this.earlySingletonObjects.remove(beanName);
+        synchronized (this.registeredSingletons) {
             this.registeredSingletons.add(beanName);
         }
     }
 
+    /**
+     * Replace a registered singleton object, if still registered as the given one.
+     * @param beanName the name of the bean
+     * @param singletonObject the currently registered singleton object
+     * @param replacement the singleton object to register instead
+     * @return whether the singleton object was replaced
+     */
+    protected boolean replaceSingleton(String beanName, Object singletonObject, Object replacement) {
+        return this.singletonObjects.replace(beanName, singletonObject, (replacement != null ? replacement : NULL_OBJECT));
+    }
+
     @Override
     public Object getSingleton(String beanName) {
         return getSingleton(beanName, true);
@@ -103,21 +182,26 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
      * Return the (raw) singleton object registered under the given name.
      * <p>Checks already instantiated singletons and also allows for an early
      * reference to a currently created singleton (resolving a circular reference).
+     * <p>Never takes a lock. Early references are only handed to the thread
+     * creating the singleton: any other thread gets {@code null} and goes on to
+     * wait for the creation lock, i.e. for the fully initialized instance.
      * @param beanName the name of the bean to look for
      * @param allowEarlyReference whether early references should be created or not
      * @return the registered singleton object, or {@code null} if none found
      */
     protected Object getSingleton(String beanName, boolean allowEarlyReference) {
         Object singletonObject = this.singletonObjects.get(beanName);
-        if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-            synchronized (this.singletonObjects) {
-                singletonObject = this.earlySingletonObjects.get(beanName);
-                if (singletonObject == null && allowEarlyReference) {
-                    ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-                    if (singletonFactory != null) {
-                        singletonObject = singletonFactory.getObject();
-                        this.earlySingletonObjects.put(beanName, singletonObject);
-                        this.singletonFactories.remove(beanName);
+        if (singletonObject == null && isSingletonCurrentlyInCreation(beanName) &&
+                isSingletonCreationLockHeldByCurrentThread(beanName)) {
+            singletonObject = this.earlySingletonObjects.get(beanName);
+            if (singletonObject == null && allowEarlyReference) {
+                ObjectFactory<?> singletonFactory = this.singletonFactories.remove(beanName);
+                if (singletonFactory != null) {
+                    singletonObject = singletonFactory.getObject();
+                    Object existing = this.earlySingletonObjects.putIfAbsent(beanName,
+                            (singletonObject != null ? singletonObject : NULL_OBJECT));
+                    if (existing != null) {
+                        singletonObject = existing;
                     }
                 }
             }
@@ -143,8 +227,14 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
      */
     public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
         Validate.notNull(beanName, "'beanName' must not be null");
-        synchronized (this.singletonObjects) {
-            Object singletonObject = this.singletonObjects.get(beanName);
+        Object singletonObject = this.singletonObjects.get(beanName);
+        if (singletonObject != null) {
+            return (singletonObject != NULL_OBJECT ? singletonObject : null);
+        }
+        SingletonCreationLock lock = getSingletonCreationLock(beanName);
+        acquireCreationLock(beanName, lock);
+        try {
+            singletonObject = this.singletonObjects.get(beanName);
             if (singletonObject == null) {
                 if (this.singletonsCurrentlyInDestruction) {
                     throw new BeansException(beanName,
@@ -155,16 +245,16 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
                     logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
                 }
                 beforeSingletonCreation(beanName);
-                boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
+                boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
                 if (recordSuppressedExceptions) {
-                    this.suppressedExceptions = new LinkedHashSet<Exception>();
+                    this.suppressedExceptions.set(new LinkedHashSet<Exception>());
                 }
                 try {
                     singletonObject = singletonFactory.getObject();
                 }
                 catch (BeanCreationException ex) {
                     if (recordSuppressedExceptions) {
-                        for (Exception suppressedException : this.suppressedExceptions) {
+                        for (Exception suppressedException : this.suppressedExceptions.get()) {
                             ex.addRelatedCause(suppressedException);
                         }
                     }
@@ -172,7 +262,7 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
                 }
                 finally {
                     if (recordSuppressedExceptions) {
-                        this.suppressedExceptions = null;
+                        this.suppressedExceptions.remove();
                     }
                     afterSingletonCreation(beanName);
                 }
@@ -180,6 +270,97 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
             }
             return (singletonObject != NULL_OBJECT ? singletonObject : null);
         }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the creation lock for the given bean name, creating it on demand.
+     * @param beanName the name of the bean
+     */
+    private SingletonCreationLock getSingletonCreationLock(String beanName) {
+        SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+        if (lock == null) {
+            SingletonCreationLock newLock = new SingletonCreationLock();
+            lock = this.singletonCreationLocks.putIfAbsent(beanName, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    private boolean isSingletonCreationLockHeldByCurrentThread(String beanName) {
+        SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+        return (lock != null && lock.isHeldByCurrentThread());
+    }
+
+    /**
+     * Acquire the creation lock of the given bean, failing instead of blocking
+     * forever if the lock owner is (transitively) waiting for the current thread.
+     * @param beanName the name of the bean to be created
+     * @param lock the creation lock of that bean
+     * @throws BeanCreationException on a circular reference across threads
+     */
+    private void acquireCreationLock(String beanName, SingletonCreationLock lock) {
+        if (lock.tryLock()) {
+            return;
+        }
+        Thread currentThread = Thread.currentThread();
+        // Announce the wait before checking, so that two threads racing into
+        // a deadlock cannot both miss each other
+        this.threadsAwaitingCreationLock.put(currentThread, beanName);
+        try {
+            do {
+                if (isWaitingFor(lock.getOwner(), currentThread)) {
+                    throw new BeanCreationException(beanName,
+                            "Requested bean is currently in creation by another thread that waits for this thread: " +
+                                    "Is there an unresolvable circular reference?");
+                }
+            }
+            while (!lock.tryLock(100, TimeUnit.MILLISECONDS));
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BeanCreationException(beanName, "Interrupted while waiting for singleton creation", ex);
+        }
+        finally {
+            this.threadsAwaitingCreationLock.remove(currentThread);
+        }
+    }
+
+    /**
+     * Follow the chain of threads waiting for each other, starting at the given
+     * owner thread.
+     * @return whether the chain leads back to the given thread
+     * @see #getAwaitedThread
+     */
+    protected boolean isWaitingFor(Thread owner, Thread thread) {
+        Set<Thread> visited = new HashSet<Thread>();
+        while (owner != null && visited.add(owner)) {
+            if (owner == thread) {
+                return true;
+            }
+            owner = getAwaitedThread(owner);
+        }
+        return false;
+    }
+
+    /**
+     * Return the thread that the given thread is currently blocked on, if any.
+     * <p>The default implementation follows the creation locks: the owner of
+     * the lock the given thread waits for.
+     * @param thread the possibly blocked thread
+     * @return the awaited thread, or {@code null} if none
+     */
+    protected Thread getAwaitedThread(Thread thread) {
+        String awaitedBeanName = this.threadsAwaitingCreationLock.get(thread);
+        if (awaitedBeanName == null) {
+            return null;
+        }
+        SingletonCreationLock awaitedLock = this.singletonCreationLocks.get(awaitedBeanName);
+        return (awaitedLock != null ? awaitedLock.getOwner() : null);
     }
 
     /**
@@ -215,14 +396,14 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
 
     @Override
     public String[] getSingletonNames() {
-        synchronized (this.singletonObjects) {
+        synchronized (this.registeredSingletons) {
             return StringUtils.toStringArray(this.registeredSingletons);
         }
     }
 
     @Override
     public int getSingletonCount() {
-        synchronized (this.singletonObjects) {
+        synchronized (this.registeredSingletons) {
             return this.registeredSingletons.size();
         }
     }
@@ -234,19 +415,25 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
      * @param ex the Exception to register
      */
     protected void onSuppressedException(Exception ex) {
-        synchronized (this.singletonObjects) {
-            if (this.suppressedExceptions != null) {
-                this.suppressedExceptions.add(ex);
-            }
+        Set<Exception> exceptions = this.suppressedExceptions.get();
+        if (exceptions != null) {
+            exceptions.add(ex);
         }
     }
 
+    /**
+     * Add the given singleton factory for building the specified singleton
+     * if necessary.
+     * <p>To be called by the thread holding the creation lock of the bean.
+     * @param beanName the name of the bean
+     * @param singletonFactory the factory for the singleton object
+     */
     protected void addSingletonFactory(String beanName, ObjectFactory singletonFactory) {
         Assert.notNull(singletonFactory, "Singleton factory must not be null");
-        synchronized (this.singletonObjects) {
-            if (!this.singletonObjects.containsKey(beanName)) {
-                this.singletonFactories.put(beanName, singletonFactory);
-                this.earlySingletonObjects.remove(beanName);
+        if (!this.singletonObjects.containsKey(beanName)) {
+            this.singletonFactories.put(beanName, singletonFactory);
+            this.earlySingletonObjects.remove(beanName);
+            synchronized (this.registeredSingletons) {
                 this.registeredSingletons.add(beanName);
             }
         }
@@ -258,10 +445,10 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
      * @param beanName the name of the bean
      */
     protected void removeSingleton(String beanName) {
-        synchronized (this.singletonObjects) {
-            this.singletonObjects.remove(beanName);
-            this.singletonFactories.remove(beanName);
-            this.earlySingletonObjects.remove(beanName);
+        this.singletonObjects.remove(beanName);
+        this.singletonFactories.remove(beanName);
+        this.earlySingletonObjects.remove(beanName);
+        synchronized (this.registeredSingletons) {
             this.registeredSingletons.remove(beanName);
         }
     }
@@ -270,29 +457,42 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
         if (logger.isInfoEnabled()) {
             logger.info("Destroying singletons in " + this);
         }
-        synchronized (this.singletonObjects) {
-            this.singletonsCurrentlyInDestruction = true;
-        }
+        this.singletonsCurrentlyInDestruction = true;
 
         String[] disposableBeanNames;
         synchronized (this.disposableBeans) {
             disposableBeanNames = StringUtils.toStringArray(this.disposableBeans.keySet());
         }
-        for (int i = disposableBeanNames.length - 1; i >= 0; i--) {
-            destroySingleton(disposableBeanNames[i]);
+        if (this.destructionParallelism > 1 || this.beanDestructionTimeoutMillis > 0 ||
+                this.destructionTimeoutMillis > 0) {
+            Map<String, Set<String>> dependentBeans = new LinkedHashMap<String, Set<String>>();
+            synchronized (this.dependentBeanMap) {
+                for (Map.Entry<String, Set<String>> entry : this.dependentBeanMap.entrySet()) {
+                    dependentBeans.put(entry.getKey(), new LinkedHashSet<String>(entry.getValue()));
+                }
+            }
+            new ParallelSingletonDestroyer(this, disposableBeanNames, dependentBeans, this.destructionParallelism,
+                    this.beanDestructionTimeoutMillis, this.destructionTimeoutMillis).destroy();
+        }
+        else {
+            for (int i = disposableBeanNames.length - 1; i >= 0; i--) {
+                destroySingleton(disposableBeanNames[i]);
+            }
         }
 
         this.containedBeanMap.clear();
         this.dependentBeanMap.clear();
         this.dependenciesForBeanMap.clear();
 
-        synchronized (this.singletonObjects) {
-            this.singletonObjects.clear();
-            this.singletonFactories.clear();
-            this.earlySingletonObjects.clear();
+        this.singletonObjects.clear();
+        this.singletonFactories.clear();
+        this.earlySingletonObjects.clear();
+        // Creation locks are kept: a thread may hold one, or be about to lock it,
+        // and a fresh lock for the same bean name would not exclude that thread.
+        synchronized (this.registeredSingletons) {
             this.registeredSingletons.clear();
-            this.singletonsCurrentlyInDestruction = false;
         }
+        this.singletonsCurrentlyInDestruction = false;
     }
 
 
@@ -315,6 +515,41 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
     }
 
 
+    /**
+     * Destroy the given singleton like {@link #destroySingleton}, but hand the
+     * exception thrown by its destroy method to the caller instead of logging it.
+     * Failures of dependent beans destroyed along with it are still logged.
+     * @param beanName the name of the bean
+     * @return the exception thrown by the destroy method, or {@code null} if none
+     */
+    Throwable destroySingletonReportingFailure(String beanName) {
+        Map<String, Throwable> failures = new LinkedHashMap<String, Throwable>(4);
+        this.destructionFailures.set(failures);
+        try {
+            destroySingleton(beanName);
+        }
+        finally {
+            this.destructionFailures.remove();
+        }
+        Throwable failure = failures.remove(beanName);
+        for (Map.Entry<String, Throwable> entry : failures.entrySet()) {
+            logger.error("Destroy method on bean with name '" + entry.getKey() + "' threw an exception", entry.getValue());
+        }
+        return failure;
+    }
+
+    /**
+     * Drop the disposable bean registered under the given name, without destroying it.
+     * @param beanName the name of the bean
+     * @return whether a disposable bean was registered under that name
+     */
+    boolean removeDisposableBean(String beanName) {
+        synchronized (this.disposableBeans) {
+            return (this.disposableBeans.remove(beanName) != null);
+        }
+    }
+
+
     /**
      * Destroy the given bean. Must destroy beans that depend on the given
      * bean before the bean itself. Should not throw any exceptions.
@@ -323,7 +558,11 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
      */
     protected void destroyBean(String beanName, DisposableBean bean) {
         // Trigger destruction of dependent beans first...
-        Set<String> dependencies = this.dependentBeanMap.remove(beanName);
+        Set<String> dependencies;
+        synchronized (this.dependentBeanMap) {
+            // Within full synchronization in order to guarantee a disconnected Set
+            dependencies = this.dependentBeanMap.remove(beanName);
+        }
         if (dependencies != null) {
             for (String dependentBeanName : dependencies) {
                 destroySingleton(dependentBeanName);
@@ -332,11 +571,25 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
 
         //Actually destroy the bean now...
         if (bean != null) {
+            Map<String, Throwable> failures = this.destructionFailures.get();
             try {
-                bean.destroy();
+                if (failures != null && bean instanceof DisposableBeanAdapter) {
+                    Throwable failure = ((DisposableBeanAdapter) bean).destroyReportingFailure();
+                    if (failure != null) {
+                        failures.put(beanName, failure);
+                    }
+                }
+                else {
+                    bean.destroy();
+                }
             }
             catch (Throwable ex) {
-                logger.error("Destroy method on bean with name '" + beanName + "' threw an exception", ex);
+                if (failures != null) {
+                    failures.put(beanName, ex);
+                }
+                else {
+                    logger.error("Destroy method on bean with name '" + beanName + "' threw an exception", ex);
+                }
             }
         }
 
@@ -385,7 +638,25 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
         }
     }
 
+    /**
+     * Expose the singleton mutex to subclasses and external collaborators.
+     * <p>No longer guards singleton creation, which uses a lock per bean name;
+     * still used for the FactoryBean object cache.
+     */
     public final Object getSingletonMutex() {
         return this.singletonObjects;
     }
+
+
+    /**
+     * Reentrant creation lock that exposes its owner for deadlock detection.
+     */
+    @SuppressWarnings("serial")
+    private static class SingletonCreationLock extends ReentrantLock {
+
+        @Override
+        public Thread getOwner() {
+            return super.getOwner();
+        }
+    }
 }
@@ -179,6 +179,20 @@ public class DisposableBeanAdapter implements DisposableBean, Runnable, Serializ
     }
 
     public void destroy() {
+        destroy(false);
+    }
+
+    /**
+     * Invoke the destruction callbacks like {@link #destroy()}, but return the
+     * exception thrown by the destroy methods instead of logging it.
+     * @return the first exception thrown, or {@code null} if none
+     */
+    Throwable destroyReportingFailure() {
+        return destroy(true);
+    }
+
+    private Throwable destroy(boolean reportFailure) {
+        Throwable failure = null;
         if (CollectionUtils.isNotEmpty(beanPostProcessors)) {
             for (DestructionAwareBeanPostProcessor processor : this.beanPostProcessors) {
                 processor.postProcessBeforeDestruction(this.bean, this.beanName);
@@ -204,7 +218,10 @@ public class DisposableBeanAdapter implements DisposableBean, Runnable, Serializ
             }
             catch (Throwable ex) {
                 String msg = "Invocation of destroy method failed on bean with name '" + this.beanName + "'";
-                if (logger.isDebugEnabled()) {
+                if (reportFailure) {
+                    failure = ex;
+                }
+                else if (logger.isDebugEnabled()) {
                     logger.warn(msg, ex);
                 }
                 else {
@@ -213,15 +230,17 @@ public class DisposableBeanAdapter implements DisposableBean, Runnable, Serializ
             }
         }
 
-        if (this.destroyMethod != null) {
-            invokeCustomDestroyMethod(this.destroyMethod);
+        Method methodToCall = this.destroyMethod;
+        if (methodToCall == null && this.destroyMethodName != null) {
+            methodToCall = determineDestroyMethod();
         }
-        else if (this.destroyMethodName != null) {
-            Method methodToCall = determineDestroyMethod();
-            if (methodToCall != null) {
-                invokeCustomDestroyMethod(methodToCall);
+        if (methodToCall != null) {
+            Throwable destroyMethodFailure = invokeCustomDestroyMethod(methodToCall, reportFailure && failure == null);
+            if (destroyMethodFailure != null) {
+                failure = destroyMethodFailure;
             }
         }
+        return failure;
     }
 
 
@@ -255,8 +274,11 @@ public class DisposableBeanAdapter implements DisposableBean, Runnable, Serializ
      * <p>This implementation invokes a no-arg method if found, else checking
      * for a method with a single boolean argument (passing in "true",
      * assuming a "force" parameter), else logging an error.
+     * @param reportFailure whether to return an exception thrown by the
+     * destroy method instead of logging it
+     * @return the exception thrown, if to be reported
      */
-    private void invokeCustomDestroyMethod(final Method destroyMethod) {
+    private Throwable invokeCustomDestroyMethod(final Method destroyMethod, boolean reportFailure) {
         Class<?>[] paramTypes = destroyMethod.getParameterTypes();
         final Object[] args = new Object[paramTypes.length];
         if (paramTypes.length == 1) {
@@ -294,7 +316,10 @@ public class DisposableBeanAdapter implements DisposableBean, Runnable, Serializ
         catch (InvocationTargetException ex) {
             String msg = "Invocation of destroy method '" + this.destroyMethodName +
                     "' failed on bean with name '" + this.beanName + "'";
-            if (logger.isDebugEnabled()) {
+            if (reportFailure) {
+                return ex.getTargetException();
+            }
+            else if (logger.isDebugEnabled()) {
                 logger.warn(msg, ex.getTargetException());
             }
             else {
@@ -302,9 +327,13 @@ public class DisposableBeanAdapter implements DisposableBean, Runnable, Serializ
             }
         }
         catch (Throwable ex) {
+            if (reportFailure) {
+                return ex;
+            }
             logger.error("Couldn't invoke destroy method '" + this.destroyMethodName +
                     "' on bean with name '" + this.beanName + "'", ex);
         }
+        return null;
     }
 
 
@@ -0,0 +1,48 @@
+package org.springlite.beans.factory.support;
+
+import org.springlite.beans.exception.BeansException;
+import org.springlite.beans.factory.BeanFactory;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * 〈一句话功能简述〉&lt;p&gt;
+ * Interface responsible for creating instances corresponding to a root bean definition.
+ *
+ * <p>This is pulled out into a strategy as various approaches are possible,
+ * such as plain reflection or generated bytecode.
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see SimpleInstantiationStrategy
+ * @see BytecodeInstantiationStrategy
+ * @since [产品/模块版本] （可选）
+ */
+public interface InstantiationStrategy {
+
+    /**
+     * Return an instance of the bean with the given name in this factory,
+     * using its no-arg constructor.
+     * @param bd the bean definition
+     * @param beanName the name of the bean when it's created in this context
+     * @param owner the owning BeanFactory
+     * @return a bean instance for this bean definition
+     * @throws BeansException if the instantiation attempt failed
+     */
+    Object instantiate(RootBeanDefinition bd, String beanName, BeanFactory owner) throws BeansException;
+
+    /**
+     * Return an instance of the bean with the given name in this factory,
+     * creating it via the given constructor.
+     * @param bd the bean definition
+     * @param beanName the name of the bean when it's created in this context
+     * @param owner the owning BeanFactory
+     * @param ctor the constructor to use
+     * @param args the constructor arguments to apply
+     * @return a bean instance for this bean definition
+     * @throws BeansException if the instantiation attempt failed
+     */
+    Object instantiate(RootBeanDefinition bd, String beanName, BeanFactory owner,
+                       Constructor<?> ctor, Object... args) throws BeansException;
+
+}
@@ -0,0 +1,336 @@
+package org.springlite.beans.factory.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 〈并行销毁单例bean〉&lt;p&gt;
+ * Destroys the singletons of a {@link DefaultSingletonBeanRegistry} on several
+ * threads, following the graph of dependent beans: a bean is only destroyed
+ * once all beans depending on it are, while independent beans are destroyed
+ * concurrently. Among the beans ready to go, the last registered one starts
+ * first, as in the sequential case. A dependency cycle is broken by destroying
+ * its last registered bean first.
+ *
+ * <p>A bean whose destruction exceeds the per-bean deadline is given up on:
+ * its thread is interrupted and the beans it depends on proceed. Once the
+ * overall deadline has passed, running destructions are interrupted and the
+ * remaining beans are skipped: they are dropped from the registry without being
+ * destroyed, as a later destruction would not follow the dependency order.
+ *
+ * <p>The time taken by each destruction is logged in a report: the slowest
+ * beans and all failures at info level, every bean at debug level.
+ *
+ * @author zixiao
+ * @date 16/6/20
+ * @see DefaultSingletonBeanRegistry#setDestructionParallelism
+ * @since [产品/模块版本] （可选）
+ */
+class ParallelSingletonDestroyer {
+
+    private static final Log logger = LogFactory.getLog(ParallelSingletonDestroyer.class);
+
+    /** Number of beans listed in the report at info level */
+    private static final int REPORTED_SLOWEST_BEANS = 10;
+
+    private static final String OUTCOME_DESTROYED = "destroyed";
+
+    private static final String OUTCOME_FAILED = "FAILED";
+
+    private static final String OUTCOME_TIMED_OUT = "TIMED OUT";
+
+    private static final String OUTCOME_SKIPPED = "SKIPPED, not destroyed";
+
+    private final DefaultSingletonBeanRegistry registry;
+
+    private final int parallelism;
+
+    private final long beanTimeoutNanos;
+
+    private final long timeoutNanos;
+
+    /** Beans in registration order: disposable beans, then other dependent beans */
+    private final List<String> beanNames = new ArrayList<String>();
+
+    private final int disposableBeanCount;
+
+    /** Bean index --> indexes of the beans that can only be destroyed after it */
+    private final List<Set<Integer>> successors = new ArrayList<Set<Integer>>();
+
+    /** Bean index --> number of beans still to be destroyed before it */
+    private final int[] pendingPredecessors;
+
+
+    /**
+     * @param disposableBeanNames names of the disposable beans, in registration order
+     * @param dependentBeans bean name --> names of the beans depending on it
+     * @param beanTimeoutMillis per-bean deadline, or 0 for none
+     * @param timeoutMillis overall deadline, or 0 for none
+     */
+    ParallelSingletonDestroyer(DefaultSingletonBeanRegistry registry, String[] disposableBeanNames,
+                               Map<String, Set<String>> dependentBeans, int parallelism,
+                               long beanTimeoutMillis, long timeoutMillis) {
+        this.registry = registry;
+        this.parallelism = parallelism;
+        this.beanTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(beanTimeoutMillis);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        Map<String, Integer> indexes = new HashMap<String, Integer>();
+        for (String beanName : disposableBeanNames) {
+            addBean(beanName, indexes);
+        }
+        this.disposableBeanCount = this.beanNames.size();
+        for (Map.Entry<String, Set<String>> entry : dependentBeans.entrySet()) {
+            addBean(entry.getKey(), indexes);
+            for (String dependentBeanName : entry.getValue()) {
+                addBean(dependentBeanName, indexes);
+            }
+        }
+
+        this.pendingPredecessors = new int[this.beanNames.size()];
+        for (Map.Entry<String, Set<String>> entry : dependentBeans.entrySet()) {
+            int bean = indexes.get(entry.getKey());
+            for (String dependentBeanName : entry.getValue()) {
+                int dependent = indexes.get(dependentBeanName);
+                if (dependent != bean && this.successors.get(dependent).add(bean)) {
+                    this.pendingPredecessors[bean]++;
+                }
+            }
+        }
+    }
+
+    private void addBean(String beanName, Map<String, Integer> indexes) {
+        if (!indexes.containsKey(beanName)) {
+            indexes.put(beanName, this.beanNames.size());
+            this.beanNames.add(beanName);
+            this.successors.add(new LinkedHashSet<Integer>(4));
+        }
+    }
+
+    /**
+     * Destroy all beans, blocking until done or until the overall deadline has passed.
+     */
+    public void destroy() {
+        int beanCount = this.beanNames.size();
+        long startTime = System.nanoTime();
+        long deadline = (this.timeoutNanos > 0 ? startTime + this.timeoutNanos : Long.MAX_VALUE);
+
+        final long[] durations = new long[beanCount];
+        final String[] outcomes = new String[beanCount];
+        final Throwable[] failures = new Throwable[beanCount];
+        final BlockingQueue<Integer> completed = new LinkedBlockingQueue<Integer>();
+        boolean[] started = new boolean[beanCount];
+        Map<Integer, Future<?>> running = new HashMap<Integer, Future<?>>();
+        long[] startTimes = new long[beanCount];
+        int finishedCount = 0;
+
+        PriorityQueue<Integer> ready = new PriorityQueue<Integer>(16, Collections.reverseOrder());
+        for (int i = 0; i < beanCount; i++) {
+            if (this.pendingPredecessors[i] == 0) {
+                ready.add(i);
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Destroying " + beanCount + " singletons using " + this.parallelism + " threads");
+        }
+        ExecutorService executor = Executors.newCachedThreadPool(new DestructionThreadFactory());
+        try {
+            while (finishedCount < beanCount) {
+                while (running.size() < this.parallelism && !ready.isEmpty()) {
+                    final int bean = ready.poll();
+                    started[bean] = true;
+                    startTimes[bean] = System.nanoTime();
+                    running.put(bean, executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                failures[bean] = registry.destroySingletonReportingFailure(beanNames.get(bean));
+                            }
+                            catch (Throwable ex) {
+                                failures[bean] = ex;
+                            }
+                            finally {
+                                completed.add(bean);
+                            }
+                        }
+                    }));
+                }
+                if (running.isEmpty() && ready.isEmpty()) {
+                    ready.add(breakCycle(started));
+                    continue;
+                }
+
+                long now = System.nanoTime();
+                long waitUntil = deadline;
+                if (this.beanTimeoutNanos > 0) {
+                    for (Integer bean : running.keySet()) {
+                        waitUntil = Math.min(waitUntil, startTimes[bean] + this.beanTimeoutNanos);
+                    }
+                }
+                Integer bean = (waitUntil == Long.MAX_VALUE ? completed.take() :
+                        completed.poll(Math.max(waitUntil - now, 0), TimeUnit.NANOSECONDS));
+                now = System.nanoTime();
+                if (bean != null && running.remove(bean) != null) {
+                    durations[bean] = now - startTimes[bean];
+                    outcomes[bean] = (failures[bean] != null ? OUTCOME_FAILED : OUTCOME_DESTROYED);
+                    release(bean, ready);
+                    finishedCount++;
+                }
+                if (this.beanTimeoutNanos > 0) {
+                    for (Iterator<Map.Entry<Integer, Future<?>>> it = running.entrySet().iterator(); it.hasNext();) {
+                        Map.Entry<Integer, Future<?>> entry = it.next();
+                        int runningBean = entry.getKey();
+                        if (now - startTimes[runningBean] >= this.beanTimeoutNanos) {
+                            it.remove();
+                            entry.getValue().cancel(true);
+                            durations[runningBean] = now - startTimes[runningBean];
+                            outcomes[runningBean] = OUTCOME_TIMED_OUT;
+                            release(runningBean, ready);
+                            finishedCount++;
+                        }
+                    }
+                }
+                if (now >= deadline && finishedCount < beanCount) {
+                    for (Map.Entry<Integer, Future<?>> entry : running.entrySet()) {
+                        entry.getValue().cancel(true);
+                        durations[entry.getKey()] = now - startTimes[entry.getKey()];
+                        outcomes[entry.getKey()] = OUTCOME_TIMED_OUT;
+                    }
+                    for (int i = 0; i < beanCount; i++) {
+                        if (outcomes[i] == null) {
+                            outcomes[i] = OUTCOME_SKIPPED;
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while destroying singletons: remaining beans are not destroyed");
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < this.disposableBeanCount; i++) {
+            // Not started, or cancelled before it started: still registered
+            if (this.registry.removeDisposableBean(this.beanNames.get(i))) {
+                outcomes[i] = OUTCOME_SKIPPED;
+            }
+        }
+        report(System.nanoTime() - startTime, durations, outcomes, failures);
+    }
+
+    /**
+     * Make the beans that were waiting for the given finished bean ready.
+     */
+    private void release(int bean, PriorityQueue<Integer> ready) {
+        for (Integer successor : this.successors.get(bean)) {
+            if (--this.pendingPredecessors[successor] == 0) {
+                ready.add(successor);
+            }
+        }
+    }
+
+    /**
+     * Pick the last registered bean not started yet: all of them are waiting for
+     * each other. The beans it waits for are destroyed afterwards.
+     */
+    private int breakCycle(boolean[] started) {
+        for (int i = started.length - 1; i >= 0; i--) {
+            if (!started[i]) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Breaking dependency cycle at bean '" + this.beanNames.get(i) + "'");
+                }
+                this.pendingPredecessors[i] = -1;
+                return i;
+            }
+        }
+        throw new IllegalStateException("No bean left to destroy");
+    }
+
+    private void report(long totalNanos, final long[] durations, String[] outcomes, Throwable[] failures) {
+        List<Integer> beans = new ArrayList<Integer>(this.disposableBeanCount);
+        boolean incomplete = false;
+        for (int i = 0; i < this.disposableBeanCount; i++) {
+            beans.add(i);
+            if (outcomes[i] == null) {
+                outcomes[i] = OUTCOME_SKIPPED;
+            }
+            incomplete |= !OUTCOME_DESTROYED.equals(outcomes[i]);
+        }
+        Collections.sort(beans, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer bean1, Integer bean2) {
+                return (durations[bean1] > durations[bean2] ? -1 : (durations[bean1] == durations[bean2] ? 0 : 1));
+            }
+        });
+
+        if (incomplete) {
+            for (Integer bean : beans) {
+                if (OUTCOME_FAILED.equals(outcomes[bean])) {
+                    logger.error("Destroy method on bean with name '" + this.beanNames.get(bean) +
+                            "' threw an exception", failures[bean]);
+                }
+            }
+            logger.warn(buildReport(totalNanos, beans, durations, outcomes, false));
+        }
+        else if (logger.isDebugEnabled()) {
+            logger.debug(buildReport(totalNanos, beans, durations, outcomes, true));
+        }
+        else if (logger.isInfoEnabled()) {
+            logger.info(buildReport(totalNanos, beans, durations, outcomes, false));
+        }
+    }
+
+    private String buildReport(long totalNanos, List<Integer> beans, long[] durations, String[] outcomes,
+                               boolean allBeans) {
+        StringBuilder report = new StringBuilder();
+        report.append("Destroyed ").append(beans.size()).append(" singletons in ")
+                .append(TimeUnit.NANOSECONDS.toMillis(totalNanos)).append(" ms using ")
+                .append(this.parallelism).append(" threads");
+        int listed = 0;
+        int omitted = 0;
+        for (Integer bean : beans) {
+            boolean destroyed = OUTCOME_DESTROYED.equals(outcomes[bean]);
+            if (!allBeans && destroyed && listed >= REPORTED_SLOWEST_BEANS) {
+                omitted++;
+                continue;
+            }
+            report.append("\n  ").append(this.beanNames.get(bean)).append(": ").append(outcomes[bean]);
+            if (!OUTCOME_SKIPPED.equals(outcomes[bean])) {
+                report.append(" after ").append(TimeUnit.NANOSECONDS.toMillis(durations[bean])).append(" ms");
+            }
+            if (destroyed) {
+                listed++;
+            }
+        }
+        if (omitted > 0) {
+            report.append("\n  (").append(omitted).append(" faster beans omitted)");
+        }
+        return report.toString();
+    }
+
+
+    /**
+     * Daemon threads named after the destruction phase: a bean whose destroy
+     * method hangs past its deadline must not keep the JVM alive.
+     */
+    private static class DestructionThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "springlite-destroy-" + this.threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
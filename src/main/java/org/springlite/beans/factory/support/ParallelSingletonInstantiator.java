@@ -0,0 +1,385 @@
+package org.springlite.beans.factory.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springlite.beans.BeanReference;
+import org.springlite.beans.ConstructorArgumentValues;
+import org.springlite.beans.ConstructorArgumentValues.ValueHolder;
+import org.springlite.beans.PropertyValue;
+import org.springlite.beans.exception.BeanCreationException;
+import org.springlite.beans.exception.BeansException;
+import org.springlite.beans.factory.config.BeanDefinition;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 〈并行预实例化单例bean〉&lt;p&gt;
+ * Creates the non-lazy singletons of a {@link DefaultListableBeanFactory} on a
+ * fixed thread pool, following the dependency graph derived from
+ * {@code depends-on}, property references and constructor-arg references.
+ *
+ * <p>Autowire by name or by type dependencies are only known once the bean
+ * is populated. All singletons with such an autowire mode are therefore
+ * linked into one cycle, and end up in a single unit with everything they
+ * are circularly referenced by.
+ *
+ * <p>Beans taking part in a reference cycle are collapsed into one unit (a
+ * strongly connected component) and created sequentially on a single thread,
+ * in registration order, so circular reference resolution behaves exactly as
+ * in the sequential case. A unit only starts once all units it refers to are
+ * complete; units depending on a failed unit are skipped.
+ *
+ * <p>Failures are reported deterministically: the exception of the failed bean
+ * registered first is rethrown, with the other failures attached as related
+ * causes where possible.
+ *
+ * @author zixiao
+ * @date 16/6/12
+ * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+ * @since [产品/模块版本] （可选）
+ */
+class ParallelSingletonInstantiator {
+
+    private static final Log logger = LogFactory.getLog(ParallelSingletonInstantiator.class);
+
+    private final DefaultListableBeanFactory beanFactory;
+
+    private final int parallelism;
+
+    /** Bean name --> registration index */
+    private final Map<String, Integer> registrationIndex = new HashMap<String, Integer>();
+
+    /** Registration index --> names of the beans referenced by that bean */
+    private final List<Set<String>> references = new ArrayList<Set<String>>();
+
+    private final List<String> beanNames;
+
+
+    ParallelSingletonInstantiator(DefaultListableBeanFactory beanFactory, List<String> beanNames, int parallelism) {
+        this.beanFactory = beanFactory;
+        this.beanNames = beanNames;
+        this.parallelism = parallelism;
+        for (int i = 0; i < beanNames.size(); i++) {
+            this.registrationIndex.put(beanNames.get(i), i);
+        }
+        List<String> autowiringBeanNames = new ArrayList<String>();
+        for (String beanName : beanNames) {
+            BeanDefinition bd = beanFactory.getBeanDefinition(beanName);
+            this.references.add(collectReferences(bd));
+            if (isAutowiringProperties(beanFactory.getMergedLocalBeanDefinition(beanName))) {
+                autowiringBeanNames.add(beanName);
+            }
+        }
+        // Unknown autowire dependencies: join the autowiring beans in one cycle
+        if (autowiringBeanNames.size() > 1) {
+            for (int i = 0; i < autowiringBeanNames.size(); i++) {
+                String next = autowiringBeanNames.get((i + 1) % autowiringBeanNames.size());
+                this.references.get(this.registrationIndex.get(autowiringBeanNames.get(i))).add(next);
+            }
+        }
+    }
+
+    /**
+     * Whether properties of the given bean are autowired on population, with
+     * autodetect counting as such without resolving the bean class.
+     */
+    private boolean isAutowiringProperties(AbstractBeanDefinition mbd) {
+        int autowireMode = mbd.getAutowireMode();
+        return (autowireMode == AbstractBeanDefinition.AUTOWIRE_BY_NAME ||
+                autowireMode == AbstractBeanDefinition.AUTOWIRE_BY_TYPE ||
+                autowireMode == AbstractBeanDefinition.AUTOWIRE_AUTODETECT);
+    }
+
+    /**
+     * Names of the beans the given definition refers to, restricted to
+     * bean definitions of this factory.
+     */
+    private Set<String> collectReferences(BeanDefinition bd) {
+        Set<String> refs = new LinkedHashSet<String>();
+        String[] dependsOn = bd.getDependsOn();
+        if (dependsOn != null) {
+            refs.addAll(Arrays.asList(dependsOn));
+        }
+        for (PropertyValue pv : bd.getPropertyValues().getPropertyValueList()) {
+            addReference(refs, pv.getValue());
+        }
+        ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+        for (ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+            addReference(refs, valueHolder.getValue());
+        }
+        for (ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+            addReference(refs, valueHolder.getValue());
+        }
+        refs.retainAll(this.registrationIndex.keySet());
+        return refs;
+    }
+
+    private void addReference(Set<String> refs, Object value) {
+        if (value instanceof BeanReference) {
+            refs.add(((BeanReference) value).getName());
+        }
+    }
+
+    /**
+     * Create all non-lazy singletons, blocking until every unit has run.
+     * @throws BeansException the failure of the first failed bean, in registration order
+     */
+    public void preInstantiate() throws BeansException {
+        final List<List<Integer>> units = new StronglyConnectedComponents().compute();
+        int unitCount = units.size();
+        final int[] unitOf = new int[this.beanNames.size()];
+        for (int u = 0; u < unitCount; u++) {
+            for (Integer member : units.get(u)) {
+                unitOf[member] = u;
+            }
+        }
+
+        final List<List<Integer>> dependents = new ArrayList<List<Integer>>(unitCount);
+        final AtomicInteger[] pendingDependencies = new AtomicInteger[unitCount];
+        for (int u = 0; u < unitCount; u++) {
+            dependents.add(new ArrayList<Integer>());
+        }
+        for (int u = 0; u < unitCount; u++) {
+            Set<Integer> dependencies = new HashSet<Integer>();
+            for (Integer member : units.get(u)) {
+                for (String ref : this.references.get(member)) {
+                    int dependency = unitOf[this.registrationIndex.get(ref)];
+                    if (dependency != u && dependencies.add(dependency)) {
+                        dependents.get(dependency).add(u);
+                    }
+                }
+            }
+            pendingDependencies[u] = new AtomicInteger(dependencies.size());
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Pre-instantiating " + this.beanNames.size() + " bean definitions in " + unitCount +
+                    " units using " + this.parallelism + " threads");
+        }
+
+        final ConcurrentSkipListMap<Integer, Throwable> failures = new ConcurrentSkipListMap<Integer, Throwable>();
+        final boolean[] failedUnits = new boolean[unitCount];
+        final CountDownLatch completion = new CountDownLatch(unitCount);
+        final ExecutorService executor = Executors.newFixedThreadPool(this.parallelism, new PreInstantiationThreadFactory());
+
+        class UnitTask implements Runnable {
+
+            private final int unit;
+
+            UnitTask(int unit) {
+                this.unit = unit;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    if (!hasFailedDependency()) {
+                        for (Integer member : units.get(this.unit)) {
+                            if (!instantiate(member)) {
+                                markFailed(this.unit);
+                                break;
+                            }
+                        }
+                    }
+                    else {
+                        markFailed(this.unit);
+                    }
+                    for (Integer dependent : dependents.get(this.unit)) {
+                        if (pendingDependencies[dependent].decrementAndGet() == 0) {
+                            executor.execute(new UnitTask(dependent));
+                        }
+                    }
+                }
+                finally {
+                    completion.countDown();
+                }
+            }
+
+            private boolean hasFailedDependency() {
+                synchronized (failedUnits) {
+                    for (Integer member : units.get(this.unit)) {
+                        for (String ref : references.get(member)) {
+                            if (failedUnits[unitOf[registrationIndex.get(ref)]]) {
+                                return true;
+                            }
+                        }
+                    }
+                    return false;
+                }
+            }
+
+            private void markFailed(int unit) {
+                synchronized (failedUnits) {
+                    failedUnits[unit] = true;
+                }
+            }
+
+            private boolean instantiate(int member) {
+                String beanName = beanNames.get(member);
+                try {
+                    BeanDefinition bd = beanFactory.getBeanDefinition(beanName);
+                    if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+                        beanFactory.doGetBean(beanName, null, null, false, false);
+                    }
+                    return true;
+                }
+                catch (Throwable ex) {
+                    failures.put(member, ex);
+                    return false;
+                }
+            }
+        }
+
+        try {
+            // Kick off all leaf units, in registration order of their first member
+            for (int u = 0; u < unitCount; u++) {
+                if (pendingDependencies[u].get() == 0) {
+                    executor.execute(new UnitTask(u));
+                }
+            }
+            completion.await();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BeanCreationException("Interrupted while pre-instantiating singletons", ex);
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        if (!failures.isEmpty()) {
+            throw toReportedException(failures);
+        }
+    }
+
+    private RuntimeException toReportedException(SortedMap<Integer, Throwable> failures) {
+        Iterator<Map.Entry<Integer, Throwable>> it = failures.entrySet().iterator();
+        Map.Entry<Integer, Throwable> first = it.next();
+        Throwable ex = first.getValue();
+        if (ex instanceof Error) {
+            throw (Error) ex;
+        }
+        RuntimeException reported = (ex instanceof RuntimeException ? (RuntimeException) ex :
+                new BeanCreationException(this.beanNames.get(first.getKey()), "Pre-instantiation failed", ex));
+        if (reported instanceof BeanCreationException) {
+            while (it.hasNext()) {
+                ((BeanCreationException) reported).addRelatedCause(it.next().getValue());
+            }
+        }
+        return reported;
+    }
+
+
+    /**
+     * Tarjan's algorithm over the reference graph. Components come out with
+     * their members in registration order, dependencies before dependents.
+     */
+    private class StronglyConnectedComponents {
+
+        private final int[] index = new int[beanNames.size()];
+
+        private final int[] lowLink = new int[beanNames.size()];
+
+        private final boolean[] onStack = new boolean[beanNames.size()];
+
+        private final Deque<Integer> stack = new ArrayDeque<Integer>();
+
+        private final List<List<Integer>> components = new ArrayList<List<Integer>>();
+
+        private int nextIndex = 1;
+
+        public List<List<Integer>> compute() {
+            for (int v = 0; v < beanNames.size(); v++) {
+                if (this.index[v] == 0) {
+                    visit(v);
+                }
+            }
+            return this.components;
+        }
+
+        /**
+         * Iterative, as the reference chains of large contexts would overflow
+         * the call stack. Each frame holds a vertex and its next reference.
+         */
+        private void visit(int root) {
+            Deque<Frame> callStack = new ArrayDeque<Frame>();
+            callStack.push(open(root));
+            while (!callStack.isEmpty()) {
+                Frame frame = callStack.peek();
+                int v = frame.vertex;
+                if (frame.refs.hasNext()) {
+                    int w = registrationIndex.get(frame.refs.next());
+                    if (this.index[w] == 0) {
+                        callStack.push(open(w));
+                    }
+                    else if (this.onStack[w]) {
+                        this.lowLink[v] = Math.min(this.lowLink[v], this.index[w]);
+                    }
+                    continue;
+                }
+
+                callStack.pop();
+                if (!callStack.isEmpty()) {
+                    int parent = callStack.peek().vertex;
+                    this.lowLink[parent] = Math.min(this.lowLink[parent], this.lowLink[v]);
+                }
+                if (this.lowLink[v] == this.index[v]) {
+                    List<Integer> component = new ArrayList<Integer>();
+                    int w;
+                    do {
+                        w = this.stack.pop();
+                        this.onStack[w] = false;
+                        component.add(w);
+                    }
+                    while (w != v);
+                    Collections.sort(component);
+                    this.components.add(component);
+                }
+            }
+        }
+
+        private Frame open(int v) {
+            this.index[v] = this.nextIndex;
+            this.lowLink[v] = this.nextIndex;
+            this.nextIndex++;
+            this.stack.push(v);
+            this.onStack[v] = true;
+            return new Frame(v, references.get(v).iterator());
+        }
+    }
+
+
+    private static class Frame {
+
+        final int vertex;
+
+        final Iterator<String> refs;
+
+        Frame(int vertex, Iterator<String> refs) {
+            this.vertex = vertex;
+            this.refs = refs;
+        }
+    }
+
+
+    /**
+     * Daemon threads named after the pre-instantiation phase, inheriting the
+     * context class loader of the refreshing thread.
+     */
+    private static class PreInstantiationThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "springlite-preinstantiate-" + this.threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(this.contextClassLoader);
+            return thread;
+        }
+    }
+}
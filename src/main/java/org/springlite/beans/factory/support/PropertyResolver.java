@@ -5,16 +5,28 @@ import org.springlite.beans.BeanUtils;
 import org.springlite.beans.PropertyValue;
 import org.springlite.beans.exception.BeanCreationException;
 import org.springlite.beans.factory.BeanFactory;
-import org.springlite.beans.factory.config.BeanDefinition;
+import org.springlite.util.ClassUtils;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 〈一句话功能简述〉&lt;p&gt;
  * 〈功能详细描述〉
  *
+ * <p>The accessor used to inject a property (its setter, or else its field) is
+ * resolved once per bean class and property name and kept in a cache owned by
+ * the bean factory.
+ * Literal values are converted once per bean definition and kept on their
+ * {@link PropertyValue}, so re-injecting the same property is a single
+ * cached invoke.
+ *
  * @author zixiao
  * @date 16/5/31
  * @see [相关类/方法]（可选）
@@ -28,125 +40,165 @@ public class PropertyResolver {
 
     private RootBeanDefinition mbd;
 
+    /** Cache of injection points: bean class --> property name --> injection point */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, InjectionPoint>> injectionPointCache;
+
+    /** Generated accessor of the bean class, or {@code null} to use reflection only */
+    private final BeanAccessor beanAccessor;
+
     public PropertyResolver(BeanFactory beanFactory, String beanName, RootBeanDefinition mbd){
+        this(beanFactory, beanName, mbd, new ConcurrentHashMap<Class<?>, ConcurrentMap<String, InjectionPoint>>(4), null);
+    }
+
+    /**
+     * Create a new PropertyResolver sharing the given injection point cache.
+     * @param injectionPointCache the cache, typically held by the bean factory
+     * @param beanAccessor the generated accessor of the bean class, if any
+     */
+    PropertyResolver(BeanFactory beanFactory, String beanName, RootBeanDefinition mbd,
+                     ConcurrentMap<Class<?>, ConcurrentMap<String, InjectionPoint>> injectionPointCache,
+                     BeanAccessor beanAccessor){
         this.beanFactory = beanFactory;
         this.beanName = beanName;
         this.mbd = mbd;
+        this.injectionPointCache = injectionPointCache;
+        this.beanAccessor = beanAccessor;
     }
 
 
     public void autowireProperty(Object bean, PropertyValue property){
+        InjectionPoint injectionPoint = getInjectionPoint(bean.getClass(), property);
+
         //解决bean reference
         Object value = property.getValue();
         Object convertedValue;
+        Class<?> targetType;
         if (value instanceof BeanReference) {
             convertedValue = getBeanReference((BeanReference) value, property);
+            targetType = injectionPoint.getTargetType(convertedValue);
+            if (!ClassUtils.isAssignableValue(targetType, convertedValue)) {
+                throw notSupported(property);
+            }
+        }else if(property.isConverted()){
+            convertedValue = property.getConvertedValue();
+            targetType = injectionPoint.getTargetType(convertedValue);
         }else if(BeanUtils.isSimpleProperty(value.getClass())){
-            convertedValue = value;
+            targetType = injectionPoint.getTargetType(value);
+            convertedValue = convertLiteral(property, targetType);
+            property.setConvertedValue(convertedValue);
         }else{
-            throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-                    "Apply bean property '" + property.getName()+"', value '"+property.getValue()
-                            + "' fail, only support a simple class type or a bean reference.");
+            throw notSupported(property);
         }
 
-        //set by setter method
-        Method setterMethod = findSetter(bean, property);
-        if(setterMethod != null){
-
-        //set by field
-        }else{
-            setByField(bean, property, convertedValue);
+        try {
+            injectionPoint.inject(bean, targetType, convertedValue);
+        } catch (InvocationTargetException e) {
+            throw new BeanCreationException(mbd.getResourceDescription(), beanName,
+                    "Cannot apply property '" + property.getName()+"', value '"+property.getValue()+"'", e.getTargetException());
+        } catch (Exception e) {
+            throw new BeanCreationException(mbd.getResourceDescription(), beanName,
+                    " Cannot apply property '" + property.getName()+"', value '"+property.getValue() + "'", e);
         }
     }
 
     /**
-     * 查找setter方法
-     * @param bean
+     * 获取属性的注入点，按bean类型和属性名缓存
+     * @param beanClass
      * @param property
      * @return
      */
-    private Method findSetter(Object bean, PropertyValue property){
-        try {
-            Method declaredMethod  = bean.getClass().getDeclaredMethod(
-                    "set" + property.getName().substring(0, 1).toUpperCase() + property.getName().substring(1),
-                    property.getValue().getClass());
-            return declaredMethod;
-        } catch (NoSuchMethodException e) {
-            //ignore
-            //throw e;
+    private InjectionPoint getInjectionPoint(Class<?> beanClass, PropertyValue property){
+        ConcurrentMap<String, InjectionPoint> injectionPoints = this.injectionPointCache.get(beanClass);
+        if (injectionPoints == null) {
+            injectionPoints = new ConcurrentHashMap<String, InjectionPoint>(8);
+            ConcurrentMap<String, InjectionPoint> existing = this.injectionPointCache.putIfAbsent(beanClass, injectionPoints);
+            if (existing != null) {
+                injectionPoints = existing;
+            }
+        }
+        InjectionPoint injectionPoint = injectionPoints.get(property.getName());
+        if (injectionPoint == null) {
+            injectionPoint = resolveInjectionPoint(beanClass, property);
+            injectionPoints.put(property.getName(), injectionPoint);
         }
-        return null;
+        return injectionPoint;
     }
 
     /**
-     * 使用setter设值
-     * @param bean
+     * 查找setter方法，没有则查找字段
+     * @param beanClass
      * @param property
-     * @param value
-     * @param setterMethod
+     * @return
      */
-    private void setBySetter(Object bean, PropertyValue property, Object value, Method setterMethod){
-        try {
-            Class<?> paramClazz = setterMethod.getParameterTypes()[0].getClass();
-            if(paramClazz.isAssignableFrom(value.getClass())){
-                setterMethod.setAccessible(true);
-                setterMethod.invoke(bean, value);
-            }else if(BeanUtils.isSimpleProperty(paramClazz)){
-                Object convertedValue = BeanUtils.convertByType(value, paramClazz);
-                setterMethod.setAccessible(true);
-                setterMethod.invoke(bean, convertedValue);
-            }else{
-                throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-                        "Apply bean property '" + property.getName()+"', value '"+property.getValue()
-                                + "' fail, only support a simple class type or a bean reference.");
+    private InjectionPoint resolveInjectionPoint(Class<?> beanClass, PropertyValue property){
+        String propertyName = property.getName();
+        String setterName = "set" + propertyName.substring(0, 1).toUpperCase() + propertyName.substring(1);
+        List<Method> setters = new ArrayList<Method>(1);
+        Set<String> signatures = new HashSet<String>();
+        for (Class<?> clazz = beanClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getName().equals(setterName) && method.getParameterTypes().length == 1 &&
+                        !Modifier.isStatic(method.getModifiers()) && !method.isBridge() &&
+                        signatures.add(method.getParameterTypes()[0].getName())) {
+                    makeAccessible(method);
+                    setters.add(method);
+                }
             }
-        } catch (IllegalAccessException e) {
-            throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-                    "Cannot apply property '" + property.getName()+"', value '"+property.getValue()+"'", e);
-        } catch (InvocationTargetException e) {
-            throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-                    "Cannot apply property '" + property.getName()+"', value '"+property.getValue()+"'", e);
-        } catch (Exception e) {
-            throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-                    "UnknownException, Cannot apply property '" + property.getName()+"', value '"+property.getValue() +"'", e);
+        }
+        if (!setters.isEmpty()) {
+            return new InjectionPoint(setters.toArray(new Method[setters.size()]), null, this.beanAccessor);
+        }
+
+        for (Class<?> clazz = beanClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            try {
+                Field field = clazz.getDeclaredField(propertyName);
+                if (!Modifier.isPublic(field.getModifiers()) || !Modifier.isPublic(clazz.getModifiers())) {
+                    field.setAccessible(true);
+                }
+                return new InjectionPoint(null, field, this.beanAccessor);
+            } catch (NoSuchFieldException e) {
+                //try super class
+            }
+        }
+        throw new BeanCreationException(mbd.getResourceDescription(), beanName,
+                "Cannot apply property '" + propertyName+"', value '"+property.getValue()+
+                        "', because bean has no field '" + propertyName+"'");
+    }
+
+    private void makeAccessible(Method method){
+        if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            method.setAccessible(true);
         }
     }
 
     /**
-     * 字段设值
-     * @param bean
+     * 字面值转换为目标类型
      * @param property
-     * @param value
+     * @param targetType
+     * @return
      */
-    private void setByField(Object bean, PropertyValue property, Object value){
-        try {
-            Field declaredField = bean.getClass().getDeclaredField(property.getName());
-            Class<?> paramClazz = declaredField.getType();
-            if(paramClazz.isAssignableFrom(value.getClass())){
-                declaredField.setAccessible(true);
-                declaredField.set(bean, value);
-            }else if(BeanUtils.isSimpleProperty(paramClazz)){
-                Object convertedValue = BeanUtils.convertByType(value, paramClazz);
-                declaredField.setAccessible(true);
-                declaredField.set(bean, convertedValue);
-            }else{
+    private Object convertLiteral(PropertyValue property, Class<?> targetType){
+        Object value = property.getValue();
+        if(ClassUtils.isAssignableValue(targetType, value)){
+            return value;
+        }else if(BeanUtils.isSimpleProperty(targetType)){
+            try {
+                return BeanUtils.convertByType(value, targetType);
+            } catch (Exception e) {
                 throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-                        "Apply bean property '" + property.getName()+"', value '"+property.getValue()
-                                + "' fail, only support a simple class type or a bean reference.");
+                        " Cannot apply property '" + property.getName()+"', value '"+property.getValue() + "'", e);
             }
-        } catch (NoSuchFieldException e) {
-            throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-                    "Cannot apply property '" + property.getName()+"', value '"+property.getValue()+
-                            "', because bean has no field '" + property.getName()+"'", e);
-        } catch (Exception e) {
-            if(e instanceof BeanCreationException){
-                throw (BeanCreationException)e;
-            }
-            throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-                    " Cannot apply property '" + property.getName()+"', value '"+property.getValue() + "'", e);
+        }else{
+            throw notSupported(property);
         }
     }
 
+    private BeanCreationException notSupported(PropertyValue property){
+        return new BeanCreationException(mbd.getResourceDescription(), beanName,
+                "Apply bean property '" + property.getName()+"', value '"+property.getValue()
+                        + "' fail, only support a simple class type or a bean reference.");
+    }
+
     private Object getBeanReference(BeanReference beanReference, PropertyValue property){
         Object refBean = this.beanFactory.getBean(beanReference.getName());
         if(refBean == null){
@@ -157,4 +209,90 @@ public class PropertyResolver {
         return refBean;
     }
 
+
+    /**
+     * Resolved accessor of one property of a bean class: its setters
+     * (several if overloaded), or else its field. Writes go through the
+     * generated bean accessor where it covers the member.
+     */
+    static class InjectionPoint {
+
+        private final Method[] setters;
+
+        private final Field field;
+
+        private final BeanAccessor beanAccessor;
+
+        /** Writer indexes in the bean accessor, parallel to the setters, or of the field; -1 if not covered */
+        private final int[] writerIndexes;
+
+        InjectionPoint(Method[] setters, Field field, BeanAccessor beanAccessor) {
+            this.setters = setters;
+            this.field = field;
+            this.beanAccessor = beanAccessor;
+            Member[] members = (setters != null ? setters : new Member[] {field});
+            this.writerIndexes = new int[members.length];
+            for (int i = 0; i < members.length; i++) {
+                this.writerIndexes[i] = (beanAccessor != null ? beanAccessor.getWriterIndex(members[i]) : -1);
+            }
+        }
+
+        /**
+         * Return the type the given value will be injected as.
+         */
+        Class<?> getTargetType(Object value) {
+            return (this.field != null ? this.field.getType() : setterForValue(value).getParameterTypes()[0]);
+        }
+
+        void inject(Object bean, Class<?> targetType, Object value) throws IllegalAccessException, InvocationTargetException {
+            int member = (this.field != null ? 0 : setterIndexForType(targetType));
+            if (this.writerIndexes[member] >= 0) {
+                try {
+                    this.beanAccessor.write(bean, this.writerIndexes[member], value);
+                }
+                catch (Throwable ex) {
+                    // report like a reflective call would
+                    throw new InvocationTargetException(ex);
+                }
+            }
+            else if (this.field != null) {
+                this.field.set(bean, value);
+            }
+            else {
+                this.setters[member].invoke(bean, value);
+            }
+        }
+
+        private int setterIndexForType(Class<?> targetType) {
+            if (this.setters.length > 1) {
+                for (int i = 0; i < this.setters.length; i++) {
+                    if (this.setters[i].getParameterTypes()[0] == targetType) {
+                        return i;
+                    }
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Pick the setter for a value: the only one, else the first accepting
+         * the value as is, else the first taking a simple type.
+         */
+        private Method setterForValue(Object value) {
+            if (this.setters.length > 1) {
+                for (Method setter : this.setters) {
+                    if (ClassUtils.isAssignableValue(setter.getParameterTypes()[0], value)) {
+                        return setter;
+                    }
+                }
+                for (Method setter : this.setters) {
+                    if (BeanUtils.isSimpleProperty(setter.getParameterTypes()[0])) {
+                        return setter;
+                    }
+                }
+            }
+            return this.setters[0];
+        }
+    }
+
 }
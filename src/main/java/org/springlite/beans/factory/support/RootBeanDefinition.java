@@ -4,6 +4,8 @@ import org.springlite.beans.ConstructorArgumentValues;
 import org.springlite.beans.MutablePropertyValues;
 import org.springlite.beans.factory.config.BeanDefinition;
 
+import java.lang.reflect.Constructor;
+
 /**
  * Created by swy on 2016/5/25.
  */
@@ -11,6 +13,28 @@ public class RootBeanDefinition extends AbstractBeanDefinition {
 
     private volatile Class<?> targetType;
 
+    /** Common lock for the constructor fields below */
+    final Object constructorArgumentLock = new Object();
+
+    /** Package-visible field for caching the resolved constructor */
+    volatile Constructor<?> resolvedConstructor;
+
+    /** Package-visible field that marks the constructor arguments as resolved */
+    boolean constructorArgumentsResolved = false;
+
+    /**
+     * Package-visible field for caching the prepared constructor arguments:
+     * literal values already converted to the parameter type, bean references
+     * still to be resolved on each instantiation
+     */
+    Object[] preparedConstructorArguments;
+
+    /**
+     * Package-visible field caching the id of the custom scope of the bean
+     * in its factory, -1 if not resolved yet
+     */
+    volatile int resolvedScopeId = -1;
+
     /**
      * Create a new RootBeanDefinition, to be configured through its bean
      * properties and configuration methods.
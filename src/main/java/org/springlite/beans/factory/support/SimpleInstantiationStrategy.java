@@ -0,0 +1,31 @@
+package org.springlite.beans.factory.support;
+
+import org.springlite.beans.BeanUtils;
+import org.springlite.beans.exception.BeansException;
+import org.springlite.beans.factory.BeanFactory;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * 〈一句话功能简述〉&lt;p&gt;
+ * Simple object instantiation strategy for use in a BeanFactory, based on reflection.
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see BeanUtils#instantiateClass
+ * @since [产品/模块版本] （可选）
+ */
+public class SimpleInstantiationStrategy implements InstantiationStrategy {
+
+    @Override
+    public Object instantiate(RootBeanDefinition bd, String beanName, BeanFactory owner) throws BeansException {
+        return BeanUtils.instantiateClass(bd.getBeanClass());
+    }
+
+    @Override
+    public Object instantiate(RootBeanDefinition bd, String beanName, BeanFactory owner,
+                              Constructor<?> ctor, Object... args) throws BeansException {
+        return BeanUtils.instantiateClass(ctor, args);
+    }
+
+}
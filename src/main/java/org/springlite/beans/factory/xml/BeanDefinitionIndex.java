@@ -0,0 +1,67 @@
+package org.springlite.beans.factory.xml;
+
+import org.springlite.core.io.Resource;
+
+import java.io.IOException;
+
+/**
+ * 〈预编译bean定义索引的文件格式〉&lt;p&gt;
+ * Layout shared by {@link BeanDefinitionIndexWriter} and {@link BeanDefinitionIndexReader}.
+ *
+ * <p>An index file starts with {@link #MAGIC} and {@link #VERSION}, followed
+ * by a string table; every later string is an index into that table, or
+ * {@link #NO_STRING} for {@code null}. Then come the config locations the index
+ * was built from, the XML resources read (with their timestamp and length,
+ * imports included), and finally the bean definitions in registration order.
+ *
+ * @author zixiao
+ * @date 16/6/15
+ * @see [相关类/方法]（可选）
+ * @since [产品/模块版本] （可选）
+ */
+abstract class BeanDefinitionIndex {
+
+    static final int MAGIC = 0x53504249;
+
+    static final int VERSION = 1;
+
+    static final int NO_STRING = -1;
+
+    static final byte VALUE_NULL = 0;
+
+    static final byte VALUE_LITERAL = 1;
+
+    static final byte VALUE_REFERENCE = 2;
+
+    static final int FLAG_LAZY_INIT = 1;
+
+    static final int FLAG_ABSTRACT = 1 << 1;
+
+    static final int FLAG_ASYNC_INIT = 1 << 2;
+
+    /**
+     * Last-modified timestamp of the resource, or -1 if it cannot be
+     * determined (e.g. a resource inside a jar).
+     */
+    static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        }
+        catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Content length of the resource, or -1 if it cannot be read.
+     */
+    static long contentLength(Resource resource) {
+        try {
+            return resource.contentLength();
+        }
+        catch (IOException ex) {
+            return -1;
+        }
+    }
+
+}
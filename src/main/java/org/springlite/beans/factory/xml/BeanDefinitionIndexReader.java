@@ -0,0 +1,204 @@
+package org.springlite.beans.factory.xml;
+
+import org.springlite.beans.BeanReference;
+import org.springlite.beans.ConstructorArgumentValues;
+import org.springlite.beans.exception.BeanDefinitionStoreException;
+import org.springlite.beans.factory.support.AbstractBeanDefinitionReader;
+import org.springlite.beans.factory.support.BeanDefinitionBuilder;
+import org.springlite.beans.factory.support.BeanDefinitionRegistry;
+import org.springlite.core.io.Resource;
+import org.springlite.core.io.ResourceLoader;
+import org.springlite.core.io.UrlResource;
+import org.springlite.util.Assert;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * 〈加载预编译的bean定义索引〉&lt;p&gt;
+ * Registers the bean definitions of an index written by
+ * {@link BeanDefinitionIndexWriter}, without parsing any XML.
+ *
+ * <p>Before registering anything the index is checked against the XML
+ * resources it was built from: if any of them changed (timestamp or length)
+ * or disappeared, the index is stale and its config locations are loaded
+ * through the fallback {@link XmlBeanDefinitionReader} instead.
+ * Resources without a file system timestamp (e.g. inside a jar) are compared
+ * by length only.
+ *
+ * @author zixiao
+ * @date 16/6/15
+ * @see BeanDefinitionIndex
+ * @since [产品/模块版本] （可选）
+ */
+public class BeanDefinitionIndexReader extends AbstractBeanDefinitionReader {
+
+    private final XmlBeanDefinitionReader fallbackReader;
+
+    public BeanDefinitionIndexReader(BeanDefinitionRegistry registry, ResourceLoader resourceLoader) {
+        this(registry, resourceLoader, new XmlBeanDefinitionReader(registry, resourceLoader));
+    }
+
+    /**
+     * Create a new BeanDefinitionIndexReader.
+     * @param fallbackReader the reader to load the XML with when the index is stale,
+     * registering into the same registry
+     */
+    public BeanDefinitionIndexReader(BeanDefinitionRegistry registry, ResourceLoader resourceLoader,
+                                     XmlBeanDefinitionReader fallbackReader) {
+        super(registry, resourceLoader);
+        Assert.notNull(fallbackReader, "Fallback XmlBeanDefinitionReader must not be null");
+        this.fallbackReader = fallbackReader;
+    }
+
+    /**
+     * Load bean definitions from the specified index, or from the XML it was built
+     * from if it is stale.
+     * @return the number of bean definitions found
+     * @throws BeanDefinitionStoreException in case of loading or format errors
+     */
+    public int loadBeanDefinitions(Resource resource) throws BeanDefinitionStoreException {
+        Assert.notNull(resource, "Resource must not be null");
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(resource.getInputStream()));
+            try {
+                if (in.readInt() != BeanDefinitionIndex.MAGIC) {
+                    throw new BeanDefinitionStoreException(resource.getDescription(),
+                            "Not a bean definition index: " + resource);
+                }
+                int version = in.readShort();
+                if (version != BeanDefinitionIndex.VERSION) {
+                    throw new BeanDefinitionStoreException(resource.getDescription(),
+                            "Unsupported bean definition index version " + version + " in " + resource);
+                }
+                String[] strings = new String[in.readInt()];
+                for (int i = 0; i < strings.length; i++) {
+                    strings[i] = in.readUTF();
+                }
+                String[] locations = new String[in.readInt()];
+                for (int i = 0; i < locations.length; i++) {
+                    locations[i] = readString(in, strings);
+                }
+                String staleSource = findStaleSource(in, strings);
+                if (staleSource != null) {
+                    if (logger.isInfoEnabled()) {
+                        logger.info("Bean definition index " + resource + " is stale, " + staleSource +
+                                " has changed - loading XML bean definitions instead");
+                    }
+                    return this.fallbackReader.loadBeanDefinitions(locations);
+                }
+                if (logger.isInfoEnabled()) {
+                    logger.info("Loading bean definitions from index " + resource);
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    readBeanDefinition(in, strings);
+                }
+                return count;
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException ex) {
+            throw new BeanDefinitionStoreException(resource.getDescription(),
+                    "IOException reading bean definition index from " + resource, ex);
+        }
+    }
+
+    /**
+     * Read all source entries of the index.
+     * @return the first source that changed since the index was written, or {@code null}
+     */
+    private String findStaleSource(DataInputStream in, String[] strings) throws IOException {
+        String staleSource = null;
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String url = readString(in, strings);
+            long lastModified = in.readLong();
+            long contentLength = in.readLong();
+            if (staleSource == null) {
+                Resource source = new UrlResource(url);
+                if (!source.exists() || BeanDefinitionIndex.lastModified(source) != lastModified ||
+                        BeanDefinitionIndex.contentLength(source) != contentLength) {
+                    staleSource = url;
+                }
+            }
+        }
+        return staleSource;
+    }
+
+    private void readBeanDefinition(DataInputStream in, String[] strings) throws IOException {
+        String beanName = readString(in, strings);
+        BeanDefinitionBuilder definitionBuilder = BeanDefinitionBuilder.rootBeanDefinition(readString(in, strings));
+        definitionBuilder.setBeanName(beanName);
+        String scope = readString(in, strings);
+        if (scope != null && scope.length() > 0) {
+            definitionBuilder.setScope(scope);
+        }
+        int flags = in.readByte();
+        definitionBuilder.setLazyInit((flags & BeanDefinitionIndex.FLAG_LAZY_INIT) != 0);
+        definitionBuilder.setAbstract((flags & BeanDefinitionIndex.FLAG_ABSTRACT) != 0);
+        definitionBuilder.setAsyncInit((flags & BeanDefinitionIndex.FLAG_ASYNC_INIT) != 0);
+        String initMethodName = readString(in, strings);
+        if (initMethodName != null) {
+            definitionBuilder.setInitMethodName(initMethodName);
+        }
+        String destroyMethodName = readString(in, strings);
+        if (destroyMethodName != null) {
+            definitionBuilder.setDestroyMethodName(destroyMethodName);
+        }
+        int dependsOnCount = in.readInt();
+        for (int i = 0; i < dependsOnCount; i++) {
+            definitionBuilder.addDependsOn(readString(in, strings));
+        }
+
+        ConstructorArgumentValues cargs = definitionBuilder.getRawBeanDefinition().getConstructorArgumentValues();
+        cargs.setAutowrieBy(in.readInt());
+        int indexedCount = in.readInt();
+        for (int i = 0; i < indexedCount; i++) {
+            int index = in.readInt();
+            Object value = readValue(in, strings);
+            String type = readString(in, strings);
+            String name = readString(in, strings);
+            cargs.addIndexedArgumentValue(index, value, type);
+            cargs.getIndexedArgumentValues().get(index).setName(name);
+        }
+        int genericCount = in.readInt();
+        for (int i = 0; i < genericCount; i++) {
+            Object value = readValue(in, strings);
+            String type = readString(in, strings);
+            String name = readString(in, strings);
+            cargs.addGenericArgumentValue(value, name, type);
+        }
+
+        int propertyCount = in.readInt();
+        for (int i = 0; i < propertyCount; i++) {
+            String name = readString(in, strings);
+            definitionBuilder.addPropertyValue(name, readValue(in, strings));
+        }
+
+        getRegistry().registerBeanDefinition(beanName, definitionBuilder.getBeanDefinition());
+    }
+
+    private Object readValue(DataInputStream in, String[] strings) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case BeanDefinitionIndex.VALUE_NULL:
+                return null;
+            case BeanDefinitionIndex.VALUE_LITERAL:
+                return readString(in, strings);
+            case BeanDefinitionIndex.VALUE_REFERENCE:
+                return new BeanReference(readString(in, strings));
+            default:
+                throw new IOException("Corrupt bean definition index: unknown value kind " + kind);
+        }
+    }
+
+    private String readString(DataInputStream in, String[] strings) throws IOException {
+        int index = in.readInt();
+        return (index != BeanDefinitionIndex.NO_STRING ? strings[index] : null);
+    }
+
+}
@@ -0,0 +1,238 @@
+package org.springlite.beans.factory.xml;
+
+import org.springlite.beans.BeanReference;
+import org.springlite.beans.ConstructorArgumentValues;
+import org.springlite.beans.ConstructorArgumentValues.ValueHolder;
+import org.springlite.beans.PropertyValue;
+import org.springlite.beans.exception.BeanDefinitionStoreException;
+import org.springlite.beans.factory.config.BeanDefinition;
+import org.springlite.beans.factory.support.DefaultListableBeanFactory;
+import org.springlite.core.io.DefaultResourceLoader;
+import org.springlite.core.io.Resource;
+import org.springlite.core.io.ResourceLoader;
+import org.springlite.core.io.UrlResource;
+import org.springlite.util.Assert;
+
+import java.io.*;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * 〈生成预编译的bean定义索引〉&lt;p&gt;
+ * Build-time step that parses XML bean definition files, imports included,
+ * and writes the resulting bean definitions to a compact binary index, to be
+ * loaded at startup by {@link BeanDefinitionIndexReader} without any XML parsing.
+ *
+ * <p>Can be run from the build with
+ * {@code java org.springlite.beans.factory.xml.BeanDefinitionIndexWriter <index file> <location>...}.
+ *
+ * @author zixiao
+ * @date 16/6/15
+ * @see BeanDefinitionIndex
+ * @since [产品/模块版本] （可选）
+ */
+public class BeanDefinitionIndexWriter {
+
+    private final ResourceLoader resourceLoader;
+
+    private boolean validating = true;
+
+    public BeanDefinitionIndexWriter() {
+        this(new DefaultResourceLoader());
+    }
+
+    public BeanDefinitionIndexWriter(ResourceLoader resourceLoader) {
+        Assert.notNull(resourceLoader, "ResourceLoader must not be null");
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * Set whether to use XML validation while parsing. Default is {@code true}.
+     */
+    public void setValidating(boolean validating) {
+        this.validating = validating;
+    }
+
+    /**
+     * Parse the given config locations and write their bean definitions to the given file.
+     * @return the number of bean definitions written
+     */
+    public int write(File indexFile, String... locations) throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(indexFile));
+        try {
+            return write(out, locations);
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Parse the given config locations and write their bean definitions to the given stream.
+     * @return the number of bean definitions written
+     * @throws BeanDefinitionStoreException if the XML is invalid, or holds values the index cannot represent
+     */
+    public int write(OutputStream out, String... locations) throws IOException {
+        Assert.notNull(locations, "Location array must not be null");
+        DefaultListableBeanFactory registry = new DefaultListableBeanFactory();
+        final Map<String, Resource> sources = new LinkedHashMap<String, Resource>();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(registry, this.resourceLoader) {
+            @Override
+            public int loadBeanDefinitions(Resource resource) throws BeanDefinitionStoreException {
+                try {
+                    // Stamped through its URL, the same way the index reader checks it
+                    URL url = resource.getURL();
+                    sources.put(url.toString(), new UrlResource(url));
+                }
+                catch (IOException ex) {
+                    throw new BeanDefinitionStoreException("Cannot index " + resource + ": it has no URL", ex);
+                }
+                return super.loadBeanDefinitions(resource);
+            }
+        };
+        reader.setValidating(this.validating);
+        reader.loadBeanDefinitions(locations);
+
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+        DataOutputStream data = new DataOutputStream(body);
+
+        data.writeInt(locations.length);
+        for (String location : locations) {
+            data.writeInt(strings.indexOf(location));
+        }
+        data.writeInt(sources.size());
+        for (Map.Entry<String, Resource> source : sources.entrySet()) {
+            data.writeInt(strings.indexOf(source.getKey()));
+            data.writeLong(BeanDefinitionIndex.lastModified(source.getValue()));
+            data.writeLong(BeanDefinitionIndex.contentLength(source.getValue()));
+        }
+        String[] beanNames = registry.getBeanDefinitionNames();
+        data.writeInt(beanNames.length);
+        for (String beanName : beanNames) {
+            writeBeanDefinition(data, strings, beanName, registry.getBeanDefinition(beanName));
+        }
+        data.flush();
+
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(BeanDefinitionIndex.MAGIC);
+        header.writeShort(BeanDefinitionIndex.VERSION);
+        strings.writeTo(header);
+        body.writeTo(header);
+        header.flush();
+        return beanNames.length;
+    }
+
+    private void writeBeanDefinition(DataOutputStream data, StringTable strings, String beanName, BeanDefinition bd)
+            throws IOException {
+        data.writeInt(strings.indexOf(beanName));
+        data.writeInt(strings.indexOf(bd.getBeanClassName()));
+        data.writeInt(strings.indexOf(bd.getScope()));
+        int flags = 0;
+        if (bd.isLazyInit()) {
+            flags |= BeanDefinitionIndex.FLAG_LAZY_INIT;
+        }
+        if (bd.isAbstract()) {
+            flags |= BeanDefinitionIndex.FLAG_ABSTRACT;
+        }
+        if (bd.isAsyncInit()) {
+            flags |= BeanDefinitionIndex.FLAG_ASYNC_INIT;
+        }
+        data.writeByte(flags);
+        data.writeInt(strings.indexOf(bd.getInitMethodName()));
+        data.writeInt(strings.indexOf(bd.getDestroyMethodName()));
+
+        String[] dependsOn = bd.getDependsOn();
+        data.writeInt(dependsOn != null ? dependsOn.length : 0);
+        if (dependsOn != null) {
+            for (String dependency : dependsOn) {
+                data.writeInt(strings.indexOf(dependency));
+            }
+        }
+
+        ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+        data.writeInt(cargs.getAutowrieBy());
+        data.writeInt(cargs.getIndexedArgumentValues().size());
+        for (Map.Entry<Integer, ValueHolder> entry : cargs.getIndexedArgumentValues().entrySet()) {
+            data.writeInt(entry.getKey());
+            writeValueHolder(data, strings, beanName, entry.getValue());
+        }
+        data.writeInt(cargs.getGenericArgumentValues().size());
+        for (ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+            writeValueHolder(data, strings, beanName, valueHolder);
+        }
+
+        List<PropertyValue> propertyValues = bd.getPropertyValues().getPropertyValueList();
+        data.writeInt(propertyValues.size());
+        for (PropertyValue pv : propertyValues) {
+            data.writeInt(strings.indexOf(pv.getName()));
+            writeValue(data, strings, beanName, pv.getValue());
+        }
+    }
+
+    private void writeValueHolder(DataOutputStream data, StringTable strings, String beanName, ValueHolder valueHolder)
+            throws IOException {
+        writeValue(data, strings, beanName, valueHolder.getValue());
+        data.writeInt(strings.indexOf(valueHolder.getType()));
+        data.writeInt(strings.indexOf(valueHolder.getName()));
+    }
+
+    private void writeValue(DataOutputStream data, StringTable strings, String beanName, Object value)
+            throws IOException {
+        if (value == null) {
+            data.writeByte(BeanDefinitionIndex.VALUE_NULL);
+        }
+        else if (value instanceof String) {
+            data.writeByte(BeanDefinitionIndex.VALUE_LITERAL);
+            data.writeInt(strings.indexOf((String) value));
+        }
+        else if (value instanceof BeanReference) {
+            data.writeByte(BeanDefinitionIndex.VALUE_REFERENCE);
+            data.writeInt(strings.indexOf(((BeanReference) value).getName()));
+        }
+        else {
+            throw new BeanDefinitionStoreException(null, beanName,
+                    "Cannot index value of type [" + value.getClass().getName() + "]: only literals and bean references are supported");
+        }
+    }
+
+
+    /**
+     * Distinct strings of an index, numbered in order of first use.
+     */
+    private static class StringTable {
+
+        private final Map<String, Integer> indexes = new LinkedHashMap<String, Integer>();
+
+        int indexOf(String value) {
+            if (value == null) {
+                return BeanDefinitionIndex.NO_STRING;
+            }
+            Integer index = this.indexes.get(value);
+            if (index == null) {
+                index = this.indexes.size();
+                this.indexes.put(value, index);
+            }
+            return index;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(this.indexes.size());
+            for (String value : this.indexes.keySet()) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BeanDefinitionIndexWriter <index file> <location>...");
+            System.exit(1);
+        }
+        File indexFile = new File(args[0]);
+        int count = new BeanDefinitionIndexWriter().write(indexFile, Arrays.copyOfRange(args, 1, args.length));
+        System.out.println("Wrote " + count + " bean definitions to " + indexFile.getAbsolutePath());
+    }
+
+}
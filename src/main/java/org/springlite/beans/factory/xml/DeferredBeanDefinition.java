@@ -0,0 +1,96 @@
+package org.springlite.beans.factory.xml;
+
+import org.springlite.beans.ConstructorArgumentValues;
+import org.springlite.beans.MutablePropertyValues;
+import org.springlite.beans.exception.BeanDefinitionStoreException;
+import org.springlite.beans.factory.config.BeanDefinition;
+import org.springlite.beans.factory.support.BeanDefinitionBuilder;
+import org.springlite.beans.factory.support.RootBeanDefinition;
+import org.springlite.util.XmlUtils;
+import org.w3c.dom.Element;
+
+/**
+ * 〈延迟解析的lazy-init bean定义〉&lt;p&gt;
+ * Bean definition of a lazy-init {@code <bean>} element registered with the
+ * attributes of the element only. Its {@code <constructor-arg>} and
+ * {@code <property>} children are parsed the first time its constructor
+ * arguments or property values are asked for, typically when the factory
+ * merges the definition before creating the bean.
+ *
+ * <p>The element, and with it its DOM document, is kept until then. Parsing
+ * locks the document, which is not safe for concurrent reads. Errors in the
+ * children are reported on every access, as a {@link BeanDefinitionStoreException}.
+ *
+ * @author zixiao
+ * @date 16/6/24
+ * @see XmlBeanDefinitionReader#setDeferLazyBeanParsing
+ * @since [产品/模块版本] （可选）
+ */
+class DeferredBeanDefinition extends RootBeanDefinition {
+
+    private final XmlBeanDefinitionReader reader;
+
+    /** The bean element, {@code null} once its children are parsed */
+    private volatile Element element;
+
+    DeferredBeanDefinition(BeanDefinition original, XmlBeanDefinitionReader reader, Element element) {
+        super(original);
+        this.reader = reader;
+        this.element = element;
+    }
+
+    @Override
+    public ConstructorArgumentValues getConstructorArgumentValues() {
+        parseBody();
+        return super.getConstructorArgumentValues();
+    }
+
+    @Override
+    public boolean hasConstructorArgumentValues() {
+        parseBody();
+        return super.hasConstructorArgumentValues();
+    }
+
+    @Override
+    public MutablePropertyValues getPropertyValues() {
+        parseBody();
+        return super.getPropertyValues();
+    }
+
+    /**
+     * Return whether the children of the bean element have been parsed.
+     */
+    boolean isBodyParsed() {
+        return (this.element == null);
+    }
+
+    private void parseBody() {
+        if (this.element == null) {
+            return;
+        }
+        synchronized (this) {
+            Element ele = this.element;
+            if (ele == null) {
+                return;
+            }
+            BeanDefinitionBuilder bodyBuilder = BeanDefinitionBuilder.rootBeanDefinition(getBeanClassName());
+            synchronized (ele.getOwnerDocument()) {
+                try {
+                    this.reader.processBeanBody(ele, bodyBuilder);
+                }
+                catch (IllegalArgumentException ex) {
+                    throw new BeanDefinitionStoreException("Invalid constructor-args or properties of lazy-init bean '" +
+                            getBeanName() + "', from xml: " + XmlUtils.getElementText(ele, false), ex);
+                }
+                catch (BeanDefinitionStoreException ex) {
+                    throw new BeanDefinitionStoreException("Invalid constructor-args or properties of lazy-init bean '" +
+                            getBeanName() + "': " + ex.getMessage(), ex);
+                }
+            }
+            setConstructorArgumentValues(bodyBuilder.getRawBeanDefinition().getConstructorArgumentValues());
+            setPropertyValues(bodyBuilder.getRawBeanDefinition().getPropertyValues());
+            this.element = null;
+        }
+    }
+
+}
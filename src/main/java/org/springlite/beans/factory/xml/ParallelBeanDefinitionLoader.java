@@ -0,0 +1,268 @@
+package org.springlite.beans.factory.xml;
+
+import org.springlite.beans.exception.BeanDefinitionStoreException;
+import org.springlite.beans.exception.NoSuchBeanDefinitionException;
+import org.springlite.beans.factory.config.BeanDefinition;
+import org.springlite.beans.factory.support.BeanDefinitionRegistry;
+import org.springlite.core.io.Resource;
+import org.springlite.util.Assert;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 〈并行解析多个xml配置〉&lt;p&gt;
+ * Parses XML bean definition resources, and all resources they import, on a
+ * fixed thread pool, then registers their bean definitions on the calling
+ * thread in exactly the order of a sequential load.
+ *
+ * <p>Each resource is parsed once, into a recording of its bean definitions
+ * and imports in document order; an import is submitted for parsing as soon
+ * as it is read. Registration then walks the recordings depth first,
+ * expanding each import in place, so overriding, the detection of cyclic
+ * imports and the first error reported are the same as when loading
+ * sequentially.
+ *
+ * @author zixiao
+ * @date 16/6/16
+ * @see XmlBeanDefinitionReader#setLoadParallelism
+ * @since [产品/模块版本] （可选）
+ */
+class ParallelBeanDefinitionLoader {
+
+    private final XmlBeanDefinitionReader reader;
+
+    private final int parallelism;
+
+    /** Resource --> its recording, once parsed */
+    private final ConcurrentMap<Resource, Future<ParsedResource>> parsedResources =
+            new ConcurrentHashMap<Resource, Future<ParsedResource>>();
+
+    private ExecutorService executor;
+
+    ParallelBeanDefinitionLoader(XmlBeanDefinitionReader reader, int parallelism) {
+        this.reader = reader;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Load bean definitions from the given resources and their imports.
+     * @return the number of bean definitions found in the given resources,
+     * not counting imported ones (as with a sequential load)
+     */
+    public int load(Resource... resources) throws BeanDefinitionStoreException {
+        Assert.notNull(resources, "Resource array must not be null");
+        this.executor = Executors.newFixedThreadPool(this.parallelism, new LoaderThreadFactory());
+        try {
+            for (Resource resource : resources) {
+                parse(resource);
+            }
+            int counter = 0;
+            Set<Resource> currentResources = new HashSet<Resource>(4);
+            for (Resource resource : resources) {
+                counter += register(resource, currentResources);
+            }
+            return counter;
+        }
+        finally {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Submit the given resource for parsing, unless already submitted.
+     */
+    private Future<ParsedResource> parse(final Resource resource) {
+        Future<ParsedResource> future = this.parsedResources.get(resource);
+        if (future == null) {
+            FutureTask<ParsedResource> task = new FutureTask<ParsedResource>(new Callable<ParsedResource>() {
+                @Override
+                public ParsedResource call() {
+                    return doParse(resource);
+                }
+            });
+            future = this.parsedResources.putIfAbsent(resource, task);
+            if (future == null) {
+                future = task;
+                this.executor.execute(task);
+            }
+        }
+        return future;
+    }
+
+    private ParsedResource doParse(Resource resource) {
+        final ParsedResource parsed = new ParsedResource();
+        XmlBeanDefinitionReader recordingReader = new XmlBeanDefinitionReader(parsed, this.reader.getResourceLoader()) {
+            @Override
+            protected void importBeanDefinitionResource(String location, Resource parentResource, Object source) {
+                String actualLocation = resolveImportLocation(location, parentResource, source);
+                if (actualLocation != null) {
+                    Resource imported = getResourceLoader().getResource(actualLocation);
+                    parsed.addImport(imported);
+                    parse(imported);
+                }
+            }
+
+            @Override
+            protected DocumentBuilder obtainDocumentBuilder() throws ParserConfigurationException, SAXException {
+                // share the schema and document builders of the target reader
+                return ParallelBeanDefinitionLoader.this.reader.obtainDocumentBuilder();
+            }
+
+            @Override
+            protected void releaseDocumentBuilder(DocumentBuilder docBuilder) {
+                ParallelBeanDefinitionLoader.this.reader.releaseDocumentBuilder(docBuilder);
+            }
+        };
+        recordingReader.setValidating(this.reader.isValidating());
+        recordingReader.setStreaming(this.reader.isStreaming());
+        recordingReader.setDeferLazyBeanParsing(this.reader.isDeferLazyBeanParsing());
+        recordingReader.setBeanClassLoader(this.reader.getBeanClassLoader());
+        recordingReader.loadBeanDefinitions(resource);
+        return parsed;
+    }
+
+    /**
+     * Register the recorded bean definitions of the given resource, expanding its imports in place.
+     * @return the number of bean definitions of the resource itself
+     */
+    private int register(Resource resource, Set<Resource> currentResources) {
+        if (!currentResources.add(resource)) {
+            throw new BeanDefinitionStoreException(
+                    "Detected cyclic loading of " + resource + " - check your import definitions!");
+        }
+        try {
+            int counter = 0;
+            BeanDefinitionRegistry registry = this.reader.getRegistry();
+            ParsedResource parsed = getParsedResource(resource);
+            for (Object entry : parsed.entries) {
+                if (entry instanceof Resource) {
+                    register((Resource) entry, currentResources);
+                }
+                else {
+                    String beanName = (String) entry;
+                    registry.registerBeanDefinition(beanName, parsed.getBeanDefinition(beanName));
+                    counter++;
+                }
+            }
+            return counter;
+        }
+        finally {
+            currentResources.remove(resource);
+        }
+    }
+
+    private ParsedResource getParsedResource(Resource resource) {
+        try {
+            return this.parsedResources.get(resource).get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BeanDefinitionStoreException("Interrupted while loading bean definitions from " + resource, ex);
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new BeanDefinitionStoreException("Unexpected exception loading bean definitions from " + resource, cause);
+        }
+    }
+
+
+    /**
+     * Registry recording the bean definitions of one resource, and its
+     * imports, in document order.
+     */
+    private static class ParsedResource implements BeanDefinitionRegistry {
+
+        /** Bean names and imported resources, in document order */
+        private final List<Object> entries = new ArrayList<Object>();
+
+        private final Map<String, BeanDefinition> beanDefinitions = new HashMap<String, BeanDefinition>();
+
+        void addImport(Resource resource) {
+            this.entries.add(resource);
+        }
+
+        @Override
+        public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) throws BeanDefinitionStoreException {
+            if (this.beanDefinitions.containsKey(beanName)) {
+                throw new BeanDefinitionStoreException("Cannot register bean definition [" + beanDefinition + "] for bean '" +
+                        beanName + "': There is already [" + this.beanDefinitions.get(beanName) + "] bound.");
+            }
+            this.entries.add(beanName);
+            this.beanDefinitions.put(beanName, beanDefinition);
+        }
+
+        @Override
+        public void removeBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
+            if (this.beanDefinitions.remove(beanName) == null) {
+                throw new NoSuchBeanDefinitionException(beanName);
+            }
+            this.entries.remove(beanName);
+        }
+
+        @Override
+        public BeanDefinition getBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
+            BeanDefinition bd = this.beanDefinitions.get(beanName);
+            if (bd == null) {
+                throw new NoSuchBeanDefinitionException(beanName);
+            }
+            return bd;
+        }
+
+        @Override
+        public boolean containsBeanDefinition(String beanName) {
+            return this.beanDefinitions.containsKey(beanName);
+        }
+
+        @Override
+        public String[] getBeanDefinitionNames() {
+            List<String> beanNames = new ArrayList<String>(this.beanDefinitions.size());
+            for (Object entry : this.entries) {
+                if (entry instanceof String) {
+                    beanNames.add((String) entry);
+                }
+            }
+            return beanNames.toArray(new String[beanNames.size()]);
+        }
+
+        @Override
+        public int getBeanDefinitionCount() {
+            return this.beanDefinitions.size();
+        }
+
+        @Override
+        public boolean isBeanNameInUse(String beanName) {
+            return containsBeanDefinition(beanName);
+        }
+    }
+
+
+    /**
+     * Daemon threads named after the loading phase, inheriting the context
+     * class loader of the loading thread.
+     */
+    private static class LoaderThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "springlite-load-" + this.threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(this.contextClassLoader);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.springlite.beans.factory.xml;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springlite.beans.BeanSchema;
+import org.springlite.beans.exception.BeanDefinitionStoreException;
+import org.springlite.beans.factory.support.BeanDefinitionBuilder;
+import org.springlite.core.io.Resource;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * 〈基于StAX的流式bean定义解析〉&lt;p&gt;
+ * Reads one XML bean definition file as a stream of StAX events, building
+ * each bean definition while its {@code <bean>} element is open and
+ * registering it at the end tag, so only the current bean is held in memory.
+ *
+ * <p>Elements are interpreted exactly as by the DOM-based
+ * {@link XmlBeanDefinitionReader}, whose processing methods this parser
+ * drives: {@code <constructor-arg>} and {@code <property>} elements are
+ * collected at any depth below their bean, and a {@code <property>} with
+ * any child content is handed to the (unimplemented) child value processing.
+ *
+ * @author zixiao
+ * @date 16/6/16
+ * @see XmlBeanDefinitionReader#setStreaming
+ * @since [产品/模块版本] （可选）
+ */
+class StaxBeanDefinitionParser {
+
+    private static final Log logger = LogFactory.getLog(StaxBeanDefinitionParser.class);
+
+    private static final XMLInputFactory inputFactory = createInputFactory();
+
+    private final XmlBeanDefinitionReader reader;
+
+    private final Resource resource;
+
+    private XMLStreamReader streamReader;
+
+    /** Builder of the open {@code <bean>} element, if any */
+    private BeanDefinitionBuilder definitionBuilder;
+
+    private String beanName;
+
+    private int beanLine;
+
+    private int constructorArgsCount;
+
+    /** Attributes of the open {@code <property>} element, if any: name, value, ref */
+    private String[] property;
+
+    private boolean propertyHasChilds;
+
+    StaxBeanDefinitionParser(XmlBeanDefinitionReader reader, Resource resource) {
+        this.reader = reader;
+        this.resource = resource;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Parse the given stream and register its bean definitions.
+     * @return the number of bean definitions found
+     */
+    public int parse(InputStream inputStream) throws XMLStreamException {
+        synchronized (inputFactory) {
+            this.streamReader = inputFactory.createXMLStreamReader(inputStream);
+        }
+        try {
+            int beanDefinitionsCount = 0;
+            int depth = 0;
+            while (this.streamReader.hasNext()) {
+                int event = this.streamReader.next();
+                if (this.property != null && event != XMLStreamConstants.END_ELEMENT) {
+                    this.propertyHasChilds = true;
+                }
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 2) {
+                        startTopLevelElement();
+                    }
+                    else if (depth > 2 && this.definitionBuilder != null) {
+                        startBeanChildElement();
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == 2 && this.definitionBuilder != null) {
+                        endBean();
+                        beanDefinitionsCount++;
+                    }
+                    else if (this.property != null && BeanSchema.ELEMENT.PROPERTY.equals(this.streamReader.getLocalName())) {
+                        endProperty();
+                    }
+                    depth--;
+                }
+            }
+            return beanDefinitionsCount;
+        }
+        finally {
+            this.streamReader.close();
+        }
+    }
+
+    private void startTopLevelElement() throws XMLStreamException {
+        String localName = this.streamReader.getLocalName();
+        if (BeanSchema.ELEMENT.BEAN.equals(localName)) {
+            this.beanName = attribute(BeanSchema.ATTRIBUTE.ID);
+            this.beanLine = this.streamReader.getLocation().getLineNumber();
+            this.constructorArgsCount = 0;
+            try {
+                this.definitionBuilder = this.reader.createBeanDefinitionBuilder(
+                        this.beanName, attribute(BeanSchema.ATTRIBUTE.CLASS), describeBean());
+                this.reader.processBeanAttributes(this.definitionBuilder, attribute(BeanSchema.ATTRIBUTE.INIT_METHOD),
+                        attribute(BeanSchema.ATTRIBUTE.DESTROY_METHOD), attribute(BeanSchema.ATTRIBUTE.DEPENDS_ON),
+                        attribute(BeanSchema.ATTRIBUTE.LAZY_INIT), attribute(BeanSchema.ATTRIBUTE.ASYNC_INIT),
+                        attribute(BeanSchema.ATTRIBUTE.SCOPE));
+            } catch (IllegalArgumentException e) {
+                throw new BeanDefinitionStoreException("IllegalArgumentException: ", e);
+            }
+        }
+        else if (BeanSchema.ELEMENT.IMPORT.equals(localName)) {
+            this.reader.importBeanDefinitionResource(attribute(BeanSchema.ATTRIBUTE.RESOURCE), this.resource,
+                    describeElement());
+        }
+        else {
+            logger.error("Unknown element '" + localName + "'" + ":" + describeElement());
+        }
+    }
+
+    private void startBeanChildElement() {
+        String localName = this.streamReader.getLocalName();
+        try {
+            if (BeanSchema.ELEMENT.CONSTRUCTOR_ARG.equals(localName)) {
+                this.reader.processConstructorArg(this.definitionBuilder, attribute(BeanSchema.ATTRIBUTE.INDEX),
+                        attribute(BeanSchema.ATTRIBUTE.NAME), attribute(BeanSchema.ATTRIBUTE.TYPE),
+                        attribute(BeanSchema.ATTRIBUTE.REF), attribute(BeanSchema.ATTRIBUTE.VALUE), describeElement());
+                this.constructorArgsCount++;
+            }
+            else if (BeanSchema.ELEMENT.PROPERTY.equals(localName) && this.property == null) {
+                String name = attribute(BeanSchema.ATTRIBUTE.NAME);
+                if (StringUtils.isEmpty(name)) {
+                    throw new IllegalArgumentException("Property 'name' can not be null, from xml: " + describeBean());
+                }
+                this.property = new String[] {name, attribute(BeanSchema.ATTRIBUTE.VALUE), attribute(BeanSchema.ATTRIBUTE.REF)};
+                this.propertyHasChilds = false;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BeanDefinitionStoreException("IllegalArgumentException: ", e);
+        }
+    }
+
+    private void endProperty() {
+        if (!this.propertyHasChilds) {
+            this.reader.processPropertyValue(this.definitionBuilder, this.property[0], this.property[1], this.property[2]);
+        }
+        this.property = null;
+    }
+
+    private void endBean() {
+        try {
+            this.reader.validateConstructorArgs(this.beanName, this.definitionBuilder, this.constructorArgsCount,
+                    describeBean());
+        } catch (IllegalArgumentException e) {
+            throw new BeanDefinitionStoreException("IllegalArgumentException: ", e);
+        }
+        this.reader.getRegistry().registerBeanDefinition(this.beanName, this.definitionBuilder.getBeanDefinition());
+        this.definitionBuilder = null;
+    }
+
+    /**
+     * Value of an attribute of the current element, empty if absent (as with DOM).
+     */
+    private String attribute(String name) {
+        String value = this.streamReader.getAttributeValue(null, name);
+        return (value != null ? value : "");
+    }
+
+    private Object describeBean() {
+        return new ElementSource(BeanSchema.ELEMENT.BEAN + " id=\"" + this.beanName + "\"", this.beanLine, this.resource);
+    }
+
+    private Object describeElement() {
+        return new ElementSource(this.streamReader.getLocalName(), this.streamReader.getLocation().getLineNumber(),
+                this.resource);
+    }
+
+
+    /**
+     * Describes an element in error messages, rendered only when needed.
+     */
+    private static class ElementSource {
+
+        private final String element;
+
+        private final int line;
+
+        private final Resource resource;
+
+        ElementSource(String element, int line, Resource resource) {
+            this.element = element;
+            this.line = line;
+            this.resource = resource;
+        }
+
+        @Override
+        public String toString() {
+            return "<" + this.element + "> at line " + this.line + " of " + this.resource.getDescription();
+        }
+    }
+
+}
@@ -16,6 +16,7 @@ import org.springlite.beans.factory.support.BeanDefinitionRegistry;
 import org.springlite.core.io.Resource;
 import org.springlite.util.*;
 import org.w3c.dom.*;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
@@ -23,10 +24,16 @@ import org.xml.sax.SAXParseException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * 〈一句话功能简述〉&lt;p&gt;
@@ -40,20 +47,36 @@ import java.util.*;
 public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 
     /**
-     * JAXP attribute used to configure the schema language for validation.
+     * JAXP attribute value indicating the XSD schema language.
      */
-    private static final String SCHEMA_LANGUAGE_ATTRIBUTE = "http://java.sun.com/xml/jaxp/properties/schemaLanguage";
+    private static final String XSD_SCHEMA_LANGUAGE = "http://www.w3.org/2001/XMLSchema";
 
     /**
-     * JAXP attribute value indicating the XSD schema language.
+     * Maximum number of idle document builders kept for reuse.
      */
-    private static final String XSD_SCHEMA_LANGUAGE = "http://www.w3.org/2001/XMLSchema";
+    private static final int MAX_IDLE_DOCUMENT_BUILDERS = 8;
 
     private final ThreadLocal<Set<Resource>> resourcesCurrentlyBeingLoaded =
             new NamedThreadLocal<Set<Resource>>("XML bean definition resources currently being loaded");
 
     private boolean validating = true;
 
+    private boolean streaming = false;
+
+    private int loadParallelism = 1;
+
+    private boolean deferLazyBeanParsing = false;
+
+    private String[] schemaLocations;
+
+    /** Compiled once, on first validating parse */
+    private volatile Schema schema;
+
+    /** Created once per validating mode, on first parse */
+    private volatile DocumentBuilderFactory documentBuilderFactory;
+
+    private final Queue<DocumentBuilder> idleDocumentBuilders = new ConcurrentLinkedQueue<DocumentBuilder>();
+
     public XmlBeanDefinitionReader(BeanDefinitionRegistry registry, ResourceLoader resourceLoader) {
         super(registry, resourceLoader);
     }
@@ -64,6 +87,99 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 
     public void setValidating(boolean validating) {
         this.validating = validating;
+        resetDocumentBuilders();
+    }
+
+    public String[] getSchemaLocations() {
+        return schemaLocations;
+    }
+
+    /**
+     * Set the locations of the XSD files to validate against, e.g. local copies
+     * of the schemas the XML files declare. They are compiled once, on the first
+     * validating parse.
+     * <p>Default is none: documents are validated against the schemas of their
+     * {@code xsi:schemaLocation} hints, which the JAXP implementation caches
+     * across documents.
+     */
+    public void setSchemaLocations(String... schemaLocations) {
+        this.schemaLocations = schemaLocations;
+        this.schema = null;
+        resetDocumentBuilders();
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Set whether to read XML files as a stream of StAX events instead of
+     * building a DOM document per file. Default is {@code false}.
+     * <p>Streaming keeps only the bean being read in memory, which suits very
+     * large generated files. XSD validation is not applied in streaming mode.
+     * @see StaxBeanDefinitionParser
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    /**
+     * Set the number of threads used to parse the resources given to one
+     * {@code loadBeanDefinitions} call, and all of their imports. Default is 1,
+     * loading each resource in turn with its imports inline.
+     * <p>With more than one thread, resources are parsed concurrently and their
+     * bean definitions registered afterwards in the sequential order, so
+     * overriding, cyclic import detection and errors behave the same.
+     * @see ParallelBeanDefinitionLoader
+     */
+    public void setLoadParallelism(int loadParallelism) {
+        Assert.isTrue(loadParallelism > 0, "Load parallelism must be positive");
+        this.loadParallelism = loadParallelism;
+    }
+
+    public boolean isDeferLazyBeanParsing() {
+        return deferLazyBeanParsing;
+    }
+
+    /**
+     * Set whether to register {@code lazy-init="true"} beans with the attributes
+     * of their element only, parsing their {@code <constructor-arg>} and
+     * {@code <property>} children on first use of the definition. Default is
+     * {@code false}.
+     * <p>Saves parsing lazy beans that are never created, but keeps their DOM
+     * documents in memory until then, and reports errors in those children
+     * only when the bean is first used. Not applied in streaming mode.
+     * Pre-instantiating singletons in parallel reads the references of every
+     * bean, and so parses all deferred children.
+     * @see DeferredBeanDefinition
+     */
+    public void setDeferLazyBeanParsing(boolean deferLazyBeanParsing) {
+        this.deferLazyBeanParsing = deferLazyBeanParsing;
+    }
+
+    @Override
+    public int loadBeanDefinitions(Resource... resources) throws BeanDefinitionStoreException {
+        if (this.loadParallelism > 1) {
+            return new ParallelBeanDefinitionLoader(this, this.loadParallelism).load(resources);
+        }
+        return super.loadBeanDefinitions(resources);
+    }
+
+    @Override
+    public int loadBeanDefinitions(String... locations) throws BeanDefinitionStoreException {
+        if (this.loadParallelism > 1 && getResourceLoader() != null) {
+            Assert.notNull(locations, "Location array must not be null");
+            Resource[] resources = new Resource[locations.length];
+            for (int i = 0; i < locations.length; i++) {
+                resources[i] = getResourceLoader().getResource(locations[i]);
+            }
+            return loadBeanDefinitions(resources);
+        }
+        return super.loadBeanDefinitions(locations);
     }
 
     /**
@@ -109,10 +225,18 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
     }
 
     protected int doLoadBeanDefinitions(InputSource inputSource, Resource resource) throws BeanDefinitionStoreException {
+        if (this.streaming) {
+            return doLoadBeanDefinitionsStreaming(inputSource, resource);
+        }
         try {
-            DocumentBuilderFactory factory = createDocumentBuilderFactory(validating);
-            DocumentBuilder docBuilder = factory.newDocumentBuilder();
-            Document doc = docBuilder.parse(inputSource);
+            Document doc;
+            DocumentBuilder docBuilder = obtainDocumentBuilder();
+            try {
+                docBuilder.setErrorHandler(new ResourceErrorHandler(resource));
+                doc = docBuilder.parse(inputSource);
+            } finally {
+                releaseDocumentBuilder(docBuilder);
+            }
             // 解析beans
             return registerBeanDefinitions(doc, resource);
         } catch (ParserConfigurationException e) {
@@ -136,21 +260,91 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
         }
     }
 
+    /**
+     * Stream the bean definitions of the given source through StAX.
+     * @see #setStreaming
+     */
+    protected int doLoadBeanDefinitionsStreaming(InputSource inputSource, Resource resource)
+            throws BeanDefinitionStoreException {
+        try {
+            return new StaxBeanDefinitionParser(this, resource).parse(inputSource.getByteStream());
+        } catch (XMLStreamException ex) {
+            if (ex.getLocation() != null) {
+                throw new BeanDefinitionStoreException(resource.getDescription(),
+                        "Line " + ex.getLocation().getLineNumber() + " in XML document from " + resource + " is invalid", ex);
+            }
+            throw new BeanDefinitionStoreException(resource.getDescription(),
+                    "XMLStreamException parsing XML document from " + resource, ex);
+        } catch (BeanDefinitionStoreException ex) {
+            throw new BeanDefinitionStoreException(resource.getDescription(),
+                    "BeanDefinition registering exception parsing XML document from " + resource, ex);
+        } catch (Throwable ex) {
+            throw new BeanDefinitionStoreException(resource.getDescription(),
+                    "Unexpected exception parsing XML document from " + resource, ex);
+        }
+    }
+
+    /**
+     * Take an idle document builder, or create one from the shared factory.
+     * Must be given back by {@link #releaseDocumentBuilder}.
+     */
+    protected DocumentBuilder obtainDocumentBuilder() throws ParserConfigurationException, SAXException {
+        DocumentBuilder docBuilder = this.idleDocumentBuilders.poll();
+        if (docBuilder != null) {
+            return docBuilder;
+        }
+        DocumentBuilderFactory factory = getDocumentBuilderFactory();
+        // factories are not guaranteed to be thread-safe
+        synchronized (factory) {
+            return factory.newDocumentBuilder();
+        }
+    }
+
+    /**
+     * Reset the given document builder and keep it for the next parse, unless
+     * enough builders are idle already.
+     */
+    protected void releaseDocumentBuilder(DocumentBuilder docBuilder) {
+        docBuilder.reset();
+        if (this.idleDocumentBuilders.size() < MAX_IDLE_DOCUMENT_BUILDERS) {
+            this.idleDocumentBuilders.offer(docBuilder);
+        }
+    }
+
+    private DocumentBuilderFactory getDocumentBuilderFactory() throws ParserConfigurationException, SAXException {
+        DocumentBuilderFactory factory = this.documentBuilderFactory;
+        if (factory == null) {
+            synchronized (this.idleDocumentBuilders) {
+                factory = this.documentBuilderFactory;
+                if (factory == null) {
+                    factory = createDocumentBuilderFactory(this.validating);
+                    this.documentBuilderFactory = factory;
+                }
+            }
+        }
+        return factory;
+    }
+
+    private void resetDocumentBuilders() {
+        synchronized (this.idleDocumentBuilders) {
+            this.documentBuilderFactory = null;
+            this.idleDocumentBuilders.clear();
+        }
+    }
+
     protected DocumentBuilderFactory createDocumentBuilderFactory(boolean validating)
-            throws ParserConfigurationException {
+            throws ParserConfigurationException, SAXException {
 
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         if(validating){
             factory.setNamespaceAware(true);
-            factory.setValidating(true);
             try {
-                factory.setAttribute(SCHEMA_LANGUAGE_ATTRIBUTE, XSD_SCHEMA_LANGUAGE);
+                factory.setSchema(getSchema());
             }
-            catch (IllegalArgumentException ex) {
+            catch (UnsupportedOperationException ex) {
                 ParserConfigurationException pcex = new ParserConfigurationException(
                         "Unable to validate using XSD: Your JAXP provider [" + factory +
-                                "] does not support XML Schema. Are you running on Java 1.4 with Apache Crimson? " +
-                                "Upgrade to Apache Xerces (or Java 1.5) for full XSD support.");
+                                "] does not support XML Schema.");
                 pcex.initCause(ex);
                 throw pcex;
             }
@@ -158,6 +352,54 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
         return factory;
     }
 
+    /**
+     * Return the schema to validate against, compiling it on first use.
+     * @see #setSchemaLocations
+     */
+    protected Schema getSchema() throws SAXException {
+        Schema schema = this.schema;
+        if (schema == null) {
+            synchronized (this.idleDocumentBuilders) {
+                schema = this.schema;
+                if (schema == null) {
+                    schema = createSchema();
+                    this.schema = schema;
+                }
+            }
+        }
+        return schema;
+    }
+
+    protected Schema createSchema() throws SAXException {
+        SchemaFactory schemaFactory = SchemaFactory.newInstance(XSD_SCHEMA_LANGUAGE);
+        if (ObjectUtils.isEmpty(this.schemaLocations)) {
+            return schemaFactory.newSchema();
+        }
+        Assert.state(getResourceLoader() != null, "No ResourceLoader to read the XML schemas from");
+        List<InputStream> inputStreams = new ArrayList<InputStream>(this.schemaLocations.length);
+        try {
+            Source[] sources = new Source[this.schemaLocations.length];
+            for (int i = 0; i < this.schemaLocations.length; i++) {
+                Resource resource = getResourceLoader().getResource(this.schemaLocations[i]);
+                InputStream inputStream = resource.getInputStream();
+                inputStreams.add(inputStream);
+                sources[i] = new StreamSource(inputStream, resource.getURL().toString());
+            }
+            return schemaFactory.newSchema(sources);
+        } catch (IOException ex) {
+            throw new BeanDefinitionStoreException("IOException reading XML schemas " +
+                    Arrays.toString(this.schemaLocations), ex);
+        } finally {
+            for (InputStream inputStream : inputStreams) {
+                try {
+                    inputStream.close();
+                } catch (IOException ex) {
+                    logger.debug("Could not close XML schema stream", ex);
+                }
+            }
+        }
+    }
+
     protected int registerBeanDefinitions(Document doc, Resource resource) {
         Element root = doc.getDocumentElement();
         int beanDefinitionsCount = 0;
@@ -187,25 +429,49 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 
         String className = ele.getAttribute(BeanSchema.ATTRIBUTE.CLASS);
         String beanName = ele.getAttribute(BeanSchema.ATTRIBUTE.ID);
-        Validate.notEmpty(className, "Bean element attribute［id］can not be null, detail: " + ele.getNodeName() + "\n\r");
-        Validate.notEmpty(className, "Bean element attribute［class］can not be null, detail: " + ele.getNodeName() + "\n\r");
 
         //构造beanDefinition对象
-        BeanDefinitionBuilder definitionBuilder = BeanDefinitionBuilder.rootBeanDefinition(className);
-        definitionBuilder.setBeanName(beanName);
+        BeanDefinitionBuilder definitionBuilder = createBeanDefinitionBuilder(beanName, className, ele.getNodeName());
 
         //处理<bean>其他属性
         processBeanAttributes(ele, definitionBuilder);
 
+        //lazy-init bean: 构造方法参数和属性在首次使用时解析
+        if (this.deferLazyBeanParsing && definitionBuilder.getRawBeanDefinition().isLazyInit()) {
+            getRegistry().registerBeanDefinition(beanName,
+                    new DeferredBeanDefinition(definitionBuilder.getBeanDefinition(), this, ele));
+            return;
+        }
+
+        //构造方法参数和bean属性
+        processBeanBody(ele, definitionBuilder);
+
+        //注册beanDefinition
+        getRegistry().registerBeanDefinition(beanName, definitionBuilder.getBeanDefinition());
+
+    }
+
+    /**
+     * Parse the {@code <constructor-arg>} and {@code <property>} children of a {@code <bean>} element.
+     */
+    protected void processBeanBody(Element ele, BeanDefinitionBuilder definitionBuilder) {
         //构造方法参数
         processConstructorArgs(ele, definitionBuilder);
 
         //处理bean属性
         processProperty(ele, definitionBuilder);
+    }
 
-        //注册beanDefinition
-        getRegistry().registerBeanDefinition(beanName, definitionBuilder.getBeanDefinition());
-
+    /**
+     * Create the builder for a {@code <bean>} element.
+     * @param source the element, described in error messages
+     */
+    protected BeanDefinitionBuilder createBeanDefinitionBuilder(String beanName, String className, Object source) {
+        Validate.notEmpty(className, "Bean element attribute［id］can not be null, detail: " + source + "\n\r");
+        Validate.notEmpty(className, "Bean element attribute［class］can not be null, detail: " + source + "\n\r");
+        BeanDefinitionBuilder definitionBuilder = BeanDefinitionBuilder.rootBeanDefinition(className);
+        definitionBuilder.setBeanName(beanName);
+        return definitionBuilder;
     }
 
     /**
@@ -213,44 +479,70 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
      * from the given resource into the bean factory.
      */
     protected void importBeanDefinitionResource(Element ele, Resource parentResource) {
-        String location = ele.getAttribute(BeanSchema.ATTRIBUTE.RESOURCE);
+        importBeanDefinitionResource(ele.getAttribute(BeanSchema.ATTRIBUTE.RESOURCE), parentResource, new ElementSource(ele));
+    }
+
+    /**
+     * Load the bean definitions from the location of an "import" element,
+     * resolved against its parent resource unless it is a class path location.
+     * @param source the element, described in error messages
+     */
+    protected void importBeanDefinitionResource(String location, Resource parentResource, Object source) {
+        String actualLocation = resolveImportLocation(location, parentResource, source);
+        if (actualLocation != null) {
+            Set<Resource> actualResources = new LinkedHashSet<Resource>(4);
+            loadBeanDefinitions(actualLocation, actualResources);
+        }
+    }
+
+    /**
+     * Resolve the location of an "import" element against its parent resource,
+     * unless it is a class path location.
+     * @return the actual location, or {@code null} if the element has none
+     */
+    protected String resolveImportLocation(String location, Resource parentResource, Object source) {
         if (!StringUtils.isNotBlank(location)) {
-            logger.error("Resource location must not be empty, from xml " + getElementText(ele));
-            return;
+            logger.error("Resource location must not be empty, from xml " + source);
+            return null;
         }
 
-        String actualLocation = null;
         if(location.startsWith(ResourceLoader.CLASSPATH_URL_PREFIX)){
-            actualLocation = location;
+            return location;
 
         } else {
             try {
                 String fileDirectory = ResourceUtils.getFileDirectory(parentResource.getURL());
-                actualLocation = ResourceUtils.FILE_URL_PREFIX + fileDirectory + File.separator + location;
+                return ResourceUtils.FILE_URL_PREFIX + fileDirectory + File.separator + location;
             } catch (IOException e) {
                 throw new BeanDefinitionStoreException("Cannot parse import resource in location '"+location
-                        +"',  please check element '"+ getElementText(ele) +"'", e);
+                        +"',  please check element '"+ source +"'", e);
             }
         }
-        Set<Resource> actualResources = new LinkedHashSet<Resource>(4);
-        loadBeanDefinitions(actualLocation, actualResources);
     }
 
     protected void processBeanAttributes(Element ele, BeanDefinitionBuilder definitionBuilder){
+        processBeanAttributes(definitionBuilder, ele.getAttribute(BeanSchema.ATTRIBUTE.INIT_METHOD),
+                ele.getAttribute(BeanSchema.ATTRIBUTE.DESTROY_METHOD), ele.getAttribute(BeanSchema.ATTRIBUTE.DEPENDS_ON),
+                ele.getAttribute(BeanSchema.ATTRIBUTE.LAZY_INIT), ele.getAttribute(BeanSchema.ATTRIBUTE.ASYNC_INIT),
+                ele.getAttribute(BeanSchema.ATTRIBUTE.SCOPE));
+    }
+
+    /**
+     * Apply the attributes of a {@code <bean>} element, each one empty if absent.
+     */
+    protected void processBeanAttributes(BeanDefinitionBuilder definitionBuilder, String initMethodName,
+                                         String destroyMethodName, String dependsOn, String lazyInit, String asyncInit, String scope){
         //init-method
-        String initMethodName = ele.getAttribute(BeanSchema.ATTRIBUTE.INIT_METHOD);
         if (StringUtils.isNotBlank(initMethodName)) {
             definitionBuilder.setInitMethodName(initMethodName);
         }
 
         //destroy-method
-        String destroyMethodName = ele.getAttribute(BeanSchema.ATTRIBUTE.DESTROY_METHOD);
         if(StringUtils.isNotBlank(destroyMethodName)){
             definitionBuilder.setDestroyMethodName(destroyMethodName);
         }
 
         //depends-on
-        String dependsOn = ele.getAttribute(BeanSchema.ATTRIBUTE.DEPENDS_ON);
         if (StringUtils.isNotBlank(dependsOn)) {
             String[] depends  = dependsOn.split(BeanSchema.COMMA_VALUE);
             for(String depend : depends){
@@ -259,7 +551,6 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
         }
 
         //lazy-init
-        String lazyInit = ele.getAttribute(BeanSchema.ATTRIBUTE.LAZY_INIT);
         if (BeanSchema.TRUE_VALUE.equals(lazyInit)){
             definitionBuilder.setLazyInit(true);
         } else if(BeanSchema.DEFAULT_VALUE.equals(lazyInit)) {
@@ -268,8 +559,12 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
             definitionBuilder.setLazyInit(false);
         }
 
+        //async-init
+        if (BeanSchema.TRUE_VALUE.equals(asyncInit)){
+            definitionBuilder.setAsyncInit(true);
+        }
+
         //scope
-        String scope = ele.getAttribute(BeanSchema.ATTRIBUTE.SCOPE);
         if (StringUtils.isNotBlank(scope)){
             definitionBuilder.setScope(scope);
         }
@@ -281,59 +576,80 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
             Node node = constructorArgsNode.item(i);
             if (node instanceof Element) {
                 Element propertyEle = (Element) node;
-                String index = StringUtils.trimToNull(propertyEle.getAttribute(BeanSchema.ATTRIBUTE.INDEX));
-                String name = StringUtils.trimToNull(propertyEle.getAttribute(BeanSchema.ATTRIBUTE.NAME));
-                String type = StringUtils.trimToNull(propertyEle.getAttribute(BeanSchema.ATTRIBUTE.TYPE));
-
-                String ref = StringUtils.trimToNull(propertyEle.getAttribute(BeanSchema.ATTRIBUTE.REF));
-                String value = StringUtils.trimToNull(propertyEle.getAttribute(BeanSchema.ATTRIBUTE.VALUE));
+                processConstructorArg(definitionBuilder, propertyEle.getAttribute(BeanSchema.ATTRIBUTE.INDEX),
+                        propertyEle.getAttribute(BeanSchema.ATTRIBUTE.NAME), propertyEle.getAttribute(BeanSchema.ATTRIBUTE.TYPE),
+                        propertyEle.getAttribute(BeanSchema.ATTRIBUTE.REF), propertyEle.getAttribute(BeanSchema.ATTRIBUTE.VALUE),
+                        new ElementSource(propertyEle));
+            }
+        }
+        validateConstructorArgs(ele.getAttribute(BeanSchema.ATTRIBUTE.ID), definitionBuilder,
+                constructorArgsNode.getLength(), new ElementSource(ele, true));
+    }
 
-                //must specify a ref or value
-                if( (ref == null && value == null) ||
-                        (ref != null && value != null) ){
-                    throw new BeanDefinitionStoreException("Element '<" + BeanSchema.ELEMENT.CONSTRUCTOR_ARG + ">' must specify a ref or value, from xml: "+getElementText(propertyEle));
-                }
-                //index
-                if(index != null){
-                    int indexInt = Integer.valueOf(index);
-                    if(value != null){
-                        definitionBuilder.addIndexConstructorArgValue(indexInt, value, type);
-                    } else {
-                        BeanReference reference = new BeanReference(ref);
-                        definitionBuilder.addIndexConstructorArgValue(indexInt, reference, type);
-                    }
-                //name or type
-                } else if(name != null || type != null) {
-                    if(value != null){
-                        definitionBuilder.addGenericConstructorArgValue(value, name, type);
-                    } else {
-                        BeanReference reference = new BeanReference(ref);
-                        definitionBuilder.addGenericConstructorArgValue(reference, name, type);
-                    }
-                //ref or value
-                } else {
-                    if(value != null){
-                        definitionBuilder.addConstructorArgValue(value);
-                    } else {
-                        definitionBuilder.addConstructorArgReference(ref);
-                    }
-                }
+    /**
+     * Add the value of a {@code <constructor-arg>} element, its attributes each one empty if absent.
+     * @param source the element, described in error messages
+     */
+    protected void processConstructorArg(BeanDefinitionBuilder definitionBuilder, String index, String name,
+                                         String type, String ref, String value, Object source) {
+        index = StringUtils.trimToNull(index);
+        name = StringUtils.trimToNull(name);
+        type = StringUtils.trimToNull(type);
+        ref = StringUtils.trimToNull(ref);
+        value = StringUtils.trimToNull(value);
+
+        //must specify a ref or value
+        if( (ref == null && value == null) ||
+                (ref != null && value != null) ){
+            throw new BeanDefinitionStoreException("Element '<" + BeanSchema.ELEMENT.CONSTRUCTOR_ARG + ">' must specify a ref or value, from xml: "+source);
+        }
+        //index
+        if(index != null){
+            int indexInt = Integer.valueOf(index);
+            if(value != null){
+                definitionBuilder.addIndexConstructorArgValue(indexInt, value, type);
+            } else {
+                BeanReference reference = new BeanReference(ref);
+                definitionBuilder.addIndexConstructorArgValue(indexInt, reference, type);
+            }
+        //name or type
+        } else if(name != null || type != null) {
+            if(value != null){
+                definitionBuilder.addGenericConstructorArgValue(value, name, type);
+            } else {
+                BeanReference reference = new BeanReference(ref);
+                definitionBuilder.addGenericConstructorArgValue(reference, name, type);
+            }
+        //ref or value
+        } else {
+            if(value != null){
+                definitionBuilder.addConstructorArgValue(value);
+            } else {
+                definitionBuilder.addConstructorArgReference(ref);
             }
         }
+    }
+
+    /**
+     * Validate the constructor args of a bean once all its {@code <constructor-arg>} elements are added,
+     * and set how they are autowired.
+     * @param source the bean element, described in error messages
+     */
+    protected void validateConstructorArgs(String beanName, BeanDefinitionBuilder definitionBuilder, int argsCount, Object source) {
         ConstructorArgumentValues constructorArgs = definitionBuilder.getBeanDefinition().getConstructorArgumentValues();
         try {
-            validateConstructorArgs(ele, constructorArgs, constructorArgsNode.getLength());
+            validateConstructorArgs(beanName, constructorArgs, argsCount, source);
         } catch (IllegalArgumentException e) {
-            throw new BeanDefinitionStoreException("Constructor-args validate fail, from xml: " + getElementText(ele, true), e);
+            throw new BeanDefinitionStoreException("Constructor-args validate fail, from xml: " + source, e);
         }
     }
 
-    private void validateConstructorArgs(Element ele, ConstructorArgumentValues constructorArgs, int argsCount){
+    private void validateConstructorArgs(String beanName, ConstructorArgumentValues constructorArgs, int argsCount, Object source){
         if(constructorArgs.getArgumentCount() == 0){
             return;
         }
         if( !constructorArgs.getIndexedArgumentValues().isEmpty() && !constructorArgs.getGenericArgumentValues().isEmpty()){
-            Validate.isTrue(false, "Bean named '" + ele.getAttribute(BeanSchema.ATTRIBUTE.ID)
+            Validate.isTrue(false, "Bean named '" + beanName
                     + "', only support one constructor-args autowire type: 'index' or 'name' or 'type'");
         }
         Validate.isTrue(constructorArgs.getArgumentCount()== argsCount, "Constructor args count should equal element '<" + BeanSchema.ELEMENT.CONSTRUCTOR_ARG + ">' count.");
@@ -350,16 +666,16 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
             if(StringUtils.isNotBlank(first.getName())){
                 constructorArgs.setAutowrieBy(ConstructorArgumentValues.BY_NAME);
                 for( ValueHolder valueHolder : genericArgumentValues ){
-                    Validate.notEmpty(valueHolder.getName(), "Bean named '" + ele.getAttribute(BeanSchema.ATTRIBUTE.ID)
+                    Validate.notEmpty(valueHolder.getName(), "Bean named '" + beanName
                             + "', only support one constructor-args autowire type: 'index' or 'name' or 'type'");
                 }
             } else {
                 constructorArgs.setAutowrieBy(ConstructorArgumentValues.BY_TYPE);
                 for( ValueHolder valueHolder : genericArgumentValues ){
-                    Validate.notEmpty(valueHolder.getType(), "Bean named '" + ele.getAttribute(BeanSchema.ATTRIBUTE.ID)
+                    Validate.notEmpty(valueHolder.getType(), "Bean named '" + beanName
                             + "', only support one constructor-args autowire type: 'index' or 'name' or 'type'");
                     Validate.isTrue(BeanUtils.isSimpleType(valueHolder.getType()),
-                            "Class type '" + valueHolder.getType() + "' must be a simple property, on property 'type' from xml: " + getElementText(ele));
+                            "Class type '" + valueHolder.getType() + "' must be a simple property, on property 'type' from xml: " + source);
                 }
             }
         }
@@ -369,10 +685,6 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
         return XmlUtils.getElementText(element, false);
     }
 
-    private String getElementText(Element element, boolean includeChilds){
-        return XmlUtils.getElementText(element, includeChilds);
-    }
-
     /**
      * 处理bean属性
      * @param ele
@@ -387,21 +699,13 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
                 Element propertyEle = (Element) node;
 
                 String name = propertyEle.getAttribute(BeanSchema.ATTRIBUTE.NAME);
-                Validate.notEmpty(name, "Property 'name' can not be null, from xml: " + getElementText(ele));
+                if (StringUtils.isEmpty(name)) {
+                    throw new IllegalArgumentException("Property 'name' can not be null, from xml: " + getElementText(ele));
+                }
 
                 if(!propertyEle.hasChildNodes()){
-                    String value = propertyEle.getAttribute(BeanSchema.ATTRIBUTE.VALUE);
-                    String ref = propertyEle.getAttribute(BeanSchema.ATTRIBUTE.REF);
-                    if( (StringUtils.isBlank(ref) && StringUtils.isBlank(value)) ||
-                            (StringUtils.isNotBlank(ref) && StringUtils.isNotBlank(value)) ){
-                        throw new BeanDefinitionStoreException("Element '<" + BeanSchema.ELEMENT.PROPERTY + ">' must specify a ref or value.");
-                    }
-                    if (StringUtils.isNotBlank(value)) {
-                        definitionBuilder.addPropertyValue(name, value);
-                    } else {
-                        BeanReference beanReference = new BeanReference(ref);
-                        definitionBuilder.addPropertyValue(name, beanReference);
-                    }
+                    processPropertyValue(definitionBuilder, name, propertyEle.getAttribute(BeanSchema.ATTRIBUTE.VALUE),
+                            propertyEle.getAttribute(BeanSchema.ATTRIBUTE.REF));
                 }
                 else {
                     processPropertyChilds(name, propertyEle.getChildNodes(), definitionBuilder);
@@ -412,8 +716,77 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 
     }
 
+    /**
+     * Add the value of a {@code <property>} element without child nodes, its attributes each one empty if absent.
+     */
+    protected void processPropertyValue(BeanDefinitionBuilder definitionBuilder, String name, String value, String ref) {
+        if( (StringUtils.isBlank(ref) && StringUtils.isBlank(value)) ||
+                (StringUtils.isNotBlank(ref) && StringUtils.isNotBlank(value)) ){
+            throw new BeanDefinitionStoreException("Element '<" + BeanSchema.ELEMENT.PROPERTY + ">' must specify a ref or value.");
+        }
+        if (StringUtils.isNotBlank(value)) {
+            definitionBuilder.addPropertyValue(name, value);
+        } else {
+            BeanReference beanReference = new BeanReference(ref);
+            definitionBuilder.addPropertyValue(name, beanReference);
+        }
+    }
+
     protected void processPropertyChilds(String propertyName, NodeList nodeList, BeanDefinitionBuilder definitionBuilder) {
         //TODO 属性有子节点的情况处理
     }
 
+
+    /**
+     * Logs the validation errors (and, at debug level, warnings) of a resource
+     * with their line number; fatal errors abort the parse.
+     */
+    private class ResourceErrorHandler implements ErrorHandler {
+
+        private final Resource resource;
+
+        ResourceErrorHandler(Resource resource) {
+            this.resource = resource;
+        }
+
+        public void warning(SAXParseException ex) throws SAXException {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Line " + ex.getLineNumber() + " in XML document from " + this.resource + ": " + ex.getMessage());
+            }
+        }
+
+        public void error(SAXParseException ex) throws SAXException {
+            logger.error("Line " + ex.getLineNumber() + " in XML document from " + this.resource + ": " + ex.getMessage());
+        }
+
+        public void fatalError(SAXParseException ex) throws SAXException {
+            throw ex;
+        }
+    }
+
+
+    /**
+     * Describes a DOM element in error messages, rendering its text only when needed.
+     */
+    private static class ElementSource {
+
+        private final Element element;
+
+        private final boolean includeChilds;
+
+        ElementSource(Element element) {
+            this(element, false);
+        }
+
+        ElementSource(Element element, boolean includeChilds) {
+            this.element = element;
+            this.includeChilds = includeChilds;
+        }
+
+        @Override
+        public String toString() {
+            return XmlUtils.getElementText(this.element, this.includeChilds);
+        }
+    }
+
 }
@@ -25,8 +25,14 @@ import org.springlite.beans.factory.*;
 import org.springlite.beans.factory.config.BeanPostProcessor;
 import org.springlite.context.ApplicationContext;
 import org.springlite.context.ConfigurableApplicationContext;
+import org.springlite.core.metrics.ApplicationStartup;
+import org.springlite.core.metrics.BufferingApplicationStartup;
+import org.springlite.core.metrics.StartupStep;
+import org.springlite.util.Assert;
 import org.springlite.util.ObjectUtils;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -64,6 +70,12 @@ public abstract class AbstractApplicationContext implements ConfigurableApplicat
 	/** Reference to the JVM shutdown hook, if registered */
 	private Thread shutdownHook;
 
+	/** Records the refresh phases and the creation of beans, if enabled */
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
+	/** File to export the startup timeline to on close, if any */
+	private File startupTimelineFile;
+
 	/**
 	 * Create a new AbstractApplicationContext with no parent.
 	 */
@@ -104,6 +116,34 @@ public abstract class AbstractApplicationContext implements ConfigurableApplicat
 		this.parent = parent;
 	}
 
+	/**
+	 * Set the {@link ApplicationStartup} recording the phases of {@link #refresh()}
+	 * (bean definition loading, bean factory post-processing, instantiation of
+	 * singletons) and the creation of each bean. To be set before refreshing.
+	 * <p>Default is {@link ApplicationStartup#DEFAULT}, recording nothing; a
+	 * {@link BufferingApplicationStartup} keeps a timeline of all steps.
+	 */
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	/**
+	 * Return the {@link ApplicationStartup} of this context.
+	 */
+	public ApplicationStartup getApplicationStartup() {
+		return this.applicationStartup;
+	}
+
+	/**
+	 * Set the file to write the startup timeline to as a JSON flame graph when
+	 * this context is closed. Only applies with a {@link BufferingApplicationStartup}.
+	 * @see BufferingApplicationStartup#exportFlameGraph
+	 */
+	public void setStartupTimelineFile(File startupTimelineFile) {
+		this.startupTimelineFile = startupTimelineFile;
+	}
+
 	/**
 	 * ConfigurableApplicationContext
 	 * @see ConfigurableApplicationContext
@@ -111,62 +151,87 @@ public abstract class AbstractApplicationContext implements ConfigurableApplicat
 	@Override
 	public void refresh() throws BeansException, IllegalStateException {
 		synchronized (this.startupShutdownMonitor) {
-			// Prepare this context for refreshing.
-			prepareRefresh();
-
-			// Tell the subclass to refresh the internal bean factory.
-			ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
-
-			// Prepare the bean factory for use in this context.
-			prepareBeanFactory(beanFactory);
-
+			StartupStep refreshStep = this.applicationStartup.start("springlite.context.refresh");
 			try {
-				// Allows post-processing of the bean factory in context subclasses.
-				postProcessBeanFactory(beanFactory);
-
-				// Invoke factory processors registered as beans in the context.
-				// 执行 BeanFactoryPostProcessor
-				invokeBeanFactoryPostProcessors(beanFactory);
+				// Prepare this context for refreshing.
+				prepareRefresh();
 
-				// Register bean processors that intercept bean creation.
-				registerBeanPostProcessors(beanFactory);
-
-				// Initialize message source for this context.
-				initMessageSource();
+				// Tell the subclass to refresh the internal bean factory.
+				StartupStep loadStep = this.applicationStartup.start("springlite.context.beans.load");
+				ConfigurableListableBeanFactory beanFactory;
+				try {
+					beanFactory = obtainFreshBeanFactory();
+				}
+				finally {
+					loadStep.end();
+				}
 
-				// Initialize event multicaster for this context.
-				// 初始化事件广播器 ApplicationEventMulticaster
-				initApplicationEventMulticaster();
+				// Prepare the bean factory for use in this context.
+				prepareBeanFactory(beanFactory);
 
-				// Initialize other special beans in specific context subclasses.
-				onRefresh();
+				try {
+					StartupStep postProcessStep = this.applicationStartup.start("springlite.context.beans.post-process");
+					try {
+						// Allows post-processing of the bean factory in context subclasses.
+						postProcessBeanFactory(beanFactory);
+
+						// Invoke factory processors registered as beans in the context.
+						// 执行 BeanFactoryPostProcessor
+						invokeBeanFactoryPostProcessors(beanFactory);
+
+						// Register bean processors that intercept bean creation.
+						registerBeanPostProcessors(beanFactory);
+					}
+					finally {
+						postProcessStep.end();
+					}
+
+					// Initialize message source for this context.
+					initMessageSource();
+
+					// Initialize event multicaster for this context.
+					// 初始化事件广播器 ApplicationEventMulticaster
+					initApplicationEventMulticaster();
+
+					// Initialize other special beans in specific context subclasses.
+					onRefresh();
+
+					// Check for listener beans and register them.
+					// 注册事件监听器 ApplicationListener
+					registerListeners();
+
+					// Instantiate all remaining (non-lazy-init) singletons.
+					// 初始化剩余的非延迟初始化单例
+					StartupStep instantiationStep = this.applicationStartup.start("springlite.context.beans.instantiate");
+					try {
+						finishBeanFactoryInitialization(beanFactory);
+					}
+					finally {
+						instantiationStep.end();
+					}
+
+					// Last step: publish corresponding event.
+					finishRefresh();
+				}
 
-				// Check for listener beans and register them.
-				// 注册事件监听器 ApplicationListener
-				registerListeners();
+				catch (BeansException ex) {
+					if (logger.isWarnEnabled()) {
+						logger.warn("Exception encountered during context initialization - " +
+								"cancelling refresh attempt: " + ex);
+					}
 
-				// Instantiate all remaining (non-lazy-init) singletons.
-				// 初始化剩余的非延迟初始化单例
-				finishBeanFactoryInitialization(beanFactory);
+					// Destroy already created singletons to avoid dangling resources.
+					destroyBeans();
 
-				// Last step: publish corresponding event.
-				finishRefresh();
-			}
+					// Reset 'active' flag.
+					cancelRefresh(ex);
 
-			catch (BeansException ex) {
-				if (logger.isWarnEnabled()) {
-					logger.warn("Exception encountered during context initialization - " +
-							"cancelling refresh attempt: " + ex);
+					// Propagate exception to caller.
+					throw ex;
 				}
-
-				// Destroy already created singletons to avoid dangling resources.
-				destroyBeans();
-
-				// Reset 'active' flag.
-				cancelRefresh(ex);
-
-				// Propagate exception to caller.
-				throw ex;
+			}
+			finally {
+				refreshStep.end();
 			}
 		}
 	}
@@ -222,6 +287,14 @@ public abstract class AbstractApplicationContext implements ConfigurableApplicat
 	 * @param beanFactory the BeanFactory to configure
 	 */
 	protected void prepareBeanFactory(BeanFactory beanFactory) {
+		// Built-in scopes beyond singleton and prototype.
+		if (beanFactory instanceof ConfigurableBeanFactory) {
+			((ConfigurableBeanFactory) beanFactory).setApplicationStartup(this.applicationStartup);
+			((ConfigurableBeanFactory) beanFactory).registerScope(ThreadScope.SCOPE_THREAD, new ThreadScope());
+			((ConfigurableBeanFactory) beanFactory).registerScope(PooledScope.SCOPE_POOLED, new PooledScope());
+			((ConfigurableBeanFactory) beanFactory).registerScope(CacheScope.SCOPE_CACHE, new CacheScope());
+		}
+
 //		// Tell the internal bean factory to use the context's class loader etc.
 //		beanFactory.setBeanClassLoader(getClassLoader());
 //		beanFactory.setBeanExpressionResolver(new StandardBeanExpressionResolver());
@@ -679,6 +752,15 @@ public abstract class AbstractApplicationContext implements ConfigurableApplicat
 			// Let subclasses do some final clean-up if they wish...
 			onClose();
 
+			if (this.startupTimelineFile != null && this.applicationStartup instanceof BufferingApplicationStartup) {
+				try {
+					((BufferingApplicationStartup) this.applicationStartup).exportFlameGraph(this.startupTimelineFile);
+				}
+				catch (IOException ex) {
+					logger.warn("Could not export startup timeline to " + this.startupTimelineFile, ex);
+				}
+			}
+
 			synchronized (this.activeMonitor) {
 				this.active = false;
 			}
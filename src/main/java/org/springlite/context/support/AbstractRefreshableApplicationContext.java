@@ -8,6 +8,7 @@ import org.springlite.context.ApplicationContext;
 import org.springlite.context.ApplicationContextException;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 /**
  * 〈一句话功能简述〉&lt;p&gt;
@@ -24,10 +25,23 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
 
     private Boolean allowCircularReferences;
 
-    /** Bean factory for this context */
-    private DefaultListableBeanFactory beanFactory;
+    private Integer preInstantiationParallelism;
 
-    /** Synchronization monitor for the internal BeanFactory */
+    private Executor asyncInitExecutor;
+
+    private Integer destructionParallelism;
+
+    private Long beanDestructionTimeoutMillis;
+
+    private Long destructionTimeoutMillis;
+
+    /**
+     * Bean factory for this context. Volatile so that lookups read it without
+     * locking; it is only replaced on refresh and close.
+     */
+    private volatile DefaultListableBeanFactory beanFactory;
+
+    /** Synchronization monitor for replacing the internal BeanFactory */
     private final Object beanFactoryMonitor = new Object();
 
 
@@ -65,6 +79,49 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
         this.allowCircularReferences = allowCircularReferences;
     }
 
+    /**
+     * Set the number of threads used to pre-instantiate non-lazy singletons.
+     * <p>Default is 1, i.e. sequential creation on the refreshing thread.
+     * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+     */
+    public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+        this.preInstantiationParallelism = preInstantiationParallelism;
+    }
+
+    /**
+     * Set the executor to run the init methods of {@code async-init} beans on.
+     * <p>Default is a pool of daemon threads owned by the bean factory.
+     * @see DefaultListableBeanFactory#setAsyncInitExecutor
+     */
+    public void setAsyncInitExecutor(Executor asyncInitExecutor) {
+        this.asyncInitExecutor = asyncInitExecutor;
+    }
+
+    /**
+     * Set the number of threads used to destroy singletons on close.
+     * <p>Default is 1, i.e. sequential destruction on the closing thread.
+     * @see DefaultListableBeanFactory#setDestructionParallelism
+     */
+    public void setDestructionParallelism(int destructionParallelism) {
+        this.destructionParallelism = destructionParallelism;
+    }
+
+    /**
+     * Set how long the destruction of a single bean may take on close; 0 means no limit.
+     * @see DefaultListableBeanFactory#setBeanDestructionTimeoutMillis
+     */
+    public void setBeanDestructionTimeoutMillis(long beanDestructionTimeoutMillis) {
+        this.beanDestructionTimeoutMillis = beanDestructionTimeoutMillis;
+    }
+
+    /**
+     * Set how long the destruction of all singletons may take on close; 0 means no limit.
+     * @see DefaultListableBeanFactory#setDestructionTimeoutMillis
+     */
+    public void setDestructionTimeoutMillis(long destructionTimeoutMillis) {
+        this.destructionTimeoutMillis = destructionTimeoutMillis;
+    }
+
 
     /**
      * This implementation performs an actual refresh of this context's underlying
@@ -114,20 +171,21 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
      * i.e. has been refreshed at least once and not been closed yet.
      */
     protected final boolean hasBeanFactory() {
-        synchronized (this.beanFactoryMonitor) {
-            return (this.beanFactory != null);
-        }
+        return (this.beanFactory != null);
     }
 
+    /**
+     * Return the active bean factory without locking: the volatile read sees
+     * a fully loaded factory, as published at the end of {@link #refreshBeanFactory()}.
+     */
     @Override
     public final ConfigurableListableBeanFactory getBeanFactory() {
-        synchronized (this.beanFactoryMonitor) {
-            if (this.beanFactory == null) {
-                throw new IllegalStateException("BeanFactory not initialized or already closed - " +
-                        "call 'refresh' before accessing beans via the ApplicationContext");
-            }
-            return this.beanFactory;
+        DefaultListableBeanFactory beanFactory = this.beanFactory;
+        if (beanFactory == null) {
+            throw new IllegalStateException("BeanFactory not initialized or already closed - " +
+                    "call 'refresh' before accessing beans via the ApplicationContext");
         }
+        return beanFactory;
     }
 
 
@@ -151,7 +209,9 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
      * Called for each {@link #refresh()} attempt.
      * <p>The default implementation applies this context's
      * {@linkplain #setAllowBeanDefinitionOverriding "allowBeanDefinitionOverriding"}
-     * and {@linkplain #setAllowCircularReferences "allowCircularReferences"} settings,
+     * {@linkplain #setAllowCircularReferences "allowCircularReferences"},
+     * {@linkplain #setPreInstantiationParallelism "preInstantiationParallelism"},
+     * {@linkplain #setAsyncInitExecutor "asyncInitExecutor"} and destruction settings,
      * if specified. Can be overridden in subclasses to customize any of
      * {@link DefaultListableBeanFactory}'s settings.
      * @param beanFactory the newly created bean factory for this context
@@ -163,6 +223,21 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
         if (this.allowCircularReferences != null) {
             beanFactory.setAllowCircularReferences(this.allowCircularReferences);
         }
+        if (this.preInstantiationParallelism != null) {
+            beanFactory.setPreInstantiationParallelism(this.preInstantiationParallelism);
+        }
+        if (this.asyncInitExecutor != null) {
+            beanFactory.setAsyncInitExecutor(this.asyncInitExecutor);
+        }
+        if (this.destructionParallelism != null) {
+            beanFactory.setDestructionParallelism(this.destructionParallelism);
+        }
+        if (this.beanDestructionTimeoutMillis != null) {
+            beanFactory.setBeanDestructionTimeoutMillis(this.beanDestructionTimeoutMillis);
+        }
+        if (this.destructionTimeoutMillis != null) {
+            beanFactory.setDestructionTimeoutMillis(this.destructionTimeoutMillis);
+        }
 //        beanFactory.setAutowireCandidateResolver(new QualifierAnnotationAutowireCandidateResolver());
     }
 
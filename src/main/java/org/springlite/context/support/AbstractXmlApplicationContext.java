@@ -1,13 +1,17 @@
 package org.springlite.context.support;
 
+import org.springlite.beans.BeanUtils;
 import org.springlite.beans.exception.BeansException;
+import org.springlite.beans.factory.aot.BeanFactoryInitializer;
 import org.springlite.beans.factory.support.DefaultListableBeanFactory;
 import org.springlite.core.io.DefaultResourceLoader;
 import org.springlite.core.io.ResourceLoader;
+import org.springlite.beans.factory.xml.BeanDefinitionIndexReader;
 import org.springlite.beans.factory.xml.XmlBeanDefinitionReader;
 import org.springlite.context.ApplicationContext;
 import org.springlite.core.io.Resource;
 import org.springlite.util.Assert;
+import org.springlite.util.ClassUtils;
 import org.springlite.util.StringUtils;
 
 import java.io.IOException;
@@ -25,10 +29,20 @@ public abstract class AbstractXmlApplicationContext extends AbstractRefreshableA
 
     private boolean validating = true;
 
+    private boolean streaming = false;
+
+    private int loadParallelism = 1;
+
+    private boolean deferLazyBeanParsing = false;
+
     private ResourceLoader  defaultResourceLoader = new DefaultResourceLoader();
 
     private String[] configLocations;
 
+    private String beanDefinitionIndexLocation;
+
+    private String beanFactoryInitializerClassName;
+
     String CONFIG_LOCATION_DELIMITERS = ",; \t\n";
 
     /**
@@ -52,6 +66,56 @@ public abstract class AbstractXmlApplicationContext extends AbstractRefreshableA
         this.validating = validating;
     }
 
+    /**
+     * Set whether to stream XML files through StAX instead of building a DOM
+     * document per file. Default is {@code false}.
+     * @see XmlBeanDefinitionReader#setStreaming
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Set the number of threads used to parse the config locations and their
+     * imports. Default is 1, loading them one by one.
+     * @see XmlBeanDefinitionReader#setLoadParallelism
+     */
+    public void setLoadParallelism(int loadParallelism) {
+        this.loadParallelism = loadParallelism;
+    }
+
+    /**
+     * Set whether to parse the constructor-args and properties of lazy-init
+     * beans on their first use instead of on loading. Default is {@code false}.
+     * @see XmlBeanDefinitionReader#setDeferLazyBeanParsing
+     */
+    public void setDeferLazyBeanParsing(boolean deferLazyBeanParsing) {
+        this.deferLazyBeanParsing = deferLazyBeanParsing;
+    }
+
+
+    /**
+     * Set the location of a bean definition index written at build time by
+     * {@link org.springlite.beans.factory.xml.BeanDefinitionIndexWriter}.
+     * <p>If the index exists, bean definitions are loaded from it instead of
+     * the config locations, falling back to the XML it was built from when stale.
+     * If it does not exist, the config locations are loaded as usual.
+     */
+    public void setBeanDefinitionIndexLocation(String beanDefinitionIndexLocation) {
+        this.beanDefinitionIndexLocation = beanDefinitionIndexLocation;
+    }
+
+    /**
+     * Set the name of a {@link BeanFactoryInitializer} class generated at build time by
+     * {@link org.springlite.beans.factory.aot.BeanFactoryInitializerGenerator}.
+     * <p>If the class is on the class path, it registers the bean definitions
+     * instead of the config locations, without XML parsing; it has to be
+     * regenerated whenever the XML changes. If not, the config locations are
+     * loaded as usual.
+     */
+    public void setBeanFactoryInitializerClassName(String beanFactoryInitializerClassName) {
+        this.beanFactoryInitializerClassName = beanFactoryInitializerClassName;
+    }
 
     /**
      * Loads the bean definitions via an XmlBeanDefinitionReader.
@@ -60,6 +124,21 @@ public abstract class AbstractXmlApplicationContext extends AbstractRefreshableA
      * @see #loadBeanDefinitions
      */
     protected void loadBeanDefinitions(DefaultListableBeanFactory beanFactory) throws BeansException, IOException {
+        if (this.beanFactoryInitializerClassName != null) {
+            ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+            if (ClassUtils.isPresent(this.beanFactoryInitializerClassName, classLoader)) {
+                if (logger.isInfoEnabled()) {
+                    logger.info("Registering bean definitions through " + this.beanFactoryInitializerClassName);
+                }
+                BeanUtils.instantiateClass(ClassUtils.resolveClassName(this.beanFactoryInitializerClassName, classLoader),
+                        BeanFactoryInitializer.class).initialize(beanFactory);
+                return;
+            }
+            if (logger.isInfoEnabled()) {
+                logger.info("No bean factory initializer " + this.beanFactoryInitializerClassName +
+                        " found, loading XML bean definitions");
+            }
+        }
         // Create a new XmlBeanDefinitionReader for the given BeanFactory.
         XmlBeanDefinitionReader beanDefinitionReader = new XmlBeanDefinitionReader(beanFactory, defaultResourceLoader);
 
@@ -72,6 +151,17 @@ public abstract class AbstractXmlApplicationContext extends AbstractRefreshableA
         // Allow a subclass to provide custom initialization of the reader,
         // then proceed with actually loading the bean definitions.
         initBeanDefinitionReader(beanDefinitionReader);
+        if (this.beanDefinitionIndexLocation != null) {
+            Resource indexResource = defaultResourceLoader.getResource(this.beanDefinitionIndexLocation);
+            if (indexResource.exists()) {
+                new BeanDefinitionIndexReader(beanFactory, defaultResourceLoader, beanDefinitionReader)
+                        .loadBeanDefinitions(indexResource);
+                return;
+            }
+            if (logger.isInfoEnabled()) {
+                logger.info("No bean definition index found at " + indexResource + ", loading XML bean definitions");
+            }
+        }
         loadBeanDefinitions(beanDefinitionReader);
     }
 
@@ -84,6 +174,9 @@ public abstract class AbstractXmlApplicationContext extends AbstractRefreshableA
      */
     protected void initBeanDefinitionReader(XmlBeanDefinitionReader reader) {
         reader.setValidating(this.validating);
+        reader.setStreaming(this.streaming);
+        reader.setLoadParallelism(this.loadParallelism);
+        reader.setDeferLazyBeanParsing(this.deferLazyBeanParsing);
     }
 
     /**
@@ -0,0 +1,398 @@
+package org.springlite.context.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springlite.beans.factory.DisposableBean;
+import org.springlite.beans.factory.ObjectFactory;
+import org.springlite.beans.factory.config.Scope;
+import org.springlite.core.NamedThreadLocal;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 〈可回收的缓存作用域〉&lt;p&gt;
+ * A {@link Scope} for beans that are large but can be rebuilt on demand,
+ * such as lookup tables computed in an {@code init-method}. Registered by
+ * every application context under the name {@link #SCOPE_CACHE "cache"},
+ * with default settings.
+ *
+ * <p>Like a singleton, one instance is shared, but it is only held through a
+ * {@link SoftReference} by default: under heap pressure the garbage collector
+ * may reclaim it rather than fail with an OutOfMemoryError, and the next
+ * {@code getBean} builds a new instance. Since a reclaimed object cannot be
+ * destroyed, the destroy method of softly held beans is not called; beans
+ * that need one should be held strongly with a {@link #setTimeToLiveMillis TTL}.
+ *
+ * <p>With a time to live, an instance is rebuilt by the first {@code getBean}
+ * after it expired. With {@link #setRefreshAheadMillis refresh-ahead}, a lookup
+ * within that time before expiry still returns the current instance but
+ * triggers the rebuild in the background, so callers never wait for it.
+ * Callers may still be using a replaced instance, so it is only destroyed
+ * after a {@link #setDestroyGracePeriodMillis grace period}: by the first
+ * lookup after that, or when the scope is destroyed.
+ *
+ * @author zixiao
+ * @date 16/6/19
+ * @see org.springlite.beans.factory.ConfigurableBeanFactory#registerScope
+ * @since [产品/模块版本] （可选）
+ */
+public class CacheScope implements Scope, DisposableBean {
+
+    /** Scope identifier for the cache scope: "cache" */
+    public static final String SCOPE_CACHE = "cache";
+
+    private static final Log logger = LogFactory.getLog(CacheScope.class);
+
+    private boolean softReferences = true;
+
+    private long timeToLiveMillis = 0;
+
+    private long refreshAheadMillis = 0;
+
+    private long destroyGracePeriodMillis = 10000;
+
+    private Clock clock = Clock.SYSTEM;
+
+    /** Bean name --> its cached instance */
+    private final ConcurrentMap<String, CachedBean> cachedBeans = new ConcurrentHashMap<String, CachedBean>(16);
+
+    /** Replaced instances waiting for their grace period to end */
+    private final Queue<RetiredEntry> retiredEntries = new ConcurrentLinkedQueue<RetiredEntry>();
+
+    /** Destruction callback registered while the current thread builds a cached instance */
+    private final ThreadLocal<Runnable[]> creationCallback =
+            new NamedThreadLocal<Runnable[]>("Destruction callback of cached bean in creation");
+
+    private ExecutorService refresher;
+
+
+    /**
+     * Set whether instances are held through soft references, to be reclaimed
+     * under heap pressure. Default is {@code true}.
+     */
+    public void setSoftReferences(boolean softReferences) {
+        this.softReferences = softReferences;
+    }
+
+    /**
+     * Set how long an instance is used before being rebuilt; 0 means no expiry.
+     * Default is 0.
+     */
+    public void setTimeToLiveMillis(long timeToLiveMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * Set how long before expiry a lookup triggers a background rebuild;
+     * 0 disables refresh-ahead. Only applies with a time to live. Default is 0.
+     */
+    public void setRefreshAheadMillis(long refreshAheadMillis) {
+        this.refreshAheadMillis = refreshAheadMillis;
+    }
+
+    /**
+     * Set how long a replaced instance stays usable by callers that obtained it
+     * before the rebuild, before it is destroyed; 0 destroys it right away.
+     * Default is 10 seconds.
+     */
+    public void setDestroyGracePeriodMillis(long destroyGracePeriodMillis) {
+        this.destroyGracePeriodMillis = destroyGracePeriodMillis;
+    }
+
+    /**
+     * Set the clock expiry and grace periods are measured with.
+     * Default is the system clock.
+     */
+    public void setClock(Clock clock) {
+        this.clock = (clock != null ? clock : Clock.SYSTEM);
+    }
+
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        CachedBean cachedBean = this.cachedBeans.get(name);
+        if (cachedBean == null) {
+            CachedBean newCachedBean = new CachedBean(objectFactory);
+            cachedBean = this.cachedBeans.putIfAbsent(name, newCachedBean);
+            if (cachedBean == null) {
+                cachedBean = newCachedBean;
+            }
+        }
+        long now = (this.timeToLiveMillis > 0 ? this.clock.currentTimeMillis() : 0);
+        if (!this.retiredEntries.isEmpty()) {
+            destroyRetiredEntries(this.clock.currentTimeMillis(), false);
+        }
+        Entry entry = cachedBean.entry;
+        Object bean = (entry != null ? entry.getBean() : null);
+        if (bean != null && now < entry.expiresAt) {
+            if (now >= entry.refreshAt) {
+                refreshInBackground(name, cachedBean);
+            }
+            return bean;
+        }
+        synchronized (cachedBean) {
+            entry = cachedBean.entry;
+            bean = (entry != null ? entry.getBean() : null);
+            if (bean != null && now < entry.expiresAt) {
+                return bean;
+            }
+            if (entry != null && logger.isDebugEnabled()) {
+                logger.debug("Rebuilding cached bean '" + name + "': " + (bean == null ? "reclaimed" : "expired"));
+            }
+            return rebuild(cachedBean);
+        }
+    }
+
+    @Override
+    public Object remove(String name) {
+        CachedBean cachedBean = this.cachedBeans.remove(name);
+        if (cachedBean != null) {
+            Entry entry = cachedBean.entry;
+            return (entry != null ? entry.getBean() : null);
+        }
+        return null;
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+        Runnable[] holder = this.creationCallback.get();
+        if (holder != null) {
+            holder[0] = callback;
+        }
+    }
+
+    @Override
+    public String getConversationId() {
+        return null;
+    }
+
+    /**
+     * Stop background rebuilds and destroy all cached instances still held,
+     * including replaced ones within their grace period.
+     */
+    @Override
+    public void destroy() {
+        synchronized (this) {
+            if (this.refresher != null) {
+                this.refresher.shutdownNow();
+                this.refresher = null;
+            }
+        }
+        for (String name : new ArrayList<String>(this.cachedBeans.keySet())) {
+            CachedBean cachedBean = this.cachedBeans.remove(name);
+            if (cachedBean != null) {
+                synchronized (cachedBean) {
+                    destroyEntry(cachedBean.entry);
+                    cachedBean.entry = null;
+                }
+            }
+        }
+        destroyRetiredEntries(0, true);
+    }
+
+    /**
+     * Build a new instance, replacing the current one and retiring it.
+     * To be called with the lock of the given bean held.
+     * @return the new instance
+     */
+    private Object rebuild(CachedBean cachedBean) {
+        Runnable[] previousHolder = this.creationCallback.get();
+        Runnable[] holder = new Runnable[1];
+        this.creationCallback.set(holder);
+        Object bean;
+        try {
+            bean = cachedBean.objectFactory.getObject();
+        }
+        finally {
+            if (previousHolder != null) {
+                this.creationCallback.set(previousHolder);
+            }
+            else {
+                this.creationCallback.remove();
+            }
+        }
+        Entry oldEntry = cachedBean.entry;
+        cachedBean.entry = new Entry(bean, holder[0]);
+        retireEntry(oldEntry);
+        return bean;
+    }
+
+    /**
+     * Destroy the given replaced entry once the grace period is over.
+     */
+    private void retireEntry(Entry entry) {
+        if (entry == null || entry.destructionCallback == null) {
+            return;
+        }
+        if (this.destroyGracePeriodMillis <= 0) {
+            destroyEntry(entry);
+        }
+        else {
+            this.retiredEntries.offer(new RetiredEntry(entry,
+                    this.clock.currentTimeMillis() + this.destroyGracePeriodMillis));
+        }
+    }
+
+    /**
+     * Destroy the retired entries whose grace period is over, or all of them.
+     */
+    private void destroyRetiredEntries(long now, boolean all) {
+        for (Iterator<RetiredEntry> it = this.retiredEntries.iterator(); it.hasNext();) {
+            RetiredEntry retiredEntry = it.next();
+            if ((all || retiredEntry.destroyAt <= now) && this.retiredEntries.remove(retiredEntry)) {
+                destroyEntry(retiredEntry.entry);
+            }
+        }
+    }
+
+    private void refreshInBackground(final String name, final CachedBean cachedBean) {
+        if (!cachedBean.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            getRefresher().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        synchronized (cachedBean) {
+                            rebuild(cachedBean);
+                        }
+                    }
+                    catch (Throwable ex) {
+                        logger.warn("Background rebuild of cached bean '" + name + "' failed", ex);
+                    }
+                    finally {
+                        cachedBean.refreshing.set(false);
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException ex) {
+            // Destroyed meanwhile: the next lookup rebuilds it.
+            cachedBean.refreshing.set(false);
+        }
+    }
+
+    private synchronized ExecutorService getRefresher() {
+        if (this.refresher == null) {
+            this.refresher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "springlite-cache-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return this.refresher;
+    }
+
+    private void destroyEntry(Entry entry) {
+        if (entry != null && entry.destructionCallback != null) {
+            try {
+                entry.destructionCallback.run();
+            }
+            catch (Throwable ex) {
+                logger.warn("Destruction of cached bean failed", ex);
+            }
+        }
+    }
+
+
+    /**
+     * Source of the current time, to be replaced in tests.
+     */
+    public interface Clock {
+
+        Clock SYSTEM = new Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return System.currentTimeMillis();
+            }
+        };
+
+        long currentTimeMillis();
+    }
+
+
+    /**
+     * The current instance of one bean, and how to rebuild it.
+     */
+    private static class CachedBean {
+
+        private final ObjectFactory<?> objectFactory;
+
+        private volatile Entry entry;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        CachedBean(ObjectFactory<?> objectFactory) {
+            this.objectFactory = objectFactory;
+        }
+    }
+
+
+    /**
+     * One built instance, held softly or strongly, with its expiry.
+     */
+    private class Entry {
+
+        private final Object bean;
+
+        private final SoftReference<Object> beanReference;
+
+        /** Strongly reaches the bean: only kept for strongly held beans */
+        private final Runnable destructionCallback;
+
+        private final long expiresAt;
+
+        private final long refreshAt;
+
+        Entry(Object bean, Runnable destructionCallback) {
+            if (softReferences) {
+                this.bean = null;
+                this.beanReference = new SoftReference<Object>(bean);
+                this.destructionCallback = null;
+            }
+            else {
+                this.bean = bean;
+                this.beanReference = null;
+                this.destructionCallback = destructionCallback;
+            }
+            if (timeToLiveMillis > 0) {
+                this.expiresAt = clock.currentTimeMillis() + timeToLiveMillis;
+                this.refreshAt = (refreshAheadMillis > 0 ? this.expiresAt - refreshAheadMillis : Long.MAX_VALUE);
+            }
+            else {
+                this.expiresAt = Long.MAX_VALUE;
+                this.refreshAt = Long.MAX_VALUE;
+            }
+        }
+
+        Object getBean() {
+            return (this.beanReference != null ? this.beanReference.get() : this.bean);
+        }
+    }
+
+
+    /**
+     * A replaced entry, with the time it is to be destroyed at.
+     */
+    private static class RetiredEntry {
+
+        private final Entry entry;
+
+        private final long destroyAt;
+
+        RetiredEntry(Entry entry, long destroyAt) {
+            this.entry = entry;
+            this.destroyAt = destroyAt;
+        }
+    }
+
+}
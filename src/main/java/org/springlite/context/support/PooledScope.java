@@ -0,0 +1,670 @@
+package org.springlite.context.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springlite.beans.exception.BeanCreationException;
+import org.springlite.beans.factory.DisposableBean;
+import org.springlite.beans.factory.ObjectFactory;
+import org.springlite.beans.factory.config.Scope;
+import org.springlite.core.NamedThreadLocal;
+import org.springlite.util.Assert;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 〈对象池作用域〉&lt;p&gt;
+ * A {@link Scope} handing out instances of heavyweight prototypes from a
+ * bounded pool per bean, instead of creating one on every {@code getBean}.
+ * Registered by every application context under the name
+ * {@link #SCOPE_POOLED "pooled"}, with default settings.
+ *
+ * <p>Each {@code getBean} borrows an idle instance, or creates one while the
+ * pool holds fewer than {@link #setMaxSize maxSize} instances, or else waits up
+ * to {@link #setMaxWaitMillis maxWaitMillis} for one to be
+ * {@link #release released}. Idle instances are kept in a lock-free queue;
+ * only the number of borrowed instances is bounded by a semaphore.
+ * As any instance may be handed out, pooled beans cannot be looked up with
+ * explicit constructor arguments.
+ *
+ * <p>Instances are created through the bean factory, so their
+ * {@code init-method} runs once per pooled instance. Their {@code destroy-method}
+ * (and other destruction callbacks) runs when an instance is evicted after
+ * {@link #setMaxIdleMillis maxIdleMillis} of idleness (keeping
+ * {@link #setMinIdle minIdle} idle instances), fails
+ * {@link #setValidator validation}, or when the bean factory shuts down.
+ * Instances borrowed from a pool that has been closed meanwhile are destroyed
+ * when released.
+ *
+ * <p>Hits, misses and time spent waiting are recorded per bean, see
+ * {@link #getStatistics(String)}.
+ *
+ * @author zixiao
+ * @date 16/6/18
+ * @see org.springlite.beans.factory.ConfigurableBeanFactory#registerScope
+ * @since [产品/模块版本] （可选）
+ */
+public class PooledScope implements Scope, DisposableBean {
+
+    /** Scope identifier for the pooled scope: "pooled" */
+    public static final String SCOPE_POOLED = "pooled";
+
+    private static final Log logger = LogFactory.getLog(PooledScope.class);
+
+    private int maxSize = 8;
+
+    private int minIdle = 0;
+
+    private long maxWaitMillis = 10000;
+
+    private long maxIdleMillis = 60000;
+
+    private long evictionIntervalMillis = 30000;
+
+    private Validator validator;
+
+    /** Bean name --> its pool */
+    private final ConcurrentMap<String, ObjectPool> pools = new ConcurrentHashMap<String, ObjectPool>(16);
+
+    /** Borrowed instances of all pools, open or closed */
+    private final ConcurrentMap<IdentityKey, PooledObject> borrowedObjects =
+            new ConcurrentHashMap<IdentityKey, PooledObject>(16);
+
+    /** Destruction callback registered while the current thread creates a pooled instance */
+    private final ThreadLocal<Runnable[]> creationCallback =
+            new NamedThreadLocal<Runnable[]>("Destruction callback of pooled bean in creation");
+
+    private ScheduledExecutorService evictor;
+
+    private volatile boolean destroyed;
+
+
+    /**
+     * Set the maximum number of instances per bean, idle or borrowed. Default is 8.
+     * <p>Taken over by the pool of a bean when the bean is first looked up.
+     */
+    public void setMaxSize(int maxSize) {
+        Assert.isTrue(maxSize > 0, "'maxSize' must be positive");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Set the number of idle instances per bean created up front and kept on
+     * eviction. Default is 0.
+     */
+    public void setMinIdle(int minIdle) {
+        Assert.isTrue(minIdle >= 0, "'minIdle' must not be negative");
+        this.minIdle = minIdle;
+    }
+
+    /**
+     * Set how long {@code getBean} waits for an instance once all are borrowed,
+     * before failing with a BeanCreationException. Default is 10 seconds.
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Set how long an instance may stay idle before being evicted;
+     * 0 disables eviction. Default is 60 seconds.
+     */
+    public void setMaxIdleMillis(long maxIdleMillis) {
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    /**
+     * Set the interval of the background eviction of idle instances;
+     * 0 disables it ({@link #evictIdle()} can still be called). Default is 30 seconds.
+     */
+    public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+        this.evictionIntervalMillis = evictionIntervalMillis;
+    }
+
+    /**
+     * Set the validator checking idle instances before they are handed out and
+     * when they are released; invalid instances are destroyed. Default is none.
+     */
+    public void setValidator(Validator validator) {
+        this.validator = validator;
+    }
+
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        if (this.destroyed) {
+            throw new IllegalStateException("Pooled scope has been destroyed");
+        }
+        ObjectPool pool = this.pools.get(name);
+        if (pool == null) {
+            ObjectPool newPool = new ObjectPool(name, objectFactory);
+            pool = this.pools.putIfAbsent(name, newPool);
+            if (pool == null) {
+                pool = newPool;
+                startEvictorIfNecessary();
+                pool.ensureMinIdle();
+            }
+        }
+        return pool.borrow();
+    }
+
+    /**
+     * Close the pool of the given bean, destroying its idle instances; borrowed
+     * ones are destroyed when released.
+     * @return always {@code null}: the pool destroys its instances itself
+     */
+    @Override
+    public Object remove(String name) {
+        ObjectPool pool = this.pools.remove(name);
+        if (pool != null) {
+            pool.close();
+        }
+        return null;
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+        Runnable[] holder = this.creationCallback.get();
+        if (holder != null) {
+            holder[0] = callback;
+        }
+        else if (logger.isDebugEnabled()) {
+            logger.debug("Ignoring destruction callback for '" + name + "' registered outside of pooled creation");
+        }
+    }
+
+    @Override
+    public String getConversationId() {
+        return null;
+    }
+
+    /**
+     * Return an instance obtained from {@code getBean} to the pool of its bean.
+     * @param name the name of the bean
+     * @param bean the instance to return
+     * @throws IllegalArgumentException if the instance is not currently borrowed
+     * from the pool of the given bean
+     */
+    public void release(String name, Object bean) {
+        IdentityKey key = new IdentityKey(bean);
+        PooledObject pooledObject = this.borrowedObjects.get(key);
+        if (pooledObject == null || !pooledObject.pool.beanName.equals(name) ||
+                !this.borrowedObjects.remove(key, pooledObject)) {
+            throw new IllegalArgumentException("Object [" + bean + "] is not borrowed from the pool of bean '" +
+                    name + "'");
+        }
+        pooledObject.pool.release(pooledObject);
+    }
+
+    /**
+     * Evict the instances that have been idle for longer than
+     * {@link #setMaxIdleMillis maxIdleMillis}, then top the pools up to
+     * {@link #setMinIdle minIdle}.
+     */
+    public void evictIdle() {
+        for (ObjectPool pool : this.pools.values()) {
+            try {
+                pool.evict();
+            }
+            catch (Throwable ex) {
+                logger.warn("Eviction of idle instances of pooled bean '" + pool.beanName + "' failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Return a snapshot of the statistics of the pool of the given bean,
+     * or {@code null} if it has not been pooled yet.
+     */
+    public Statistics getStatistics(String name) {
+        ObjectPool pool = this.pools.get(name);
+        return (pool != null ? pool.getStatistics() : null);
+    }
+
+    /**
+     * Return a snapshot of the statistics of all pools, keyed by bean name.
+     */
+    public Map<String, Statistics> getStatistics() {
+        Map<String, Statistics> statistics = new TreeMap<String, Statistics>();
+        for (ObjectPool pool : this.pools.values()) {
+            statistics.put(pool.beanName, pool.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * Stop eviction and close all pools.
+     */
+    @Override
+    public void destroy() {
+        this.destroyed = true;
+        synchronized (this) {
+            if (this.evictor != null) {
+                this.evictor.shutdownNow();
+                this.evictor = null;
+            }
+        }
+        for (String name : new ArrayList<String>(this.pools.keySet())) {
+            remove(name);
+        }
+    }
+
+    private synchronized void startEvictorIfNecessary() {
+        if (this.evictor != null || this.destroyed || this.evictionIntervalMillis <= 0 ||
+                (this.maxIdleMillis <= 0 && this.minIdle == 0)) {
+            return;
+        }
+        this.evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "springlite-pool-evictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                evictIdle();
+            }
+        }, this.evictionIntervalMillis, this.evictionIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Checks pooled instances before they are handed out again.
+     */
+    public interface Validator {
+
+        /**
+         * Return whether the given instance can still be used.
+         * @param beanName the name of the pooled bean
+         * @param bean the idle or released instance
+         */
+        boolean validate(String beanName, Object bean);
+    }
+
+
+    /**
+     * Pool of the instances of one bean.
+     */
+    private class ObjectPool {
+
+        private final String beanName;
+
+        private final ObjectFactory<?> objectFactory;
+
+        /** Maximum size, fixed on creation of the pool */
+        private final int maxSize = PooledScope.this.maxSize;
+
+        private final Queue<PooledObject> idleObjects = new ConcurrentLinkedQueue<PooledObject>();
+
+        /** Number of borrowed instances */
+        private final AtomicInteger active = new AtomicInteger();
+
+        /** One permit per instance that may still be borrowed */
+        private final Semaphore borrowPermits = new Semaphore(this.maxSize);
+
+        /** Idle, borrowed and in-creation instances */
+        private final AtomicInteger size = new AtomicInteger();
+
+        /** Monitor signalled when an instance turns idle or room for one is freed */
+        private final Object availability = new Object();
+
+        /** Number of threads waiting on the availability monitor */
+        private final AtomicInteger availabilityWaiters = new AtomicInteger();
+
+        private final AtomicLong hits = new AtomicLong();
+
+        private final AtomicLong misses = new AtomicLong();
+
+        private final AtomicLong waitNanos = new AtomicLong();
+
+        private final AtomicLong evictions = new AtomicLong();
+
+        private final AtomicLong invalidations = new AtomicLong();
+
+        private volatile boolean closed;
+
+        ObjectPool(String beanName, ObjectFactory<?> objectFactory) {
+            this.beanName = beanName;
+            this.objectFactory = objectFactory;
+        }
+
+        Object borrow() {
+            long start = System.nanoTime();
+            try {
+                if (!this.borrowPermits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                    throw new BeanCreationException(this.beanName, "Timed out after " + maxWaitMillis +
+                            " ms waiting for a pooled instance: all " + this.maxSize + " are in use");
+                }
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new BeanCreationException(this.beanName, "Interrupted while waiting for a pooled instance", ex);
+            }
+            finally {
+                this.waitNanos.addAndGet(System.nanoTime() - start);
+            }
+            boolean borrowed = false;
+            try {
+                PooledObject pooledObject = takeOrCreate();
+                borrowedObjects.put(new IdentityKey(pooledObject.bean), pooledObject);
+                this.active.incrementAndGet();
+                borrowed = true;
+                return pooledObject.bean;
+            }
+            finally {
+                if (!borrowed) {
+                    this.borrowPermits.release();
+                }
+            }
+        }
+
+        private PooledObject takeOrCreate() {
+            for (;;) {
+                PooledObject pooledObject = this.idleObjects.poll();
+                if (pooledObject != null) {
+                    if (isValid(pooledObject)) {
+                        this.hits.incrementAndGet();
+                        return pooledObject;
+                    }
+                    this.invalidations.incrementAndGet();
+                    discard(pooledObject);
+                }
+                else if (reserve()) {
+                    this.misses.incrementAndGet();
+                    return create();
+                }
+                else {
+                    // All instances exist, one of them without a borrower:
+                    // it is being created for the idle queue, or discarded.
+                    awaitAvailability();
+                }
+            }
+        }
+
+        private void awaitAvailability() {
+            this.availabilityWaiters.incrementAndGet();
+            try {
+                synchronized (this.availability) {
+                    while (this.idleObjects.isEmpty() && this.size.get() >= this.maxSize) {
+                        this.availability.wait();
+                    }
+                }
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new BeanCreationException(this.beanName, "Interrupted while waiting for a pooled instance", ex);
+            }
+            finally {
+                this.availabilityWaiters.decrementAndGet();
+            }
+        }
+
+        private void signalAvailability() {
+            if (this.availabilityWaiters.get() > 0) {
+                synchronized (this.availability) {
+                    this.availability.notifyAll();
+                }
+            }
+        }
+
+        void release(PooledObject pooledObject) {
+            this.active.decrementAndGet();
+            try {
+                if (this.closed) {
+                    discard(pooledObject);
+                }
+                else if (!isValid(pooledObject)) {
+                    this.invalidations.incrementAndGet();
+                    discard(pooledObject);
+                }
+                else {
+                    pooledObject.idleSince = System.currentTimeMillis();
+                    this.idleObjects.offer(pooledObject);
+                    signalAvailability();
+                }
+            }
+            finally {
+                this.borrowPermits.release();
+            }
+        }
+
+        void evict() {
+            if (maxIdleMillis > 0) {
+                long idleSinceLimit = System.currentTimeMillis() - maxIdleMillis;
+                int idleCount = this.idleObjects.size();
+                for (PooledObject pooledObject : this.idleObjects) {
+                    if (idleCount <= minIdle) {
+                        break;
+                    }
+                    if (pooledObject.idleSince < idleSinceLimit && this.idleObjects.remove(pooledObject)) {
+                        idleCount--;
+                        this.evictions.incrementAndGet();
+                        discard(pooledObject);
+                    }
+                }
+            }
+            ensureMinIdle();
+        }
+
+        void ensureMinIdle() {
+            while (!this.closed && this.idleObjects.size() < minIdle && reserve()) {
+                PooledObject pooledObject = create();
+                pooledObject.idleSince = System.currentTimeMillis();
+                this.idleObjects.offer(pooledObject);
+                signalAvailability();
+            }
+        }
+
+        void close() {
+            this.closed = true;
+            PooledObject pooledObject;
+            while ((pooledObject = this.idleObjects.poll()) != null) {
+                discard(pooledObject);
+            }
+        }
+
+        /**
+         * Reserve room for one more instance, if below the maximum size.
+         */
+        private boolean reserve() {
+            for (;;) {
+                int current = this.size.get();
+                if (current >= this.maxSize) {
+                    return false;
+                }
+                if (this.size.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Create an instance in reserved room, capturing the destruction
+         * callback the bean factory registers for it.
+         */
+        private PooledObject create() {
+            Runnable[] previousHolder = creationCallback.get();
+            Runnable[] holder = new Runnable[1];
+            creationCallback.set(holder);
+            boolean created = false;
+            try {
+                PooledObject pooledObject = new PooledObject(this, this.objectFactory.getObject(), holder);
+                created = true;
+                return pooledObject;
+            }
+            finally {
+                if (previousHolder != null) {
+                    creationCallback.set(previousHolder);
+                }
+                else {
+                    creationCallback.remove();
+                }
+                if (!created) {
+                    this.size.decrementAndGet();
+                    signalAvailability();
+                }
+            }
+        }
+
+        private boolean isValid(PooledObject pooledObject) {
+            if (validator == null) {
+                return true;
+            }
+            try {
+                return validator.validate(this.beanName, pooledObject.bean);
+            }
+            catch (Throwable ex) {
+                logger.warn("Validation of pooled bean '" + this.beanName + "' failed", ex);
+                return false;
+            }
+        }
+
+        private void discard(PooledObject pooledObject) {
+            this.size.decrementAndGet();
+            signalAvailability();
+            if (pooledObject.destructionCallback != null) {
+                try {
+                    pooledObject.destructionCallback.run();
+                }
+                catch (Throwable ex) {
+                    logger.warn("Destruction of pooled bean '" + this.beanName + "' failed", ex);
+                }
+            }
+        }
+
+        Statistics getStatistics() {
+            return new Statistics(this.beanName, this.active.get(), this.idleObjects.size(),
+                    this.hits.get(), this.misses.get(), this.waitNanos.get(), this.evictions.get(),
+                    this.invalidations.get());
+        }
+    }
+
+
+    private static class PooledObject {
+
+        /** The pool the instance belongs to, even once closed */
+        private final ObjectPool pool;
+
+        private final Object bean;
+
+        private final Runnable destructionCallback;
+
+        private volatile long idleSince;
+
+        PooledObject(ObjectPool pool, Object bean, Runnable[] destructionCallbackHolder) {
+            this.pool = pool;
+            this.bean = bean;
+            this.destructionCallback = destructionCallbackHolder[0];
+        }
+    }
+
+
+    /**
+     * Map key comparing beans by identity, whatever their {@code equals}.
+     */
+    private static class IdentityKey {
+
+        private final Object bean;
+
+        IdentityKey(Object bean) {
+            this.bean = bean;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return (other instanceof IdentityKey && ((IdentityKey) other).bean == this.bean);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.bean);
+        }
+    }
+
+
+    /**
+     * Snapshot of the usage of the pool of one bean.
+     */
+    public static class Statistics {
+
+        private final String beanName;
+
+        private final int active;
+
+        private final int idle;
+
+        private final long hits;
+
+        private final long misses;
+
+        private final long waitNanos;
+
+        private final long evictions;
+
+        private final long invalidations;
+
+        Statistics(String beanName, int active, int idle, long hits, long misses, long waitNanos,
+                   long evictions, long invalidations) {
+            this.beanName = beanName;
+            this.active = active;
+            this.idle = idle;
+            this.hits = hits;
+            this.misses = misses;
+            this.waitNanos = waitNanos;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+        }
+
+        public String getBeanName() {
+            return this.beanName;
+        }
+
+        /** Number of borrowed instances */
+        public int getActive() {
+            return this.active;
+        }
+
+        /** Number of idle instances */
+        public int getIdle() {
+            return this.idle;
+        }
+
+        /** Number of lookups served by an idle instance */
+        public long getHits() {
+            return this.hits;
+        }
+
+        /** Number of lookups that created an instance */
+        public long getMisses() {
+            return this.misses;
+        }
+
+        /** Total time lookups spent waiting for an instance, in nanoseconds */
+        public long getWaitNanos() {
+            return this.waitNanos;
+        }
+
+        /** Number of instances evicted after being idle too long */
+        public long getEvictions() {
+            return this.evictions;
+        }
+
+        /** Number of instances destroyed because they failed validation */
+        public long getInvalidations() {
+            return this.invalidations;
+        }
+
+        @Override
+        public String toString() {
+            return "Pool of '" + this.beanName + "': active=" + this.active + ", idle=" + this.idle +
+                    ", hits=" + this.hits + ", misses=" + this.misses + ", waitNanos=" + this.waitNanos +
+                    ", evictions=" + this.evictions + ", invalidations=" + this.invalidations;
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+package org.springlite.context.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springlite.beans.factory.DisposableBean;
+import org.springlite.beans.factory.ObjectFactory;
+import org.springlite.beans.factory.config.Scope;
+import org.springlite.core.NamedThreadLocal;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 〈线程作用域〉&lt;p&gt;
+ * A {@link Scope} holding one instance of each bean per thread, for helpers
+ * that are expensive to create but not thread-safe (formatters, codecs,
+ * parsers). Registered by every application context under the name
+ * {@link #SCOPE_THREAD "thread"}.
+ *
+ * <p>Unlike a prototype, a thread-scoped bean is created once per thread and
+ * then served from a {@link NamedThreadLocal}. Destruction callbacks, as
+ * registered by the bean factory through a
+ * {@link org.springlite.beans.factory.support.DisposableBeanAdapter}, run:
+ * <ul>
+ * <li>for the current thread, on {@link #destroyCurrentThread()}, e.g. at the
+ * end of a task on a pooled thread that never terminates;</li>
+ * <li>for threads that have terminated, the next time any thread starts using
+ * this scope, since Java has no thread termination callback;</li>
+ * <li>for all threads, when the bean factory is shut down ({@link #destroy()}).</li>
+ * </ul>
+ *
+ * @author zixiao
+ * @date 16/6/18
+ * @see org.springlite.beans.factory.ConfigurableBeanFactory#registerScope
+ * @since [产品/模块版本] （可选）
+ */
+public class ThreadScope implements Scope, DisposableBean {
+
+    /** Scope identifier for the thread scope: "thread" */
+    public static final String SCOPE_THREAD = "thread";
+
+    private static final Log logger = LogFactory.getLog(ThreadScope.class);
+
+    private final ThreadLocal<ThreadBeans> threadBeans = new NamedThreadLocal<ThreadBeans>("Thread-scoped beans");
+
+    /** Beans of each thread that used this scope, to destroy them once the thread terminated */
+    private final Map<Thread, ThreadBeans> beansByThread = new ConcurrentHashMap<Thread, ThreadBeans>(16);
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        ThreadBeans beans = getThreadBeans();
+        Object scopedObject = beans.get(name);
+        if (scopedObject == null) {
+            scopedObject = objectFactory.getObject();
+            beans.put(name, scopedObject);
+        }
+        return scopedObject;
+    }
+
+    @Override
+    public Object remove(String name) {
+        ThreadBeans beans = this.threadBeans.get();
+        return (beans != null ? beans.remove(name) : null);
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+        getThreadBeans().registerDestructionCallback(name, callback);
+    }
+
+    @Override
+    public String getConversationId() {
+        return Thread.currentThread().getName();
+    }
+
+    /**
+     * Destroy the beans of the current thread, running their destruction callbacks.
+     * The next lookup from this thread creates new instances.
+     */
+    public void destroyCurrentThread() {
+        ThreadBeans beans = this.threadBeans.get();
+        if (beans != null) {
+            this.threadBeans.remove();
+            this.beansByThread.remove(Thread.currentThread());
+            beans.destroy();
+        }
+    }
+
+    /**
+     * Destroy the beans of all threads, running their destruction callbacks.
+     */
+    @Override
+    public void destroy() {
+        for (Iterator<ThreadBeans> it = this.beansByThread.values().iterator(); it.hasNext();) {
+            ThreadBeans beans = it.next();
+            it.remove();
+            beans.destroy();
+        }
+        this.threadBeans.remove();
+    }
+
+    private ThreadBeans getThreadBeans() {
+        ThreadBeans beans = this.threadBeans.get();
+        if (beans == null || beans.isDestroyed()) {
+            destroyTerminatedThreads();
+            beans = new ThreadBeans();
+            this.threadBeans.set(beans);
+            this.beansByThread.put(Thread.currentThread(), beans);
+        }
+        return beans;
+    }
+
+    private void destroyTerminatedThreads() {
+        for (Iterator<Map.Entry<Thread, ThreadBeans>> it = this.beansByThread.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Thread, ThreadBeans> entry = it.next();
+            if (!entry.getKey().isAlive()) {
+                it.remove();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Destroying thread-scoped beans of terminated thread '" + entry.getKey().getName() + "'");
+                }
+                entry.getValue().destroy();
+            }
+        }
+    }
+
+
+    /**
+     * The beans of one thread and their destruction callbacks. Only used by
+     * its thread, except for destruction: the lock is uncontended.
+     */
+    private static class ThreadBeans {
+
+        private final Map<String, Object> objects = new HashMap<String, Object>(8);
+
+        private final Map<String, Runnable> destructionCallbacks = new LinkedHashMap<String, Runnable>(8);
+
+        private boolean destroyed;
+
+        synchronized Object get(String name) {
+            return this.objects.get(name);
+        }
+
+        synchronized void put(String name, Object scopedObject) {
+            this.objects.put(name, scopedObject);
+        }
+
+        synchronized Object remove(String name) {
+            this.destructionCallbacks.remove(name);
+            return this.objects.remove(name);
+        }
+
+        synchronized void registerDestructionCallback(String name, Runnable callback) {
+            this.destructionCallbacks.put(name, callback);
+        }
+
+        synchronized boolean isDestroyed() {
+            return this.destroyed;
+        }
+
+        /**
+         * Run the destruction callbacks in reverse order of registration.
+         */
+        void destroy() {
+            List<Runnable> callbacks;
+            synchronized (this) {
+                if (this.destroyed) {
+                    return;
+                }
+                this.destroyed = true;
+                callbacks = new ArrayList<Runnable>(this.destructionCallbacks.values());
+                this.destructionCallbacks.clear();
+                this.objects.clear();
+            }
+            for (int i = callbacks.size() - 1; i >= 0; i--) {
+                try {
+                    callbacks.get(i).run();
+                }
+                catch (Throwable ex) {
+                    logger.warn("Destruction callback of thread-scoped bean failed", ex);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.springlite.core.metrics;
+
+/**
+ * 〈启动过程度量〉&lt;p&gt;
+ * Instruments the startup phases of an application context and the creation
+ * of its beans with {@link StartupStep}s.
+ *
+ * <p>The {@link #DEFAULT} implementation records nothing and costs close to
+ * nothing; a {@link BufferingApplicationStartup} records a timeline of all steps.
+ *
+ * @author zixiao
+ * @date 16/6/21
+ * @see org.springlite.context.support.AbstractApplicationContext#setApplicationStartup
+ * @see org.springlite.beans.factory.ConfigurableBeanFactory#setApplicationStartup
+ * @since [产品/模块版本] （可选）
+ */
+public interface ApplicationStartup {
+
+    /**
+     * Default no-op implementation.
+     */
+    ApplicationStartup DEFAULT = new DefaultApplicationStartup();
+
+    /**
+     * Create and start a new step, nested in the current step of this thread if any.
+     * @param name the name of the step, e.g. "springlite.context.refresh"
+     * @return the started step
+     */
+    StartupStep start(String name);
+
+}
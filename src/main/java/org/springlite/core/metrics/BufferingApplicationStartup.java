@@ -0,0 +1,167 @@
+package org.springlite.core.metrics;
+
+import org.springlite.core.NamedThreadLocal;
+import org.springlite.util.Assert;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 〈记录启动时间线〉&lt;p&gt;
+ * {@link ApplicationStartup} that keeps every ended step in memory, up to a
+ * capacity, to be retrieved as a {@link StartupTimeline} or exported as a
+ * JSON flame graph.
+ *
+ * <p>Each thread nests its own steps: beans created on other threads, e.g.
+ * by parallel pre-instantiation, show up as separate root steps.
+ *
+ * @author zixiao
+ * @date 16/6/21
+ * @see org.springlite.context.support.AbstractApplicationContext#setStartupTimelineFile
+ * @since [产品/模块版本] （可选）
+ */
+public class BufferingApplicationStartup implements ApplicationStartup {
+
+    /** Default maximum number of recorded steps */
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    private final int capacity;
+
+    private final long startTime = System.nanoTime();
+
+    private final long startupDate = System.currentTimeMillis();
+
+    private final AtomicLong stepIds = new AtomicLong();
+
+    private final AtomicInteger recordedCount = new AtomicInteger();
+
+    private final Queue<StartupTimeline.TimelineEvent> events = new ConcurrentLinkedQueue<StartupTimeline.TimelineEvent>();
+
+    private final ThreadLocal<BufferedStartupStep> currentStep =
+            new NamedThreadLocal<BufferedStartupStep>("Current startup step");
+
+
+    /**
+     * Create a new buffering startup keeping up to {@link #DEFAULT_CAPACITY} steps.
+     */
+    public BufferingApplicationStartup() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new buffering startup keeping up to the given number of steps;
+     * steps ended beyond that are dropped.
+     */
+    public BufferingApplicationStartup(int capacity) {
+        Assert.isTrue(capacity > 0, "'capacity' must be positive");
+        this.capacity = capacity;
+    }
+
+
+    @Override
+    public StartupStep start(String name) {
+        BufferedStartupStep parent = this.currentStep.get();
+        BufferedStartupStep step = new BufferedStartupStep(this.stepIds.incrementAndGet(), name, parent);
+        this.currentStep.set(step);
+        return step;
+    }
+
+    private void record(BufferedStartupStep step, long endTime) {
+        // Also unwinds nested steps that never ended because of an exception.
+        if (step.parent != null) {
+            this.currentStep.set(step.parent);
+        }
+        else {
+            this.currentStep.remove();
+        }
+        if (this.recordedCount.incrementAndGet() <= this.capacity) {
+            this.events.add(new StartupTimeline.TimelineEvent(step.id, (step.parent != null ? step.parent.id : null),
+                    step.name, step.threadName, step.startTime - this.startTime, endTime - step.startTime,
+                    (step.tags != null ? step.tags : Collections.<String, String>emptyMap())));
+        }
+    }
+
+    /**
+     * Return the steps ended so far, ordered by start time.
+     */
+    public StartupTimeline getTimeline() {
+        List<StartupTimeline.TimelineEvent> timelineEvents = new ArrayList<StartupTimeline.TimelineEvent>(this.events);
+        int droppedCount = Math.max(this.recordedCount.get() - this.capacity, 0);
+        return new StartupTimeline(this.startupDate, timelineEvents, droppedCount);
+    }
+
+    /**
+     * Write the steps ended so far to the given file as a JSON flame graph.
+     * @see StartupTimeline#writeFlameGraph(Writer)
+     */
+    public void exportFlameGraph(File file) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            getTimeline().writeFlameGraph(writer);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+
+    private class BufferedStartupStep implements StartupStep {
+
+        private final long id;
+
+        private final String name;
+
+        private final BufferedStartupStep parent;
+
+        private final String threadName = Thread.currentThread().getName();
+
+        private final long startTime = System.nanoTime();
+
+        private Map<String, String> tags;
+
+        private boolean ended;
+
+        BufferedStartupStep(long id, String name, BufferedStartupStep parent) {
+            this.id = id;
+            this.name = name;
+            this.parent = parent;
+        }
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public long getId() {
+            return this.id;
+        }
+
+        @Override
+        public Long getParentId() {
+            return (this.parent != null ? this.parent.id : null);
+        }
+
+        @Override
+        public StartupStep tag(String key, String value) {
+            Assert.state(!this.ended, "StartupStep has already ended.");
+            if (this.tags == null) {
+                this.tags = new LinkedHashMap<String, String>(4);
+            }
+            this.tags.put(key, value);
+            return this;
+        }
+
+        @Override
+        public void end() {
+            if (!this.ended) {
+                this.ended = true;
+                record(this, System.nanoTime());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package org.springlite.core.metrics;
+
+/**
+ * 〈不记录的启动度量〉&lt;p&gt;
+ * No-op {@link ApplicationStartup}: every step is the same shared instance
+ * and nothing is recorded.
+ *
+ * @author zixiao
+ * @date 16/6/21
+ * @see ApplicationStartup#DEFAULT
+ * @since [产品/模块版本] （可选）
+ */
+class DefaultApplicationStartup implements ApplicationStartup {
+
+    private static final DefaultStartupStep DEFAULT_STARTUP_STEP = new DefaultStartupStep();
+
+    @Override
+    public StartupStep start(String name) {
+        return DEFAULT_STARTUP_STEP;
+    }
+
+
+    private static class DefaultStartupStep implements StartupStep {
+
+        @Override
+        public String getName() {
+            return "default";
+        }
+
+        @Override
+        public long getId() {
+            return 0;
+        }
+
+        @Override
+        public Long getParentId() {
+            return null;
+        }
+
+        @Override
+        public StartupStep tag(String key, String value) {
+            return this;
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+
+}
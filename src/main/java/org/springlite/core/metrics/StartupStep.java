@@ -0,0 +1,47 @@
+package org.springlite.core.metrics;
+
+/**
+ * 〈启动阶段〉&lt;p&gt;
+ * Step recording metrics about a particular phase or action happening during
+ * the startup of an application context or the creation of a bean.
+ *
+ * <p>Steps started on the same thread nest: a step started before the current
+ * step of its thread has {@linkplain #end() ended} is a child of that step,
+ * e.g. the creation of a bean triggered by the population of another one.
+ *
+ * @author zixiao
+ * @date 16/6/21
+ * @see ApplicationStartup#start(String)
+ * @since [产品/模块版本] （可选）
+ */
+public interface StartupStep {
+
+    /**
+     * Return the name of the step, e.g. "springlite.beans.instantiate".
+     */
+    String getName();
+
+    /**
+     * Return the unique id of this step within the application startup.
+     */
+    long getId();
+
+    /**
+     * Return the id of the step this one is nested in, or {@code null} for a root step.
+     */
+    Long getParentId();
+
+    /**
+     * Add a tag to this step, e.g. the name of the bean being created.
+     * @param key the tag key
+     * @param value the tag value
+     * @return this step
+     */
+    StartupStep tag(String key, String value);
+
+    /**
+     * Record the end of this step, making its parent the current step of this thread.
+     */
+    void end();
+
+}
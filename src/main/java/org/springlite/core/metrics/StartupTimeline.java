@@ -0,0 +1,258 @@
+package org.springlite.core.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 〈启动时间线〉&lt;p&gt;
+ * The steps recorded by a {@link BufferingApplicationStartup}, ordered by
+ * start time, each with its parent step, thread, timing and tags.
+ *
+ * <p>Can be written as a JSON flame graph, in the nested format read by
+ * d3-flame-graph: every node has a {@code name}, a {@code value} (its
+ * duration in microseconds) and its {@code children}, plus the {@code start}
+ * offset in microseconds, the {@code thread} and the {@code tags} of the step.
+ *
+ * @author zixiao
+ * @date 16/6/21
+ * @see BufferingApplicationStartup#getTimeline()
+ * @since [产品/模块版本] （可选）
+ */
+public class StartupTimeline {
+
+    private final long startupDate;
+
+    private final List<TimelineEvent> events;
+
+    private final int droppedCount;
+
+    StartupTimeline(long startupDate, List<TimelineEvent> events, int droppedCount) {
+        Collections.sort(events, new Comparator<TimelineEvent>() {
+            @Override
+            public int compare(TimelineEvent event1, TimelineEvent event2) {
+                return (event1.startTime < event2.startTime ? -1 : (event1.startTime == event2.startTime ?
+                        (event1.id < event2.id ? -1 : (event1.id == event2.id ? 0 : 1)) : 1));
+            }
+        });
+        this.startupDate = startupDate;
+        this.events = Collections.unmodifiableList(events);
+        this.droppedCount = droppedCount;
+    }
+
+    /**
+     * Return the time in milliseconds when recording started, the origin of
+     * the start times of all events.
+     */
+    public long getStartupDate() {
+        return this.startupDate;
+    }
+
+    /**
+     * Return the recorded steps, ordered by start time.
+     */
+    public List<TimelineEvent> getEvents() {
+        return this.events;
+    }
+
+    /**
+     * Return the number of steps dropped because the capacity was reached.
+     */
+    public int getDroppedCount() {
+        return this.droppedCount;
+    }
+
+    /**
+     * Write this timeline as a JSON flame graph. Steps whose parent was not
+     * recorded (e.g. steps of other threads) are children of the root node.
+     */
+    public void writeFlameGraph(Writer writer) throws IOException {
+        Map<Long, List<TimelineEvent>> childrenById = new HashMap<Long, List<TimelineEvent>>();
+        Set<Long> ids = new HashSet<Long>();
+        for (TimelineEvent event : this.events) {
+            ids.add(event.id);
+        }
+        List<TimelineEvent> roots = new ArrayList<TimelineEvent>();
+        long total = 0;
+        for (TimelineEvent event : this.events) {
+            if (event.parentId != null && ids.contains(event.parentId)) {
+                List<TimelineEvent> children = childrenById.get(event.parentId);
+                if (children == null) {
+                    children = new ArrayList<TimelineEvent>();
+                    childrenById.put(event.parentId, children);
+                }
+                children.add(event);
+            }
+            else {
+                roots.add(event);
+                total += event.duration;
+            }
+        }
+
+        writer.write("{\"name\":\"startup\",\"value\":");
+        writer.write(Long.toString(total / 1000));
+        writer.write(",\"startupDate\":");
+        writer.write(Long.toString(this.startupDate));
+        writer.write(",\"dropped\":");
+        writer.write(Integer.toString(this.droppedCount));
+        writer.write(",\"children\":[");
+        writeEvents(writer, roots, childrenById);
+        writer.write("]}");
+        writer.flush();
+    }
+
+    /**
+     * Return this timeline as a JSON flame graph.
+     * @see #writeFlameGraph(Writer)
+     */
+    public String toFlameGraph() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeFlameGraph(writer);
+        }
+        catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return writer.toString();
+    }
+
+    private void writeEvents(Writer writer, List<TimelineEvent> events, Map<Long, List<TimelineEvent>> childrenById)
+            throws IOException {
+        for (int i = 0; i < events.size(); i++) {
+            TimelineEvent event = events.get(i);
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write("{\"name\":");
+            String beanName = event.tags.get("beanName");
+            writeString(writer, beanName != null ? event.name + " " + beanName : event.name);
+            writer.write(",\"value\":");
+            writer.write(Long.toString(event.duration / 1000));
+            writer.write(",\"start\":");
+            writer.write(Long.toString(event.startTime / 1000));
+            writer.write(",\"thread\":");
+            writeString(writer, event.threadName);
+            writer.write(",\"tags\":{");
+            boolean first = true;
+            for (Map.Entry<String, String> tag : event.tags.entrySet()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writeString(writer, tag.getKey());
+                writer.write(':');
+                writeString(writer, tag.getValue());
+            }
+            writer.write("},\"children\":[");
+            List<TimelineEvent> children = childrenById.get(event.id);
+            if (children != null) {
+                writeEvents(writer, children, childrenById);
+            }
+            writer.write("]}");
+        }
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+
+    /**
+     * One ended step. Times are in nanoseconds, the start time relative to
+     * the start of recording.
+     */
+    public static class TimelineEvent {
+
+        private final long id;
+
+        private final Long parentId;
+
+        private final String name;
+
+        private final String threadName;
+
+        private final long startTime;
+
+        private final long duration;
+
+        private final Map<String, String> tags;
+
+        TimelineEvent(long id, Long parentId, String name, String threadName, long startTime, long duration,
+                      Map<String, String> tags) {
+            this.id = id;
+            this.parentId = parentId;
+            this.name = name;
+            this.threadName = threadName;
+            this.startTime = startTime;
+            this.duration = duration;
+            this.tags = Collections.unmodifiableMap(tags);
+        }
+
+        public long getId() {
+            return this.id;
+        }
+
+        public Long getParentId() {
+            return this.parentId;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getThreadName() {
+            return this.threadName;
+        }
+
+        public long getStartTime() {
+            return this.startTime;
+        }
+
+        public long getDuration() {
+            return this.duration;
+        }
+
+        public Map<String, String> getTags() {
+            return this.tags;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + this.tags + " took " + (this.duration / 1000) + " us";
+        }
+    }
+
+}
@@ -3,23 +3,31 @@ package org.springlite.util;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.objectweb.asm.ClassReader;
-
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
-import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.LocalVariableNode;
-import org.objectweb.asm.tree.MethodNode;
 
 /**
  * 〈一句话功能简述〉&lt;p&gt;
  * 〈功能详细描述〉
  *
+ * <p>Parameter names are resolved once per class, for all of its constructors
+ * and methods, and kept in a cache keyed weakly by class, so that classes (and
+ * their class loaders) can still be garbage collected.
+ *
  * @author zixiao
  * @date 16/6/1
  * @see [相关类/方法]（可选）
@@ -27,61 +35,224 @@ import org.objectweb.asm.tree.MethodNode;
  */
 public abstract class ByteCodeUtils {
 
+    /** Cache of parameter names: class --> member key --> parameter names */
+    private static final Map<Class<?>, Map<String, String[]>> parameterNamesCache =
+            Collections.synchronizedMap(new WeakHashMap<Class<?>, Map<String, String[]>>());
+
+    /** {@code java.lang.reflect.Executable#getParameters()}, available on JDK 8+ */
+    private static final Method getParametersMethod;
+
+    /** {@code java.lang.reflect.Parameter#isNamePresent()}, available on JDK 8+ */
+    private static final Method isNamePresentMethod;
+
+    /** {@code java.lang.reflect.Parameter#getName()}, available on JDK 8+ */
+    private static final Method getNameMethod;
+
+    static {
+        Method getParameters = null;
+        Method isNamePresent = null;
+        Method getName = null;
+        try {
+            getParameters = Class.forName("java.lang.reflect.Executable").getMethod("getParameters");
+            Class<?> parameterClass = Class.forName("java.lang.reflect.Parameter");
+            isNamePresent = parameterClass.getMethod("isNamePresent");
+            getName = parameterClass.getMethod("getName");
+        }
+        catch (Exception ex) {
+            // Pre JDK 8: parameter names only from the class file's local variable tables
+            getParameters = null;
+        }
+        getParametersMethod = getParameters;
+        isNamePresentMethod = isNamePresent;
+        getNameMethod = getName;
+    }
+
+
     /**
      * Returns a list containing one parameter name for each argument accepted
-     * by the given constructor. If the class was compiled with debugging
-     * symbols, the parameter names will match those provided in the Java source
-     * code. Otherwise, a generic "arg" parameter name is generated ("arg0" for
-     * the first argument, "arg1" for the second...).
+     * by the given constructor. Names come from {@code java.lang.reflect.Parameter}
+     * if the class was compiled with {@code -parameters}, otherwise from the
+     * local variable table if it was compiled with debugging symbols.
      *
      * This method relies on the constructor's class loader to locate the
      * bytecode resource that defined its class.
      *
      * @param constructor
-     * @return
+     * @return the parameter names (an empty list for a no-arg constructor),
+     * or {@code null} if not available
      * @throws IOException
      */
     public static List<String> getParameterNames(Constructor<?> constructor) throws IOException {
-        Class<?> declaringClass = constructor.getDeclaringClass();
-        ClassLoader declaringClassLoader = declaringClass.getClassLoader();
+        return getParameterNames(constructor.getDeclaringClass(),
+                memberKey("<init>", Type.getConstructorDescriptor(constructor)));
+    }
 
-        Type declaringType = Type.getType(declaringClass);
-        String constructorDescriptor = Type.getConstructorDescriptor(constructor);
-        String url = declaringType.getInternalName() + ".class";
+    /**
+     * Returns a list containing one parameter name for each argument accepted
+     * by the given method.
+     *
+     * @param method
+     * @return the parameter names (an empty list for a no-arg method),
+     * or {@code null} if not available
+     * @throws IOException
+     * @see #getParameterNames(Constructor)
+     */
+    public static List<String> getParameterNames(Method method) throws IOException {
+        return getParameterNames(method.getDeclaringClass(),
+                memberKey(method.getName(), Type.getMethodDescriptor(method)));
+    }
 
-        InputStream classFileInputStream = declaringClassLoader.getResourceAsStream(url);
-        if (classFileInputStream == null) {
-            throw new IllegalArgumentException("The constructor's class loader cannot find the bytecode that defined the constructor's class (URL: " + url + ")");
+    /**
+     * Clear the parameter name cache, e.g. after class redefinition.
+     */
+    public static void clearCache() {
+        parameterNamesCache.clear();
+    }
+
+    private static List<String> getParameterNames(Class<?> declaringClass, String memberKey) throws IOException {
+        Map<String, String[]> parameterNames = parameterNamesCache.get(declaringClass);
+        if (parameterNames == null) {
+            parameterNames = introspectParameterNames(declaringClass);
+            parameterNamesCache.put(declaringClass, parameterNames);
         }
+        String[] names = parameterNames.get(memberKey);
+        return (names != null ? Collections.unmodifiableList(Arrays.asList(names)) : null);
+    }
 
-        ClassNode classNode;
+    private static String memberKey(String name, String descriptor) {
+        return name + descriptor;
+    }
+
+    /**
+     * Resolve the parameter names of all declared constructors and methods of
+     * the given class, reading the class file only if reflection cannot supply them.
+     */
+    private static Map<String, String[]> introspectParameterNames(Class<?> clazz) throws IOException {
+        Map<String, String[]> parameterNames = new HashMap<String, String[]>();
+        boolean complete = true;
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            complete &= addReflectiveParameterNames(parameterNames, constructor,
+                    memberKey("<init>", Type.getConstructorDescriptor(constructor)));
+        }
+        for (Method method : clazz.getDeclaredMethods()) {
+            complete &= addReflectiveParameterNames(parameterNames, method,
+                    memberKey(method.getName(), Type.getMethodDescriptor(method)));
+        }
+        if (!complete) {
+            readLocalVariableParameterNames(clazz, parameterNames);
+        }
+        return parameterNames;
+    }
+
+    /**
+     * @return whether the parameter names of the member are known
+     */
+    private static boolean addReflectiveParameterNames(Map<String, String[]> parameterNames, Member member, String key) {
+        if (getParametersMethod == null) {
+            return false;
+        }
+        try {
+            Object[] parameters = (Object[]) getParametersMethod.invoke(member);
+            String[] names = new String[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                if (!(Boolean) isNamePresentMethod.invoke(parameters[i])) {
+                    return false;
+                }
+                names[i] = (String) getNameMethod.invoke(parameters[i]);
+            }
+            parameterNames.put(key, names);
+            return true;
+        }
+        catch (Exception ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Read the local variable tables of the class file in one streaming pass,
+     * adding names for members not resolved yet. Stack map frames are skipped,
+     * no tree of the class is built.
+     */
+    private static void readLocalVariableParameterNames(Class<?> clazz, final Map<String, String[]> parameterNames)
+            throws IOException {
+        String url = Type.getInternalName(clazz) + ".class";
+        ClassLoader classLoader = clazz.getClassLoader();
+        InputStream classFileInputStream = (classLoader != null ?
+                classLoader.getResourceAsStream(url) : ClassLoader.getSystemResourceAsStream(url));
+        if (classFileInputStream == null) {
+            throw new IllegalArgumentException("The class loader cannot find the bytecode that defined the class (URL: " + url + ")");
+        }
         try {
-            classNode = new ClassNode();
             ClassReader classReader = new ClassReader(classFileInputStream);
-            classReader.accept(classNode, 0);
+            classReader.accept(new ClassVisitor(Opcodes.ASM4) {
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+                    String key = memberKey(name, desc);
+                    Type[] argumentTypes = Type.getArgumentTypes(desc);
+                    if (parameterNames.containsKey(key)) {
+                        return null;
+                    }
+                    if (argumentTypes.length == 0) {
+                        parameterNames.put(key, new String[0]);
+                        return null;
+                    }
+                    return new ParameterNamesMethodVisitor(key, argumentTypes,
+                            Modifier.isStatic(access), parameterNames);
+                }
+            }, ClassReader.SKIP_FRAMES);
         } finally {
             classFileInputStream.close();
         }
+    }
 
-        @SuppressWarnings("unchecked")
-        List<MethodNode> methods = classNode.methods;
-        for (MethodNode method : methods) {
-            if (method.name.equals("<init>") && method.desc.equals(constructorDescriptor)) {
-                Type[] argumentTypes = Type.getArgumentTypes(method.desc);
-                List<String> parameterNames = new ArrayList<String>(argumentTypes.length);
-
-                @SuppressWarnings("unchecked")
-                List<LocalVariableNode> localVariables = method.localVariables;
-                for (int i = 0; i < argumentTypes.length; i++) {
-                    // The first local variable actually represents the "this" object
-                    parameterNames.add(localVariables.get(i + 1).name);
-                }
 
-                return parameterNames;
+    /**
+     * Collects the local variables occupying the parameter slots of a method.
+     */
+    private static class ParameterNamesMethodVisitor extends MethodVisitor {
+
+        private final String key;
+
+        private final int[] slots;
+
+        private final String[] names;
+
+        private final Map<String, String[]> parameterNames;
+
+        ParameterNamesMethodVisitor(String key, Type[] argumentTypes, boolean isStatic, Map<String, String[]> parameterNames) {
+            super(Opcodes.ASM4);
+            this.key = key;
+            this.slots = new int[argumentTypes.length];
+            this.names = new String[argumentTypes.length];
+            this.parameterNames = parameterNames;
+            // The first local variable of an instance method represents the "this" object
+            int slot = (isStatic ? 0 : 1);
+            for (int i = 0; i < argumentTypes.length; i++) {
+                this.slots[i] = slot;
+                slot += argumentTypes[i].getSize();
+            }
+        }
+
+        @Override
+        public void visitLocalVariable(String name, String desc, String signature, Label start, Label end, int index) {
+            for (int i = 0; i < this.slots.length; i++) {
+                if (this.slots[i] == index && this.names[i] == null) {
+                    this.names[i] = name;
+                    return;
+                }
             }
         }
 
-        return null;
+        @Override
+        public void visitEnd() {
+            for (String name : this.names) {
+                if (name == null) {
+                    // Compiled without debugging symbols
+                    return;
+                }
+            }
+            this.parameterNames.put(this.key, this.names);
+        }
     }
 
 }
@@ -0,0 +1,159 @@
+package org.springlite.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * 〈不加载类读取类继承关系〉&lt;p&gt;
+ * Reads the superclass and interfaces of classes from the headers of their
+ * class files, so that type hierarchies can be matched by class name without
+ * defining the classes.
+ *
+ * <p>Headers are kept in a cache shared by all callers, keyed weakly by class
+ * loader. A class whose class file cannot be read - e.g. because it is newer
+ * than the ASM version understands, or is a JDK class - is loaded (without
+ * being initialized) and its header taken from the loaded class instead.
+ *
+ * @author zixiao
+ * @date 16/6/23
+ * @see ByteCodeUtils
+ * @since [产品/模块版本] （可选）
+ */
+public abstract class ClassHierarchyUtils {
+
+    /** Cache of class headers: class loader --> class name --> header */
+    private static final Map<ClassLoader, Map<String, ClassHeader>> headerCache =
+            Collections.synchronizedMap(new WeakHashMap<ClassLoader, Map<String, ClassHeader>>());
+
+
+    /**
+     * Return the names of the given class, of all its superclasses and of all
+     * interfaces they implement, as seen by the given class loader.
+     * @param className the fully qualified name of the class
+     * @param classLoader the class loader to read the class files from
+     * (may be {@code null}, which indicates the default class loader)
+     * @return the type names, or {@code null} if some class of the hierarchy
+     * cannot be found
+     */
+    public static Set<String> getTypeHierarchy(String className, ClassLoader classLoader) {
+        Assert.notNull(className, "Class name must not be null");
+        ClassLoader classLoaderToUse = (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+        if (classLoaderToUse == null) {
+            return null;
+        }
+        Map<String, ClassHeader> headers = getHeaders(classLoaderToUse);
+        Set<String> typeNames = new LinkedHashSet<String>(8);
+        LinkedList<String> typesToVisit = new LinkedList<String>();
+        typesToVisit.add(className);
+        while (!typesToVisit.isEmpty()) {
+            String typeName = typesToVisit.removeFirst();
+            if (!typeNames.add(typeName)) {
+                continue;
+            }
+            ClassHeader header = headers.get(typeName);
+            if (header == null) {
+                header = readHeader(typeName, classLoaderToUse);
+                if (header == null) {
+                    return null;
+                }
+                headers.put(typeName, header);
+            }
+            if (header.superName != null) {
+                typesToVisit.add(header.superName);
+            }
+            Collections.addAll(typesToVisit, header.interfaceNames);
+        }
+        return typeNames;
+    }
+
+    /**
+     * Clear the headers read from the given class loader.
+     */
+    public static void clearCache(ClassLoader classLoader) {
+        headerCache.remove(classLoader);
+    }
+
+    private static Map<String, ClassHeader> getHeaders(ClassLoader classLoader) {
+        synchronized (headerCache) {
+            Map<String, ClassHeader> headers = headerCache.get(classLoader);
+            if (headers == null) {
+                headers = new ConcurrentHashMap<String, ClassHeader>(64);
+                headerCache.put(classLoader, headers);
+            }
+            return headers;
+        }
+    }
+
+    private static ClassHeader readHeader(String className, ClassLoader classLoader) {
+        InputStream classFileInputStream = classLoader.getResourceAsStream(
+                ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX);
+        if (classFileInputStream != null) {
+            try {
+                try {
+                    ClassReader classReader = new ClassReader(classFileInputStream);
+                    String[] interfaces = classReader.getInterfaces();
+                    String[] interfaceNames = new String[interfaces.length];
+                    for (int i = 0; i < interfaces.length; i++) {
+                        interfaceNames[i] = toClassName(interfaces[i]);
+                    }
+                    return new ClassHeader(toClassName(classReader.getSuperName()), interfaceNames);
+                }
+                finally {
+                    classFileInputStream.close();
+                }
+            }
+            catch (IOException ex) {
+                // fall back to the loaded class
+            }
+            catch (RuntimeException ex) {
+                // class file version not supported by ASM: fall back to the loaded class
+            }
+        }
+        try {
+            Class<?> clazz = ClassUtils.forName(className, classLoader);
+            Class<?> superclass = clazz.getSuperclass();
+            Class<?>[] interfaces = clazz.getInterfaces();
+            String[] interfaceNames = new String[interfaces.length];
+            for (int i = 0; i < interfaces.length; i++) {
+                interfaceNames[i] = interfaces[i].getName();
+            }
+            return new ClassHeader(superclass != null ? superclass.getName() : null, interfaceNames);
+        }
+        catch (ClassNotFoundException ex) {
+            return null;
+        }
+        catch (LinkageError err) {
+            return null;
+        }
+    }
+
+    private static String toClassName(String internalName) {
+        return (internalName != null ? ClassUtils.convertResourcePathToClassName(internalName) : null);
+    }
+
+
+    /**
+     * Superclass and interface names of a class.
+     */
+    private static class ClassHeader {
+
+        final String superName;
+
+        final String[] interfaceNames;
+
+        ClassHeader(String superName, String[] interfaceNames) {
+            this.superName = superName;
+            this.interfaceNames = interfaceNames;
+        }
+    }
+
+}
@@ -23,6 +23,10 @@ public class DbConnection {
         System.out.println("Connect finished."+this.toString());
     }
 
+    public void close(){
+        System.out.println("Connection closed."+this.toString());
+    }
+
     public String getDbName() {
         return dbName;
     }
@@ -0,0 +1,45 @@
+package org.springlite.bean;
+
+import java.io.IOException;
+
+/**
+ * 〈一句话功能简述〉&lt;p&gt;
+ * 〈功能详细描述〉
+ *
+ * @author zixiao
+ * @date 16/6/14
+ * @see [相关类/方法]（可选）
+ * @since [产品/模块版本] （可选）
+ */
+public class RemoteResource {
+
+    private String url;
+
+    private int timeout;
+
+    public RemoteResource() {
+
+    }
+
+    public RemoteResource(String url) throws IOException {
+        if (url.startsWith("unreachable:")) {
+            throw new IOException("Cannot connect to " + url);
+        }
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(int timeout) throws IOException {
+        if (timeout < 0) {
+            throw new IOException("Invalid timeout " + timeout);
+        }
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,232 @@
+package org.springlite.beans.factory.support;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import org.springlite.bean.People;
+import org.springlite.bean.Person;
+import org.springlite.beans.BeanReference;
+import org.springlite.beans.ConstructorArgumentValues;
+import org.springlite.beans.MutablePropertyValues;
+import org.springlite.beans.PropertyValue;
+import org.springlite.beans.factory.config.BeanDefinition;
+import org.springlite.util.ByteCodeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 〈一句话功能简述〉&lt;p&gt;
+ * Caches kept while resolving beans: hit on re-creation, same result as
+ * without the cache, invalidated with the bean definition. In the package of
+ * the bean factory, as the caches are not public.
+ *
+ * @author zixiao
+ * @date 16/6/12
+ * @see [相关类/方法]（可选）
+ * @since [产品/模块版本] （可选）
+ */
+public class ResolutionCacheTest {
+
+    //构造方法及参数缓存在merged bean definition上
+    @Test
+    public void testConstructorResolutionCache() {
+        DefaultListableBeanFactory beanFactory = createPersonBeanFactory("30");
+        Person first = (Person) beanFactory.getBean("person");
+        RootBeanDefinition mbd = beanFactory.getMergedLocalBeanDefinition("person");
+        Assert.assertNotNull(mbd.resolvedConstructor);
+        Assert.assertTrue(mbd.constructorArgumentsResolved);
+        Object[] preparedArgs = mbd.preparedConstructorArguments;
+
+        // the cached plan wins over the constructor-args on the next creation
+        mbd.getConstructorArgumentValues().getGenericArgumentValue(null, "age").setValue("99");
+        Person second = (Person) beanFactory.getBean("person");
+        Assert.assertNotSame(first, second);
+        Assert.assertSame(mbd, beanFactory.getMergedLocalBeanDefinition("person"));
+        Assert.assertSame(preparedArgs, mbd.preparedConstructorArguments);
+        assertSamePerson(first, second);
+
+        Person uncached = (Person) createPersonBeanFactory("30").getBean("person");
+        assertSamePerson(uncached, second);
+
+        beanFactory.removeBeanDefinition("person");
+        beanFactory.registerBeanDefinition("person", personDefinition("31"));
+        RootBeanDefinition changed = beanFactory.getMergedLocalBeanDefinition("person");
+        Assert.assertNotSame(mbd, changed);
+        Assert.assertNull(changed.resolvedConstructor);
+        Assert.assertEquals(31, ((Person) beanFactory.getBean("person")).getAge());
+        Assert.assertNotNull(changed.resolvedConstructor);
+    }
+
+    //参数名按类缓存: 同一类的其他成员不再读class文件
+    @Test
+    public void testParameterNameCache() throws Exception {
+        ClassFileCountingClassLoader classLoader = new ClassFileCountingClassLoader(People.class.getName());
+        Class<?> peopleClass = classLoader.loadClass(People.class.getName());
+        Assert.assertNotSame(People.class, peopleClass);
+        ByteCodeUtils.clearCache();
+
+        List<String> names = ByteCodeUtils.getParameterNames(peopleClass.getConstructor(String.class, int.class));
+        Assert.assertEquals(Arrays.asList("name", "age"), names);
+        Assert.assertEquals(1, classLoader.classFileReads.get());
+        Assert.assertEquals(Arrays.asList("name", "age", "gender"),
+                ByteCodeUtils.getParameterNames(peopleClass.getConstructor(String.class, int.class, String.class)));
+        Assert.assertEquals(Arrays.asList("name"),
+                ByteCodeUtils.getParameterNames(peopleClass.getMethod("setName", String.class)));
+        Assert.assertEquals(names, ByteCodeUtils.getParameterNames(peopleClass.getConstructor(String.class, int.class)));
+        Assert.assertEquals(1, classLoader.classFileReads.get());
+
+        ByteCodeUtils.clearCache();
+        Assert.assertEquals(names, ByteCodeUtils.getParameterNames(peopleClass.getConstructor(String.class, int.class)));
+        Assert.assertEquals(2, classLoader.classFileReads.get());
+    }
+
+    //属性注入: 转换后的字面值缓存在merged bean definition上, 注入点按类缓存
+    @Test
+    public void testPropertyResolutionCache() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("child", childDefinition("8"));
+        People first = (People) beanFactory.getBean("child");
+        RootBeanDefinition mbd = beanFactory.getMergedLocalBeanDefinition("child");
+        PropertyValue age = mbd.getPropertyValues().getPropertyValue("age");
+        Assert.assertTrue(age.isConverted());
+        Assert.assertEquals(8, age.getConvertedValue());
+
+        // the converted value is injected as is on the next creation
+        age.setConvertedValue(9);
+        People second = (People) beanFactory.getBean("child");
+        Assert.assertEquals(9, second.getAge());
+        Assert.assertEquals(first.getName(), second.getName());
+
+        DefaultListableBeanFactory uncachedFactory = new DefaultListableBeanFactory();
+        uncachedFactory.registerBeanDefinition("child", childDefinition("8"));
+        People uncached = (People) uncachedFactory.getBean("child");
+        Assert.assertEquals(first.getAge(), uncached.getAge());
+        Assert.assertEquals(first.getName(), uncached.getName());
+
+        beanFactory.removeBeanDefinition("child");
+        beanFactory.registerBeanDefinition("child", childDefinition("10"));
+        RootBeanDefinition changed = beanFactory.getMergedLocalBeanDefinition("child");
+        Assert.assertFalse(changed.getPropertyValues().getPropertyValue("age").isConverted());
+        Assert.assertEquals(10, ((People) beanFactory.getBean("child")).getAge());
+
+        ConcurrentMap<Class<?>, ConcurrentMap<String, PropertyResolver.InjectionPoint>> injectionPointCache =
+                new ConcurrentHashMap<Class<?>, ConcurrentMap<String, PropertyResolver.InjectionPoint>>();
+        PropertyResolver propertyResolver = new PropertyResolver(beanFactory, "child", changed, injectionPointCache, null);
+        PropertyValue name = changed.getPropertyValues().getPropertyValue("name");
+        People bean = new People();
+        propertyResolver.autowireProperty(bean, name);
+        PropertyResolver.InjectionPoint injectionPoint = injectionPointCache.get(People.class).get("name");
+        Assert.assertNotNull(injectionPoint);
+        People other = new People();
+        propertyResolver.autowireProperty(other, name);
+        Assert.assertSame(injectionPoint, injectionPointCache.get(People.class).get("name"));
+        Assert.assertEquals("lily", bean.getName());
+        Assert.assertEquals("lily", other.getName());
+    }
+
+    private void assertSamePerson(Person expected, Person actual) {
+        Assert.assertEquals(expected.getAge(), actual.getAge());
+        Assert.assertEquals(expected.getName(), actual.getName());
+        Assert.assertEquals(expected.getWeight(), actual.getWeight());
+        Assert.assertEquals(expected.getUrl(), actual.getUrl());
+        Assert.assertEquals(expected.getMother().getName(), actual.getMother().getName());
+    }
+
+    private DefaultListableBeanFactory createPersonBeanFactory(String age) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        ConstructorArgumentValues cargs = new ConstructorArgumentValues();
+        cargs.addGenericArgumentValue("linda", "name", null);
+        cargs.addGenericArgumentValue("35", "age", null);
+        cargs.setAutowrieBy(ConstructorArgumentValues.BY_NAME);
+        beanFactory.registerBeanDefinition("mother", new RootBeanDefinition(People.class, cargs, null));
+        beanFactory.registerBeanDefinition("person", personDefinition(age));
+        return beanFactory;
+    }
+
+    private RootBeanDefinition childDefinition(String age) {
+        MutablePropertyValues pvs = new MutablePropertyValues();
+        pvs.addPropertyValue("name", "lily");
+        pvs.addPropertyValue("age", age);
+        RootBeanDefinition bd = new RootBeanDefinition(People.class, null, pvs);
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        return bd;
+    }
+
+    private RootBeanDefinition personDefinition(String age) {
+        ConstructorArgumentValues cargs = new ConstructorArgumentValues();
+        cargs.addGenericArgumentValue(age, "age", null);
+        cargs.addGenericArgumentValue(new BeanReference("mother"), "mother", null);
+        cargs.addGenericArgumentValue("zixiao", "name", null);
+        cargs.addGenericArgumentValue("3.44", "weight", null);
+        cargs.addGenericArgumentValue("http://www.sina.com", "url", null);
+        cargs.setAutowrieBy(ConstructorArgumentValues.BY_NAME);
+        RootBeanDefinition bd = new RootBeanDefinition(Person.class, cargs, null);
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        return bd;
+    }
+
+
+    /**
+     * Defines one class itself, counting the reads of its class file.
+     */
+    private static class ClassFileCountingClassLoader extends ClassLoader {
+
+        private final String className;
+
+        private final String classFile;
+
+        final AtomicInteger classFileReads = new AtomicInteger();
+
+        ClassFileCountingClassLoader(String className) {
+            super(ResolutionCacheTest.class.getClassLoader());
+            this.className = className;
+            this.classFile = className.replace('.', '/') + ".class";
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!this.className.equals(name)) {
+                return super.loadClass(name, resolve);
+            }
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz == null) {
+                try {
+                    byte[] bytes = readClassFile(getParent().getResourceAsStream(this.classFile));
+                    clazz = defineClass(name, bytes, 0, bytes.length);
+                }
+                catch (IOException ex) {
+                    throw new ClassNotFoundException(name, ex);
+                }
+            }
+            return clazz;
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            if (this.classFile.equals(name)) {
+                this.classFileReads.incrementAndGet();
+            }
+            return super.getResourceAsStream(name);
+        }
+
+        private byte[] readClassFile(InputStream in) throws IOException {
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+                    out.write(buffer, 0, n);
+                }
+                return out.toByteArray();
+            }
+            finally {
+                in.close();
+            }
+        }
+    }
+}
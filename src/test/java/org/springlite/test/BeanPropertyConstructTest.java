@@ -3,9 +3,40 @@ package org.springlite.test;
 import junit.framework.Assert;
 import org.junit.Test;
 import org.springlite.bean.*;
+import org.springlite.beans.BeanReference;
+import org.springlite.beans.BeanWrapper;
+import org.springlite.beans.ConstructorArgumentValues;
+import org.springlite.beans.MutablePropertyValues;
+import org.springlite.beans.exception.BeanDefinitionStoreException;
+import org.springlite.beans.exception.BeansException;
+import org.springlite.beans.factory.aot.BeanFactoryInitializerGenerator;
+import org.springlite.beans.factory.config.BeanDefinition;
+import org.springlite.beans.factory.support.AbstractBeanDefinition;
+import org.springlite.beans.factory.support.BytecodeInstantiationStrategy;
+import org.springlite.beans.factory.support.DefaultListableBeanFactory;
+import org.springlite.beans.factory.support.RootBeanDefinition;
+import org.springlite.beans.factory.xml.BeanDefinitionIndexWriter;
+import org.springlite.beans.factory.xml.XmlBeanDefinitionReader;
 import org.springlite.context.ApplicationContext;
 import org.springlite.context.support.AbstractApplicationContext;
 import org.springlite.context.support.ClassPathXmlApplicationContext;
+import org.springlite.core.io.DefaultResourceLoader;
+import org.springlite.util.ByteCodeUtils;
+import org.xml.sax.SAXException;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.validation.Schema;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 〈一句话功能简述〉&lt;p&gt;
@@ -52,6 +83,287 @@ public class BeanPropertyConstructTest {
 
     }
 
+    //property cyclic reference, parallel pre-instantiation
+    @Test
+    public void testCyclicRefPropertyParallel() {
+        ClassPathXmlApplicationContext ac = new ClassPathXmlApplicationContext(
+                new String[]{"bean-cyclic-ref-property.xml", "bean-property-construct.xml"}, false);
+        ac.setPreInstantiationParallelism(4);
+        ac.refresh();
+        CyclicRefA a = ac.getBean(CyclicRefA.class);
+        CyclicRefB b = ac.getBean(CyclicRefB.class);
+
+        Assert.assertEquals(b, a.getCyclicRefB());
+        Assert.assertEquals(a, b.getCyclicRefA());
+        Assert.assertNotNull(((Student) ac.getBean("student")).getMother());
+    }
+
+    //autowire by name cyclic reference, parallel pre-instantiation: created in one unit
+    @Test
+    public void testCyclicRefAutowireParallel() {
+        final Map<String, Thread> creatingThreads = new ConcurrentHashMap<String, Thread>();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory() {
+            @Override
+            protected void autowireByName(String beanName, AbstractBeanDefinition mbd, BeanWrapper bw,
+                                          MutablePropertyValues pvs) {
+                creatingThreads.put(beanName, Thread.currentThread());
+                for (Method method : bw.getWrappedClass().getMethods()) {
+                    if (method.getName().startsWith("set") && method.getParameterTypes().length == 1) {
+                        String propertyName = Character.toLowerCase(method.getName().charAt(3)) +
+                                method.getName().substring(4);
+                        if (containsBeanDefinition(propertyName)) {
+                            pvs.addPropertyValue(propertyName, new BeanReference(propertyName));
+                        }
+                    }
+                }
+            }
+        };
+        for (Class<?> beanClass : new Class<?>[]{CyclicRefA.class, CyclicRefB.class}) {
+            RootBeanDefinition bd = new RootBeanDefinition(beanClass, null, null);
+            bd.setAutowireMode(AbstractBeanDefinition.AUTOWIRE_BY_NAME);
+            String beanName = Character.toLowerCase(beanClass.getSimpleName().charAt(0)) +
+                    beanClass.getSimpleName().substring(1);
+            beanFactory.registerBeanDefinition(beanName, bd);
+        }
+        beanFactory.setPreInstantiationParallelism(4);
+        beanFactory.preInstantiateSingletons();
+
+        CyclicRefA a = (CyclicRefA) beanFactory.getBean("cyclicRefA");
+        CyclicRefB b = (CyclicRefB) beanFactory.getBean("cyclicRefB");
+        Assert.assertSame(b, a.getCyclicRefB());
+        Assert.assertSame(a, b.getCyclicRefA());
+        Assert.assertSame(creatingThreads.get("cyclicRefA"), creatingThreads.get("cyclicRefB"));
+    }
+
+    //long depends-on chain, parallel pre-instantiation
+    @Test
+    public void testLongDependsOnChainParallel() {
+        int length = 30000;
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        for (int i = 0; i < length; i++) {
+            RootBeanDefinition bd = new RootBeanDefinition(People.class, null, null);
+            if (i + 1 < length) {
+                bd.setDependsOn(new String[]{"people" + (i + 1)});
+            }
+            beanFactory.registerBeanDefinition("people" + i, bd);
+        }
+        beanFactory.setPreInstantiationParallelism(2);
+        beanFactory.preInstantiateSingletons();
+
+        Assert.assertEquals(length, beanFactory.getSingletonCount());
+    }
+
+    //constructor args and properties through generated accessors
+    @Test
+    public void testBytecodeInstantiation() {
+        BytecodeInstantiationStrategy strategy = new BytecodeInstantiationStrategy();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setInstantiationStrategy(strategy);
+
+        ConstructorArgumentValues cargs = new ConstructorArgumentValues();
+        cargs.addGenericArgumentValue("linda", "name", null);
+        cargs.addGenericArgumentValue("35", "age", null);
+        cargs.setAutowrieBy(ConstructorArgumentValues.BY_NAME);
+        beanFactory.registerBeanDefinition("mother", new RootBeanDefinition(People.class, cargs, null));
+
+        MutablePropertyValues pvs = new MutablePropertyValues();
+        pvs.addPropertyValue("name", "lily");
+        pvs.addPropertyValue("age", "8");
+        RootBeanDefinition childDefinition = new RootBeanDefinition(People.class, null, pvs);
+        childDefinition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        beanFactory.registerBeanDefinition("child", childDefinition);
+
+        ConstructorArgumentValues personArgs = new ConstructorArgumentValues();
+        personArgs.addGenericArgumentValue("30", "age", null);
+        personArgs.addGenericArgumentValue(new BeanReference("mother"), "mother", null);
+        personArgs.addGenericArgumentValue("zixiao", "name", null);
+        personArgs.addGenericArgumentValue("3.44", "weight", null);
+        personArgs.addGenericArgumentValue("http://www.sina.com", "url", null);
+        personArgs.setAutowrieBy(ConstructorArgumentValues.BY_NAME);
+        RootBeanDefinition personDefinition = new RootBeanDefinition(Person.class, personArgs, null);
+        personDefinition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        beanFactory.registerBeanDefinition("person", personDefinition);
+
+        for (int i = 0; i < 2; i++) {
+            People child = (People) beanFactory.getBean("child");
+            Assert.assertEquals("lily", child.getName());
+            Assert.assertEquals(8, child.getAge());
+            Person person = (Person) beanFactory.getBean("person");
+            Assert.assertEquals(30, person.getAge());
+            Assert.assertEquals("linda", person.getMother().getName());
+        }
+        Assert.assertNotNull(strategy.getBeanAccessor(People.class));
+        Assert.assertNotNull(strategy.getBeanAccessor(Person.class));
+    }
+
+    //checked exceptions from constructors and setters through generated accessors
+    @Test
+    public void testBytecodeInstantiationCheckedExceptions() {
+        BytecodeInstantiationStrategy strategy = new BytecodeInstantiationStrategy();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setInstantiationStrategy(strategy);
+
+        ConstructorArgumentValues cargs = new ConstructorArgumentValues();
+        cargs.addGenericArgumentValue("unreachable://host", "url", null);
+        cargs.setAutowrieBy(ConstructorArgumentValues.BY_NAME);
+        beanFactory.registerBeanDefinition("brokenConstructor", new RootBeanDefinition(RemoteResource.class, cargs, null));
+
+        MutablePropertyValues pvs = new MutablePropertyValues();
+        pvs.addPropertyValue("timeout", "-1");
+        beanFactory.registerBeanDefinition("brokenSetter", new RootBeanDefinition(RemoteResource.class, null, pvs));
+
+        Assert.assertNotNull(strategy.getBeanAccessor(RemoteResource.class));
+        for (String beanName : new String[]{"brokenConstructor", "brokenSetter"}) {
+            try {
+                beanFactory.getBean(beanName);
+                Assert.fail("Expected creation of " + beanName + " to fail");
+            }
+            catch (BeansException ex) {
+                Throwable cause = ex;
+                while (cause != null && !(cause instanceof IOException)) {
+                    cause = cause.getCause();
+                }
+                Assert.assertNotNull("IOException not reported for " + beanName, cause);
+            }
+        }
+    }
+
+    //参数名: 无参构造方法和方法返回空列表, 不是null
+    @Test
+    public void testParameterNames() throws Exception {
+        ByteCodeUtils.clearCache();
+        Assert.assertEquals(Arrays.asList("name", "age"),
+                ByteCodeUtils.getParameterNames(People.class.getConstructor(String.class, int.class)));
+        Assert.assertEquals(0, ByteCodeUtils.getParameterNames(People.class.getConstructor()).size());
+        Assert.assertEquals(0, ByteCodeUtils.getParameterNames(People.class.getMethod("getName")).size());
+    }
+
+    //streaming StAX reader, same definitions as the DOM reader
+    @Test
+    public void testStreamingReader() {
+        String[] locations = {"bean-property-construct.xml", "bean-basic.xml"};
+        ClassPathXmlApplicationContext dom = new ClassPathXmlApplicationContext(locations);
+        ClassPathXmlApplicationContext stax = new ClassPathXmlApplicationContext(locations, false);
+        stax.setStreaming(true);
+        stax.refresh();
+
+        Assert.assertEquals(Arrays.asList(dom.getBeanDefinitionNames()), Arrays.asList(stax.getBeanDefinitionNames()));
+        Student student = (Student) stax.getBean("student");
+        Assert.assertEquals(((Student) dom.getBean("student")).toString(), student.toString());
+        Assert.assertNotNull(student.getMother());
+    }
+
+    //config locations and imports parsed in parallel, registered in sequential order
+    @Test
+    public void testParallelLoading() {
+        String[] locations = {"bean-property-construct.xml", "bean-basic.xml", "bean-scope.xml", "factorybean.xml"};
+        ClassPathXmlApplicationContext sequential = new ClassPathXmlApplicationContext(locations);
+        ClassPathXmlApplicationContext parallel = new ClassPathXmlApplicationContext(locations, false);
+        parallel.setLoadParallelism(4);
+        parallel.setStreaming(true);
+        parallel.refresh();
+
+        Assert.assertEquals(Arrays.asList(sequential.getBeanDefinitionNames()), Arrays.asList(parallel.getBeanDefinitionNames()));
+        Assert.assertNotNull(((Student) parallel.getBean("student")).getMother());
+    }
+
+    //precompiled bean definition index, falling back to xml when stale
+    @Test
+    public void testBeanDefinitionIndex() throws Exception {
+        File xml = File.createTempFile("bean-index-", ".xml");
+        File index = File.createTempFile("bean-index-", ".idx");
+        xml.deleteOnExit();
+        index.deleteOnExit();
+        writeXml(xml, "<bean id=\"aunt\" class=\"org.springlite.bean.People\">" +
+                "<property name=\"name\" value=\"linda\"/><property name=\"age\" value=\"35\"/></bean>");
+        Assert.assertEquals(3, new BeanDefinitionIndexWriter().write(index,
+                "bean-construct-args.xml", xml.toURI().toString()));
+
+        ClassPathXmlApplicationContext ac = new ClassPathXmlApplicationContext(new String[0], false);
+        ac.setBeanDefinitionIndexLocation(index.toURI().toString());
+        ac.refresh();
+        Assert.assertEquals("linda", ((People) ac.getBean("aunt")).getName());
+        Assert.assertEquals(30, ((Person) ac.getBean("person")).getAge());
+
+        writeXml(xml, "<bean id=\"aunt\" class=\"org.springlite.bean.People\">" +
+                "<property name=\"name\" value=\"lucy\"/><property name=\"age\" value=\"36\"/></bean>");
+        xml.setLastModified(xml.lastModified() + 2000);
+        ac.refresh();
+        Assert.assertEquals("lucy", ((People) ac.getBean("aunt")).getName());
+        Assert.assertEquals(3, ac.getBeanDefinitionCount());
+    }
+
+    //编译期生成的BeanFactoryInitializer: 直接调用构造方法和setter, 循环引用的属性仍在运行时注入
+    @Test
+    public void testBeanFactoryInitializer() throws Exception {
+        File sourceDirectory = new File(System.getProperty("java.io.tmpdir"), "springlite-aot-" + System.nanoTime());
+        File sourceFile = new BeanFactoryInitializerGenerator().generate(sourceDirectory, "aot.GeneratedInitializer",
+                "bean-property-construct.xml", "bean-cyclic-ref-property.xml");
+        StringWriter source = new StringWriter();
+        Reader reader = new InputStreamReader(new FileInputStream(sourceFile), "UTF-8");
+        try {
+            for (int c = reader.read(); c != -1; c = reader.read()) {
+                source.write(c);
+            }
+        } finally {
+            reader.close();
+        }
+        Assert.assertTrue(source.toString().contains("new org.springlite.bean.People(\"linda\", 35, \"\\u5973\")"));
+        Assert.assertTrue(source.toString().contains("builder.addPropertyReference(\"cyclicRefB\", \"cyclicRefB\")"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertEquals(0, compiler.run(null, null, null, "-nowarn",
+                "-classpath", System.getProperty("java.class.path"), sourceFile.getPath()));
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(
+                new URLClassLoader(new URL[]{sourceDirectory.toURI().toURL()}, original));
+        try {
+            ClassPathXmlApplicationContext ac = new ClassPathXmlApplicationContext(new String[]{"no-such-file.xml"}, false);
+            ac.setBeanFactoryInitializerClassName("aot.GeneratedInitializer");
+            ac.refresh();
+            Student student = (Student) ac.getBean("student");
+            Assert.assertSame(ac.getBean("mother"), student.getMother());
+            Assert.assertEquals("linda", student.getMother().getName());
+            Assert.assertEquals(35, student.getMother().getAge());
+            CyclicRefA a = ac.getBean(CyclicRefA.class);
+            Assert.assertSame(a, ac.getBean(CyclicRefB.class).getCyclicRefA());
+            ac.close();
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
+
+    //编译期生成BeanFactoryInitializer: constructor-arg的index不连续时报错
+    @Test
+    public void testBeanFactoryInitializerIndexGap() throws Exception {
+        BeanFactoryInitializerGenerator generator = new BeanFactoryInitializerGenerator() {
+            @Override
+            protected void loadBeanDefinitions(DefaultListableBeanFactory registry, String... locations) {
+                ConstructorArgumentValues cargs = new ConstructorArgumentValues();
+                cargs.addIndexedArgumentValue(0, "linda");
+                cargs.addIndexedArgumentValue(2, "35");
+                cargs.setAutowrieBy(ConstructorArgumentValues.BY_INDEX);
+                registry.registerBeanDefinition("gappedMother", new RootBeanDefinition(People.class, cargs, null));
+            }
+        };
+        try {
+            generator.generate(new StringWriter(), "aot.GappedInitializer");
+            Assert.fail("Expected the gap in the constructor-arg indexes to be rejected");
+        } catch (BeanDefinitionStoreException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("gappedMother"));
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("index 2"));
+        }
+    }
+
+    private void writeXml(File file, String beans) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?><beans>" + beans + "</beans>");
+        } finally {
+            writer.close();
+        }
+    }
+
     //constructor cyclic reference
     @Test
     public void testCyclicRef(){
@@ -60,5 +372,66 @@ public class BeanPropertyConstructTest {
         CyclicRefB b = ac.getBean(CyclicRefB.class);
     }
 
+    //lazy-init bean的构造参数和属性在首次使用时才解析, 解析错误也在首次使用时抛出
+    @Test
+    public void testDeferLazyBeanParsing() {
+        ClassPathXmlApplicationContext ac = new ClassPathXmlApplicationContext(new String[]{"bean-lazy-parsing.xml"}, false);
+        ac.setDeferLazyBeanParsing(true);
+        ac.refresh();
+
+        Assert.assertEquals(Arrays.asList("student", "brokenStudent"),
+                Arrays.asList(ac.getBeanNamesForType(Student.class)));
+        Student student = (Student) ac.getBean("student");
+        Assert.assertEquals("lucy", student.getName());
+        Assert.assertEquals(13, student.getAge());
+        Assert.assertEquals("No.1 Middle School", student.getSchool());
+        Assert.assertSame(ac.getBean("mother"), student.getMother());
+        try {
+            ac.getBean("brokenStudent");
+            Assert.fail("brokenStudent has an invalid constructor-arg");
+        } catch (BeanDefinitionStoreException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("brokenStudent"));
+        }
+        ac.close();
+    }
+
+    //校验用的Schema和DocumentBuilderFactory每个reader只创建一次, 格式错误仍报告行号
+    @Test
+    public void testCachedSchemaAndDocumentBuilders() throws IOException {
+        final AtomicInteger schemas = new AtomicInteger();
+        final AtomicInteger factories = new AtomicInteger();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(beanFactory, new DefaultResourceLoader()) {
+            @Override
+            protected Schema createSchema() throws SAXException {
+                schemas.incrementAndGet();
+                return super.createSchema();
+            }
+
+            @Override
+            protected DocumentBuilderFactory createDocumentBuilderFactory(boolean validating)
+                    throws ParserConfigurationException, SAXException {
+                factories.incrementAndGet();
+                return super.createDocumentBuilderFactory(validating);
+            }
+        };
+        reader.loadBeanDefinitions("bean-basic.xml", "bean-scope.xml");
+        reader.loadBeanDefinitions("bean-construct-args.xml");
+        Assert.assertEquals(1, schemas.get());
+        Assert.assertEquals(1, factories.get());
+
+        File invalid = File.createTempFile("bean-invalid", ".xml");
+        invalid.deleteOnExit();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(invalid), "UTF-8");
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<beans>\n    <bean id=\"a\" class=\"java.lang.Object\">\n</beans>\n");
+        writer.close();
+        try {
+            reader.loadBeanDefinitions(invalid.toURI().toString());
+            Assert.fail("bean element is not closed");
+        } catch (BeanDefinitionStoreException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("Line 4 in XML document"));
+        }
+        Assert.assertEquals(1, factories.get());
+    }
 
 }
@@ -2,9 +2,50 @@ package org.springlite.test;
 
 import junit.framework.Assert;
 import org.junit.Test;
+import org.springlite.ShareResource;
+import org.springlite.bean.DbConnection;
+import org.springlite.bean.EncryptPasswordFactory;
+import org.springlite.bean.People;
+import org.springlite.bean.Student;
+import org.springlite.beans.exception.BeanCreationException;
+import org.springlite.beans.exception.NoUniqueBeanDefinitionException;
+import org.springlite.beans.factory.FactoryBean;
+import org.springlite.beans.factory.ObjectFactory;
+import org.springlite.beans.factory.config.BeanPostProcessor;
+import org.springlite.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springlite.beans.factory.config.Scope;
+import org.springlite.beans.factory.support.AbstractBeanDefinition;
+import org.springlite.beans.factory.support.DefaultListableBeanFactory;
+import org.springlite.beans.factory.support.RootBeanDefinition;
 import org.springlite.context.ApplicationContext;
 import org.springlite.context.support.ClassPathXmlApplicationContext;
+import org.springlite.context.support.CacheScope;
+import org.springlite.context.support.PooledScope;
+import org.springlite.context.support.ThreadScope;
+import org.springlite.core.metrics.BufferingApplicationStartup;
+import org.springlite.core.metrics.StartupTimeline;
 import org.springlite.service.*;
+import org.springlite.service.impl.ConsolePrinter;
+import org.springlite.service.impl.ConsolePrinterDriver;
+import org.springlite.service.impl.PrintServiceImpl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.*;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 
 /**
  * 〈一句话功能简述〉&lt;p&gt;
@@ -71,4 +112,902 @@ public class BeanTest {
         ApplicationContext applicationContext = new ClassPathXmlApplicationContext("bean-depends-circular.xml");
     }
 
+    //concurrent creation of the same singleton
+    @Test
+    public void testConcurrentSingletonCreation() throws Exception {
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("printerDriver", new RootBeanDefinition(ConsolePrinterDriver.class));
+
+        int threads = 16;
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            java.util.List<Future<Object>> futures = new java.util.ArrayList<Future<Object>>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        startSignal.await();
+                        return beanFactory.getBean("printerDriver");
+                    }
+                }));
+            }
+            startSignal.countDown();
+            Object first = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Object> future : futures) {
+                Assert.assertSame(first, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //其他线程不会拿到正在创建中的bean的早期引用, 而是等待其初始化完成
+    @Test
+    public void testNoEarlyReferenceForOtherThreads() throws Exception {
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        final CountDownLatch initStarted = new CountDownLatch(1);
+        final CountDownLatch initRelease = new CountDownLatch(1);
+        final AtomicInteger installed = new AtomicInteger();
+        beanFactory.defineBean("printerDriver", ConsolePrinterDriver.class)
+                .instanceSupplier(new ObjectFactory<ConsolePrinterDriver>() {
+                    public ConsolePrinterDriver getObject() {
+                        return new ConsolePrinterDriver() {
+                            @Override
+                            public void install() {
+                                initStarted.countDown();
+                                try {
+                                    initRelease.await(10, TimeUnit.SECONDS);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                                installed.incrementAndGet();
+                            }
+                        };
+                    }
+                })
+                .initMethod("install")
+                .register();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> creator = executor.submit(new Callable<Object>() {
+                public Object call() {
+                    return beanFactory.getBean("printerDriver");
+                }
+            });
+            Assert.assertTrue(initStarted.await(10, TimeUnit.SECONDS));
+            Future<Integer> lookup = executor.submit(new Callable<Integer>() {
+                public Integer call() {
+                    beanFactory.getBean("printerDriver");
+                    return installed.get();
+                }
+            });
+            try {
+                lookup.get(200, TimeUnit.MILLISECONDS);
+                Assert.fail("Expected getBean to wait for the bean in creation");
+            } catch (TimeoutException e) {
+                //expected
+            }
+            initRelease.countDown();
+            Assert.assertEquals(Integer.valueOf(1), lookup.get(10, TimeUnit.SECONDS));
+            Assert.assertSame(creator.get(10, TimeUnit.SECONDS), beanFactory.getBean("printerDriver"));
+        } finally {
+            initRelease.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    //by-type lookups follow registrations and removals
+    @Test
+    public void testBeanNamesForTypeIndex() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("driver1", new RootBeanDefinition(ConsolePrinterDriver.class));
+        Assert.assertEquals(Arrays.asList("driver1"), Arrays.asList(beanFactory.getBeanNamesForType(PrinterDriver.class)));
+
+        beanFactory.registerSingleton("manualDriver", new ConsolePrinterDriver());
+        beanFactory.registerBeanDefinition("driver2", new RootBeanDefinition(ConsolePrinterDriver.class));
+        beanFactory.registerBeanDefinition("password", new RootBeanDefinition(EncryptPasswordFactory.class));
+        Assert.assertEquals(Arrays.asList("driver1", "driver2", "manualDriver"),
+                Arrays.asList(beanFactory.getBeanNamesForType(PrinterDriver.class)));
+        Assert.assertEquals(4, beanFactory.getBeanNamesForType(Object.class).length);
+        Assert.assertEquals(Arrays.asList("password"), Arrays.asList(beanFactory.getBeanNamesForType(String.class)));
+        Assert.assertEquals(Arrays.asList("&password"), Arrays.asList(beanFactory.getBeanNamesForType(FactoryBean.class)));
+
+        beanFactory.removeBeanDefinition("driver1");
+        beanFactory.destroySingleton("manualDriver");
+        Assert.assertEquals(Arrays.asList("driver2"), Arrays.asList(beanFactory.getBeanNamesForType(PrinterDriver.class)));
+        Assert.assertEquals(1, beanFactory.getBeansOfType(PrinterDriver.class).size());
+
+        // a lazy bean matched by type names evicts the results of its types only
+        String[] stringBeanNames = beanFactory.getBeanNamesForType(String.class);
+        RootBeanDefinition lazyDriver = new RootBeanDefinition(ConsolePrinterDriver.class.getName());
+        lazyDriver.setLazyInit(true);
+        beanFactory.registerBeanDefinition("lazyDriver", lazyDriver);
+        Assert.assertEquals(Arrays.asList("driver2", "lazyDriver"),
+                Arrays.asList(beanFactory.getBeanNamesForType(PrinterDriver.class)));
+        Assert.assertSame(stringBeanNames, beanFactory.getBeanNamesForType(String.class));
+        beanFactory.removeBeanDefinition("lazyDriver");
+        Assert.assertEquals(Arrays.asList("driver2"), Arrays.asList(beanFactory.getBeanNamesForType(PrinterDriver.class)));
+        Assert.assertSame(stringBeanNames, beanFactory.getBeanNamesForType(String.class));
+    }
+
+    //getBean(Class) resolutions follow registrations and destruction
+    @Test
+    public void testGetBeanByTypeCache() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("driver1", new RootBeanDefinition(ConsolePrinterDriver.class));
+        PrinterDriver driver = beanFactory.getBean(PrinterDriver.class);
+        Assert.assertSame(driver, beanFactory.getBean(PrinterDriver.class));
+
+        beanFactory.registerSingleton("manualDriver", new ConsolePrinterDriver());
+        try {
+            beanFactory.getBean(PrinterDriver.class);
+            Assert.fail("Expected NoUniqueBeanDefinitionException");
+        } catch (NoUniqueBeanDefinitionException e) {
+            //expected
+        }
+
+        beanFactory.destroySingleton("manualDriver");
+        Assert.assertSame(driver, beanFactory.getBean(PrinterDriver.class));
+        beanFactory.destroySingleton("driver1");
+        Assert.assertNotSame(driver, beanFactory.getBean(PrinterDriver.class));
+    }
+
+    //custom scope registered on the bean factory
+    @Test
+    public void testCustomScope() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        RootBeanDefinition bd = new RootBeanDefinition(ConsolePrinterDriver.class);
+        bd.setScope("conversation");
+        beanFactory.registerBeanDefinition("printerDriver", bd);
+        try {
+            beanFactory.getBean("printerDriver");
+            Assert.fail("Expected BeanCreationException for an unregistered scope");
+        } catch (BeanCreationException e) {
+            //expected
+        }
+
+        final Map<String, Object> conversation = new ConcurrentHashMap<String, Object>();
+        beanFactory.registerScope("conversation", new Scope() {
+            public Object get(String name, ObjectFactory<?> objectFactory) {
+                Object scopedObject = conversation.get(name);
+                if (scopedObject == null) {
+                    scopedObject = objectFactory.getObject();
+                    conversation.put(name, scopedObject);
+                }
+                return scopedObject;
+            }
+            public Object remove(String name) {
+                return conversation.remove(name);
+            }
+            public void registerDestructionCallback(String name, Runnable callback) {
+            }
+            public String getConversationId() {
+                return "test";
+            }
+        });
+        Assert.assertEquals(Arrays.asList("conversation"), Arrays.asList(beanFactory.getRegisteredScopeNames()));
+
+        Object pd1 = beanFactory.getBean("printerDriver");
+        Assert.assertSame(pd1, beanFactory.getBean("printerDriver"));
+        Assert.assertFalse(beanFactory.isSingleton("printerDriver"));
+        beanFactory.destroyScopedBean("printerDriver");
+        Assert.assertNotSame(pd1, beanFactory.getBean("printerDriver"));
+    }
+
+    //thread scope: one instance per thread, destroyed with its thread or the factory
+    @Test
+    public void testThreadScope() throws Exception {
+        final ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext("bean-scope.xml");
+        final Object df1 = applicationContext.getBean("dateFormat");
+        Assert.assertSame(df1, applicationContext.getBean("dateFormat"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Object df2 = executor.submit(new Callable<Object>() {
+                public Object call() {
+                    return applicationContext.getBean("dateFormat");
+                }
+            }).get(10, TimeUnit.SECONDS);
+            Assert.assertNotSame(df1, df2);
+        } finally {
+            executor.shutdownNow();
+        }
+        applicationContext.close();
+
+        final AtomicInteger destroyed = new AtomicInteger();
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        final ThreadScope threadScope = new ThreadScope();
+        beanFactory.registerScope(ThreadScope.SCOPE_THREAD, threadScope);
+        beanFactory.addBeanPostProcessor(new DestructionAwareBeanPostProcessor() {
+            public void postProcessBeforeDestruction(Object bean, String beanName) {
+                destroyed.incrementAndGet();
+            }
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean;
+            }
+        });
+        RootBeanDefinition bd = new RootBeanDefinition(ConsolePrinterDriver.class);
+        bd.setScope(ThreadScope.SCOPE_THREAD);
+        beanFactory.registerBeanDefinition("printerDriver", bd);
+
+        Thread worker = new Thread() {
+            public void run() {
+                beanFactory.getBean("printerDriver");
+            }
+        };
+        worker.start();
+        worker.join();
+        Object pd1 = beanFactory.getBean("printerDriver");
+        Assert.assertEquals("beans of the terminated thread are destroyed", 1, destroyed.get());
+        threadScope.destroyCurrentThread();
+        Assert.assertEquals(2, destroyed.get());
+        Assert.assertNotSame(pd1, beanFactory.getBean("printerDriver"));
+        beanFactory.destroySingletons();
+        Assert.assertEquals(3, destroyed.get());
+    }
+
+    //pooled scope: bounded pool, explicit release, validation and destruction
+    @Test
+    public void testPooledScope() {
+        final AtomicInteger destroyed = new AtomicInteger();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        PooledScope pooledScope = new PooledScope();
+        pooledScope.setMaxSize(2);
+        pooledScope.setMaxWaitMillis(50);
+        final Set<Object> invalid = new HashSet<Object>();
+        pooledScope.setValidator(new PooledScope.Validator() {
+            public boolean validate(String beanName, Object bean) {
+                return !invalid.contains(bean);
+            }
+        });
+        beanFactory.registerScope(PooledScope.SCOPE_POOLED, pooledScope);
+        beanFactory.addBeanPostProcessor(new DestructionAwareBeanPostProcessor() {
+            public void postProcessBeforeDestruction(Object bean, String beanName) {
+                destroyed.incrementAndGet();
+            }
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean;
+            }
+        });
+        RootBeanDefinition bd = new RootBeanDefinition(ConsolePrinterDriver.class);
+        bd.setScope(PooledScope.SCOPE_POOLED);
+        bd.setInitMethodName("install");
+        beanFactory.registerBeanDefinition("printerDriver", bd);
+
+        Object pd1 = beanFactory.getBean("printerDriver");
+        Object pd2 = beanFactory.getBean("printerDriver");
+        Assert.assertNotSame(pd1, pd2);
+        // the pool keeps the size it was created with
+        pooledScope.setMaxSize(3);
+        try {
+            beanFactory.getBean("printerDriver");
+            Assert.fail("Expected BeanCreationException when the pool is exhausted");
+        } catch (BeanCreationException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("all 2 are in use"));
+        }
+        try {
+            beanFactory.getBean("printerDriver", "HP");
+            Assert.fail("Expected BeanCreationException for explicit arguments of a pooled bean");
+        } catch (BeanCreationException e) {
+            //expected
+        }
+
+        pooledScope.release("printerDriver", pd1);
+        Assert.assertSame(pd1, beanFactory.getBean("printerDriver"));
+        invalid.add(pd2);
+        pooledScope.release("printerDriver", pd2);
+        Assert.assertEquals("invalid instance destroyed on release", 1, destroyed.get());
+        pooledScope.release("printerDriver", pd1);
+
+        PooledScope.Statistics statistics = pooledScope.getStatistics("printerDriver");
+        Assert.assertEquals(1, statistics.getHits());
+        Assert.assertEquals(2, statistics.getMisses());
+        Assert.assertEquals(1, statistics.getIdle());
+        Assert.assertEquals(0, statistics.getActive());
+
+        beanFactory.destroySingletons();
+        Assert.assertEquals(2, destroyed.get());
+    }
+
+    //pooled作用域: 池关闭后归还的实例被销毁
+    @Test
+    public void testPooledScopeReleaseAfterClose() {
+        final AtomicInteger destroyed = new AtomicInteger();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        PooledScope pooledScope = new PooledScope();
+        beanFactory.registerScope(PooledScope.SCOPE_POOLED, pooledScope);
+        beanFactory.addBeanPostProcessor(new DestructionAwareBeanPostProcessor() {
+            public void postProcessBeforeDestruction(Object bean, String beanName) {
+                destroyed.incrementAndGet();
+            }
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean;
+            }
+        });
+        RootBeanDefinition bd = new RootBeanDefinition(ConsolePrinterDriver.class);
+        bd.setScope(PooledScope.SCOPE_POOLED);
+        beanFactory.registerBeanDefinition("printerDriver", bd);
+
+        Object pd1 = beanFactory.getBean("printerDriver");
+        Object pd2 = beanFactory.getBean("printerDriver");
+        pooledScope.release("printerDriver", pd2);
+        pooledScope.remove("printerDriver");
+        Assert.assertEquals("idle instance destroyed on close", 1, destroyed.get());
+        Object pd3 = beanFactory.getBean("printerDriver");
+        Assert.assertNotSame("new pool after close", pd2, pd3);
+
+        pooledScope.release("printerDriver", pd1);
+        Assert.assertEquals("borrowed instance destroyed on release", 2, destroyed.get());
+        try {
+            pooledScope.release("printerDriver", pd1);
+            Assert.fail("Expected IllegalArgumentException on double release");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+
+        pooledScope.destroy();
+        pooledScope.release("printerDriver", pd3);
+        Assert.assertEquals(3, destroyed.get());
+    }
+
+    //pooled作用域: 并发借用时等待慢速创建的实例, 不超过maxSize
+    @Test
+    public void testPooledScopeContendedBorrowing() throws Exception {
+        final AtomicInteger created = new AtomicInteger();
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        final PooledScope pooledScope = new PooledScope();
+        pooledScope.setMaxSize(2);
+        pooledScope.setMinIdle(2);
+        pooledScope.setEvictionIntervalMillis(0);
+        beanFactory.registerScope(PooledScope.SCOPE_POOLED, pooledScope);
+        beanFactory.defineBean("printerDriver", ConsolePrinterDriver.class)
+                .instanceSupplier(new ObjectFactory<ConsolePrinterDriver>() {
+                    public ConsolePrinterDriver getObject() {
+                        created.incrementAndGet();
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return new ConsolePrinterDriver();
+                    }
+                })
+                .scope(PooledScope.SCOPE_POOLED)
+                .register();
+
+        int threads = 8;
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        startSignal.await();
+                        int borrowed = 0;
+                        for (int j = 0; j < 20; j++) {
+                            Object bean = beanFactory.getBean("printerDriver");
+                            pooledScope.release("printerDriver", bean);
+                            borrowed++;
+                        }
+                        return borrowed;
+                    }
+                }));
+            }
+            startSignal.countDown();
+            for (Future<Integer> future : futures) {
+                Assert.assertEquals(Integer.valueOf(20), future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(2, created.get());
+        PooledScope.Statistics statistics = pooledScope.getStatistics("printerDriver");
+        Assert.assertEquals(0, statistics.getActive());
+        Assert.assertEquals(2, statistics.getIdle());
+        pooledScope.destroy();
+    }
+
+    //cache作用域: 过期后重建, 提前在后台刷新, 被替换的实例在宽限期后销毁
+    @Test
+    public void testCacheScope() throws InterruptedException {
+        final AtomicInteger destroyed = new AtomicInteger();
+        final AtomicLong time = new AtomicLong();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        CacheScope cacheScope = new CacheScope();
+        cacheScope.setSoftReferences(false);
+        cacheScope.setTimeToLiveMillis(10000);
+        cacheScope.setDestroyGracePeriodMillis(1000);
+        cacheScope.setClock(new CacheScope.Clock() {
+            public long currentTimeMillis() {
+                return time.get();
+            }
+        });
+        beanFactory.registerScope(CacheScope.SCOPE_CACHE, cacheScope);
+        beanFactory.addBeanPostProcessor(new DestructionAwareBeanPostProcessor() {
+            public void postProcessBeforeDestruction(Object bean, String beanName) {
+                destroyed.incrementAndGet();
+            }
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean;
+            }
+        });
+        RootBeanDefinition bd = new RootBeanDefinition(ConsolePrinterDriver.class);
+        bd.setScope(CacheScope.SCOPE_CACHE);
+        beanFactory.registerBeanDefinition("printerDriver", bd);
+
+        Object pd1 = beanFactory.getBean("printerDriver");
+        time.set(9999);
+        Assert.assertSame(pd1, beanFactory.getBean("printerDriver"));
+        cacheScope.setRefreshAheadMillis(2000);
+        time.set(10000);
+        Object pd2 = beanFactory.getBean("printerDriver");
+        Assert.assertNotSame("expired instance rebuilt", pd1, pd2);
+        Assert.assertEquals("replaced instance kept during the grace period", 0, destroyed.get());
+        time.set(10999);
+        Assert.assertSame(pd2, beanFactory.getBean("printerDriver"));
+        Assert.assertEquals(0, destroyed.get());
+        time.set(11000);
+        Assert.assertSame(pd2, beanFactory.getBean("printerDriver"));
+        Assert.assertEquals("replaced instance destroyed after the grace period", 1, destroyed.get());
+
+        time.set(18000);
+        Assert.assertSame("refresh-ahead still serves the current instance", pd2, beanFactory.getBean("printerDriver"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (beanFactory.getBean("printerDriver") == pd2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Object pd3 = beanFactory.getBean("printerDriver");
+        Assert.assertNotSame("rebuilt in the background", pd2, pd3);
+        Assert.assertEquals(1, destroyed.get());
+        time.set(19000);
+        beanFactory.getBean("printerDriver");
+        Assert.assertEquals(2, destroyed.get());
+
+        time.set(40000);
+        Assert.assertNotSame(pd3, beanFactory.getBean("printerDriver"));
+        Assert.assertEquals(2, destroyed.get());
+        beanFactory.destroySingletons();
+        Assert.assertEquals("current and retired instances destroyed", 4, destroyed.get());
+    }
+
+    //async-init: 预实例化不等待init-method, getBean等待其完成
+    @Test
+    public void testAsyncInit() throws Exception {
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        final List<Runnable> initTasks = new ArrayList<Runnable>();
+        beanFactory.setAsyncInitExecutor(new Executor() {
+            public void execute(Runnable command) {
+                initTasks.add(command);
+            }
+        });
+        RootBeanDefinition bd = new RootBeanDefinition(ConsolePrinterDriver.class);
+        bd.setInitMethodName("install");
+        bd.setAsyncInit(true);
+        beanFactory.registerBeanDefinition("printerDriver", bd);
+
+        beanFactory.preInstantiateSingletons();
+        Assert.assertEquals("pre-instantiation does not wait for the init method", 1, initTasks.size());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> lookup = executor.submit(new Callable<Object>() {
+                public Object call() {
+                    return beanFactory.getBean("printerDriver");
+                }
+            });
+            try {
+                lookup.get(100, TimeUnit.MILLISECONDS);
+                Assert.fail("Expected getBean to wait for the init method");
+            } catch (TimeoutException e) {
+                //expected
+            }
+            initTasks.get(0).run();
+            Assert.assertSame(beanFactory.getSingleton("printerDriver"), lookup.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        beanFactory.destroySingletons();
+    }
+
+    //async-init: BeanPostProcessor随init-method异步执行, 看到初始化完成的bean, getBean得到其返回的实例
+    @Test
+    public void testAsyncInitWithBeanPostProcessors() throws Exception {
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        final List<Runnable> initTasks = new ArrayList<Runnable>();
+        beanFactory.setAsyncInitExecutor(new Executor() {
+            public void execute(Runnable command) {
+                initTasks.add(command);
+            }
+        });
+        final List<Object> initializedBeans = new ArrayList<Object>();
+        beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+            public Object postProcessAfterInitialization(final Object bean, String beanName) {
+                if (ShareResource.getLoadedPrinterDrivers().get() == bean) {
+                    initializedBeans.add(bean);
+                }
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PrinterDriver.class},
+                        new InvocationHandler() {
+                            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                                return method.invoke(bean, args);
+                            }
+                        });
+            }
+        });
+        RootBeanDefinition bd = new RootBeanDefinition(ConsolePrinterDriver.class);
+        bd.setInitMethodName("install");
+        bd.setAsyncInit(true);
+        beanFactory.registerBeanDefinition("printerDriver", bd);
+
+        beanFactory.preInstantiateSingletons();
+        Assert.assertEquals("pre-instantiation does not wait for the init method", 1, initTasks.size());
+        Assert.assertTrue(initializedBeans.isEmpty());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> lookup = executor.submit(new Callable<Object>() {
+                public Object call() {
+                    return beanFactory.getBean("printerDriver");
+                }
+            });
+            try {
+                lookup.get(100, TimeUnit.MILLISECONDS);
+                Assert.fail("Expected getBean to wait for the init method and post-processors");
+            } catch (TimeoutException e) {
+                //expected
+            }
+            initTasks.get(0).run();
+            Object printerDriver = lookup.get(10, TimeUnit.SECONDS);
+            Assert.assertTrue(Proxy.isProxyClass(printerDriver.getClass()));
+            Assert.assertEquals(1, initializedBeans.size());
+            Assert.assertSame(printerDriver, beanFactory.getBean("printerDriver"));
+            Assert.assertSame(printerDriver, beanFactory.getSingleton("printerDriver"));
+        } finally {
+            executor.shutdownNow();
+            ShareResource.getLoadedPrinterDrivers().remove();
+        }
+        beanFactory.destroySingletons();
+    }
+
+    //async-init: init-method中查找的bean正被等待该init-method的线程创建时, 报错而不是死锁
+    @Test
+    public void testAsyncInitDeadlockDetection() throws Exception {
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.defineBean("printer", ConsolePrinter.class)
+                .instanceSupplier(new ObjectFactory<ConsolePrinter>() {
+                    public ConsolePrinter getObject() {
+                        return new ConsolePrinter() {
+                            @Override
+                            public void afterPropertiesSet() {
+                                beanFactory.getBean("printService");
+                            }
+                        };
+                    }
+                })
+                .asyncInit()
+                .register();
+        beanFactory.defineBean("printService", PrintServiceImpl.class)
+                .propertyReference("printer", "printer")
+                .register();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> lookup = executor.submit(new Callable<Object>() {
+                public Object call() {
+                    return beanFactory.getBean("printService");
+                }
+            });
+            try {
+                lookup.get(10, TimeUnit.SECONDS);
+                Assert.fail("Expected the circular wait to fail");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof BeanCreationException);
+                Throwable cause = e.getCause();
+                while (cause != null && (cause.getMessage() == null || !cause.getMessage().contains("waits for this thread"))) {
+                    cause = cause.getCause();
+                }
+                Assert.assertNotNull("circular wait reported", cause);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        beanFactory.destroySingletons();
+    }
+
+    //并行销毁: 依赖方先销毁, 无依赖关系的bean并发销毁, 超时的bean被放弃
+    @Test
+    public void testParallelDestroySingletons() {
+        final List<String> destroyed = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch poolsStarted = new CountDownLatch(2);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setDestructionParallelism(4);
+        beanFactory.setBeanDestructionTimeoutMillis(2000);
+        beanFactory.addBeanPostProcessor(new DestructionAwareBeanPostProcessor() {
+            public void postProcessBeforeDestruction(Object bean, String beanName) {
+                try {
+                    if (beanName.startsWith("pool")) {
+                        // each pool waits for the other one: only completes if both run concurrently
+                        poolsStarted.countDown();
+                        if (!poolsStarted.await(1, TimeUnit.SECONDS)) {
+                            return;
+                        }
+                    } else if (beanName.equals("stuck")) {
+                        Thread.sleep(60000);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                destroyed.add(beanName);
+            }
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean;
+            }
+        });
+        for (String beanName : new String[]{"dataSource", "repository", "pool1", "pool2", "stuck"}) {
+            beanFactory.registerBeanDefinition(beanName, new RootBeanDefinition(ConsolePrinterDriver.class));
+        }
+        beanFactory.preInstantiateSingletons();
+        beanFactory.registerDependentBean("dataSource", "repository");
+
+        long start = System.currentTimeMillis();
+        beanFactory.destroySingletons();
+        Assert.assertTrue("stuck bean given up on", System.currentTimeMillis() - start < 10000);
+        Assert.assertTrue("pools destroyed concurrently", destroyed.containsAll(Arrays.asList("pool1", "pool2")));
+        Assert.assertFalse(destroyed.contains("stuck"));
+        Assert.assertTrue("dependent bean destroyed first",
+                destroyed.indexOf("repository") >= 0 && destroyed.indexOf("repository") < destroyed.indexOf("dataSource"));
+        Assert.assertEquals(0, beanFactory.getSingletonCount());
+    }
+
+    //并行销毁: 超过总时限后跳过的bean被移除, 之后不再被无序销毁
+    @Test
+    public void testParallelDestroyDeadline() {
+        final List<String> destroyed = Collections.synchronizedList(new ArrayList<String>());
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setDestructionParallelism(1);
+        beanFactory.setDestructionTimeoutMillis(200);
+        beanFactory.addBeanPostProcessor(new DestructionAwareBeanPostProcessor() {
+            public void postProcessBeforeDestruction(Object bean, String beanName) {
+                if (beanName.equals("stuck")) {
+                    try {
+                        Thread.sleep(60000);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                destroyed.add(beanName);
+            }
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean;
+            }
+        });
+        for (String beanName : new String[]{"skipped", "stuck"}) {
+            beanFactory.registerBeanDefinition(beanName, new RootBeanDefinition(ConsolePrinterDriver.class));
+        }
+        beanFactory.preInstantiateSingletons();
+
+        beanFactory.destroySingletons();
+        Assert.assertEquals(0, beanFactory.getSingletonCount());
+        beanFactory.destroySingleton("skipped");
+        beanFactory.destroySingletons();
+        Assert.assertTrue(destroyed.toString(), destroyed.isEmpty());
+    }
+
+    //并行销毁: destroy-method抛出的异常在销毁报告中标记为FAILED
+    @Test
+    public void testParallelDestroyFailureReported() {
+        final List<LogRecord> records = Collections.synchronizedList(new ArrayList<LogRecord>());
+        Handler handler = new Handler() {
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+            public void flush() {
+            }
+            public void close() {
+            }
+        };
+        Logger destroyerLogger = Logger.getLogger("org.springlite.beans.factory.support.ParallelSingletonDestroyer");
+        destroyerLogger.addHandler(handler);
+        final IllegalStateException failure = new IllegalStateException("connection already closed");
+        try {
+            DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+            beanFactory.setDestructionParallelism(2);
+            beanFactory.defineBean("broken", DbConnection.class)
+                    .instanceSupplier(new ObjectFactory<DbConnection>() {
+                        public DbConnection getObject() {
+                            return new DbConnection() {
+                                @Override
+                                public void close() {
+                                    throw failure;
+                                }
+                            };
+                        }
+                    })
+                    .destroyMethod("close")
+                    .register();
+            beanFactory.defineBean("healthy", DbConnection.class).destroyMethod("close").register();
+            beanFactory.preInstantiateSingletons();
+
+            beanFactory.destroySingletons();
+            Assert.assertEquals(0, beanFactory.getSingletonCount());
+        } finally {
+            destroyerLogger.removeHandler(handler);
+        }
+        boolean failureLogged = false;
+        String report = null;
+        for (LogRecord record : records) {
+            if (record.getThrown() == failure) {
+                failureLogged = true;
+            }
+            if (record.getMessage().startsWith("Destroyed ")) {
+                report = record.getMessage();
+            }
+        }
+        Assert.assertTrue("destroy method failure logged", failureLogged);
+        Assert.assertNotNull(report);
+        Assert.assertTrue(report, report.contains("broken: FAILED"));
+        Assert.assertTrue(report, report.contains("healthy: destroyed"));
+    }
+
+    //启动时间线: 记录refresh各阶段及bean创建, 被依赖的bean嵌套在触发它的bean之下
+    @Test
+    public void testStartupTimeline() {
+        BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup();
+        ClassPathXmlApplicationContext context =
+                new ClassPathXmlApplicationContext(new String[]{"bean-basic.xml"}, false);
+        context.setApplicationStartup(applicationStartup);
+        context.refresh();
+        context.close();
+
+        StartupTimeline timeline = applicationStartup.getTimeline();
+        Map<Long, StartupTimeline.TimelineEvent> eventsById = new HashMap<Long, StartupTimeline.TimelineEvent>();
+        StartupTimeline.TimelineEvent outputService = null;
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            eventsById.put(event.getId(), event);
+            if (event.getName().equals("springlite.beans.instantiate")
+                    && "outputService".equals(event.getTags().get("beanName"))) {
+                outputService = event;
+            }
+        }
+        Assert.assertEquals("springlite.context.refresh", timeline.getEvents().get(0).getName());
+        Assert.assertNotNull(outputService);
+        // created while populating helloWorldService
+        StartupTimeline.TimelineEvent populate = eventsById.get(outputService.getParentId());
+        Assert.assertEquals("springlite.beans.populate", populate.getName());
+        StartupTimeline.TimelineEvent helloWorldService = eventsById.get(populate.getParentId());
+        Assert.assertEquals("springlite.beans.instantiate", helloWorldService.getName());
+        Assert.assertEquals("helloWorldService", helloWorldService.getTags().get("beanName"));
+        Assert.assertEquals(0, timeline.getDroppedCount());
+        Assert.assertTrue(timeline.toFlameGraph().startsWith("{\"name\":\"startup\""));
+    }
+
+    //启动时间线: refresh失败时各阶段也结束, 不丢失也不错挂父节点
+    @Test
+    public void testStartupTimelineFailedRefresh() {
+        BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup();
+        ClassPathXmlApplicationContext context =
+                new ClassPathXmlApplicationContext(new String[]{"bean-cyclic-ref-constructor.xml"}, false);
+        context.setApplicationStartup(applicationStartup);
+        try {
+            context.refresh();
+            Assert.fail("Expected the constructor cycle to fail the refresh");
+        } catch (BeanCreationException e) {
+            // expected
+        }
+
+        StartupTimeline timeline = applicationStartup.getTimeline();
+        StartupTimeline.TimelineEvent refresh = null;
+        StartupTimeline.TimelineEvent instantiation = null;
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            if (event.getName().equals("springlite.context.refresh")) {
+                refresh = event;
+            } else if (event.getName().equals("springlite.context.beans.instantiate")) {
+                instantiation = event;
+            }
+        }
+        Assert.assertNotNull(refresh);
+        Assert.assertNull(refresh.getParentId());
+        Assert.assertNotNull(instantiation);
+        Assert.assertEquals(Long.valueOf(refresh.getId()), instantiation.getParentId());
+
+        // steps of a later refresh are not nested in the failed one
+        applicationStartup.start("springlite.after-refresh").end();
+        List<StartupTimeline.TimelineEvent> events = applicationStartup.getTimeline().getEvents();
+        Assert.assertNull(events.get(events.size() - 1).getParentId());
+    }
+
+    //Java代码注册bean: 由instanceSupplier创建实例, 属性/depends-on/scope仍然生效
+    @Test
+    public void testInstanceSupplier() {
+        final AtomicInteger created = new AtomicInteger();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.defineBean("mother", People.class)
+                .property("name", "Lily")
+                .property("age", "40")
+                .lazyInit()
+                .register();
+        AbstractBeanDefinition bd = beanFactory.defineBean("student", Student.class)
+                .instanceSupplier(new ObjectFactory<Student>() {
+                    public Student getObject() {
+                        created.incrementAndGet();
+                        return new Student("Tom", 12, null);
+                    }
+                })
+                .prototype()
+                .dependsOn("mother")
+                .propertyReference("mother", "mother")
+                .property("school", "No.1 Middle School")
+                .register();
+        Assert.assertTrue(bd.isPrototype());
+        Assert.assertNotNull(bd.getInstanceSupplier());
+
+        Student student1 = (Student) beanFactory.getBean("student");
+        Student student2 = beanFactory.getBean(Student.class);
+        Assert.assertEquals(2, created.get());
+        Assert.assertNotSame(student1, student2);
+        Assert.assertEquals("Tom", student1.getName());
+        Assert.assertEquals("No.1 Middle School", student1.getSchool());
+        Assert.assertEquals("Lily", student1.getMother().getName());
+        Assert.assertSame(student1.getMother(), student2.getMother());
+
+        beanFactory.registerBean("driver", ConsolePrinterDriver.class, new ObjectFactory<ConsolePrinterDriver>() {
+            public ConsolePrinterDriver getObject() {
+                return new ConsolePrinterDriver();
+            }
+        });
+        Assert.assertSame(beanFactory.getBean("driver"), beanFactory.getBean("driver"));
+    }
+
+    //延迟加载bean类: 按类型查找只读取lazy-init bean的class文件头, 首次创建时才加载类
+    @Test
+    public void testDeferredBeanClassLoading() {
+        final Set<String> loadedClasses = Collections.synchronizedSet(new HashSet<String>());
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setBeanClassLoader(new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                loadedClasses.add(name);
+                return super.loadClass(name, resolve);
+            }
+        });
+        RootBeanDefinition lazyDriver = new RootBeanDefinition(ConsolePrinterDriver.class.getName());
+        lazyDriver.setLazyInit(true);
+        beanFactory.registerBeanDefinition("lazyDriver", lazyDriver);
+        RootBeanDefinition people = new RootBeanDefinition(People.class.getName());
+        beanFactory.registerBeanDefinition("people", people);
+
+        Assert.assertEquals(Arrays.asList("lazyDriver"),
+                Arrays.asList(beanFactory.getBeanNamesForType(PrinterDriver.class)));
+        Assert.assertEquals(Arrays.asList("lazyDriver", "people"),
+                Arrays.asList(beanFactory.getBeanNamesForType(Object.class)));
+        Assert.assertEquals(0, beanFactory.getBeanNamesForType(FactoryBean.class).length);
+        Assert.assertTrue(loadedClasses.contains(People.class.getName()));
+        Assert.assertFalse(loadedClasses.contains(ConsolePrinterDriver.class.getName()));
+
+        Assert.assertTrue(beanFactory.getBean(PrinterDriver.class) instanceof ConsolePrinterDriver);
+        Assert.assertTrue(loadedClasses.contains(ConsolePrinterDriver.class.getName()));
+    }
+
 }